@@ -40,56 +40,48 @@ public abstract class AbstractCategoryServices<MR> implements
 	public static final ILogger	LOG	= LoggerFactory
 											.create(AbstractCategoryServices.class);
 
-	@Override
-	public final Category<MR> apply(ComplexCategory<MR> function,
-			Category<MR> argument) {
-		if (argument == null || argument.getSemantics() == null
-				|| function.getSemantics() == null) {
-			return null;
-		}
+	/**
+	 * Syntax-only application: the syntax of the result of applying a
+	 * function with the given syntax to an argument with the given syntax, or
+	 * null if the syntax doesn't allow application.
+	 */
+	public static Syntax applySyntax(ComplexSyntax function, Syntax argument) {
 		if (function.getSlash() == Slash.VERTICAL) {
 			return null;
 		}
-		final Unification syntaxArgUnification = function.getSyntax()
-				.getRight().unify(argument.getSyntax());
+		final Unification syntaxArgUnification = function.getRight().unify(
+				argument);
 		if (syntaxArgUnification != null) {
-			final Syntax newSyntax = function.getSyntax().getLeft()
-					.setVariable(syntaxArgUnification.getVariableAssignment());
-			if (newSyntax != null) {
-				final MR newSemantics = apply(function.getSemantics(),
-						argument.getSemantics());
-				if (newSemantics != null) {
-					return Category.create(newSyntax, newSemantics);
-				}
-			}
+			return function.getLeft().setVariable(
+					syntaxArgUnification.getVariableAssignment());
 		}
 		return null;
 	}
 
-	@Override
-	public final Category<MR> compose(ComplexCategory<MR> primary,
-			ComplexCategory<MR> secondary, int order, boolean cross) {
+	/**
+	 * Syntax-only composition: the syntax of the result of composing a primary
+	 * and a secondary with the given syntax, or null if the syntax doesn't
+	 * allow composition. See
+	 * {@link #compose(ComplexCategory, ComplexCategory, int, boolean)}.
+	 */
+	public static ComplexSyntax composeSyntax(ComplexSyntax primary,
+			Syntax secondary, int order, boolean cross) {
 		assert order > 0 : "Order must be at least 1. Zero-order composition is identical to application and should use the apply() method.";
 		assert !cross || order == 1 : "Only allow cross composition for first order composition.";
 
-		// Some basic checks.
 		if (primary.getSlash() == Slash.VERTICAL) {
 			return null;
 		}
 
-		if (secondary.getSemantics() == null || primary.getSemantics() == null) {
-			return null;
-		}
-
 		// Grab all components from the primary.
 		final Slash primarySlash = primary.getSlash();
-		final Syntax primaryYieldSyntax = primary.getSyntax().getLeft();
-		final Syntax primaryArgSyntax = primary.getSyntax().getRight();
+		final Syntax primaryYieldSyntax = primary.getLeft();
+		final Syntax primaryArgSyntax = primary.getRight();
 
 		// Iterate through secondary until the requested order.
 		final Syntax[] secondarySyntaxStack = new Syntax[order];
 		final Slash[] secondarySlashStack = new Slash[order];
-		Syntax currentSecondarySyntax = secondary.getSyntax();
+		Syntax currentSecondarySyntax = secondary;
 		for (int i = 0; i < order; ++i) {
 			if (!(currentSecondarySyntax instanceof ComplexSyntax)) {
 				// The secondary is not of high enough order.
@@ -128,31 +120,66 @@ public abstract class AbstractCategoryServices<MR> implements
 				return null;
 			}
 
-			// Case the syntax matches. Try to compose the semantics.
-			final MR newSemantics = compose(primary.getSemantics(),
-					secondary.getSemantics(), order);
-
-			if (newSemantics == null) {
-				// Semantics composition failed.
-				return null;
-			} else {
-				// Create the composed syntax. Pop from the stack to
-				// gradually create the new syntax object.
-				ComplexSyntax newSyntax = new ComplexSyntax(newYieldSyntax,
-						secondarySyntaxStack[order - 1],
-						secondarySlashStack[order - 1]);
-				for (int i = order - 2; i >= 0; --i) {
-					newSyntax = new ComplexSyntax(newSyntax,
-							secondarySyntaxStack[i], secondarySlashStack[i]);
-				}
-
-				return new ComplexCategory<MR>(newSyntax, newSemantics);
+			// Create the composed syntax. Pop from the stack to gradually
+			// create the new syntax object.
+			ComplexSyntax newSyntax = new ComplexSyntax(newYieldSyntax,
+					secondarySyntaxStack[order - 1],
+					secondarySlashStack[order - 1]);
+			for (int i = order - 2; i >= 0; --i) {
+				newSyntax = new ComplexSyntax(newSyntax,
+						secondarySyntaxStack[i], secondarySlashStack[i]);
 			}
+			return newSyntax;
 		}
 
 		return null;
 	}
 
+	@Override
+	public final Category<MR> apply(ComplexCategory<MR> function,
+			Category<MR> argument) {
+		if (argument == null || argument.getSemantics() == null
+				|| function.getSemantics() == null) {
+			return null;
+		}
+		final Syntax newSyntax = applySyntax(function.getSyntax(),
+				argument.getSyntax());
+		if (newSyntax != null) {
+			final MR newSemantics = apply(function.getSemantics(),
+					argument.getSemantics());
+			if (newSemantics != null) {
+				return Category.create(newSyntax, newSemantics);
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public final Category<MR> compose(ComplexCategory<MR> primary,
+			ComplexCategory<MR> secondary, int order, boolean cross) {
+		// Some basic checks.
+		if (secondary.getSemantics() == null || primary.getSemantics() == null) {
+			return null;
+		}
+
+		final ComplexSyntax newSyntax = composeSyntax(primary.getSyntax(),
+				secondary.getSyntax(), order, cross);
+		if (newSyntax == null) {
+			return null;
+		}
+
+		// Case the syntax matches. Try to compose the semantics.
+		final MR newSemantics = compose(primary.getSemantics(),
+				secondary.getSemantics(), order);
+
+		if (newSemantics == null) {
+			// Semantics composition failed.
+			return null;
+		} else {
+			return new ComplexCategory<MR>(newSyntax, newSemantics);
+		}
+	}
+
 	@Override
 	public final Category<MR> read(String string) {
 		String trimmed = string.trim();
@@ -141,6 +141,7 @@ public class TemplateCoarseGenlex<DI extends Sentence> extends
 				}
 			}
 		}
+		parserOutput.release();
 
 		LOG.debug("Lexicon generation, %d template-token pairs:",
 				triplets.size());
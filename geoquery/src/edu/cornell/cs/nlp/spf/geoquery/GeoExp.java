@@ -115,7 +115,8 @@ public class GeoExp extends DistributedExperiment {
 		// Category services for logical expressions
 		// //////////////////////////////////////////////////
 
-		this.categoryServices = new LogicalExpressionCategoryServices(true);
+		this.categoryServices = new LogicalExpressionCategoryServices(true,
+				globalParams.getAsInteger("applicationCache", 0));
 		storeResource(CATEGORY_SERVICES_RESOURCE, categoryServices);
 
 		// //////////////////////////////////////////////////
@@ -32,6 +32,8 @@ import edu.cornell.cs.nlp.spf.learn.validation.perceptron.ValidationPerceptron;
 import edu.cornell.cs.nlp.spf.learn.validation.stocgrad.ValidationStocGrad;
 import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
 import edu.cornell.cs.nlp.spf.mr.lambda.ccg.SimpleFullParseFilter;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYForestCache;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.LexicalEntryCache;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.multi.MultiCKYParser;
 import edu.cornell.cs.nlp.spf.parser.ccg.factoredlex.features.FactoredLexicalFeatureSet;
 import edu.cornell.cs.nlp.spf.parser.ccg.factoredlex.features.scorers.LexemeCooccurrenceScorer;
@@ -49,6 +51,7 @@ import edu.cornell.cs.nlp.spf.parser.ccg.model.ModelLogger;
 import edu.cornell.cs.nlp.spf.parser.ccg.model.WeightInit;
 import edu.cornell.cs.nlp.spf.parser.ccg.normalform.eisner.EisnerNormalFormCreator;
 import edu.cornell.cs.nlp.spf.parser.ccg.normalform.unaryconstraint.UnaryConstraint;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.ParseRuleCache;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.lambda.PluralExistentialTypeShifting;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.lambda.ThatlessRelative;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.lambda.typeraising.ForwardTypeRaisedComposition;
@@ -68,6 +71,12 @@ public class GeoResourceRepo extends ResourceCreatorRepository {
 		registerResourceCreator(new PluralExistentialTypeShifting.Creator());
 		registerResourceCreator(
 				new MultiCKYParser.Creator<Sentence, LogicalExpression>());
+		registerResourceCreator(
+				new ParseRuleCache.Creator<LogicalExpression>());
+		registerResourceCreator(
+				new LexicalEntryCache.Creator<LogicalExpression>());
+		registerResourceCreator(
+				new CKYForestCache.Creator<LogicalExpression>());
 		registerResourceCreator(new SimpleFullParseFilter.Creator());
 		registerResourceCreator(
 				new ExpLengthLexicalEntryScorer.Creator<LogicalExpression>());
@@ -142,6 +142,7 @@ public class SimplePerceptron implements
 				} else {
 					LOG.info("Correct. No update.");
 				}
+				parserOutput.release();
 				LOG.info("Sample processing time %.4f",
 						(System.currentTimeMillis() - startTime) / 1000.0);
 			}
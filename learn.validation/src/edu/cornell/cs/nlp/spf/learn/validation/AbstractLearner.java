@@ -195,6 +195,9 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 
 				stats.count("Processed", epochNumber);
 
+				// Outputs created for this sample, released once it's
+				// processed.
+				final List<PO> outputs = new LinkedList<PO>();
 				try {
 					// Data item model
 					final IDataItemModel<MR> dataItemModel = model
@@ -207,6 +210,7 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 
 					// Parse with current model and record some statistics
 					final PO parserOutput = parse(dataItem, dataItemModel);
+					outputs.add(parserOutput);
 					stats.mean("Model parse",
 							parserOutput.getParsingTime() / 1000.0, "sec");
 					parserOutputLogger.log(parserOutput, dataItemModel, String
@@ -250,7 +254,11 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 					}
 
 					final PO generationParserOutput = lexicalInduction(dataItem,
-							itemCounter, dataItemModel, model, epochNumber);
+							itemCounter, dataItemModel, model, epochNumber,
+							parserOutput);
+					if (generationParserOutput != null) {
+						outputs.add(generationParserOutput);
+					}
 
 					// ///////////////////////////
 					// Step III: Update parameters
@@ -265,6 +273,7 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 						final PO prunedParserOutput = parse(dataItem,
 								parsingFilterFactory.create(dataItem),
 								dataItemModel);
+						outputs.add(prunedParserOutput);
 						LOG.info("Conditioned parsing time: %.4fsec",
 								prunedParserOutput.getParsingTime() / 1000.0);
 						parserOutputLogger.log(prunedParserOutput,
@@ -277,6 +286,10 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 					}
 
 				} finally {
+					for (final PO output : outputs) {
+						output.release();
+					}
+
 					// Record statistics.
 					stats.mean("Sample processing",
 							(System.currentTimeMillis() - startTime) / 1000.0,
@@ -305,9 +318,14 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 		return parses;
 	}
 
+	/**
+	 * @param realOutput
+	 *            Output of parsing with the model lexicon, used for the
+	 *            parameter update.
+	 */
 	private PO lexicalInduction(final DI dataItem, int dataItemNumber,
 			IDataItemModel<MR> dataItemModel, Model<SAMPLE, MR> model,
-			int epochNumber) {
+			int epochNumber, PO realOutput) {
 		// Generate lexical entries
 		final ILexiconImmutable<MR> generatedLexicon = genlex.generate(dataItem,
 				model, categoryServices);
@@ -364,6 +382,13 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 				logParse(dataItem, parse, true, true, dataItemModel);
 			}
 
+			// Fix the features of the outputs used for the parameter update
+			// before the new entries change the model.
+			if (!bestGenerationParses.isEmpty()) {
+				realOutput.fixFeatures();
+				parserOutput.fixFeatures();
+			}
+
 			// Update the model's lexicon with generated lexical
 			// entries from the max scoring valid generation parses
 			int newLexicalEntries = 0;
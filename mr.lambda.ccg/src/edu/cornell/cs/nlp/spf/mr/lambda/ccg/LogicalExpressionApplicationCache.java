@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.mr.lambda.ccg;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.utils.log.ILogger;
+import edu.cornell.cs.nlp.utils.log.LoggerFactory;
+
+/**
+ * Bounded concurrent memo table for application and composition of logical
+ * expressions. Stores the result of each operation, including failures,
+ * keyed by the (structurally compared) operands and the composition order
+ * (0 for application). Only closed operands are cached. The result of an
+ * operation over expressions with free variables (e.g., skolem IDs) depends
+ * on the variable instances, so it's not re-usable. Statistics are logged
+ * every {@value #STATS_LOG_INTERVAL} lookups.
+ */
+public class LogicalExpressionApplicationCache {
+	public static final ILogger								LOG					= LoggerFactory
+			.create(LogicalExpressionApplicationCache.class);
+
+	private static final long								STATS_LOG_INTERVAL	= 1000000;
+
+	private final Cache<Key, Optional<LogicalExpression>>	cache;
+
+	private final AtomicLong								lookups				= new AtomicLong();
+
+	private final long										maxSize;
+
+	public LogicalExpressionApplicationCache(long maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException(
+					"Invalid cache size: " + maxSize);
+		}
+		this.maxSize = maxSize;
+		this.cache = CacheBuilder.newBuilder().maximumSize(maxSize)
+				.recordStats().build();
+		LOG.info("Init %s :: maxSize=%d", getClass().getSimpleName(),
+				maxSize);
+	}
+
+	public void clear() {
+		cache.invalidateAll();
+	}
+
+	public long getHitCount() {
+		return cache.stats().hitCount();
+	}
+
+	public double getHitRate() {
+		return cache.stats().hitRate();
+	}
+
+	public long getMissCount() {
+		return cache.stats().missCount();
+	}
+
+	/**
+	 * Get the result of the operation from the cache, or compute and store
+	 * it. Operations with non-closed operands are computed without accessing
+	 * the cache.
+	 *
+	 * @param order
+	 *            Composition order, 0 for application.
+	 * @param operation
+	 *            Computes the result of the operation, null if it fails.
+	 */
+	public LogicalExpression getOrCompute(LogicalExpression function,
+			LogicalExpression argument, int order,
+			Supplier<LogicalExpression> operation) {
+		if (function.numFreeVariables() != 0
+				|| argument.numFreeVariables() != 0) {
+			return operation.get();
+		}
+
+		final Key key = new Key(function, argument, order);
+		final Optional<LogicalExpression> cached = cache.getIfPresent(key);
+		if (lookups.incrementAndGet() % STATS_LOG_INTERVAL == 0) {
+			LOG.info(this);
+		}
+		if (cached != null) {
+			return cached.orElse(null);
+		}
+		final LogicalExpression result = operation.get();
+		cache.put(key, Optional.ofNullable(result));
+		return result;
+	}
+
+	public long size() {
+		return cache.size();
+	}
+
+	@Override
+	public String toString() {
+		final CacheStats stats = cache.stats();
+		return String.format(
+				"%s[size=%d, maxSize=%d, hits=%d, misses=%d, hitRate=%.4f, evictions=%d]",
+				getClass().getSimpleName(), cache.size(), maxSize,
+				stats.hitCount(), stats.missCount(), stats.hitRate(),
+				stats.evictionCount());
+	}
+
+	private static class Key {
+		private final LogicalExpression	argument;
+		private final LogicalExpression	function;
+		private final int				hashCode;
+		private final int				order;
+
+		public Key(LogicalExpression function, LogicalExpression argument,
+				int order) {
+			this.function = function;
+			this.argument = argument;
+			this.order = order;
+			this.hashCode = calcHashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			if (hashCode != other.hashCode || order != other.order) {
+				return false;
+			}
+			if (function != other.function
+					&& !function.equals(other.function)) {
+				return false;
+			}
+			return argument == other.argument
+					|| argument.equals(other.argument);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		private int calcHashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + argument.hashCode();
+			result = prime * result + function.hashCode();
+			result = prime * result + order;
+			return result;
+		}
+	}
+
+}
@@ -16,6 +16,9 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.mr.lambda.ccg;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+
 import edu.cornell.cs.nlp.spf.ccg.categories.AbstractCategoryServices;
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.SimpleCategory;
@@ -39,6 +42,14 @@ public class LogicalExpressionCategoryServices extends
 
 	private static final long					serialVersionUID	= -3386234351724055685L;
 
+	/**
+	 * Memo table for application and composition. Not serialized, re-created
+	 * empty when de-serialized. Null if {@link #applicationCacheSize} is 0.
+	 */
+	private transient LogicalExpressionApplicationCache	applicationCache;
+
+	private final long							applicationCacheSize;
+
 	private final boolean						doTypeChecking;
 	private final Category<LogicalExpression>	EMP					= new SimpleCategory<LogicalExpression>(
 																			Syntax.EMPTY,
@@ -49,30 +60,44 @@ public class LogicalExpressionCategoryServices extends
 	}
 
 	public LogicalExpressionCategoryServices(boolean doTypeChecking) {
+		this(doTypeChecking, 0);
+	}
+
+	/**
+	 * @param applicationCacheSize
+	 *            Maximum number of application and composition results to
+	 *            memoize (see {@link LogicalExpressionApplicationCache}). 0
+	 *            disables memoization.
+	 */
+	public LogicalExpressionCategoryServices(boolean doTypeChecking,
+			long applicationCacheSize) {
+		if (applicationCacheSize < 0) {
+			throw new IllegalArgumentException(
+					"Invalid application cache size: " + applicationCacheSize);
+		}
 		this.doTypeChecking = doTypeChecking;
-		LOG.info("Init :: %s: doTypeChecking=%s",
+		this.applicationCacheSize = applicationCacheSize;
+		this.applicationCache = createApplicationCache(applicationCacheSize);
+		LOG.info(
+				"Init :: %s: doTypeChecking=%s, applicationCacheSize=%d",
 				LogicalExpressionCategoryServices.class.getSimpleName(),
-				doTypeChecking);
+				doTypeChecking, applicationCacheSize);
+	}
+
+	private static LogicalExpressionApplicationCache createApplicationCache(
+			long size) {
+		return size == 0 ? null : new LogicalExpressionApplicationCache(size);
 	}
 
 	@Override
 	public LogicalExpression apply(LogicalExpression function,
 			LogicalExpression argument) {
-		final LogicalExpression result;
-
-		// Combined application and simplification
-		final LogicalExpression applicationResult = ApplyAndSimplify.of(
-				function, argument);
-		// Verify application result is well typed, only if verification is
-		// turned on
-		if (applicationResult != null && doTypeChecking
-				&& !IsTypeConsistent.of(applicationResult)) {
-			result = null;
+		if (applicationCache == null) {
+			return doApply(function, argument);
 		} else {
-			result = applicationResult;
+			return applicationCache.getOrCompute(function, argument, 0,
+					() -> doApply(function, argument));
 		}
-
-		return result;
 	}
 
 	/**
@@ -81,6 +106,26 @@ public class LogicalExpressionCategoryServices extends
 	@Override
 	public LogicalExpression compose(LogicalExpression f, LogicalExpression g,
 			int order) {
+		if (applicationCache == null) {
+			return doCompose(f, g, order);
+		} else {
+			return applicationCache.getOrCompute(f, g, order,
+					() -> doCompose(f, g, order));
+		}
+	}
+
+	private LogicalExpression doApply(LogicalExpression function,
+			LogicalExpression argument) {
+		// Combined application and simplification. If verification is turned
+		// on, the typing of the result is verified in the same pass.
+		final LogicalExpression result = doTypeChecking ? ApplyAndSimplify
+				.ofTypeChecked(function, argument) : ApplyAndSimplify.of(
+				function, argument);
+		return LogicLanguageServices.intern(result);
+	}
+
+	private LogicalExpression doCompose(LogicalExpression f,
+			LogicalExpression g, int order) {
 		assert order != 0 : "Order must be at least 1. Zero-order composition is identical to application and should use the apply() method.";
 
 		final Variable[] gVariableStack = new Variable[order - 1];
@@ -117,37 +162,35 @@ public class LogicalExpressionCategoryServices extends
 		final LogicalExpression gBodyWithNewVar = ApplyAndSimplify.of(currentG,
 				x);
 		if (gBodyWithNewVar != null) {
-			final LogicalExpression newbody = ApplyAndSimplify.of(f,
-					gBodyWithNewVar);
+			// If verification is turned on, the typing of (lambda x newbody)
+			// is verified while applying.
+			final LogicalExpression newbody = doTypeChecking ? ApplyAndSimplify
+					.ofTypeChecked(f, gBodyWithNewVar, x) : ApplyAndSimplify
+					.of(f, gBodyWithNewVar);
 			if (newbody != null) {
 				final LogicalExpression newComposedExp = new Lambda(x, newbody);
-				// Do type checking, if verification is turned on
-				if (doTypeChecking && !IsTypeConsistent.of(newComposedExp)) {
-					return null;
-				} else {
-					// If gBodyWithNewVar is a variable (such as will happen
-					// when g is the identity function), it is possible that we
-					// need to simplify, since the simplify code can fold and
-					// drop Lambda operators under certain conditions. The same
-					// is true for the cases where newbody is identical to
-					// gBodyWithNewVar (such as the case when f is the identity
-					// function).
-					// See AbstractSimplify.visit(Lambda).
-
-					final LogicalExpression result = gBodyWithNewVar instanceof Variable
-							|| gBodyWithNewVar == newbody ? Simplify
-							.of(newComposedExp) : newComposedExp;
-
-					// Wrap the result with all the variables previously
-					// stripped from G.
-					LogicalExpression wrappedResult = result;
-					for (int i = order - 2; i >= 0; --i) {
-						wrappedResult = new Lambda(gVariableStack[i],
-								wrappedResult);
-					}
-
-					return wrappedResult;
+				// If gBodyWithNewVar is a variable (such as will happen
+				// when g is the identity function), it is possible that we
+				// need to simplify, since the simplify code can fold and
+				// drop Lambda operators under certain conditions. The same
+				// is true for the cases where newbody is identical to
+				// gBodyWithNewVar (such as the case when f is the identity
+				// function).
+				// See AbstractSimplify.visit(Lambda).
+
+				final LogicalExpression result = gBodyWithNewVar instanceof Variable
+						|| gBodyWithNewVar == newbody ? Simplify
+						.of(newComposedExp) : newComposedExp;
+
+				// Wrap the result with all the variables previously
+				// stripped from G.
+				LogicalExpression wrappedResult = result;
+				for (int i = order - 2; i >= 0; --i) {
+					wrappedResult = new Lambda(gVariableStack[i],
+							wrappedResult);
 				}
+
+				return LogicLanguageServices.intern(wrappedResult);
 			}
 		}
 
@@ -173,6 +216,14 @@ public class LogicalExpressionCategoryServices extends
 		return true;
 	}
 
+	/**
+	 * Memo table for application and composition, or null if memoization is
+	 * disabled.
+	 */
+	public LogicalExpressionApplicationCache getApplicationCache() {
+		return applicationCache;
+	}
+
 	@Override
 	public Category<LogicalExpression> getEmptyCategory() {
 		return EMP;
@@ -198,11 +249,17 @@ public class LogicalExpressionCategoryServices extends
 						+ typeChecking.second() + "]: " + string);
 			}
 		}
-		return Simplify.of(exp);
+		return LogicLanguageServices.intern(Simplify.of(exp));
 	}
 
 	@Override
 	public String toString() {
 		return LogicalExpressionCategoryServices.class.getName();
 	}
+
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		applicationCache = createApplicationCache(applicationCacheSize);
+	}
 }
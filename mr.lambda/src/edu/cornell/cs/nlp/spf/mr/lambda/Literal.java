@@ -62,6 +62,14 @@ public class Literal extends LogicalExpression {
 	 */
 	private final LogicalExpression[]	arguments;
 
+	/**
+	 * The arguments in canonical order, used for comparison. Identical to
+	 * {@link #arguments} if they are already in canonical order. Null if the
+	 * predicate is order sensitive or the arguments can't be re-ordered (see
+	 * {@link #canonicalOrder(ComplexType, LogicalExpression[], Type[])}).
+	 */
+	private final LogicalExpression[]	canonicalArguments;
+
 	private final Set<Variable>			freeVariables;
 
 	private final LogicalExpression		predicate;
@@ -155,7 +163,47 @@ public class Literal extends LogicalExpression {
 				predicate, Arrays.toString(arguments));
 		this.type = literalType;
 		this.signature = impliedSignatureTypes;
+		this.canonicalArguments = canonicalOrder(
+				(ComplexType) predicate.getType(), arguments,
+				impliedSignatureTypes);
+	}
 
+	/**
+	 * Sorts the arguments of an order-insensitive predicate by their hash code.
+	 * Hash codes ignore variable names, so alpha-equivalent arguments are
+	 * placed in the same position, and comparing two such literals only
+	 * requires a search among arguments with identical hash codes. Only
+	 * applies when all arguments fill the repeated domain of the predicate
+	 * (e.g., not to the last argument of (pred:<e*,<t,t>> boo:e foo:e too:t)).
+	 * The sort is stable. The given array is not modified.
+	 *
+	 * @return The sorted arguments, or null if the order of the arguments
+	 *         can't be changed.
+	 */
+	private static LogicalExpression[] canonicalOrder(
+			ComplexType predicateType, LogicalExpression[] arguments,
+			Type[] signature) {
+		if (predicateType.isOrderSensitive()) {
+			return null;
+		}
+		boolean sorted = true;
+		for (int i = 0; i < arguments.length; ++i) {
+			if (signature[i] != predicateType.getDomain()) {
+				return null;
+			}
+			if (i > 0
+					&& arguments[i - 1].hashCode() > arguments[i].hashCode()) {
+				sorted = false;
+			}
+		}
+		if (sorted) {
+			return arguments;
+		}
+		final LogicalExpression[] sortedArguments = Arrays.copyOf(arguments,
+				arguments.length);
+		Arrays.sort(sortedArguments, (a1, a2) -> Integer.compare(
+				a1.hashCode(), a2.hashCode()));
+		return sortedArguments;
 	}
 
 	public static Pair<Type, Type[]> computeLiteralTyping(
@@ -350,6 +398,17 @@ public class Literal extends LogicalExpression {
 		return signature[index];
 	}
 
+	/**
+	 * Get the argument at the given index, when the arguments are in
+	 * canonical order. Arguments of order-insensitive predicates are sorted
+	 * by their hash code, if possible. Otherwise, identical to
+	 * {@link #getArg(int)}.
+	 */
+	LogicalExpression getCanonicalArg(int index) {
+		return canonicalArguments == null ? arguments[index]
+				: canonicalArguments[index];
+	}
+
 	@Override
 	public Set<Variable> getFreeVariables() {
 		return freeVariables;
@@ -411,39 +470,87 @@ public class Literal extends LogicalExpression {
 					return false;
 				}
 			}
+		} else if (canonicalArguments == null
+				|| other.canonicalArguments == null) {
+			if (!unorderedEquals(arguments, other.arguments, 0,
+					arguments.length, mapping)) {
+				return false;
+			}
 		} else {
-			final int length = arguments.length;
-			final LogicalExpression[] otherArgsCopy = other.argumentCopy();
-			for (int j = 0; j < arguments.length; ++j) {
-				final LogicalExpression argThis = arguments[j];
-				boolean found = false;
-				for (int i = 0; i < length; ++i) {
-					if (otherArgsCopy[i] != null) {
-						// Use maps from the pool to avoid constantly allocating
-						// objects.
-						final ScopeMappingOverlay<Variable, Variable> overlayMapping = new ScopeMappingOverlay<Variable, Variable>(
-								mapping,
-								new IdentityFastStackMap<Variable, Variable>(),
-								new IdentityFastStackMap<Variable, Variable>());
-						if (argThis.equals(otherArgsCopy[i], overlayMapping)) {
-							found = true;
-							otherArgsCopy[i] = null;
-							overlayMapping.applyToBase();
-							break;
-						}
+			// The arguments of both literals are in canonical order (sorted by
+			// hash code), so equal arguments must be in the same run of
+			// identical hash codes. Usually, runs contain a single argument,
+			// and the comparison is linear.
+			final LogicalExpression[] args = canonicalArguments;
+			final LogicalExpression[] otherArgs = other.canonicalArguments;
+			final int length = args.length;
+			int start = 0;
+			while (start < length) {
+				final int hashCode = args[start].hashCode();
+				int end = start + 1;
+				while (end < length && args[end].hashCode() == hashCode) {
+					++end;
+				}
+				for (int i = start; i < end; ++i) {
+					if (otherArgs[i].hashCode() != hashCode) {
+						return false;
 					}
 				}
-				if (!found) {
+				if (end < length && otherArgs[end].hashCode() == hashCode) {
 					return false;
 				}
+				if (end - start == 1) {
+					if (!args[start].equals(otherArgs[start], mapping)) {
+						return false;
+					}
+				} else if (!unorderedEquals(args, otherArgs, start, end,
+						mapping)) {
+					return false;
+				}
+				start = end;
 			}
-			// No need to check if otherArgCopy is empty, since we already know
-			// the number of arguments is identical
 		}
 
 		return true;
 	}
 
+	/**
+	 * Compares the arguments in the range [start, end) of the two arrays,
+	 * ignoring their order.
+	 */
+	private static boolean unorderedEquals(LogicalExpression[] args,
+			LogicalExpression[] otherArgs, int start, int end,
+			ScopeMapping<Variable, Variable> mapping) {
+		final LogicalExpression[] otherArgsCopy = Arrays.copyOfRange(
+				otherArgs, start, end);
+		for (int j = start; j < end; ++j) {
+			final LogicalExpression argThis = args[j];
+			boolean found = false;
+			for (int i = 0; i < otherArgsCopy.length; ++i) {
+				if (otherArgsCopy[i] != null) {
+					// Use maps from the pool to avoid constantly allocating
+					// objects.
+					final ScopeMappingOverlay<Variable, Variable> overlayMapping = new ScopeMappingOverlay<Variable, Variable>(
+							mapping,
+							new IdentityFastStackMap<Variable, Variable>(),
+							new IdentityFastStackMap<Variable, Variable>());
+					if (argThis.equals(otherArgsCopy[i], overlayMapping)) {
+						found = true;
+						otherArgsCopy[i] = null;
+						overlayMapping.applyToBase();
+						break;
+					}
+				}
+			}
+			if (!found) {
+				return false;
+			}
+		}
+		// No need to check if otherArgCopy is empty, since both ranges have
+		// the same length
+		return true;
+	}
+
 	public static class Reader implements IReader<Literal> {
 
 		@Override
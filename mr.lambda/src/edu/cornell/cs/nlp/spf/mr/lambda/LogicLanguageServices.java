@@ -78,6 +78,12 @@ public class LogicLanguageServices {
 
 	private final LogicalConstant								indexIncreasePredicate;
 
+	/**
+	 * Hash-consing table for closed logical expressions. If null, expressions
+	 * are not interned.
+	 */
+	private final LogicalExpressionInterner						interner;
+
 	private final LogicalConstant								negationPredicate;
 
 	/**
@@ -110,11 +116,13 @@ public class LogicLanguageServices {
 			LogicalConstant indexIncreasePredicate,
 			LogicalConstant trueConstant, LogicalConstant falseConstant,
 			ILogicalExpressionPrinter printer,
-			ILogicalExpressionComparator comparator) {
+			ILogicalExpressionComparator comparator,
+			LogicalExpressionInterner interner) {
 		this.typeRepository = typeRepository;
 		this.ontology = ontology;
 		this.printer = printer;
 		this.comparator = comparator;
+		this.interner = interner;
 		this.numeralType = numeralTypeName == null ? null : typeRepository
 				.getType(numeralTypeName);
 		this.typeComparator = typeComparator;
@@ -169,6 +177,13 @@ public class LogicLanguageServices {
 		return LogicalConstant.createDynamic(name, predicateType, false);
 	}
 
+	/**
+	 * Returns the hash-consing table, or null if hash consing is disabled.
+	 */
+	public static LogicalExpressionInterner getInterner() {
+		return INSTANCE == null ? null : INSTANCE.interner;
+	}
+
 	public static LogicalConstant getNegationPredicate() {
 		return INSTANCE.negationPredicate;
 	}
@@ -233,6 +248,18 @@ public class LogicLanguageServices {
 		return INSTANCE;
 	}
 
+	/**
+	 * Returns the shared representative of the given expression, if hash
+	 * consing is enabled (see {@link Builder#setHashConsing(boolean)}).
+	 * Otherwise, returns the expression itself.
+	 */
+	public static LogicalExpression intern(LogicalExpression exp) {
+		if (exp == null || INSTANCE == null || INSTANCE.interner == null) {
+			return exp;
+		}
+		return INSTANCE.interner.intern(exp);
+	}
+
 	static public LogicalConstant intToIndexConstant(int i) {
 		final String name = LogicalConstant.makeFullName(String.valueOf(i),
 				INSTANCE.typeRepository.getIndexType());
@@ -339,6 +366,7 @@ public class LogicLanguageServices {
 
 		private ILogicalExpressionComparator	comparator		= new LogicalExpressionComparator();
 		private final List<File>				constantsFiles	= new LinkedList<File>();
+		private boolean							hashConsing		= false;
 		private String							numeralTypeName	= null;
 		private boolean							ontologyClosed	= false;
 		private ILogicalExpressionPrinter		printer			= new LogicalExpressionToString.Printer();
@@ -474,7 +502,8 @@ public class LogicLanguageServices {
 					typeComparator, ontology, conjunctionPredicate,
 					disjunctionPredicate, negationPredicate,
 					indexIncreasePredicate, trueConstant, falseConstant,
-					printer, comparator);
+					printer, comparator,
+					hashConsing ? new LogicalExpressionInterner() : null);
 		}
 
 		/**
@@ -492,6 +521,17 @@ public class LogicLanguageServices {
 			return this;
 		}
 
+		/**
+		 * Intern logical expressions created by the reader and the CCG
+		 * category services, so alpha-equivalent closed expressions share a
+		 * single instance and are compared by reference. See
+		 * {@link LogicalExpressionInterner}.
+		 */
+		public Builder setHashConsing(boolean hashConsing) {
+			this.hashConsing = hashConsing;
+			return this;
+		}
+
 		/**
 		 * Set the type used for numerical objects in the logical system. This
 		 * type is used to convert such objects to numbers using
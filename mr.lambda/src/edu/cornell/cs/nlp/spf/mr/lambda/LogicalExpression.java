@@ -52,6 +52,13 @@ public abstract class LogicalExpression implements
 	 */
 	private transient boolean	hashCodeCalculated	= false;
 
+	/**
+	 * Mutable cache for the structural summary. This field is for internal
+	 * use only! It mustn't be used when copying/comparing/storing/etc. the
+	 * object.
+	 */
+	private transient LogicalExpressionSummary	summaryCache	= null;
+
 	public static LogicalExpression read(String string) {
 		return LogicalExpressionReader.from(string);
 	}
@@ -93,6 +100,18 @@ public abstract class LogicalExpression implements
 
 	public abstract Set<Variable> getFreeVariables();
 
+	/**
+	 * Structural summary of the expression (e.g., the set of constants it
+	 * contains). Computed on first request and cached. Computing it caches the
+	 * summaries of all sub-expressions as well.
+	 */
+	public final LogicalExpressionSummary getSummary() {
+		if (summaryCache == null) {
+			summaryCache = new LogicalExpressionSummary(this);
+		}
+		return summaryCache;
+	}
+
 	abstract public Type getType();
 
 	@Override
@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.mr.lambda;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Hash-consing table for logical expressions. Interning returns a single
+ * representative instance for all alpha-equivalent closed expressions, so
+ * comparing interned expressions is a reference comparison (see
+ * {@link LogicLanguageServices#isEqual(LogicalExpression, LogicalExpression)}
+ * ). Closed sub-expressions are interned recursively, so they are shared as
+ * well.
+ * <p>
+ * Expressions are keyed by a de Bruijn form: each bound variable is replaced
+ * with the distance to its lambda, and each closed sub-expression with its
+ * (already interned) representative. Expressions with free variables
+ * (including skolem IDs) are not interned themselves, since their equality
+ * depends on the variable mapping of the enclosing comparison. The
+ * representative is the first instance interned, rather than a renamed copy,
+ * so a variable is never bound by two nested lambdas. Arguments of
+ * order-insensitive predicates (e.g., and:<t*,t>) are encoded in their
+ * canonical order (see {@link Literal#getCanonicalArg(int)}), so re-ordering
+ * them usually gives the same representative.
+ * <p>
+ * Representatives are weakly referenced, so expressions that are no longer
+ * used are collected. Thread-safe.
+ */
+public class LogicalExpressionInterner {
+
+	private static final Object							LAMBDA		= new Object();
+
+	private static final Object							LITERAL		= new Object();
+
+	private static final Object							VARIABLE	= new Object();
+
+	private final LongAdder								hits		= new LongAdder();
+
+	private final LongAdder								requests	= new LongAdder();
+
+	private final ConcurrentMap<Key, LogicalExpression>	table		= CacheBuilder
+			.newBuilder().weakValues().<Key, LogicalExpression> build()
+			.asMap();
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getRequestCount() {
+		return requests.sum();
+	}
+
+	/**
+	 * Get the representative of the given expression. If the expression is
+	 * not closed, returns an equal expression where all closed
+	 * sub-expressions are replaced with their representatives.
+	 */
+	public LogicalExpression intern(LogicalExpression exp) {
+		if (exp instanceof Lambda) {
+			final Lambda lambda = (Lambda) exp;
+			final LogicalExpression body = intern(lambda.getBody());
+			return lookup(body == lambda.getBody() ? lambda
+					: new Lambda(lambda.getArgument(), body));
+		} else if (exp instanceof Literal) {
+			final Literal literal = (Literal) exp;
+			final LogicalExpression predicate = intern(literal.getPredicate());
+			LogicalExpression[] args = null;
+			final int numArgs = literal.numArgs();
+			for (int i = 0; i < numArgs; ++i) {
+				final LogicalExpression arg = literal.getArg(i);
+				final LogicalExpression internedArg = intern(arg);
+				if (args == null && internedArg != arg) {
+					args = literal.argumentCopy();
+				}
+				if (args != null) {
+					args[i] = internedArg;
+				}
+			}
+			if (args == null && predicate == literal.getPredicate()) {
+				return lookup(literal);
+			} else {
+				return lookup(new Literal(predicate,
+						args == null ? literal.argumentCopy() : args));
+			}
+		} else if (exp instanceof LogicalConstant) {
+			return lookup(exp);
+		} else {
+			// Variables are never shared.
+			return exp;
+		}
+	}
+
+	public int size() {
+		return table.size();
+	}
+
+	@Override
+	public String toString() {
+		final long numRequests = requests.sum();
+		final long numHits = hits.sum();
+		return String.format(
+				"%s[size=%d, requests=%d, hits=%d, hitRate=%.4f]",
+				getClass().getSimpleName(), table.size(), numRequests,
+				numHits,
+				numRequests == 0 ? 1.0 : (double) numHits / numRequests);
+	}
+
+	/**
+	 * Get the representative of an expression, given all its closed
+	 * sub-expressions are representatives.
+	 */
+	private LogicalExpression lookup(LogicalExpression exp) {
+		if (exp.numFreeVariables() != 0) {
+			return exp;
+		}
+		requests.increment();
+		final List<Object> tokens = new ArrayList<Object>();
+		encode(exp, true, tokens, new ArrayList<Variable>());
+		final LogicalExpression existing = table
+				.putIfAbsent(new Key(tokens.toArray()), exp);
+		if (existing == null) {
+			return exp;
+		} else {
+			hits.increment();
+			return existing;
+		}
+	}
+
+	/**
+	 * Append the de Bruijn form of the expression to the list of tokens.
+	 *
+	 * @param root
+	 *            The expression is the root of the encoded expression.
+	 * @param bound
+	 *            Stack of variables bound by enclosing lambdas.
+	 */
+	private static void encode(LogicalExpression exp, boolean root,
+			List<Object> tokens, List<Variable> bound) {
+		if (exp instanceof LogicalConstant
+				|| !root && exp.numFreeVariables() == 0) {
+			// Constants are compared using equals(). Closed sub-expressions
+			// are representatives, and are compared by reference.
+			tokens.add(exp);
+		} else if (exp instanceof Lambda) {
+			final Lambda lambda = (Lambda) exp;
+			tokens.add(LAMBDA);
+			tokens.add(lambda.getArgument().getType());
+			bound.add(lambda.getArgument());
+			encode(lambda.getBody(), false, tokens, bound);
+			bound.remove(bound.size() - 1);
+		} else if (exp instanceof Literal) {
+			final Literal literal = (Literal) exp;
+			final int numArgs = literal.numArgs();
+			tokens.add(LITERAL);
+			tokens.add(numArgs);
+			encode(literal.getPredicate(), false, tokens, bound);
+			for (int i = 0; i < numArgs; ++i) {
+				encode(literal.getCanonicalArg(i), false, tokens, bound);
+			}
+		} else if (exp instanceof Variable) {
+			// The expression is closed, so the variable is bound.
+			int index = bound.size() - 1;
+			while (bound.get(index) != exp) {
+				--index;
+			}
+			tokens.add(VARIABLE);
+			tokens.add(bound.size() - 1 - index);
+		} else {
+			throw new IllegalArgumentException(
+					"Unsupported logical expression: " + exp);
+		}
+	}
+
+	private static class Key {
+		private final int		hashCode;
+		private final Object[]	tokens;
+
+		public Key(Object[] tokens) {
+			this.tokens = tokens;
+			this.hashCode = Arrays.hashCode(tokens);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			if (hashCode != other.hashCode
+					|| tokens.length != other.tokens.length) {
+				return false;
+			}
+			for (int i = 0; i < tokens.length; ++i) {
+				final Object token = tokens[i];
+				final Object otherToken = other.tokens[i];
+				if (token != otherToken && (token instanceof Lambda
+						|| token instanceof Literal
+						|| !token.equals(otherToken))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+}
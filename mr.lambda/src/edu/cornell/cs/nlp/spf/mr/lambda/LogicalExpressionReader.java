@@ -91,9 +91,9 @@ public class LogicalExpressionReader {
 		// space.
 		final String flatString = WHITE_SPACE_REPLACER.replace(string);
 		try {
-			return LambdaWrapped.of(read(flatString,
-					new ScopeMapping<String, LogicalExpression>(),
-					typeRepository, typeComparator));
+			return LogicLanguageServices.intern(LambdaWrapped.of(read(
+					flatString, new ScopeMapping<String, LogicalExpression>(),
+					typeRepository, typeComparator)));
 		} catch (final RuntimeException e) {
 			LOG.error("Logical expression syntax error: %s", flatString);
 			throw e;
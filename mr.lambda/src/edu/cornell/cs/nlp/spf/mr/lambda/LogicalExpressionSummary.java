@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.mr.lambda;
+
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.GetStructure;
+
+/**
+ * Structural summary of a logical expression: the set of logical constants it
+ * contains, its depth and its size. The summary is computed on first request
+ * and cached in the expression (see {@link LogicalExpression#getSummary()}).
+ * Since logical expressions are immutable, the summary is computed from the
+ * cached summaries of the direct sub-expressions, so sub-expressions shared
+ * between expressions (e.g., the semantics of a chart cell and the expressions
+ * it's combined into) are not walked again. The anonymized structure of the
+ * expression (see {@link GetStructure}) is computed on first request.
+ * <p>
+ * Thread-safe. Concurrent requests may compute the same summary more than
+ * once, but all copies are identical.
+ */
+public final class LogicalExpressionSummary {
+
+	private final ImmutableSet<LogicalConstant>	constants;
+
+	private final int							depth;
+
+	private final LogicalExpression				expression;
+
+	private final int							size;
+
+	private volatile LogicalExpression			structure	= null;
+
+	LogicalExpressionSummary(LogicalExpression exp) {
+		this.expression = exp;
+		if (exp instanceof Lambda) {
+			// The argument is a variable, so contributes no constants.
+			final LogicalExpressionSummary body = ((Lambda) exp).getBody()
+					.getSummary();
+			this.constants = body.constants;
+			this.depth = body.depth + 1;
+			this.size = body.size + 2;
+		} else if (exp instanceof Literal) {
+			final Literal literal = (Literal) exp;
+			final int len = literal.numArgs();
+			final LogicalExpressionSummary[] summaries = new LogicalExpressionSummary[len + 1];
+			summaries[len] = literal.getPredicate().getSummary();
+			int maxDepth = summaries[len].depth;
+			int sum = summaries[len].size;
+			ImmutableSet<LogicalConstant> largest = summaries[len].constants;
+			for (int i = 0; i < len; ++i) {
+				summaries[i] = literal.getArg(i).getSummary();
+				maxDepth = Math.max(maxDepth, summaries[i].depth);
+				sum += summaries[i].size;
+				if (summaries[i].constants.size() > largest.size()) {
+					largest = summaries[i].constants;
+				}
+			}
+			this.constants = union(summaries, largest);
+			this.depth = maxDepth + 1;
+			this.size = sum + 1;
+		} else if (exp instanceof LogicalConstant) {
+			this.constants = ImmutableSet.of((LogicalConstant) exp);
+			this.depth = 1;
+			this.size = 1;
+		} else if (exp instanceof Variable) {
+			this.constants = ImmutableSet.of();
+			this.depth = 1;
+			this.size = 1;
+		} else {
+			throw new IllegalStateException("unknown logical expression class");
+		}
+	}
+
+	/**
+	 * Union of the sets of constants of the given summaries. If possible,
+	 * re-uses the largest set to save memory.
+	 */
+	private static ImmutableSet<LogicalConstant> union(
+			LogicalExpressionSummary[] summaries,
+			ImmutableSet<LogicalConstant> largest) {
+		for (final LogicalExpressionSummary summary : summaries) {
+			if (summary.constants != largest
+					&& !largest.containsAll(summary.constants)) {
+				final ImmutableSet.Builder<LogicalConstant> builder = ImmutableSet
+						.builder();
+				for (final LogicalExpressionSummary s : summaries) {
+					builder.addAll(s.constants);
+				}
+				return builder.build();
+			}
+		}
+		return largest;
+	}
+
+	/**
+	 * The set of all logical constants in the expression (immutable).
+	 */
+	public Set<LogicalConstant> getConstants() {
+		return constants;
+	}
+
+	/**
+	 * The depth of the expression tree. Terms have a depth of 1.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * The number of nodes in the expression tree, including the arguments of
+	 * lambda operators and the predicates of literals.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * The structure of the expression, with the default anonymized name (see
+	 * {@link GetStructure#of(LogicalExpression)}).
+	 */
+	public LogicalExpression getStructure() {
+		if (structure == null) {
+			structure = GetStructure.of(expression,
+					GetStructure.DEFAULT_ANONNYMOUS_TAG);
+		}
+		return structure;
+	}
+
+	@Override
+	public String toString() {
+		return "LogicalExpressionSummary [constants=" + constants + ", depth="
+				+ depth + ", size=" + size + "]";
+	}
+
+}
@@ -98,6 +98,15 @@ public abstract class AbstrcatSimplify implements ILogicalExpressionVisitor {
 		}
 	}
 
+	/**
+	 * Apply a simplified predicate to a simplified argument, when consuming
+	 * arguments of a literal.
+	 */
+	protected LogicalExpression consume(LogicalExpression predicate,
+			LogicalExpression arg) {
+		return ApplyAndSimplify.ofUnsafe(predicate, arg);
+	}
+
 	@Override
 	public void visit(Lambda lambda) {
 
@@ -163,8 +172,8 @@ public abstract class AbstrcatSimplify implements ILogicalExpressionVisitor {
 			boolean changeDueToLambdaApplication = false;
 			int i = 0;
 			while (shouldConsumeArgs(newPred) && i < simplifiedArgs.length) {
-				final LogicalExpression applyResult = ApplyAndSimplify
-						.ofUnsafe(newPred, simplifiedArgs[i]);
+				final LogicalExpression applyResult = consume(newPred,
+						simplifiedArgs[i]);
 				if (applyResult == null) {
 					// Application failed, so stop consuming.
 					break;
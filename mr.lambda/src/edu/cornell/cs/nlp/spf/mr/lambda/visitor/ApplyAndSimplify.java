@@ -27,7 +27,9 @@ import edu.cornell.cs.nlp.spf.mr.lambda.Variable;
 /**
  * Apply a functional expression to an argument. The result is simplified. The
  * visitor also takes care of instances where the two logical expressions use
- * the same variable object (by replacing as needed).
+ * the same variable object (by replacing as needed). Optionally, the typing of
+ * the result is verified in the same pass (see
+ * {@link #ofTypeChecked(LogicalExpression, LogicalExpression, Variable...)}).
  *
  * @author Luke Zettlemoyer
  */
@@ -38,22 +40,37 @@ public class ApplyAndSimplify extends AbstrcatSimplify {
 	 */
 	private final LogicalExpression	appliedToArg;
 
+	/**
+	 * Indicates the argument was type checked. The argument is checked once,
+	 * when it's first used.
+	 */
+	private boolean					argChecked;
+
 	/**
 	 * The variables that represents the argument in the given logical
 	 * expression
 	 */
 	private final Variable			rootVariable;
 
+	/**
+	 * Type checker shared by all visitors of a single type-checked
+	 * application. Null if typing is not verified.
+	 */
+	private final IsTypeConsistent	typeChecker;
+
 	/**
 	 * This constructor is private as a small part of the logic is in the static
 	 * {@link #of(LogicalExpression, LogicalExpression, boolean, boolean)}
 	 * method. Therefore, this visitor is not independent.
 	 */
 	private ApplyAndSimplify(LogicalExpression appliedToArg,
-			Variable rootVariable) {
+			Variable rootVariable, IsTypeConsistent typeChecker,
+			boolean argChecked) {
 		super(false);
 		this.appliedToArg = appliedToArg;
 		this.rootVariable = rootVariable;
+		this.typeChecker = typeChecker;
+		this.argChecked = argChecked;
 	}
 
 	public static LogicalExpression of(LogicalExpression func,
@@ -66,6 +83,51 @@ public class ApplyAndSimplify extends AbstrcatSimplify {
 		return ofUnsafe(func, safeArg);
 	}
 
+	/**
+	 * Apply, simplify and verify the typing of the result (see
+	 * {@link IsTypeConsistent}) in a single pass. Sub-expressions that are not
+	 * modified are only type checked, and the argument is checked once, no
+	 * matter how many times it's used. Sub-expressions removed by
+	 * simplification are verified as well, so a conflict may be found in an
+	 * intermediate expression that doesn't survive. In that case, the
+	 * application is repeated without verification and only the final result
+	 * is verified, so this is equivalent to verifying the final result with
+	 * {@link IsTypeConsistent#of(LogicalExpression)}.
+	 *
+	 * @param boundVariables
+	 *            Variables that will be bound by lambda operators wrapping
+	 *            the result, so their usage is verified accordingly.
+	 * @return The simplified result, or null if the application failed or the
+	 *         result is not well typed.
+	 */
+	public static LogicalExpression ofTypeChecked(LogicalExpression func,
+			LogicalExpression arg, Variable... boundVariables) {
+		final LogicalExpression safeArg = ReplaceFreeVariablesIfPresent.of(arg,
+				func.getFreeVariables());
+		final IsTypeConsistent typeChecker = new IsTypeConsistent();
+		for (final Variable variable : boundVariables) {
+			typeChecker.bind(variable);
+		}
+		final LogicalExpression result = ofUnsafe(func, safeArg, typeChecker,
+				false);
+		if (typeChecker.isWellTyped()) {
+			return result;
+		}
+
+		// Case typing conflict. Verification stopped at the conflict, so the
+		// result is not fully simplified. Re-apply and verify only the
+		// simplified result.
+		final LogicalExpression simplified = ofUnsafe(func, safeArg);
+		if (simplified == null) {
+			return null;
+		}
+		final IsTypeConsistent resultChecker = new IsTypeConsistent();
+		for (final Variable variable : boundVariables) {
+			resultChecker.bind(variable);
+		}
+		return resultChecker.check(simplified) ? simplified : null;
+	}
+
 	private static LogicalExpression literalApplication(Literal literal,
 			LogicalExpression arg) {
 		final int len = literal.numArgs();
@@ -94,6 +156,38 @@ public class ApplyAndSimplify extends AbstrcatSimplify {
 	 */
 	static LogicalExpression ofUnsafe(LogicalExpression func,
 			LogicalExpression arg) {
+		return ofUnsafe(func, arg, null, false);
+	}
+
+	/**
+	 * Verify the typing of the result of an application of a literal or a
+	 * term, which are simplified without visiting.
+	 *
+	 * @param operandsChecked
+	 *            The function and the argument were already checked, so only
+	 *            the arguments of the root literal are verified.
+	 */
+	private static LogicalExpression checkResult(LogicalExpression result,
+			IsTypeConsistent typeChecker, boolean operandsChecked) {
+		if (typeChecker != null && result != null) {
+			if (!operandsChecked) {
+				typeChecker.check(result);
+			} else if (result instanceof Literal) {
+				typeChecker.verifyArgs((Literal) result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param typeChecker
+	 *            Type checker to verify the result, or null.
+	 * @param operandsChecked
+	 *            The function and the argument were already type checked.
+	 */
+	private static LogicalExpression ofUnsafe(LogicalExpression func,
+			LogicalExpression arg, IsTypeConsistent typeChecker,
+			boolean operandsChecked) {
 		// Verify type matching. The functor must be have a complex type, and
 		// need to be in some kind of parent-child relationship with the
 		// argument, as we allow flexible typing syntax-wise.
@@ -107,7 +201,8 @@ public class ApplyAndSimplify extends AbstrcatSimplify {
 			final Lambda lambda = (Lambda) func;
 			final Variable variable = lambda.getArgument();
 
-			final ApplyAndSimplify visitor = new ApplyAndSimplify(arg, variable);
+			final ApplyAndSimplify visitor = new ApplyAndSimplify(arg,
+					variable, typeChecker, operandsChecked);
 
 			visitor.visit(lambda.getBody());
 
@@ -115,12 +210,15 @@ public class ApplyAndSimplify extends AbstrcatSimplify {
 		} else if (func instanceof Literal) {
 			// Case the functor is a literal, append the argument to
 			// the end of the arguments list
-			return Simplify.of(literalApplication((Literal) func, arg));
+			return checkResult(
+					Simplify.of(literalApplication((Literal) func, arg)),
+					typeChecker, operandsChecked);
 		} else if (func instanceof Term) {
 			// Case the functor is a variable or logical constant,
 			// create the a literal with the functor as predicate and the
 			// argument as the only argument in the argument list
-			return Simplify.of(termApplication((Term) func, arg));
+			return checkResult(Simplify.of(termApplication((Term) func, arg)),
+					typeChecker, operandsChecked);
 		} else {
 			// Should never happen
 			throw new LogicalExpressionRuntimeException(
@@ -130,19 +228,46 @@ public class ApplyAndSimplify extends AbstrcatSimplify {
 
 	@Override
 	public void visit(Lambda lambda) {
-		if (lambda.containsFreeVariable(rootVariable)) {
+		if (typeChecker == null) {
+			if (lambda.containsFreeVariable(rootVariable)) {
+				super.visit(lambda);
+			} else {
+				result = lambda;
+			}
+		} else if (!typeChecker.isWellTyped()) {
+			// Typing conflict, stop.
+			result = lambda;
+		} else if (lambda.containsFreeVariable(rootVariable)) {
+			typeChecker.bind(lambda.getArgument());
 			super.visit(lambda);
+			typeChecker.unbind(lambda.getArgument());
 		} else {
 			result = lambda;
+			typeChecker.check(lambda);
 		}
 	}
 
 	@Override
 	public void visit(Literal literal) {
-		if (literal.containsFreeVariable(rootVariable)) {
+		if (typeChecker == null) {
+			if (literal.containsFreeVariable(rootVariable)) {
+				super.visit(literal);
+			} else {
+				result = literal;
+			}
+		} else if (!typeChecker.isWellTyped()) {
+			// Typing conflict, stop.
+			result = literal;
+		} else if (literal.containsFreeVariable(rootVariable)) {
 			super.visit(literal);
+			// The sub-expressions were checked when visited, so only verify
+			// the arguments of the simplified literal.
+			if (result instanceof Literal) {
+				typeChecker.verifyArgs((Literal) result);
+			}
 		} else {
 			result = literal;
+			typeChecker.check(literal);
 		}
 	}
 
@@ -150,9 +275,21 @@ public class ApplyAndSimplify extends AbstrcatSimplify {
 	public void visit(Variable variable) {
 		if (variable == rootVariable) {
 			result = appliedToArg;
+			if (typeChecker != null && !argChecked) {
+				argChecked = true;
+				typeChecker.check(appliedToArg);
+			}
 		} else {
 			result = variable;
 		}
 	}
 
+	@Override
+	protected LogicalExpression consume(LogicalExpression predicate,
+			LogicalExpression arg) {
+		// Both the predicate and the argument were already visited, and type
+		// checked, if needed.
+		return ofUnsafe(predicate, arg, typeChecker, true);
+	}
+
 }
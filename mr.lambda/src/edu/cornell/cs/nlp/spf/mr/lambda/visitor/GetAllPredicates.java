@@ -28,7 +28,9 @@ import edu.cornell.cs.nlp.spf.mr.lambda.Variable;
 
 /**
  * Create a set of predicates (function types only) present in the given
- * expression.
+ * expression. Only constants can be predicates, so the predicates are filtered
+ * from the cached set of constants of the expression (see
+ * {@link LogicalExpression#getSummary()}).
  *
  * @author Yoav Artzi
  */
@@ -41,7 +43,9 @@ public class GetAllPredicates implements ILogicalExpressionVisitor {
 
 	public static Set<LogicalConstant> of(LogicalExpression exp) {
 		final GetAllPredicates visitor = new GetAllPredicates();
-		visitor.visit(exp);
+		for (final LogicalConstant constant : exp.getSummary().getConstants()) {
+			visitor.visit(constant);
+		}
 		return visitor.getResult();
 	}
 
@@ -26,7 +26,10 @@ import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
 import edu.cornell.cs.nlp.spf.mr.lambda.Variable;
 
 /**
- * Given a logical expression will return a set of all logical constants.
+ * Given a logical expression will return a set of all logical constants. The
+ * set is copied from the cached summary of the expression (see
+ * {@link LogicalExpression#getSummary()}), so the expression is walked at most
+ * once.
  *
  * @author Yoav Artzi
  */
@@ -39,7 +42,9 @@ public class GetConstantsSet implements ILogicalExpressionVisitor {
 
 	public static Set<LogicalConstant> of(LogicalExpression exp) {
 		final GetConstantsSet visitor = new GetConstantsSet();
-		visitor.visit(exp);
+		for (final LogicalConstant constant : exp.getSummary().getConstants()) {
+			visitor.visit(constant);
+		}
 		return visitor.getConstants();
 	}
 
@@ -30,7 +30,7 @@ import edu.cornell.cs.nlp.spf.mr.lambda.Variable;
  */
 public class GetStructure implements ILogicalExpressionVisitor {
 
-	private static final String	DEFAULT_ANONNYMOUS_TAG	= "anon";
+	public static final String	DEFAULT_ANONNYMOUS_TAG	= "anon";
 	private final String		anonnymousTag;
 	private LogicalExpression	tempReturn;
 
@@ -38,8 +38,13 @@ public class GetStructure implements ILogicalExpressionVisitor {
 		this.anonnymousTag = anonnymousName;
 	}
 
+	/**
+	 * Get the structure with the default anonymized name. The result is cached
+	 * in the summary of the expression (see
+	 * {@link LogicalExpression#getSummary()}).
+	 */
 	public static LogicalExpression of(LogicalExpression exp) {
-		return of(exp, DEFAULT_ANONNYMOUS_TAG);
+		return exp.getSummary().getStructure();
 	}
 
 	public static LogicalExpression of(LogicalExpression exp,
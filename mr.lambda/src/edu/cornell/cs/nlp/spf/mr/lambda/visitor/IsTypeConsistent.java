@@ -47,8 +47,13 @@ public class IsTypeConsistent implements ILogicalExpressionVisitor {
 																6);
 	private boolean						wellTyped		= true;
 
-	private IsTypeConsistent() {
-		// Usage only through static 'of' method.
+	/**
+	 * Usage through static 'of' methods, or incrementally by
+	 * {@link ApplyAndSimplify} (see {@link #bind(Variable)},
+	 * {@link #check(LogicalExpression)} and {@link #verifyArgs(Literal)}).
+	 */
+	IsTypeConsistent() {
+		// Nothing to do.
 	}
 
 	public static boolean of(LogicalExpression exp) {
@@ -63,8 +68,66 @@ public class IsTypeConsistent implements ILogicalExpressionVisitor {
 		return Pair.of(visitor.wellTyped, visitor.message);
 	}
 
+	/**
+	 * Record a variable bound by an enclosing lambda operator, as if visiting
+	 * the lambda expression.
+	 */
+	void bind(Variable variable) {
+		variableTypes.put(variable, variable.getType());
+	}
+
+	/**
+	 * Verify the given sub-expression, in the context of the variables bound
+	 * so far.
+	 *
+	 * @return 'true' iff no typing conflict was found so far.
+	 */
+	boolean check(LogicalExpression exp) {
+		if (wellTyped) {
+			exp.accept(this);
+		}
+		return wellTyped;
+	}
+
+	boolean isWellTyped() {
+		return wellTyped;
+	}
+
+	/**
+	 * Remove a variable recorded with {@link #bind(Variable)}, when leaving
+	 * its scope.
+	 */
+	void unbind(Variable variable) {
+		variableTypes.remove(variable);
+	}
+
+	/**
+	 * Verify the arguments of the literal against its signature, without
+	 * visiting them. Assumes the arguments were already checked.
+	 *
+	 * @return 'true' iff no typing conflict was found so far.
+	 */
+	boolean verifyArgs(Literal literal) {
+		final int len = literal.numArgs();
+		for (int i = 0; i < len && wellTyped; ++i) {
+			final LogicalExpression arg = literal.getArg(i);
+			final Type signatureType = literal.getArgSignature(i);
+			wellTyped = verifyLiteralArgTyping(arg, signatureType);
+			if (!wellTyped) {
+				LOG.debug(
+						"Literal %s is not well-typed. Mismatch between signature type %s to argument %s.",
+						literal, signatureType, arg);
+			}
+		}
+		return wellTyped;
+	}
+
 	@Override
 	public void visit(Lambda lambda) {
+		if (!wellTyped) {
+			// Stop at the first conflict.
+			return;
+		}
 		// Record this variable to test its references.
 		variableTypes.put(lambda.getArgument(), lambda.getArgument().getType());
 		// Visit the body.
@@ -75,6 +138,10 @@ public class IsTypeConsistent implements ILogicalExpressionVisitor {
 
 	@Override
 	public void visit(Literal literal) {
+		if (!wellTyped) {
+			// Stop at the first conflict.
+			return;
+		}
 		literal.getPredicate().accept(this);
 		// Check the arguments match the type of the function.
 		final int len = literal.numArgs();
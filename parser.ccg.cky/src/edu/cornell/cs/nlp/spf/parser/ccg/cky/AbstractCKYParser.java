@@ -20,13 +20,19 @@ import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Spliterator;
-import java.util.Spliterators;
+import java.util.Map.Entry;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -38,6 +44,7 @@ import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
 import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.CompositeImmutableLexicon;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.ILexiconImmutable;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.Lexicon;
 import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
 import edu.cornell.cs.nlp.spf.parser.ISentenceLexiconGenerator;
@@ -48,6 +55,9 @@ import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Cell;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Cell.ScoreComparator;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.CellFactory;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Chart;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.ChartPool;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.CompactCellFactory;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.IBeamPolicy;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.steps.CKYLexicalStep;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.steps.CKYParseStep;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.steps.IWeightedCKYStep;
@@ -56,7 +66,9 @@ import edu.cornell.cs.nlp.spf.parser.ccg.cky.steps.WeightedCKYParseStep;
 import edu.cornell.cs.nlp.spf.parser.ccg.model.IDataItemModel;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.ILexicalRule;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.LexicalResult;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.OverloadedRuleName;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.ParseRuleResult;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.RuleName;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.SentenceSpan;
 import edu.cornell.cs.nlp.spf.parser.graph.IGraphParser;
 import edu.cornell.cs.nlp.utils.collections.queue.DirectAccessBoundedPriorityQueue;
@@ -74,8 +86,29 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 	public static final ILogger								LOG					= LoggerFactory
 			.create(AbstractCKYParser.class);
 
+	/**
+	 * Approximate number of cell pairs (or single cells for unary processing)
+	 * each task in the split pool processes. Splits with fewer pairs are
+	 * processed in the calling thread.
+	 */
+	private static final int								SPLIT_TASK_GRAIN	= 256;
+
+	/**
+	 * Per-thread scratch list to collect the cells created from a single left
+	 * cell of a split, before copying them to the list of the split. Re-used to
+	 * avoid allocating a list for each left cell.
+	 */
+	private static final ThreadLocal<List<Cell<?>>>			SCRATCH_CELLS		= ThreadLocal
+			.withInitial(ArrayList::new);
+
 	private static final long								serialVersionUID	= -1141905985877531704L;
 
+	/**
+	 * Policy to adapt the beam of each span. Null if all spans use the fixed
+	 * beam.
+	 */
+	private final IBeamPolicy								beamPolicy;
+
 	/**
 	 * The maximum number of cells to hold for each span.
 	 */
@@ -86,6 +119,12 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 	 */
 	private final CKYBinaryParsingRule<MR>[]				binaryRules;
 
+	/**
+	 * Index of binary rules by the syntax of their arguments. Used to skip
+	 * rules that can't apply to a pair of cells.
+	 */
+	private final BinaryRuleIndex<MR>						binaryRuleIndex;
+
 	/**
 	 * Randomly break ties during pruning using the order of insertion to the
 	 * queue. In a multi-threaded parser, this is essentially random.
@@ -94,8 +133,38 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 
 	private final ScoreComparator<MR>						cellScoreComparator	= new Cell.ScoreComparator<MR>();
 
+	/**
+	 * Pool of charts to re-use across sentences. Charts are returned to the
+	 * pool when their outputs are released. Null if pooling is disabled. Not
+	 * serialized, so pooling is disabled in de-serialized parsers.
+	 */
+	private final transient ChartPool<MR>					chartPool;
+
+	/**
+	 * Create cells with a compact representation of their derivation steps
+	 * (see {@link CompactCellFactory}).
+	 */
+	private final boolean									compactCells;
+
+	/**
+	 * Default time limit for each parse in milliseconds (0 for no limit).
+	 */
+	private final long										timeout;
+
 	private final IFilter<Category<MR>>						completeParseFilter;
 
+	/**
+	 * Cache of exact charts, re-scored when the same sentence is parsed again
+	 * with the same lexicon. Null if every parse searches from scratch.
+	 */
+	private final CKYForestCache<MR>						forestCache;
+
+	/**
+	 * Cache of the entries of the model lexicon, re-used across parses. Null
+	 * if lexical entries are always taken directly from the lexicon.
+	 */
+	private final LexicalEntryCache<MR>						lexicalCache;
+
 	private final ILexicalRule<MR>							lexicalRule;
 
 	private final boolean									pruneLexicalCells;
@@ -111,6 +180,20 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 	 */
 	private final List<ISentenceLexiconGenerator<DI, MR>>	sloppyLexicalGenerators;
 
+	/**
+	 * Number of threads used to process each split (and span during unary
+	 * processing), and to compute outside scores and expected features of the
+	 * chart. Setting this to 1 processes all splits in the calling thread.
+	 */
+	private final int										splitParallelism;
+
+	/**
+	 * Parser-owned pool for processing splits. Created lazily, so parsers
+	 * that don't process splits (or only use a single split thread) never
+	 * start it.
+	 */
+	private transient volatile ForkJoinPool					splitPool;
+
 	private final CKYUnaryParsingRule<MR>[]					unaryRules;
 
 	protected final ICategoryServices<MR>					categoryServices;
@@ -122,9 +205,25 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 			ICategoryServices<MR> categoryServices, boolean pruneLexicalCells,
 			IFilter<Category<MR>> completeParseFilter,
 			CKYUnaryParsingRule<MR>[] unaryRules, ILexicalRule<MR> lexicalRule,
-			boolean breakTies) {
+			boolean breakTies, int splitParallelism, int chartPoolSize,
+			long timeout, IBeamPolicy beamPolicy, boolean compactCells,
+			LexicalEntryCache<MR> lexicalCache,
+			CKYForestCache<MR> forestCache) {
+		if (splitParallelism < 1) {
+			throw new IllegalArgumentException(
+					"Invalid split parallelism: " + splitParallelism);
+		}
+		if (chartPoolSize < 0) {
+			throw new IllegalArgumentException(
+					"Invalid chart pool size: " + chartPoolSize);
+		}
+		if (timeout < 0) {
+			throw new IllegalArgumentException("Invalid timeout: " + timeout);
+		}
 		this.beamSize = beamSize;
+		this.beamPolicy = beamPolicy;
 		this.binaryRules = binaryRules;
+		this.binaryRuleIndex = new BinaryRuleIndex<>(binaryRules);
 		this.sentenceLexiconGenerators = sentenceLexiconGenerators;
 		this.sloppyLexicalGenerators = sloppyLexicalGenerators;
 		this.categoryServices = categoryServices;
@@ -133,8 +232,17 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 		this.unaryRules = unaryRules;
 		this.lexicalRule = lexicalRule;
 		this.breakTies = breakTies;
+		this.splitParallelism = splitParallelism;
+		this.timeout = timeout;
+		this.compactCells = compactCells;
+		this.lexicalCache = lexicalCache;
+		this.forestCache = forestCache;
+		this.chartPool = chartPoolSize == 0 ? null
+				: new ChartPool<MR>(chartPoolSize, beamSize, !pruneLexicalCells,
+						breakTies, beamPolicy);
 		LOG.info("Init :: %s: pruneLexicalCells=%s beamSize=%d ...", getClass(),
 				pruneLexicalCells, beamSize);
+		LOG.info("Init :: %s: ... beamPolicy=%s ...", getClass(), beamPolicy);
 		LOG.info("Init :: %s: ... sloppyLexicalGenerator=%s ...", getClass(),
 				sloppyLexicalGenerators);
 		LOG.info("Init :: %s: ... binary rules=%s ...", getClass(),
@@ -143,7 +251,18 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 				Arrays.toString(unaryRules));
 		LOG.info("Init :: %s: ... lexical rule=%s ...", getClass(),
 				lexicalRule);
-		LOG.info("Init :: %s: ... breakTies=%s", getClass(), breakTies);
+		LOG.info("Init :: %s: ... breakTies=%s ...", getClass(), breakTies);
+		LOG.info("Init :: %s: ... splitParallelism=%d ...", getClass(),
+				splitParallelism);
+		LOG.info("Init :: %s: ... chartPoolSize=%d ...", getClass(),
+				chartPoolSize);
+		LOG.info("Init :: %s: ... compactCells=%s ...", getClass(),
+				compactCells);
+		LOG.info("Init :: %s: ... lexicalCache=%s ...", getClass(),
+				lexicalCache);
+		LOG.info("Init :: %s: ... forestCache=%s ...", getClass(),
+				forestCache);
+		LOG.info("Init :: %s: ... timeout=%d", getClass(), timeout);
 	}
 
 	/**
@@ -153,6 +272,46 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 		return span.isStart() && span.isEnd();
 	}
 
+	/**
+	 * Start an incremental parsing session. Tokens are added one at a time,
+	 * and each added token only requires processing the spans that end at it
+	 * (and re-processing the spans ending at the previous token for the
+	 * complete prefix).
+	 *
+	 * @see IncrementalCKYSession
+	 */
+	public IncrementalCKYSession<MR> createIncrementalSession(
+			IDataItemModel<MR> model) {
+		return createIncrementalSession(null, model, null);
+	}
+
+	/**
+	 * Start an incremental parsing session. Sentence-level lexical generators
+	 * require the complete data item, so they are not used. Lexical entries
+	 * are taken from the model and the temporary lexicon (if given).
+	 *
+	 * @param pruningFilter
+	 *            Pruning filter (can be null).
+	 * @param tempLexicon
+	 *            Temporary lexicon (can be null).
+	 * @see IncrementalCKYSession
+	 */
+	public IncrementalCKYSession<MR> createIncrementalSession(
+			Predicate<ParsingOp<MR>> pruningFilter, IDataItemModel<MR> model,
+			ILexiconImmutable<MR> tempLexicon) {
+		final List<ILexiconImmutable<MR>> lexicons = new ArrayList<ILexiconImmutable<MR>>();
+		lexicons.add(getModelLexicon(model));
+		if (tempLexicon != null) {
+			lexicons.add(tempLexicon);
+		}
+		// An empty chart to be extended with every token.
+		final Chart<MR> emptyChart = new Chart<MR>(TokenSeq.of(), beamSize,
+				createCellFactory(1), !pruneLexicalCells, breakTies,
+				beamPolicy);
+		return new IncrementalCKYSession<MR>(this, emptyChart, pruningFilter,
+				model, new CompositeImmutableLexicon<MR>(lexicons));
+	}
+
 	@Override
 	public CKYParserOutput<MR> parse(DI dataItem, IDataItemModel<MR> model) {
 		return parse(dataItem, model, false);
@@ -218,26 +377,46 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 			boolean sloppy, ILexiconImmutable<MR> tempLexicon,
 			Integer altBeamSize,
 			AbstractCellFactory<MR> scoreSensitiveFactory) {
+		return parse(dataItem, pruningFilter, model, sloppy, tempLexicon,
+				altBeamSize, scoreSensitiveFactory,
+				timeout == 0 ? Long.MAX_VALUE
+						: System.currentTimeMillis() + timeout);
+	}
+
+	/**
+	 * Parse with a deadline. Lexical cells are always generated. Once the
+	 * deadline passes, all remaining multi-token spans are skipped and marked
+	 * as pruned, so the output is not exact. The output
+	 * still contains all complete parses found before the deadline, and
+	 * {@link CKYParserOutput#getBestPartialDerivations()} gives the best
+	 * partial derivations if there are none.
+	 *
+	 * @param deadline
+	 *            Absolute time (as given by {@link System#currentTimeMillis()}
+	 *            ).
+	 */
+	public CKYParserOutput<MR> parse(DI dataItem, IDataItemModel<MR> model,
+			long deadline) {
+		return parse(dataItem, null, model, false, null, null, null, deadline);
+	}
+
+	/**
+	 * @param deadline
+	 *            Absolute time (as given by {@link System#currentTimeMillis()}
+	 *            ), after which all remaining spans are skipped.
+	 *            {@link Long#MAX_VALUE} for no deadline.
+	 * @see #parse(Sentence, IDataItemModel, long)
+	 */
+	public CKYParserOutput<MR> parse(DI dataItem,
+			Predicate<ParsingOp<MR>> pruningFilter, IDataItemModel<MR> model,
+			boolean sloppy, ILexiconImmutable<MR> tempLexicon,
+			Integer altBeamSize, AbstractCellFactory<MR> scoreSensitiveFactory,
+			long deadline) {
 		// Store starting time
 		final long start = System.currentTimeMillis();
 
 		final TokenSeq tokens = dataItem.getTokens();
 
-		// Factory to create cells
-		final AbstractCellFactory<MR> cellFactory;
-		if (scoreSensitiveFactory == null) {
-			// Case we use model scoring for pruning
-			cellFactory = new CellFactory<MR>(dataItem.getTokens().size());
-		} else {
-			// Case we use an external scoring function for pruning
-			cellFactory = scoreSensitiveFactory;
-		}
-
-		// Create a chart and add the input words
-		final Chart<MR> chart = new Chart<MR>(tokens,
-				altBeamSize == null ? beamSize : altBeamSize, cellFactory,
-				!pruneLexicalCells, breakTies);
-
 		// Create the list of active lexicons
 		final List<ILexiconImmutable<MR>> lexicons = new ArrayList<ILexiconImmutable<MR>>();
 
@@ -260,22 +439,75 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 
 		// Lexicon with heuristically generated lexical entries. The entries are
 		// generated given the string of the sentence.
+		final Set<LexicalEntry<MR>> generatedEntries = new HashSet<LexicalEntry<MR>>();
 		for (final ISentenceLexiconGenerator<DI, MR> generator : sentenceLexiconGenerators) {
-			lexicons.add(new Lexicon<MR>(generator.generateLexicon(dataItem)));
+			final Lexicon<MR> generatedLexicon = new Lexicon<MR>(
+					generator.generateLexicon(dataItem));
+			generatedEntries.addAll(generatedLexicon.toCollection());
+			lexicons.add(generatedLexicon);
 		}
 
 		// The model lexicon
-		lexicons.add(model.getLexicon());
+		lexicons.add(getModelLexicon(model));
 
 		// If there's a temporary lexicon, add it too
 		if (tempLexicon != null) {
 			lexicons.add(tempLexicon);
 		}
 
-		return new CKYParserOutput<MR>(
-				doParse(pruningFilter, model, chart, tokens.size(), cellFactory,
-						new CompositeImmutableLexicon<MR>(lexicons)),
-				System.currentTimeMillis() - start);
+		// Stored forests are only re-used for plain parses with the fixed
+		// beam. Their content is identical to what a new search would find.
+		final boolean reusable = forestCache != null && pruningFilter == null
+				&& !sloppy && tempLexicon == null && altBeamSize == null
+				&& scoreSensitiveFactory == null && beamPolicy == null;
+		final ILexiconImmutable<MR> modelLexicon = model.getLexicon();
+		final int lexiconSize = reusable ? modelLexicon.size() : 0;
+		if (reusable) {
+			final Chart<MR> forest = forestCache.get(tokens, generatedEntries,
+					modelLexicon, lexiconSize);
+			if (forest != null) {
+				LOG.debug("Re-scoring stored forest: %s", tokens);
+				return new CKYParserOutput<MR>(forest.rescore(model),
+						System.currentTimeMillis() - start);
+			}
+		}
+
+		// Factory to create cells
+		final AbstractCellFactory<MR> cellFactory;
+		if (scoreSensitiveFactory == null) {
+			// Case we use model scoring for pruning
+			cellFactory = createCellFactory(dataItem.getTokens().size());
+		} else {
+			// Case we use an external scoring function for pruning
+			cellFactory = scoreSensitiveFactory;
+		}
+
+		// Create a chart and add the input words. Take the chart from the pool,
+		// unless an alternative beam is used.
+		final boolean pooled = chartPool != null
+				&& (altBeamSize == null || altBeamSize == beamSize);
+		final Chart<MR> chart = pooled
+				? chartPool.acquire(tokens, cellFactory)
+				: new Chart<MR>(tokens,
+						altBeamSize == null ? beamSize : altBeamSize,
+						cellFactory, !pruneLexicalCells, breakTies, beamPolicy);
+		chart.setDeadline(deadline);
+		if (splitParallelism > 1) {
+			// Compute outside scores and expected features in the split pool.
+			chart.setParallelPool(getSplitPool());
+		}
+
+		final Chart<MR> parsedChart = doParse(pruningFilter, model, chart,
+				tokens.size(), cellFactory,
+				new CompositeImmutableLexicon<MR>(lexicons));
+
+		// Stored charts are never returned to the pool.
+		final boolean stored = reusable && forestCache.offer(parsedChart,
+				generatedEntries, modelLexicon, lexiconSize);
+
+		return new CKYParserOutput<MR>(parsedChart,
+				System.currentTimeMillis() - start,
+				pooled && !stored ? chartPool : null);
 
 	}
 
@@ -283,6 +515,134 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 			IDataItemModel<MR> model, Chart<MR> currentChart, int numTokens,
 			AbstractCellFactory<MR> cellFactory, ILexiconImmutable<MR> lexicon);
 
+	/**
+	 * Combine a single cell with all the cells in an adjacent span of the
+	 * chart using the binary rules. Unlike
+	 * {@link #processSplit(int, int, int, int, Chart, AbstractCellFactory, Predicate, IDataItemModel)}
+	 * , this method is driven by a single cell, and is used by parsers that
+	 * don't fill the chart span-by-span.
+	 *
+	 * @param cell
+	 *            The cell to combine. Doesn't need to be in the chart.
+	 * @param otherStart
+	 *            Start of the adjacent span.
+	 * @param otherEnd
+	 *            End of the adjacent span.
+	 * @param cellIsLeft
+	 *            If 'true', the given cell is the left child and the span
+	 *            [otherStart, otherEnd] must start immediately after it.
+	 *            Otherwise, the span must end immediately before the cell.
+	 * @return New cells, not added to the chart.
+	 */
+	protected List<Cell<MR>> binaryProcessCell(Cell<MR> cell, int otherStart,
+			int otherEnd, boolean cellIsLeft, int sentenceLength,
+			Chart<MR> chart, AbstractCellFactory<MR> cellFactory,
+			Predicate<ParsingOp<MR>> pruningFilter, IDataItemModel<MR> model) {
+		if (cellIsLeft ? otherStart != cell.getEnd() + 1
+				: otherEnd != cell.getStart() - 1) {
+			throw new IllegalArgumentException(
+					"Span is not adjacent to cell: " + otherStart + "-"
+							+ otherEnd + " " + cell);
+		}
+
+		final int start = cellIsLeft ? cell.getStart() : otherStart;
+		final int end = cellIsLeft ? otherEnd : cell.getEnd();
+		final SentenceSpan span = new SentenceSpan(start, end, sentenceLength);
+		final Syntax cellSyntax = cell.getCategory().getSyntax();
+
+		final List<Cell<MR>> newCells = new ArrayList<>();
+		for (final Entry<Syntax, Set<Cell<MR>>> entry : chart
+				.getSpanSyntaxIndex(otherStart, otherEnd).entrySet()) {
+			// Only try rules that may apply given the syntax of the cells.
+			final CKYBinaryParsingRule<MR>[] rules = cellIsLeft
+					? binaryRuleIndex.get(cellSyntax, entry.getKey())
+					: binaryRuleIndex.get(entry.getKey(), cellSyntax);
+			if (rules.length == 0) {
+				continue;
+			}
+			for (final Cell<MR> other : entry.getValue()) {
+				final Cell<MR> left = cellIsLeft ? cell : other;
+				final Cell<MR> right = cellIsLeft ? other : cell;
+				for (final CKYBinaryParsingRule<MR> rule : rules) {
+					final ParseRuleResult<MR> prr = rule.apply(left, right,
+							span);
+					if (prr != null && !prune(pruningFilter,
+							prr.getResultCategory(), span, rule.getName(),
+							true)) {
+						final Cell<MR> newCell = cellFactory
+								.create(new WeightedCKYParseStep<MR>(
+										new CKYParseStep<MR>(
+												prr.getResultCategory(), left,
+												right,
+												isFullParse(span,
+														prr.getResultCategory()),
+												prr.getRuleName(), start, end),
+										model));
+						LOG.debug("Created new cell: %s", newCell);
+						newCells.add(newCell);
+					}
+				}
+			}
+		}
+		return newCells;
+	}
+
+	/**
+	 * Create the factory for the cells of a chart, unless an external factory
+	 * is given to the parser.
+	 */
+	protected AbstractCellFactory<MR> createCellFactory(int sentenceSize) {
+		return compactCells ? new CompactCellFactory<MR>(sentenceSize)
+				: new CellFactory<MR>(sentenceSize);
+	}
+
+	/**
+	 * Apply the action to each of the given cells. The work is distributed
+	 * over the parser's split pool, such that each task processes about
+	 * {@link #SPLIT_TASK_GRAIN} cell pairs. Small workloads, and all work when
+	 * debugging, are processed sequentially in the calling thread. The action
+	 * must be thread-safe.
+	 *
+	 * @param pairsPerCell
+	 *            The number of cells each cell is paired with (e.g., the number
+	 *            of cells in the other span of a split), used to set the task
+	 *            granularity.
+	 */
+	protected void forEachCell(List<Cell<MR>> cells, int pairsPerCell,
+			Consumer<Cell<MR>> action) {
+		final int numCells = cells.size();
+		final int cellsPerTask = Math.max(1,
+				SPLIT_TASK_GRAIN / Math.max(1, pairsPerCell));
+		if (splitParallelism == 1 || numCells <= cellsPerTask
+				|| LOG.getLogLevel() == LogLevel.DEBUG) {
+			// When debugging, it's easier to read the logs when processing
+			// sequentially. Naturally, this has performance costs.
+			for (final Cell<MR> cell : cells) {
+				action.accept(cell);
+			}
+		} else {
+			final SplitAction<MR> task = new SplitAction<MR>(cells, 0,
+					numCells, cellsPerTask, action);
+			final ForkJoinPool pool = getSplitPool();
+			if (ForkJoinTask.getPool() == pool) {
+				// Case already running in the pool (e.g., when spans are
+				// processed as pool tasks), fork into the worker's own queue.
+				task.invoke();
+			} else {
+				pool.invoke(task);
+			}
+		}
+	}
+
+	/**
+	 * The lexicon of the model, wrapped with the lexical cache if the parser
+	 * has one.
+	 */
+	protected ILexiconImmutable<MR> getModelLexicon(IDataItemModel<MR> model) {
+		return lexicalCache == null ? model.getLexicon()
+				: lexicalCache.wrap(model.getLexicon());
+	}
+
 	/**
 	 * Adds all of the cells to the chart that can be created by lexical
 	 * insertion in the given span. The work to find valid lexical entries for
@@ -291,11 +651,24 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 	protected Pair<Collection<Cell<MR>>, Boolean> generateLexicalCells(
 			int start, int end, Chart<MR> chart, ILexiconImmutable<MR> lexicon,
 			IDataItemModel<MR> model, Predicate<ParsingOp<MR>> filter) {
+		return generateLexicalCells(start, end, chart.getSentenceLength(),
+				chart, lexicon, model, filter);
+	}
+
+	/**
+	 * Same as
+	 * {@link #generateLexicalCells(int, int, Chart, ILexiconImmutable, IDataItemModel, Predicate)}
+	 * , but with an explicit sentence length, which may be longer than the
+	 * chart (e.g., when parsing a prefix of the input).
+	 */
+	protected Pair<Collection<Cell<MR>>, Boolean> generateLexicalCells(
+			int start, int end, int sentenceLength, Chart<MR> chart,
+			ILexiconImmutable<MR> lexicon, IDataItemModel<MR> model,
+			Predicate<ParsingOp<MR>> filter) {
 
 		final AbstractCellFactory<MR> cellFactory = chart.getCellFactory();
 		final TokenSeq tokens = chart.getTokens().sub(start, end + 1);
-		final SentenceSpan span = new SentenceSpan(start, end,
-				chart.getSentenceLength());
+		final SentenceSpan span = new SentenceSpan(start, end, sentenceLength);
 
 		LOG.debug("Populating lexical entries for: %s", tokens);
 
@@ -463,6 +836,50 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 		return isCompleteSpan(span) && completeParseFilter.test(category);
 	}
 
+	/**
+	 * Process all the spans that end at the given index, from the shortest to
+	 * the longest. Assumes all spans that end before the index are complete.
+	 * Each span is processed similar to {@link CKYParser}: lexical cells are
+	 * added and processed with unary rules, and then all splits are processed,
+	 * followed by unary rules.
+	 *
+	 * @param sentenceLength
+	 *            The length of the sentence, which may be longer than the
+	 *            chart (e.g., when parsing a prefix of the input).
+	 */
+	protected void processSpansEndingAt(int end, int sentenceLength,
+			Chart<MR> chart, AbstractCellFactory<MR> cellFactory,
+			Predicate<ParsingOp<MR>> pruningFilter, IDataItemModel<MR> model,
+			ILexiconImmutable<MR> lexicon) {
+		for (int start = end; start >= 0; --start) {
+			// Lexical cells and unary rules applied to them.
+			final Pair<Collection<Cell<MR>>, Boolean> lexicalPair = generateLexicalCells(
+					start, end, sentenceLength, chart, lexicon, model,
+					pruningFilter);
+			for (final Cell<MR> newCell : lexicalPair.first()) {
+				chart.add(newCell);
+			}
+			if (lexicalPair.second()) {
+				chart.externalPruning(start, end);
+			}
+			addAllToChart(unaryProcessSpan(start, end, sentenceLength, chart,
+					cellFactory, pruningFilter, model), chart, start, end);
+
+			if (start < end) {
+				// Binary rules over all splits, followed by unary rules.
+				for (int split = 0; split < end - start; split++) {
+					addAllToChart(
+							processSplit(start, end, split, sentenceLength,
+									chart, cellFactory, pruningFilter, model),
+							chart, start, end);
+				}
+				addAllToChart(unaryProcessSpan(start, end, sentenceLength,
+						chart, cellFactory, pruningFilter, model), chart, start,
+						end);
+			}
+		}
+	}
+
 	/**
 	 * Processing a (single) split of a (single) span.
 	 *
@@ -487,24 +904,30 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 
 		final SentenceSpan span = new SentenceSpan(start, end, sentenceLength);
 
-		// Copy the cells of the right span to a local array to avoid
-		// re-creating the iterator.
-		final Iterator<Cell<MR>> rightIter = chart.getSpanIterator(rightStart,
-				rightEnd);
-		final int numRightCells = chart.spanSize(rightStart, rightEnd);
+		// Copy the cells of the right span to local arrays, grouped by their
+		// syntax. Each left cell only visits the groups that some binary rule
+		// may apply to.
+		final Map<Syntax, Set<Cell<MR>>> rightIndex = chart
+				.getSpanSyntaxIndex(rightStart, rightEnd);
+		final int numRightSyntax = rightIndex.size();
+		final Syntax[] rightSyntax = new Syntax[numRightSyntax];
 		@SuppressWarnings("unchecked")
-		final Cell<MR>[] rightCells = (Cell<MR>[]) Array.newInstance(Cell.class,
-				numRightCells);
+		final Cell<MR>[][] rightCells = (Cell<MR>[][]) Array
+				.newInstance(Cell[].class, numRightSyntax);
 		int i = 0;
-		while (rightIter.hasNext()) {
-			rightCells[i++] = rightIter.next();
+		for (final Entry<Syntax, Set<Cell<MR>>> entry : rightIndex
+				.entrySet()) {
+			@SuppressWarnings("unchecked")
+			final Cell<MR>[] cells = entry.getValue().toArray((Cell<MR>[]) Array
+					.newInstance(Cell.class, entry.getValue().size()));
+			rightSyntax[i] = entry.getKey();
+			rightCells[i++] = cells;
 		}
 
-		final int numRules = binaryRules.length;
 		final AtomicInteger counter = new AtomicInteger(0);
 
-		// Create a list from left cells. This will allow the stream() to
-		// distribute better.
+		// Create a list from left cells. This will allow the split pool to
+		// distribute the work.
 		final List<Cell<MR>> leftCells = new ArrayList<>();
 		final Iterator<Cell<MR>> iterator = chart.getSpanIterator(leftStart,
 				leftEnd);
@@ -512,53 +935,66 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 			leftCells.add(iterator.next());
 		}
 
-		// When debugging, it's easier to read the logs with a sequential
-		// stream. Naturally, this has performance costs.
-		final Stream<Cell<MR>> leftStream = LOG.getLogLevel() == LogLevel.DEBUG
-				? leftCells.stream().sequential()
-				: leftCells.stream().parallel().unordered();
-
-		final List<Cell<MR>> newCells = leftStream.map(left -> {
-			final List<Cell<MR>> newCellsFromLeft = new LinkedList<>();
-			for (int j = 0; j < numRightCells; ++j) {
-				final Cell<MR> right = rightCells[j];
-				LOG.debug("Processing: left=%d , right=%d", left.hashCode(),
-						right.hashCode());
-				for (int ruleIndex = 0; ruleIndex < numRules; ++ruleIndex) {
-					final CKYBinaryParsingRule<MR> rule = binaryRules[ruleIndex];
-					LOG.debug("Applying %s", rule);
-					final ParseRuleResult<MR> prr = rule.apply(left, right,
-							span);
-					if (prr != null) {
-						counter.incrementAndGet();
-						// Filter cells, only keep cells that pass
-						// pruning over the semantics, if there's a
-						// pruning
-						// filter and
-						// they have semantics
-						if (!prune(pruningFilter,
-								new ParsingOp<MR>(prr.getResultCategory(), span,
-										rule.getName()),
-								true)) {
-							// Create the parse step
-							final CKYParseStep<MR> parseStep = new CKYParseStep<MR>(
-									prr.getResultCategory(), left, right,
-									isFullParse(span, prr.getResultCategory()),
-									prr.getRuleName(), start, end);
-
-							// Create the chart cell
-							final Cell<MR> newCell = cellFactory.create(
-									new WeightedCKYParseStep<MR>(parseStep,
-											model));
-							LOG.debug("Created new cell: %s", newCell);
-
-							newCellsFromLeft.add(newCell);
+		final List<Cell<MR>> newCells = new ArrayList<>();
+		forEachCell(leftCells, chart.spanSize(rightStart, rightEnd), left -> {
+			@SuppressWarnings("unchecked")
+			final List<Cell<MR>> newCellsFromLeft = (List<Cell<MR>>) (List<?>) SCRATCH_CELLS
+					.get();
+			// Clear on entry, since an earlier task on this thread may have
+			// failed before clearing the list.
+			newCellsFromLeft.clear();
+			for (int j = 0; j < numRightSyntax; ++j) {
+				// Only try rules that may apply given the syntax of the
+				// cells.
+				final CKYBinaryParsingRule<MR>[] rules = binaryRuleIndex
+						.get(left.getCategory().getSyntax(), rightSyntax[j]);
+				final int numRules = rules.length;
+				if (numRules == 0) {
+					continue;
+				}
+				for (final Cell<MR> right : rightCells[j]) {
+					LOG.debug("Processing: left=%d , right=%d",
+							left.hashCode(), right.hashCode());
+					for (int ruleIndex = 0; ruleIndex < numRules; ++ruleIndex) {
+						final CKYBinaryParsingRule<MR> rule = rules[ruleIndex];
+						LOG.debug("Applying %s", rule);
+						final ParseRuleResult<MR> prr = rule.apply(left, right,
+								span);
+						if (prr != null) {
+							counter.incrementAndGet();
+							// Filter cells, only keep cells that pass
+							// pruning over the semantics, if there's a
+							// pruning
+							// filter and
+							// they have semantics
+							if (!prune(pruningFilter, prr.getResultCategory(),
+									span, rule.getName(), true)) {
+								// Create the parse step
+								final CKYParseStep<MR> parseStep = new CKYParseStep<MR>(
+										prr.getResultCategory(), left, right,
+										isFullParse(span,
+												prr.getResultCategory()),
+										prr.getRuleName(), start, end);
+
+								// Create the chart cell
+								final Cell<MR> newCell = cellFactory.create(
+										new WeightedCKYParseStep<MR>(parseStep,
+												model));
+								LOG.debug("Created new cell: %s", newCell);
+
+								newCellsFromLeft.add(newCell);
+							}
 						}
 					}
 				}
 			}
-			return newCellsFromLeft;
-		}).flatMap(l -> l.stream()).collect(Collectors.toList());
+			if (!newCellsFromLeft.isEmpty()) {
+				synchronized (newCells) {
+					newCells.addAll(newCellsFromLeft);
+				}
+				newCellsFromLeft.clear();
+			}
+		});
 
 		LOG.debug(
 				"Finished processing split (%d, %d)[%d], generated %d cells, returning %d cells",
@@ -601,24 +1037,30 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 
 		final SentenceSpan span = new SentenceSpan(start, end, sentenceLength);
 
-		// Copy the cells of the right span to a local array to avoid
-		// re-creating the iterator.
-		final Iterator<Cell<MR>> rightIter = chart.getSpanIterator(rightStart,
-				rightEnd);
-		final int numRightCells = chart.spanSize(rightStart, rightEnd);
+		// Copy the cells of the right span to local arrays, grouped by their
+		// syntax. Each left cell only visits the groups that some binary rule
+		// may apply to.
+		final Map<Syntax, Set<Cell<MR>>> rightIndex = chart
+				.getSpanSyntaxIndex(rightStart, rightEnd);
+		final int numRightSyntax = rightIndex.size();
+		final Syntax[] rightSyntax = new Syntax[numRightSyntax];
 		@SuppressWarnings("unchecked")
-		final Cell<MR>[] rightCells = (Cell<MR>[]) Array.newInstance(Cell.class,
-				numRightCells);
+		final Cell<MR>[][] rightCells = (Cell<MR>[][]) Array
+				.newInstance(Cell[].class, numRightSyntax);
 		int i = 0;
-		while (rightIter.hasNext()) {
-			rightCells[i++] = rightIter.next();
+		for (final Entry<Syntax, Set<Cell<MR>>> entry : rightIndex
+				.entrySet()) {
+			@SuppressWarnings("unchecked")
+			final Cell<MR>[] cells = entry.getValue().toArray((Cell<MR>[]) Array
+					.newInstance(Cell.class, entry.getValue().size()));
+			rightSyntax[i] = entry.getKey();
+			rightCells[i++] = cells;
 		}
 
 		final AtomicInteger counter = new AtomicInteger(0);
-		final int numRules = binaryRules.length;
 
-		// Create a list from left cells. This will allow the stream() to
-		// distribute better.
+		// Create a list from left cells. This will allow the split pool to
+		// distribute the work.
 		final List<Cell<MR>> leftCells = new ArrayList<>();
 		final Iterator<Cell<MR>> iterator = chart.getSpanIterator(leftStart,
 				leftEnd);
@@ -626,99 +1068,101 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 			leftCells.add(iterator.next());
 		}
 
-		// When debugging, it's easier to read the logs with a sequential
-		// stream. Naturally, this has performance costs.
-		final Stream<Cell<MR>> leftStream = LOG.getLogLevel() == LogLevel.DEBUG
-				? leftCells.stream().sequential()
-				: leftCells.stream().parallel().unordered();
-
-		leftStream.forEach(left -> {
-			for (int j = 0; j < numRightCells; ++j) {
-				final Cell<MR> right = rightCells[j];
-				LOG.debug("Processing: left=%d , right=%d", left.hashCode(),
-						right.hashCode());
-				LOG.debug("Left: %s", left);
-				LOG.debug("Right: %s", right);
-				for (int ruleIndex = 0; ruleIndex < numRules; ++ruleIndex) {
-					final CKYBinaryParsingRule<MR> rule = binaryRules[ruleIndex];
-					LOG.debug("Applying %s", rule);
-					final ParseRuleResult<MR> prr = rule.apply(left, right,
-							span);
-					if (prr != null) {
-						counter.incrementAndGet();
-						// Prune, only keep categories that pass
-						// pruning over
-						// the semantics, if there's a pruning
-						// filter and they
-						// have semantics.
-						if (!prune(pruningFilter,
-								new ParsingOp<MR>(prr.getResultCategory(), span,
-										rule.getName()),
-								true)) {
-							// Create a CKY parse step from the
-							// result.
-							final CKYParseStep<MR> parseStep = new CKYParseStep<MR>(
-									prr.getResultCategory(), left, right,
-									isFullParse(span, prr.getResultCategory()),
-									prr.getRuleName(), start, end);
-
-							// Create the cell.
-							final Cell<MR> newCell = cellFactory.create(
-									new WeightedCKYParseStep<MR>(parseStep,
-											model));
-							LOG.debug("Created new cell: %s", newCell);
-							synchronized (queue) {
-
-								if (queue.contains(newCell)) {
-									// Case the cell signature
-									// is already contained
-									// in the queue. Remove the
-									// old cell, add the
-									// new one to it, which
-									// might change its score,
-									// and then re-add to the
-									// queue.
-
-									final Cell<MR> oldCell = queue.get(newCell);
-									LOG.debug(
-											"Adding new cell to existing one in pre-chart queue: %s",
-											oldCell);
-									// Add the new cell to the
-									// old one.
-									if (oldCell.addCell(newCell)) {
-										// Max-children changed,
-										// score might have
-										// changed, so need to
-										// remove and re-queue.
+		forEachCell(leftCells, chart.spanSize(rightStart, rightEnd), left -> {
+			for (int j = 0; j < numRightSyntax; ++j) {
+				// Only try rules that may apply given the syntax of the
+				// cells.
+				final CKYBinaryParsingRule<MR>[] rules = binaryRuleIndex
+						.get(left.getCategory().getSyntax(), rightSyntax[j]);
+				final int numRules = rules.length;
+				if (numRules == 0) {
+					continue;
+				}
+				for (final Cell<MR> right : rightCells[j]) {
+					LOG.debug("Processing: left=%d , right=%d",
+							left.hashCode(), right.hashCode());
+					LOG.debug("Left: %s", left);
+					LOG.debug("Right: %s", right);
+					for (int ruleIndex = 0; ruleIndex < numRules; ++ruleIndex) {
+						final CKYBinaryParsingRule<MR> rule = rules[ruleIndex];
+						LOG.debug("Applying %s", rule);
+						final ParseRuleResult<MR> prr = rule.apply(left, right,
+								span);
+						if (prr != null) {
+							counter.incrementAndGet();
+							// Prune, only keep categories that pass
+							// pruning over
+							// the semantics, if there's a pruning
+							// filter and they
+							// have semantics.
+							if (!prune(pruningFilter, prr.getResultCategory(),
+									span, rule.getName(), true)) {
+								// Create a CKY parse step from the
+								// result.
+								final CKYParseStep<MR> parseStep = new CKYParseStep<MR>(
+										prr.getResultCategory(), left, right,
+										isFullParse(span,
+												prr.getResultCategory()),
+										prr.getRuleName(), start, end);
+
+								// Create the cell.
+								final Cell<MR> newCell = cellFactory.create(
+										new WeightedCKYParseStep<MR>(parseStep,
+												model));
+								LOG.debug("Created new cell: %s", newCell);
+								synchronized (queue) {
+
+									if (queue.contains(newCell)) {
+										// Case the cell signature
+										// is already contained
+										// in the queue. Remove the
+										// old cell, add the
+										// new one to it, which
+										// might change its score,
+										// and then re-add to the
+										// queue.
+
+										final Cell<MR> oldCell = queue.get(newCell);
 										LOG.debug(
-												"Cell viterbi score updated: %s",
+												"Adding new cell to existing one in pre-chart queue: %s",
 												oldCell);
+										// Add the new cell to the
+										// old one.
+										if (oldCell.addCell(newCell)) {
+											// Max-children changed,
+											// score might have
+											// changed, so need to
+											// remove and re-queue.
+											LOG.debug(
+													"Cell viterbi score updated: %s",
+													oldCell);
 
-										// Remove the old cell,
-										// to re-add it.
-										queue.remove(oldCell);
-										// Adding here, not
-										// offering, since we
-										// just
-										// removed it, it should
-										// be added without
-										// any fear of
-										// exception.
-										queue.add(oldCell);
-									}
-								} else {
-									// Case new cell signature.
-									LOG.debug(
-											"Adding new cell to pre-chart queue.");
-									if (!queue.offer(newCell)) {
+											// Remove the old cell,
+											// to re-add it.
+											queue.remove(oldCell);
+											// Adding here, not
+											// offering, since we
+											// just
+											// removed it, it should
+											// be added without
+											// any fear of
+											// exception.
+											queue.add(oldCell);
+										}
+									} else {
+										// Case new cell signature.
 										LOG.debug(
-												"Pruned (pre-chart pruning): %s",
-												newCell);
-										pruned.getAndSet(true);
+												"Adding new cell to pre-chart queue.");
+										if (!queue.offer(newCell)) {
+											LOG.debug(
+													"Pruned (pre-chart pruning): %s",
+													newCell);
+											pruned.getAndSet(true);
+										}
 									}
+									LOG.debug("Pre-chart queue size = %d",
+											queue.size());
 								}
-								LOG.debug("Pre-chart queue size = %d",
-										queue.size());
 							}
 						}
 					}
@@ -742,29 +1186,36 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 	 *            Pruning filter to use. Can be null.
 	 * @param category
 	 *            The category to validate.
-	 * @param completeSpan
-	 *            Indicates if this category is over the complete span (the
-	 *            entire sentence).
+	 * @param span
+	 *            The span of the category.
+	 * @param ruleName
+	 *            The rule that created the category.
+	 * @param preUnary
+	 *            Indicates if unary rules may still be applied to this
+	 *            category.
 	 */
 	protected boolean prune(Predicate<ParsingOp<MR>> pruningFilter,
-			ParsingOp<MR> parsingOp, boolean preUnary) {
-		final Category<MR> category = parsingOp.getCategory();
+			Category<MR> category, SentenceSpan span, RuleName ruleName,
+			boolean preUnary) {
 		if (category.getSemantics() == null
 				&& category.getSyntax().unify(Syntax.EMPTY) == null) {
 			// Prune categories with no semantics, unless supposed to be empty.
-			LOG.debug("Pruned (no semantics and not empty): %s", parsingOp);
+			LOG.debug("Pruned (no semantics and not empty): %s %s -> %s", span,
+					ruleName, category);
 			return true;
 		}
 
+		// The parsing operation is only created if the filter needs it.
 		if (pruningFilter != null && category.getSemantics() != null
-				&& !pruningFilter.test(parsingOp)) {
+				&& !pruningFilter
+						.test(new ParsingOp<MR>(category, span, ruleName))) {
 			// Prune according to the specified pruning filter.
-			LOG.debug("Pruned (pruning filter): %s", parsingOp);
+			LOG.debug("Pruned (pruning filter): %s %s -> %s", span, ruleName,
+					category);
 			return true;
 		}
 
 		// For the complete span, we can prune stronger.
-		final SentenceSpan span = parsingOp.getSpan();
 		if (isCompleteSpan(span)) {
 			final boolean fullParse = isFullParse(span, category);
 			if (preUnary && !fullParse) {
@@ -782,14 +1233,14 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 				// No unary rule can accept this category, so if is not a full
 				// parse, we should prune it.
 				LOG.debug(
-						"Pruned (complete span, no unary rule can accept and not a full parse): %s",
-						parsingOp);
+						"Pruned (complete span, no unary rule can accept and not a full parse): %s %s -> %s",
+						span, ruleName, category);
 				return true;
 			} else if (!preUnary && !fullParse) {
 				// If complete span, not pre-unary and not a full parse. Prune.
 				LOG.debug(
-						"Pruned (complete span, not pre-unary and not a full parse): %s",
-						parsingOp);
+						"Pruned (complete span, not pre-unary and not a full parse): %s %s -> %s",
+						span, ruleName, category);
 				return true;
 			}
 		}
@@ -797,6 +1248,58 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 		return false;
 	}
 
+	/**
+	 * Hard pruning (not based on score and beam).
+	 *
+	 * @param pruningFilter
+	 *            Pruning filter to use. Can be null.
+	 * @param parsingOp
+	 *            The parsing operation to validate.
+	 * @param preUnary
+	 *            Indicates if unary rules may still be applied to the category
+	 *            of the operation.
+	 */
+	protected boolean prune(Predicate<ParsingOp<MR>> pruningFilter,
+			ParsingOp<MR> parsingOp, boolean preUnary) {
+		return prune(pruningFilter, parsingOp.getCategory(),
+				parsingOp.getSpan(), parsingOp.getRule(), preUnary);
+	}
+
+	/**
+	 * Apply unary rules to a single cell. Similar to
+	 * {@link #unaryProcessSpan(int, int, int, Chart, AbstractCellFactory, Predicate, IDataItemModel)}
+	 * , each generated cell overloads a step of the given cell with the unary
+	 * step. Steps that are already overloaded are skipped, so unary rules are
+	 * never stacked.
+	 *
+	 * @return New cells, not added to the chart.
+	 */
+	protected List<Cell<MR>> unaryProcessCell(Cell<MR> cell, int sentenceLength,
+			AbstractCellFactory<MR> cellFactory,
+			Predicate<ParsingOp<MR>> pruningFilter, IDataItemModel<MR> model) {
+		final SentenceSpan span = new SentenceSpan(cell.getStart(),
+				cell.getEnd(), sentenceLength);
+		final List<Cell<MR>> newCells = new ArrayList<>();
+		for (final CKYUnaryParsingRule<MR> rule : unaryRules) {
+			final ParseRuleResult<MR> prr = rule.apply(cell, span);
+			if (prr != null && !prune(pruningFilter,
+					prr.getResultCategory(), span, prr.getRuleName(), false)) {
+				for (final IWeightedCKYStep<MR> step : cell.getSteps()) {
+					if (!(step.getRuleName() instanceof OverloadedRuleName)) {
+						final Cell<MR> newCell = cellFactory
+								.create(step.overloadWithUnary(prr,
+										isFullParse(span,
+												prr.getResultCategory()),
+										model));
+						LOG.debug("Created new cell: %s", newCell);
+						newCells.add(newCell);
+					}
+				}
+			}
+		}
+		return newCells;
+	}
+
 	/**
 	 * Apply unary rules to all cells in the span. The cells generated combine
 	 * the unary step and the binary step that lead to it, so they don't depend
@@ -812,8 +1315,8 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 
 		final SentenceSpan span = new SentenceSpan(start, end, sentenceLength);
 
-		// Create a list from left cells. This will allow the stream() to
-		// distribute better.
+		// Create a list from the span cells. This will allow the split pool to
+		// distribute the work.
 		final Iterator<Cell<MR>> iterator = chart.getSpanIterator(start, end);
 		final List<Cell<MR>> cells = new ArrayList<>();
 		while (iterator.hasNext()) {
@@ -822,47 +1325,45 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 
 		final AtomicInteger counter = new AtomicInteger(0);
 		final int numRules = unaryRules.length;
-		final List<Cell<MR>> newCells = StreamSupport
-				.stream(Spliterators.spliterator(cells, Spliterator.IMMUTABLE),
-						LOG.getLogLevel() == LogLevel.DEBUG ? false : true)
-				.map(cell -> {
-					LOG.debug("Processing: cell=%d", cell.hashCode());
-					for (int ruleIndex = 0; ruleIndex < numRules; ++ruleIndex) {
-						final ParseRuleResult<MR> prr = unaryRules[ruleIndex]
-								.apply(cell, span);
-						if (prr != null) {
-							counter.addAndGet(cell.numSteps());
-							// Filter cells, only keep cells that pass pruning
-							// over the
-							// semantics, if there's a pruning filter and they
-							// have
-							// semantics.
-							if (!prune(pruningFilter,
-									new ParsingOp<MR>(prr.getResultCategory(),
-											span, prr.getRuleName()),
-									false)) {
-								// Create combined parse step. Each step combine
-								// all
-								// binary steps that lead to this cell, and the
-								// unary
-								// step just created.
-								for (final IWeightedCKYStep<MR> step : cell
-										.getSteps()) {
-									// Create the combined parse step and the
-									// new cell.
-									final Cell<MR> newCell = cellFactory
-											.create(step.overloadWithUnary(prr,
-													isFullParse(span,
-															prr.getResultCategory()),
-													model));
-									LOG.debug("Created new cell: %s", newCell);
-									return newCell;
-								}
+		final List<Cell<MR>> newCells = new ArrayList<>();
+		forEachCell(cells, 1, cell -> {
+			LOG.debug("Processing: cell=%d", cell.hashCode());
+			for (int ruleIndex = 0; ruleIndex < numRules; ++ruleIndex) {
+				final ParseRuleResult<MR> prr = unaryRules[ruleIndex]
+						.apply(cell, span);
+				if (prr != null) {
+					counter.addAndGet(cell.numSteps());
+					// Filter cells, only keep cells that pass pruning
+					// over the
+					// semantics, if there's a pruning filter and they
+					// have
+					// semantics.
+					if (!prune(pruningFilter, prr.getResultCategory(),
+							span, prr.getRuleName(), false)) {
+						// Create combined parse step. Each step combine
+						// all
+						// binary steps that lead to this cell, and the
+						// unary
+						// step just created.
+						for (final IWeightedCKYStep<MR> step : cell
+								.getSteps()) {
+							// Create the combined parse step and the
+							// new cell.
+							final Cell<MR> newCell = cellFactory
+									.create(step.overloadWithUnary(prr,
+											isFullParse(span,
+													prr.getResultCategory()),
+											model));
+							LOG.debug("Created new cell: %s", newCell);
+							synchronized (newCells) {
+								newCells.add(newCell);
 							}
+							return;
 						}
 					}
-					return null;
-				}).filter(c -> c != null).collect(Collectors.toList());
+				}
+			}
+		});
 
 		LOG.debug(
 				"Finished unary processing span (%d, %d), generated %d cells, returning %d cells",
@@ -896,106 +1397,101 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 		final AtomicInteger counter = new AtomicInteger(0);
 		final int numRules = unaryRules.length;
 
-		// Create a list from left cells. This will allow the stream() to
-		// distribute better.
+		// Create a list from the span cells. This will allow the split pool to
+		// distribute the work.
 		final Iterator<Cell<MR>> iterator = chart.getSpanIterator(start, end);
 		final List<Cell<MR>> cells = new ArrayList<>();
 		while (iterator.hasNext()) {
 			cells.add(iterator.next());
 		}
 
-		StreamSupport
-				.stream(Spliterators.spliterator(cells, Spliterator.IMMUTABLE),
-						LOG.getLogLevel() == LogLevel.DEBUG ? false : true)
-				.forEach(cell -> {
-					LOG.debug("Processing: cell=%d", cell.hashCode());
-					for (int ruleIndex = 0; ruleIndex < numRules; ++ruleIndex) {
-						final ParseRuleResult<MR> prr = unaryRules[ruleIndex]
-								.apply(cell, span);
-						if (prr != null) {
-							counter.addAndGet(cell.numSteps());
-							// Filter cells, only keep cells that pass
-							// pruning over the
-							// semantics, if there's a pruning filter
-							// and they have
-							// semantics.
-							if (!prune(pruningFilter,
-									new ParsingOp<MR>(prr.getResultCategory(),
-											span, prr.getRuleName()),
-									false)) {
-								// Create combined parse step. Each step
-								// combine all
-								// binary steps that lead to this cell,
-								// and the unary
-								// step just created.
-								for (final IWeightedCKYStep<MR> step : cell
-										.getSteps()) {
-									// Create the combined parse step
-									// and the new cell.
-									final Cell<MR> newCell = cellFactory
-											.create(step.overloadWithUnary(prr,
-													isFullParse(span,
-															prr.getResultCategory()),
-													model));
-									LOG.debug("Created new cell: %s", newCell);
-
-									synchronized (queue) {
-										if (queue.contains(newCell)) {
-											// Case the cell signature
-											// is already in the
-											// queue. Remove the old
-											// cell, add the new one
-											// to it, which might change
-											// its score, and then
-											// re-add to the queue.
-
-											final Cell<MR> oldCell = queue
-													.get(newCell);
-											LOG.debug(
-													"Adding new cell to existing one in pre-chart queue: %s",
-													oldCell);
-											// Add the new cell to the
-											// old one
-											if (oldCell.addCell(newCell)) {
-												// Max-children changed,
-												// score might have
-												// changed, so need to
-												// remove and re-queue
-												LOG.debug(
-														"Cell viterbi score updated: %s",
-														oldCell);
-
-												// Remove the old cell,
-												// to re-add it
-												queue.remove(oldCell);
-												// Adding here, not
-												// offering, since we
-												// just
-												// removed it, it should
-												// be added without
-												// any fear of exception
-												queue.add(oldCell);
-											}
-										} else {
-											// Case new cell signature.
-											LOG.debug(
-													"Adding new cell to pre-chart queue.");
-											if (!queue.offer(newCell)) {
-												LOG.debug(
-														"Pruned (pre-chart pruning): %s",
-														newCell);
-												pruned.set(true);
-											}
-										}
-										LOG.debug("Pre-chart queue size = %d",
-												queue.size());
+		forEachCell(cells, 1, cell -> {
+			LOG.debug("Processing: cell=%d", cell.hashCode());
+			for (int ruleIndex = 0; ruleIndex < numRules; ++ruleIndex) {
+				final ParseRuleResult<MR> prr = unaryRules[ruleIndex]
+						.apply(cell, span);
+				if (prr != null) {
+					counter.addAndGet(cell.numSteps());
+					// Filter cells, only keep cells that pass
+					// pruning over the
+					// semantics, if there's a pruning filter
+					// and they have
+					// semantics.
+					if (!prune(pruningFilter, prr.getResultCategory(),
+							span, prr.getRuleName(), false)) {
+						// Create combined parse step. Each step
+						// combine all
+						// binary steps that lead to this cell,
+						// and the unary
+						// step just created.
+						for (final IWeightedCKYStep<MR> step : cell
+								.getSteps()) {
+							// Create the combined parse step
+							// and the new cell.
+							final Cell<MR> newCell = cellFactory
+									.create(step.overloadWithUnary(prr,
+											isFullParse(span,
+													prr.getResultCategory()),
+											model));
+							LOG.debug("Created new cell: %s", newCell);
+
+							synchronized (queue) {
+								if (queue.contains(newCell)) {
+									// Case the cell signature
+									// is already in the
+									// queue. Remove the old
+									// cell, add the new one
+									// to it, which might change
+									// its score, and then
+									// re-add to the queue.
+
+									final Cell<MR> oldCell = queue
+											.get(newCell);
+									LOG.debug(
+											"Adding new cell to existing one in pre-chart queue: %s",
+											oldCell);
+									// Add the new cell to the
+									// old one
+									if (oldCell.addCell(newCell)) {
+										// Max-children changed,
+										// score might have
+										// changed, so need to
+										// remove and re-queue
+										LOG.debug(
+												"Cell viterbi score updated: %s",
+												oldCell);
+
+										// Remove the old cell,
+										// to re-add it
+										queue.remove(oldCell);
+										// Adding here, not
+										// offering, since we
+										// just
+										// removed it, it should
+										// be added without
+										// any fear of exception
+										queue.add(oldCell);
+									}
+								} else {
+									// Case new cell signature.
+									LOG.debug(
+											"Adding new cell to pre-chart queue.");
+									if (!queue.offer(newCell)) {
+										LOG.debug(
+												"Pruned (pre-chart pruning): %s",
+												newCell);
+										pruned.set(true);
 									}
 								}
+								LOG.debug("Pre-chart queue size = %d",
+										queue.size());
 							}
 						}
 					}
+				}
+			}
 
-				});
+		});
 
 		LOG.debug(
 				"Finished unary processing span (%d, %d), generated %d cells, returning %d cells",
@@ -1004,4 +1500,81 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 		return Pair.of(new ArrayList<Cell<MR>>(queue),
 				pruned.get() || queue.hasThreshold());
 	}
+
+	/**
+	 * Add the cells to the chart and mark the span if it was pruned
+	 * externally.
+	 */
+	private void addAllToChart(Pair<List<Cell<MR>>, Boolean> processingPair,
+			Chart<MR> chart, int start, int end) {
+		for (final Cell<MR> cell : processingPair.first()) {
+			chart.add(cell);
+		}
+		if (processingPair.second()) {
+			chart.externalPruning(start, end);
+		}
+	}
+
+	/**
+	 * The parser-owned pool for processing splits. Sub-classes may use it to
+	 * run other chart work, so splits are processed in the same pool.
+	 */
+	protected ForkJoinPool getSplitPool() {
+		ForkJoinPool pool = splitPool;
+		if (pool == null) {
+			synchronized (this) {
+				pool = splitPool;
+				if (pool == null) {
+					final String threadNamePrefix = getClass().getSimpleName()
+							+ "-split-";
+					pool = new ForkJoinPool(splitParallelism, p -> {
+						final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory
+								.newThread(p);
+						thread.setName(threadNamePrefix + thread.getPoolIndex());
+						return thread;
+					}, null, false);
+					splitPool = pool;
+				}
+			}
+		}
+		return pool;
+	}
+
+	/**
+	 * Applies an action to a range of cells, recursively splitting the range
+	 * until each task covers at most a given number of cells.
+	 */
+	private static class SplitAction<MR> extends RecursiveAction {
+		private static final long			serialVersionUID	= 4514958322475062946L;
+		private final Consumer<Cell<MR>>	action;
+		private final List<Cell<MR>>		cells;
+		private final int					cellsPerTask;
+		private final int					end;
+		private final int					start;
+
+		public SplitAction(List<Cell<MR>> cells, int start, int end,
+				int cellsPerTask, Consumer<Cell<MR>> action) {
+			this.cells = cells;
+			this.start = start;
+			this.end = end;
+			this.cellsPerTask = cellsPerTask;
+			this.action = action;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start <= cellsPerTask) {
+				for (int i = start; i < end; ++i) {
+					action.accept(cells.get(i));
+				}
+			} else {
+				final int middle = (start + end) >>> 1;
+				invokeAll(
+						new SplitAction<MR>(cells, start, middle, cellsPerTask,
+								action),
+						new SplitAction<MR>(cells, middle, end, cellsPerTask,
+								action));
+			}
+		}
+	}
 }
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
+import edu.cornell.cs.nlp.utils.composites.Pair;
+
+/**
+ * Dispatch index for binary parsing rules. Maps the syntax of a pair of
+ * adjacent cells to the rules that may apply to them, according to
+ * {@link CKYBinaryParsingRule#isValidArgument(Syntax, Syntax)}. The index is
+ * populated lazily and is shared across sentences, so its memory is bounded by
+ * the number of distinct syntax pairs observed. Thread safe.
+ *
+ * @author Yoav Artzi
+ */
+class BinaryRuleIndex<MR> implements Serializable {
+
+	/**
+	 * Maximum number of syntax pairs to index. Once reached, pairs that are
+	 * not indexed are computed on every lookup.
+	 */
+	private static final int												MAX_SIZE			= 100000;
+
+	private static final long												serialVersionUID	= -2958011478213626046L;
+
+	private transient Map<Pair<Syntax, Syntax>, CKYBinaryParsingRule<MR>[]>	index;
+
+	private final CKYBinaryParsingRule<MR>[]								rules;
+
+	BinaryRuleIndex(CKYBinaryParsingRule<MR>[] rules) {
+		this.rules = rules;
+		this.index = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * @return The rules that may apply to a left cell with syntax 'left' and a
+	 *         right cell with syntax 'right', in the original order of the
+	 *         rules. The returned array must not be modified.
+	 */
+	CKYBinaryParsingRule<MR>[] get(Syntax left, Syntax right) {
+		final Pair<Syntax, Syntax> key = Pair.of(left, right);
+		final CKYBinaryParsingRule<MR>[] cached = index.get(key);
+		if (cached != null) {
+			return cached;
+		}
+
+		final CKYBinaryParsingRule<MR>[] valid = filter(left, right);
+		if (index.size() < MAX_SIZE) {
+			index.putIfAbsent(key, valid);
+		}
+		return valid;
+	}
+
+	int size() {
+		return index.size();
+	}
+
+	private CKYBinaryParsingRule<MR>[] filter(Syntax left, Syntax right) {
+		final List<CKYBinaryParsingRule<MR>> valid = new ArrayList<>(
+				rules.length);
+		for (final CKYBinaryParsingRule<MR> rule : rules) {
+			if (rule.isValidArgument(left, right)) {
+				valid.add(rule);
+			}
+		}
+
+		if (valid.size() == rules.length) {
+			return rules;
+		}
+
+		@SuppressWarnings("unchecked")
+		final CKYBinaryParsingRule<MR>[] array = valid
+				.toArray((CKYBinaryParsingRule<MR>[]) Array
+						.newInstance(CKYBinaryParsingRule.class, valid.size()));
+		return array;
+	}
+
+	private void readObject(ObjectInputStream ois)
+			throws ClassNotFoundException, IOException {
+		ois.defaultReadObject();
+		this.index = new ConcurrentHashMap<>();
+	}
+
+}
@@ -18,6 +18,7 @@ package edu.cornell.cs.nlp.spf.parser.ccg.cky;
 
 import java.io.Serializable;
 
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Cell;
 import edu.cornell.cs.nlp.spf.parser.ccg.normalform.NormalFormValidator;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.IBinaryParseRule;
@@ -103,4 +104,11 @@ public class CKYBinaryParsingRule<MR> implements Serializable {
 		}
 		return rule.apply(left.getCategory(), right.getCategory(), span);
 	}
+
+	/**
+	 * @see IBinaryParseRule#isValidArgument(Syntax, Syntax)
+	 */
+	boolean isValidArgument(Syntax left, Syntax right) {
+		return rule.isValidArgument(left, right);
+	}
 }
@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import edu.cornell.cs.nlp.spf.base.token.TokenSeq;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.ILexiconImmutable;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
+import edu.cornell.cs.nlp.spf.explat.IResourceRepository;
+import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
+import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
+import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Chart;
+import edu.cornell.cs.nlp.utils.log.ILogger;
+import edu.cornell.cs.nlp.utils.log.LoggerFactory;
+
+/**
+ * Bounded cache of complete parse forests (charts) keyed by the sentence
+ * tokens and the lexical entries generated for the sentence (e.g., by
+ * sentence lexicon generators). Learners re-parse the same sentences every
+ * epoch, while only the model weights change. When none of the spans of a
+ * chart was pruned, its content doesn't depend on the weights, so a parser can
+ * re-score a copy of the stored chart with the current model (see
+ * {@link Chart#rescore}) instead of searching again. Only exact charts are
+ * stored. Stored charts are never modified, so the outputs that reference
+ * them remain valid. Charts depend on the rules and settings of the parser, so
+ * a cache shouldn't be shared by different parsers.
+ * <p>
+ * Each chart is stamped with the model lexicon (by identity) and its size
+ * when the chart was created. New lexical entries may add cells to any span,
+ * and factored lexicons may add entries for token sequences other than the
+ * ones of the new entry. So a chart is dropped once the lexicon grows or the
+ * model uses a different lexicon. Lexicons only grow during learning, so the
+ * size identifies the version of the lexicon.
+ * <p>
+ * The cache is not serialized. It's re-created empty when de-serialized.
+ *
+ * @param <MR>
+ *            Meaning representation.
+ */
+public class CKYForestCache<MR> implements Serializable {
+	public static final ILogger						LOG					= LoggerFactory
+			.create(CKYForestCache.class);
+
+	private static final long						serialVersionUID	= 3859134567640283394L;
+
+	private transient Cache<Key<MR>, Forest<MR>>	cache;
+
+	private final long								maxSize;
+
+	/**
+	 * Number of charts dropped since the lexicon changed.
+	 */
+	private transient AtomicLong					staleCount;
+
+	public CKYForestCache(long maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException(
+					"Invalid cache size: " + maxSize);
+		}
+		this.maxSize = maxSize;
+		this.cache = createCache(maxSize);
+		this.staleCount = new AtomicLong();
+		LOG.info("Init %s :: maxSize=%d", getClass().getSimpleName(),
+				maxSize);
+	}
+
+	private static <MR> Cache<Key<MR>, Forest<MR>> createCache(long maxSize) {
+		return CacheBuilder.newBuilder().maximumSize(maxSize).recordStats()
+				.build();
+	}
+
+	public void clear() {
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Get the stored chart of the given tokens and generated entries. The
+	 * chart must not be modified.
+	 *
+	 * @param generatedEntries
+	 *            Lexical entries generated for the sentence, in addition to
+	 *            the entries of the model lexicon.
+	 * @param lexicon
+	 *            The model lexicon.
+	 * @param lexiconSize
+	 *            The current size of the model lexicon.
+	 * @return The stored chart, or null if there's none or it was created with
+	 *         a different lexicon.
+	 */
+	public Chart<MR> get(TokenSeq tokens,
+			Set<LexicalEntry<MR>> generatedEntries,
+			ILexiconImmutable<MR> lexicon, int lexiconSize) {
+		final Key<MR> key = new Key<MR>(tokens, generatedEntries);
+		final Forest<MR> forest = cache.getIfPresent(key);
+		if (forest == null) {
+			return null;
+		}
+		if (forest.lexicon != lexicon || forest.lexiconSize != lexiconSize) {
+			cache.invalidate(key);
+			staleCount.incrementAndGet();
+			return null;
+		}
+		return forest.chart;
+	}
+
+	public long getHitCount() {
+		return cache.stats().hitCount() - staleCount.get();
+	}
+
+	public long getMissCount() {
+		return cache.stats().missCount() + staleCount.get();
+	}
+
+	public long getStaleCount() {
+		return staleCount.get();
+	}
+
+	/**
+	 * Store a chart, if it's exact. The chart must not be modified once it's
+	 * stored.
+	 *
+	 * @param generatedEntries
+	 *            Lexical entries generated for the sentence, in addition to
+	 *            the entries of the model lexicon.
+	 * @param lexicon
+	 *            The model lexicon used to create the chart.
+	 * @param lexiconSize
+	 *            The size of the model lexicon used to create the chart.
+	 * @return 'true' iff the chart was stored.
+	 */
+	public boolean offer(Chart<MR> chart,
+			Set<LexicalEntry<MR>> generatedEntries,
+			ILexiconImmutable<MR> lexicon, int lexiconSize) {
+		if (!chart.getPrunedSpans().isEmpty()) {
+			return false;
+		}
+		cache.put(
+				new Key<MR>(chart.getTokens(),
+						new HashSet<LexicalEntry<MR>>(generatedEntries)),
+				new Forest<MR>(chart, lexicon, lexiconSize));
+		return true;
+	}
+
+	public long size() {
+		return cache.size();
+	}
+
+	@Override
+	public String toString() {
+		final CacheStats stats = cache.stats();
+		final long stale = staleCount.get();
+		return String.format(
+				"%s[size=%d, maxSize=%d, hits=%d, misses=%d, stale=%d, evictions=%d]",
+				getClass().getSimpleName(), cache.size(), maxSize,
+				stats.hitCount() - stale, stats.missCount() + stale, stale,
+				stats.evictionCount());
+	}
+
+	private void readObject(ObjectInputStream in)
+			throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		cache = createCache(maxSize);
+		staleCount = new AtomicLong();
+	}
+
+	public static class Creator<MR>
+			implements IResourceObjectCreator<CKYForestCache<MR>> {
+
+		private final String type;
+
+		public Creator() {
+			this("parser.cky.forestcache");
+		}
+
+		public Creator(String type) {
+			this.type = type;
+		}
+
+		@Override
+		public CKYForestCache<MR> create(Parameters params,
+				IResourceRepository repo) {
+			return new CKYForestCache<MR>(params.getAsInteger("size", 1000));
+		}
+
+		@Override
+		public String type() {
+			return type;
+		}
+
+		@Override
+		public ResourceUsage usage() {
+			return ResourceUsage.builder(type, CKYForestCache.class)
+					.setDescription(
+							"Bounded cache of exact CKY charts, used by parsers to re-score the charts of re-parsed sentences instead of searching again")
+					.addParam("size", Integer.class,
+							"Maximum number of cached charts (default: 1000)")
+					.build();
+		}
+
+	}
+
+	private static class Forest<MR> {
+		private final Chart<MR>				chart;
+		private final ILexiconImmutable<MR>	lexicon;
+		private final int					lexiconSize;
+
+		public Forest(Chart<MR> chart, ILexiconImmutable<MR> lexicon,
+				int lexiconSize) {
+			this.chart = chart;
+			this.lexicon = lexicon;
+			this.lexiconSize = lexiconSize;
+		}
+	}
+
+	private static class Key<MR> {
+		private final Set<LexicalEntry<MR>>	generatedEntries;
+		private final int					hashCode;
+		private final TokenSeq				tokens;
+
+		public Key(TokenSeq tokens, Set<LexicalEntry<MR>> generatedEntries) {
+			this.tokens = tokens;
+			this.generatedEntries = generatedEntries;
+			this.hashCode = 31 * tokens.hashCode()
+					+ generatedEntries.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			@SuppressWarnings("rawtypes")
+			final Key other = (Key) obj;
+			return hashCode == other.hashCode && tokens.equals(other.tokens)
+					&& generatedEntries.equals(other.generatedEntries);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+}
@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Cell;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.steps.IWeightedCKYStep;
+
+/**
+ * Lazy k-best extraction of derivation trees from the packed chart (Huang and
+ * Chiang 2005, Algorithm 3). The cells and their steps form a hypergraph.
+ * Each cell keeps the list of its sub-trees found so far, sorted by score, and
+ * a frontier of candidate sub-trees. A candidate is a step with an index into
+ * the sorted sub-trees of each of its children. Once a candidate is taken,
+ * its neighbors, which increment a single index, are added to the frontier.
+ * Sub-trees are only computed when they are required for the next tree, so
+ * getting the k-th tree only touches a small part of the chart.
+ * <p>
+ * Trees are returned in descending order of score, across all the given root
+ * cells. The first tree of each root is its viterbi tree. Not thread-safe.
+ *
+ * @param <MR>
+ *            Meaning representation.
+ */
+public class CKYKBestIterator<MR> implements Iterator<CKYTreeDerivation<MR>> {
+
+	private final Map<Cell<MR>, CellState>	cellStates	= new HashMap<Cell<MR>, CellState>();
+
+	/**
+	 * Frontier of the next tree of each root cell.
+	 */
+	private final PriorityQueue<RootCandidate>	roots	= new PriorityQueue<RootCandidate>(
+			11, (c1, c2) -> Double.compare(c2.tree.getScore(),
+					c1.tree.getScore()));
+
+	public CKYKBestIterator(Collection<Cell<MR>> rootCells) {
+		for (final Cell<MR> cell : rootCells) {
+			final CKYTreeDerivation<MR> tree = get(cell, 0);
+			if (tree != null) {
+				roots.add(new RootCandidate(cell, 0, tree));
+			}
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		return !roots.isEmpty();
+	}
+
+	@Override
+	public CKYTreeDerivation<MR> next() {
+		final RootCandidate candidate = roots.poll();
+		if (candidate == null) {
+			throw new NoSuchElementException();
+		}
+		final CKYTreeDerivation<MR> nextTree = get(candidate.cell,
+				candidate.index + 1);
+		if (nextTree != null) {
+			roots.add(new RootCandidate(candidate.cell, candidate.index + 1,
+					nextTree));
+		}
+		return candidate.tree;
+	}
+
+	/**
+	 * Get the k-th best sub-tree of the given cell, or null if the cell has
+	 * fewer trees.
+	 */
+	private CKYTreeDerivation<MR> get(Cell<MR> cell, int k) {
+		CellState state = cellStates.get(cell);
+		if (state == null) {
+			state = new CellState(cell);
+			cellStates.put(cell, state);
+			state.init();
+		}
+
+		while (state.trees.size() <= k) {
+			if (state.last != null) {
+				pushNeighbors(state, state.last);
+				state.last = null;
+			}
+			final Candidate candidate = state.frontier.poll();
+			if (candidate == null) {
+				return null;
+			}
+			state.trees.add(candidate.tree);
+			state.last = candidate;
+		}
+
+		return state.trees.get(k);
+	}
+
+	/**
+	 * Create the tree for a step and the given indices into the sorted trees
+	 * of its children. Returns null if any of the children has fewer trees.
+	 */
+	private CKYTreeDerivation<MR> createTree(Cell<MR> cell,
+			IWeightedCKYStep<MR> step, int[] indices) {
+		final List<CKYTreeDerivation<MR>> children = new ArrayList<CKYTreeDerivation<MR>>(
+				indices.length);
+		for (int i = 0; i < indices.length; ++i) {
+			final CKYTreeDerivation<MR> child = get(step.getChildCell(i),
+					indices[i]);
+			if (child == null) {
+				return null;
+			}
+			children.add(child);
+		}
+		return new CKYTreeDerivation<MR>(cell, step, children);
+	}
+
+	private void pushNeighbors(CellState state, Candidate candidate) {
+		for (int i = 0; i < candidate.indices.length; ++i) {
+			final int[] indices = Arrays.copyOf(candidate.indices,
+					candidate.indices.length);
+			indices[i]++;
+			state.push(candidate.step, indices);
+		}
+	}
+
+	private class Candidate {
+		private final int[]					indices;
+		private final IWeightedCKYStep<MR>	step;
+		private final CKYTreeDerivation<MR>	tree;
+
+		public Candidate(IWeightedCKYStep<MR> step, int[] indices,
+				CKYTreeDerivation<MR> tree) {
+			this.step = step;
+			this.indices = indices;
+			this.tree = tree;
+		}
+	}
+
+	/**
+	 * The sorted trees and the frontier of a single cell.
+	 */
+	private class CellState {
+		private final Cell<MR>					cell;
+		private final PriorityQueue<Candidate>	frontier	= new PriorityQueue<Candidate>(
+				11, (c1, c2) -> Double.compare(c2.tree.getScore(),
+						c1.tree.getScore()));
+
+		/**
+		 * The last candidate taken from the frontier. Its neighbors are only
+		 * added when the next tree is required.
+		 */
+		private Candidate						last		= null;
+
+		/**
+		 * Candidates already added to the frontier, to avoid adding the same
+		 * candidate through different neighbors.
+		 */
+		private final Set<StepIndices>			seen		= new HashSet<StepIndices>();
+
+		private final List<CKYTreeDerivation<MR>>	trees	= new ArrayList<CKYTreeDerivation<MR>>();
+
+		public CellState(Cell<MR> cell) {
+			this.cell = cell;
+		}
+
+		/**
+		 * Initialize the frontier with the best tree of each step. Must be
+		 * called after the state is registered, since getting the trees of
+		 * the children may visit this cell again through unary steps.
+		 */
+		private void init() {
+			for (final IWeightedCKYStep<MR> step : cell.getSteps()) {
+				push(step, new int[step.numChildren()]);
+			}
+		}
+
+		private void push(IWeightedCKYStep<MR> step, int[] indices) {
+			if (seen.add(new StepIndices(step, indices))) {
+				final CKYTreeDerivation<MR> tree = createTree(cell, step,
+						indices);
+				if (tree != null) {
+					frontier.add(new Candidate(step, indices, tree));
+				}
+			}
+		}
+	}
+
+	private class RootCandidate {
+		private final Cell<MR>				cell;
+		private final int					index;
+		private final CKYTreeDerivation<MR>	tree;
+
+		public RootCandidate(Cell<MR> cell, int index,
+				CKYTreeDerivation<MR> tree) {
+			this.cell = cell;
+			this.index = index;
+			this.tree = tree;
+		}
+	}
+
+	/**
+	 * Key of a candidate: a step and the indices of its children trees.
+	 */
+	private class StepIndices {
+		private final int[]					indices;
+		private final IWeightedCKYStep<MR>	step;
+
+		public StepIndices(IWeightedCKYStep<MR> step, int[] indices) {
+			this.step = step;
+			this.indices = indices;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof CKYKBestIterator.StepIndices)) {
+				return false;
+			}
+			@SuppressWarnings("unchecked")
+			final StepIndices other = (StepIndices) obj;
+			return step == other.step && Arrays.equals(indices, other.indices);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(step)
+					+ Arrays.hashCode(indices);
+		}
+	}
+
+}
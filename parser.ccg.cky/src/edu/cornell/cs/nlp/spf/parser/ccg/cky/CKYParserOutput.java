@@ -18,12 +18,15 @@ package edu.cornell.cs.nlp.spf.parser.ccg.cky;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
 import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector;
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Cell;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Chart;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.ChartPool;
 import edu.cornell.cs.nlp.spf.parser.graph.IGraphDerivation;
 import edu.cornell.cs.nlp.spf.parser.graph.IGraphParserOutput;
 import edu.cornell.cs.nlp.utils.collections.CollectionUtils;
@@ -33,6 +36,15 @@ import edu.cornell.cs.nlp.utils.filter.IFilter;
 
 /**
  * Parser output of the CKY parser, including the chart and all possible parses.
+ * <p>
+ * If the chart was taken from a {@link ChartPool}, it's returned to the pool
+ * when the output is released using {@link #release()}. The derivations remain
+ * valid after the output is released, but any method that requires the chart
+ * (e.g., {@link #getChart()} and {@link #logNorm()}) throws an
+ * {@link IllegalStateException}. Methods that use the chart hold the output's
+ * lock, so the chart can't be released while they use it. The chart returned
+ * by {@link #getChart()} must not be used after the output is released.
+ * Outputs that are never released are simply garbage collected.
  *
  * @param <MR>
  *            Type of meaning representation
@@ -49,12 +61,23 @@ public class CKYParserOutput<MR> implements IGraphParserOutput<MR> {
 	/** The CKY chart */
 	private final Chart<MR>					chart;
 
+	/** Pool to return the chart to when released (can be null) */
+	private final ChartPool<MR>				chartPool;
+
 	/** Total parsing time */
 	private final long						parsingTime;
 
+	private boolean							released	= false;
+
 	public CKYParserOutput(Chart<MR> chart, long parsingTime) {
+		this(chart, parsingTime, null);
+	}
+
+	public CKYParserOutput(Chart<MR> chart, long parsingTime,
+			ChartPool<MR> chartPool) {
 		this.chart = chart;
 		this.parsingTime = parsingTime;
+		this.chartPool = chartPool;
 		this.allParses = Collections.unmodifiableList(chart.getParseResults());
 		this.bestParses = Collections
 				.unmodifiableList(findBestParses(allParses));
@@ -84,6 +107,18 @@ public class CKYParserOutput<MR> implements IGraphParserOutput<MR> {
 		return best;
 	}
 
+	/**
+	 * Compute the features of all steps in the chart with the model used for
+	 * parsing.
+	 *
+	 * @see Chart#computeStepFeatures()
+	 */
+	@Override
+	public synchronized void fixFeatures() {
+		assertNotReleased();
+		chart.computeStepFeatures();
+	}
+
 	@Override
 	public List<CKYDerivation<MR>> getAllDerivations() {
 		return allParses;
@@ -94,10 +129,73 @@ public class CKYParserOutput<MR> implements IGraphParserOutput<MR> {
 		return bestParses;
 	}
 
-	public Chart<MR> getChart() {
+	/**
+	 * The best complete parses, if there are any. Otherwise, the max-scoring
+	 * derivations of the longest spans that have any cells. Useful when
+	 * parsing was stopped early (e.g., due to a deadline).
+	 */
+	public synchronized List<CKYDerivation<MR>> getBestPartialDerivations() {
+		if (!bestParses.isEmpty()) {
+			return bestParses;
+		}
+		assertNotReleased();
+		final int sentenceLength = chart.getSentenceLength();
+		for (int len = sentenceLength - 1; len >= 0; --len) {
+			final List<CKYDerivation<MR>> best = new LinkedList<CKYDerivation<MR>>();
+			double bestScore = -Double.MAX_VALUE;
+			for (int start = 0; start < sentenceLength - len; ++start) {
+				final Iterator<Cell<MR>> iterator = chart.getSpanIterator(start,
+						start + len);
+				while (iterator.hasNext()) {
+					final Cell<MR> cell = iterator.next();
+					if (cell.getViterbiScore() == bestScore) {
+						best.add(new CKYDerivation<MR>(cell));
+					}
+					if (cell.getViterbiScore() > bestScore) {
+						bestScore = cell.getViterbiScore();
+						best.clear();
+						best.add(new CKYDerivation<MR>(cell));
+					}
+				}
+			}
+			if (!best.isEmpty()) {
+				return Collections.unmodifiableList(best);
+			}
+		}
+		return Collections.emptyList();
+	}
+
+	public synchronized Chart<MR> getChart() {
+		assertNotReleased();
 		return chart;
 	}
 
+	/**
+	 * Iterate over the derivation trees of all complete parses, in descending
+	 * order of score. Trees are extracted lazily from the chart, so getting
+	 * the first few trees is cheap.
+	 *
+	 * @see CKYKBestIterator
+	 */
+	public Iterator<CKYTreeDerivation<MR>> getDerivationTreeIterator() {
+		return getDerivationTreeIterator(FilterUtils.stubTrue());
+	}
+
+	/**
+	 * Iterate over the derivation trees of the complete parses that pass the
+	 * filter, in descending order of score.
+	 */
+	public Iterator<CKYTreeDerivation<MR>> getDerivationTreeIterator(
+			IFilter<Category<MR>> filter) {
+		final List<Cell<MR>> roots = new ArrayList<Cell<MR>>(allParses.size());
+		for (final CKYDerivation<MR> parse : allParses) {
+			if (filter.test(parse.getCategory())) {
+				roots.add(parse.getCell());
+			}
+		}
+		return new CKYKBestIterator<MR>(roots);
+	}
+
 	@Override
 	public List<CKYDerivation<MR>> getDerivations(
 			final IFilter<Category<MR>> filter) {
@@ -114,6 +212,20 @@ public class CKYParserOutput<MR> implements IGraphParserOutput<MR> {
 		return parses;
 	}
 
+	/**
+	 * The k highest scoring derivation trees of all complete parses, sorted
+	 * by descending score. Returns fewer trees if the chart contains fewer.
+	 */
+	public List<CKYTreeDerivation<MR>> getKBestDerivationTrees(int k) {
+		final List<CKYTreeDerivation<MR>> trees = new ArrayList<CKYTreeDerivation<MR>>(
+				k);
+		final Iterator<CKYTreeDerivation<MR>> iterator = getDerivationTreeIterator();
+		while (trees.size() < k && iterator.hasNext()) {
+			trees.add(iterator.next());
+		}
+		return trees;
+	}
+
 	@Override
 	public List<CKYDerivation<MR>> getMaxDerivations(
 			IFilter<Category<MR>> filter) {
@@ -126,7 +238,8 @@ public class CKYParserOutput<MR> implements IGraphParserOutput<MR> {
 	}
 
 	@Override
-	public boolean isExact() {
+	public synchronized boolean isExact() {
+		assertNotReleased();
 		return chart.getPrunedSpans().isEmpty();
 	}
 
@@ -138,13 +251,17 @@ public class CKYParserOutput<MR> implements IGraphParserOutput<MR> {
 
 	/** {@inheritDoc} */
 	@Override
-	public IHashVector logExpectedFeatures(IFilter<Category<MR>> filter) {
+	public synchronized IHashVector logExpectedFeatures(
+			IFilter<Category<MR>> filter) {
+		assertNotReleased();
 		return chart.logExpectedFeatures(filter);
 	}
 
 	/** {@inheritDoc} */
 	@Override
-	public IHashVector logExpectedFeatures(IScorer<Category<MR>> initialScorer) {
+	public synchronized IHashVector logExpectedFeatures(
+			IScorer<Category<MR>> initialScorer) {
+		assertNotReleased();
 		return chart.logExpectedFeatures(initialScorer);
 	}
 
@@ -156,8 +273,30 @@ public class CKYParserOutput<MR> implements IGraphParserOutput<MR> {
 
 	/** {@inheritDoc} */
 	@Override
-	public double logNorm(IFilter<Category<MR>> filter) {
+	public synchronized double logNorm(IFilter<Category<MR>> filter) {
+		assertNotReleased();
 		return chart.logNorm(filter);
 	}
 
+	/**
+	 * Release the chart of this output. If the chart was taken from a pool,
+	 * it's returned to it for re-use. Releasing more than once has no effect.
+	 */
+	@Override
+	public synchronized void release() {
+		if (!released) {
+			released = true;
+			if (chartPool != null) {
+				chartPool.release(chart);
+			}
+		}
+	}
+
+	private void assertNotReleased() {
+		if (released) {
+			throw new IllegalStateException(
+					"Output chart was released and can't be used");
+		}
+	}
+
 }
@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import edu.cornell.cs.nlp.spf.base.hashvector.HashVectorFactory;
+import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector;
+import edu.cornell.cs.nlp.spf.base.hashvector.IHashVectorImmutable;
+import edu.cornell.cs.nlp.spf.ccg.categories.Category;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
+import edu.cornell.cs.nlp.spf.parser.IDerivation;
+import edu.cornell.cs.nlp.spf.parser.RuleUsageTriplet;
+import edu.cornell.cs.nlp.spf.parser.ccg.ILexicalParseStep;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Cell;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.steps.IWeightedCKYStep;
+import edu.cornell.cs.nlp.utils.composites.Pair;
+
+/**
+ * A single CKY derivation tree. Unlike {@link CKYDerivation}, which packs all
+ * the trees of a cell, this derivation selects a single step at every node,
+ * so it has a single score, feature vector and set of lexical entries. Trees
+ * are created by {@link CKYKBestIterator}. Sub-trees are shared between
+ * trees extracted from the same chart.
+ *
+ * @param <MR>
+ *            Meaning representation.
+ */
+public class CKYTreeDerivation<MR> implements IDerivation<MR> {
+
+	private IHashVectorImmutable				averageFeatureVector	= null;
+
+	private final Cell<MR>						cell;
+
+	private final List<CKYTreeDerivation<MR>>	children;
+
+	/**
+	 * The score of the tree: the sum of the scores of all its steps.
+	 */
+	private final double						score;
+
+	private final IWeightedCKYStep<MR>			step;
+
+	CKYTreeDerivation(Cell<MR> cell, IWeightedCKYStep<MR> step,
+			List<CKYTreeDerivation<MR>> children) {
+		this.cell = cell;
+		this.step = step;
+		this.children = Collections.unmodifiableList(children);
+		double treeScore = step.getStepScore();
+		for (final CKYTreeDerivation<MR> child : children) {
+			treeScore += child.score;
+		}
+		this.score = treeScore;
+	}
+
+	/**
+	 * All the lexical entries of the tree, ordered from left to right.
+	 */
+	@Override
+	public LinkedHashSet<LexicalEntry<MR>> getAllLexicalEntries() {
+		final LinkedHashSet<LexicalEntry<MR>> result = new LinkedHashSet<LexicalEntry<MR>>();
+		collectLexicalEntries(result);
+		return result;
+	}
+
+	/**
+	 * All the steps of the tree, children before their parents.
+	 */
+	@Override
+	public LinkedHashSet<IWeightedCKYStep<MR>> getAllSteps() {
+		final LinkedHashSet<IWeightedCKYStep<MR>> result = new LinkedHashSet<IWeightedCKYStep<MR>>();
+		collectSteps(result);
+		return result;
+	}
+
+	/**
+	 * The features of the tree. Since this is a single tree, there's nothing
+	 * to average.
+	 */
+	@Override
+	public IHashVectorImmutable getAverageMaxFeatureVector() {
+		if (averageFeatureVector == null) {
+			final IHashVector features = HashVectorFactory.create();
+			collectFeatures(features);
+			averageFeatureVector = features;
+		}
+		return averageFeatureVector;
+	}
+
+	@Override
+	public Category<MR> getCategory() {
+		return cell.getCategory();
+	}
+
+	public Cell<MR> getCell() {
+		return cell;
+	}
+
+	public List<CKYTreeDerivation<MR>> getChildren() {
+		return children;
+	}
+
+	@Override
+	public LinkedHashSet<LexicalEntry<MR>> getMaxLexicalEntries() {
+		return getAllLexicalEntries();
+	}
+
+	@Override
+	public LinkedHashSet<RuleUsageTriplet> getMaxRulesUsed() {
+		final LinkedHashSet<RuleUsageTriplet> result = new LinkedHashSet<RuleUsageTriplet>();
+		collectRules(result);
+		return result;
+	}
+
+	@Override
+	public LinkedHashSet<IWeightedCKYStep<MR>> getMaxSteps() {
+		return getAllSteps();
+	}
+
+	@Override
+	public double getScore() {
+		return score;
+	}
+
+	@Override
+	public MR getSemantics() {
+		return cell.getCategory().getSemantics();
+	}
+
+	/**
+	 * The step at the root of the tree.
+	 */
+	public IWeightedCKYStep<MR> getStep() {
+		return step;
+	}
+
+	@Override
+	public long numParses() {
+		return 1;
+	}
+
+	@Override
+	public String toString() {
+		return cell.getCategory() + " : " + score;
+	}
+
+	private void collectFeatures(IHashVector features) {
+		for (final CKYTreeDerivation<MR> child : children) {
+			child.collectFeatures(features);
+		}
+		step.getStepFeatures().addTimesInto(1.0, features);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void collectLexicalEntries(LinkedHashSet<LexicalEntry<MR>> result) {
+		if (step instanceof ILexicalParseStep) {
+			result.add(((ILexicalParseStep<MR>) step).getLexicalEntry());
+		}
+		for (final CKYTreeDerivation<MR> child : children) {
+			child.collectLexicalEntries(result);
+		}
+	}
+
+	private void collectRules(LinkedHashSet<RuleUsageTriplet> result) {
+		final List<Pair<Integer, Integer>> spans = new ArrayList<Pair<Integer, Integer>>();
+		for (final CKYTreeDerivation<MR> child : children) {
+			child.collectRules(result);
+			spans.add(Pair.of(child.cell.getStart(), child.cell.getEnd()));
+		}
+		if (spans.isEmpty()) {
+			// Case no children, usually for lexical rules, simply assign the
+			// span (as for unary rules).
+			spans.add(Pair.of(cell.getStart(), cell.getEnd()));
+		}
+		result.add(new RuleUsageTriplet(step.getRuleName(), spans));
+	}
+
+	private void collectSteps(LinkedHashSet<IWeightedCKYStep<MR>> result) {
+		for (final CKYTreeDerivation<MR> child : children) {
+			child.collectSteps(result);
+		}
+		result.add(step);
+	}
+
+}
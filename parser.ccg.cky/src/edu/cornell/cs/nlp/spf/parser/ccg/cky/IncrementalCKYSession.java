@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import edu.cornell.cs.nlp.spf.base.token.TokenSeq;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.ILexiconImmutable;
+import edu.cornell.cs.nlp.spf.parser.ParsingOp;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Cell;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.AbstractCellFactory;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Chart;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IDataItemModel;
+
+/**
+ * Incremental CKY parsing session for streaming input. Tokens are added one
+ * at a time. Adding a token only processes the spans that end at it, while
+ * all earlier spans are re-used.
+ * <p>
+ * The session maintains an open chart, where every span is processed as if
+ * more tokens will follow (i.e., no span is at the end of the sentence and no
+ * cell is a complete parse). After adding a token, the column of spans ending
+ * at it is processed once more as the end of the sentence in a closed chart,
+ * which shares all other spans with the open chart. The closed chart is
+ * equivalent to the chart of parsing the current prefix with the parser.
+ * <p>
+ * Outputs returned by earlier steps share cells with later ones. Computing
+ * outside scores (e.g., when computing expected features) updates the shared
+ * cells, so only the latest output should be used for such computations.
+ * Sentence-level and sloppy lexical generators are not used, since they
+ * require the complete data item. Not thread-safe.
+ *
+ * @param <MR>
+ *            Type of meaning representation
+ * @see AbstractCKYParser#createIncrementalSession(IDataItemModel)
+ */
+public class IncrementalCKYSession<MR> {
+
+	private final ILexiconImmutable<MR>		lexicon;
+
+	private final IDataItemModel<MR>		model;
+
+	/**
+	 * Chart of the current prefix, processed as if more tokens will follow.
+	 */
+	private Chart<MR>						openChart;
+
+	/**
+	 * Output of the current prefix. Null if no token was added yet.
+	 */
+	private CKYParserOutput<MR>				output	= null;
+
+	private final AbstractCKYParser<?, MR>	parser;
+
+	private final Predicate<ParsingOp<MR>>	pruningFilter;
+
+	IncrementalCKYSession(AbstractCKYParser<?, MR> parser, Chart<MR> emptyChart,
+			Predicate<ParsingOp<MR>> pruningFilter, IDataItemModel<MR> model,
+			ILexiconImmutable<MR> lexicon) {
+		this.parser = parser;
+		this.openChart = emptyChart;
+		this.pruningFilter = pruningFilter;
+		this.model = model;
+		this.lexicon = lexicon;
+	}
+
+	/**
+	 * Add a token to the end of the current prefix and process all the spans
+	 * ending at it.
+	 *
+	 * @return The parser output for the extended prefix.
+	 */
+	public CKYParserOutput<MR> addToken(String token) {
+		final long start = System.currentTimeMillis();
+
+		final List<String> tokenList = new ArrayList<String>(
+				openChart.getTokens().toList());
+		tokenList.add(token);
+		final TokenSeq tokens = TokenSeq.of(tokenList);
+		final int numTokens = tokens.size();
+		final int end = numTokens - 1;
+
+		// Extend the open chart and process the new column as if more tokens
+		// will follow.
+		final AbstractCellFactory<MR> openCellFactory = parser
+				.createCellFactory(numTokens + 1);
+		final Chart<MR> extendedChart = new Chart<MR>(openChart, tokens,
+				openCellFactory, openChart.getSentenceLength());
+		parser.processSpansEndingAt(end, numTokens + 1, extendedChart,
+				openCellFactory, pruningFilter, model, lexicon);
+		openChart = extendedChart;
+
+		// Process the new column again as the end of the sentence. The rest of
+		// the chart is shared with the open chart.
+		final AbstractCellFactory<MR> closedCellFactory = parser
+				.createCellFactory(numTokens);
+		final Chart<MR> closedChart = new Chart<MR>(openChart, tokens,
+				closedCellFactory, end);
+		parser.processSpansEndingAt(end, numTokens, closedChart,
+				closedCellFactory, pruningFilter, model, lexicon);
+
+		output = new CKYParserOutput<MR>(closedChart,
+				System.currentTimeMillis() - start);
+		return output;
+	}
+
+	/**
+	 * The output for the current prefix, or null if no token was added yet.
+	 */
+	public CKYParserOutput<MR> getOutput() {
+		return output;
+	}
+
+	/**
+	 * Partial derivations spanning the current prefix. These may be extended
+	 * by the tokens that follow, and are not restricted to complete parses.
+	 */
+	public List<CKYDerivation<MR>> getPartialDerivations() {
+		if (openChart.getSentenceLength() == 0) {
+			return Collections.emptyList();
+		}
+		final List<CKYDerivation<MR>> derivations = new ArrayList<CKYDerivation<MR>>();
+		final Iterator<Cell<MR>> iterator = openChart.getSpanIterator(0,
+				openChart.getSentenceLength() - 1);
+		while (iterator.hasNext()) {
+			derivations.add(new CKYDerivation<MR>(iterator.next()));
+		}
+		return derivations;
+	}
+
+	public TokenSeq getTokens() {
+		return openChart.getTokens();
+	}
+
+}
@@ -0,0 +1,301 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import edu.cornell.cs.nlp.spf.base.token.TokenSeq;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.ILexiconImmutable;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
+import edu.cornell.cs.nlp.spf.explat.IResourceRepository;
+import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
+import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
+import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
+import edu.cornell.cs.nlp.utils.log.ILogger;
+import edu.cornell.cs.nlp.utils.log.LoggerFactory;
+
+/**
+ * Bounded cache of the lexical entries the model lexicon returns for each
+ * token sequence. Learners that re-parse the same sentences every epoch
+ * repeatedly look up the same sequences, and for factored lexicons each look
+ * up constructs the categories of all matching lexeme-template pairs. Only
+ * entries are cached: lexical steps and their scores are re-created with the
+ * current model for every parse.
+ * <p>
+ * Each cached list is stamped with the size of the lexicon it was taken from.
+ * Lexicons only grow during learning, so a list is re-computed once its stamp
+ * doesn't match the current lexicon size. The cache assumes it's used with a
+ * single model lexicon.
+ * <p>
+ * The content of the cache can be saved to a file and loaded later (e.g., when
+ * resuming learning with the same lexicon). The cache is otherwise not
+ * serialized, and is re-created empty when de-serialized.
+ *
+ * @param <MR>
+ *            Meaning representation.
+ */
+public class LexicalEntryCache<MR> implements Serializable {
+	public static final ILogger							LOG					= LoggerFactory
+			.create(LexicalEntryCache.class);
+
+	private static final long							serialVersionUID	= -6190865553167720236L;
+
+	private transient Cache<TokenSeq, Entries<MR>>		cache;
+
+	private final long									maxSize;
+
+	/**
+	 * Number of look ups that found entries with a stale lexicon size stamp.
+	 * The underlying cache counts them as hits, but they are re-computed.
+	 */
+	private transient AtomicLong						staleCount;
+
+	public LexicalEntryCache(long maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException(
+					"Invalid cache size: " + maxSize);
+		}
+		this.maxSize = maxSize;
+		this.cache = createCache(maxSize);
+		this.staleCount = new AtomicLong();
+		LOG.info("Init %s :: maxSize=%d", getClass().getSimpleName(),
+				maxSize);
+	}
+
+	private static <MR> Cache<TokenSeq, Entries<MR>> createCache(
+			long maxSize) {
+		return CacheBuilder.newBuilder().maximumSize(maxSize).recordStats()
+				.build();
+	}
+
+	public void clear() {
+		cache.invalidateAll();
+	}
+
+	public long getHitCount() {
+		return cache.stats().hitCount() - staleCount.get();
+	}
+
+	public double getHitRate() {
+		final long requestCount = cache.stats().requestCount();
+		return requestCount == 0 ? 1.0
+				: (double) getHitCount() / requestCount;
+	}
+
+	public long getMissCount() {
+		return cache.stats().missCount() + staleCount.get();
+	}
+
+	/**
+	 * Load cached entries from a file created by {@link #save(File)}. Loaded
+	 * entries are added to the current content of the cache.
+	 */
+	@SuppressWarnings("unchecked")
+	public void load(File file) throws IOException {
+		try (final ObjectInputStream in = new ObjectInputStream(
+				new BufferedInputStream(new FileInputStream(file)))) {
+			final Map<TokenSeq, Entries<MR>> entries = (Map<TokenSeq, Entries<MR>>) in
+					.readObject();
+			cache.putAll(entries);
+			LOG.info("Loaded %d cached token sequences from %s",
+					entries.size(), file);
+		} catch (final ClassNotFoundException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Save the current content of the cache to a file.
+	 */
+	public void save(File file) throws IOException {
+		try (final ObjectOutputStream out = new ObjectOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeObject(new HashMap<TokenSeq, Entries<MR>>(cache.asMap()));
+		}
+		LOG.info("Saved %d cached token sequences to %s", cache.size(), file);
+	}
+
+	public long size() {
+		return cache.size();
+	}
+
+	@Override
+	public String toString() {
+		final CacheStats stats = cache.stats();
+		return String.format(
+				"%s[size=%d, maxSize=%d, hits=%d, misses=%d, hitRate=%.4f, evictions=%d]",
+				getClass().getSimpleName(), cache.size(), maxSize,
+				getHitCount(), getMissCount(), getHitRate(),
+				stats.evictionCount());
+	}
+
+	/**
+	 * Wrap a lexicon so its look ups go through the cache. The lexicon
+	 * shouldn't be modified while the returned view is used (e.g., during a
+	 * single parse).
+	 */
+	public ILexiconImmutable<MR> wrap(ILexiconImmutable<MR> lexicon) {
+		return new CachedLexicon(lexicon);
+	}
+
+	private void readObject(ObjectInputStream in)
+			throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		cache = createCache(maxSize);
+		staleCount = new AtomicLong();
+	}
+
+	public static class Creator<MR>
+			implements IResourceObjectCreator<LexicalEntryCache<MR>> {
+
+		private final String type;
+
+		public Creator() {
+			this("parser.cky.lexcache");
+		}
+
+		public Creator(String type) {
+			this.type = type;
+		}
+
+		@Override
+		public LexicalEntryCache<MR> create(Parameters params,
+				IResourceRepository repo) {
+			final LexicalEntryCache<MR> cache = new LexicalEntryCache<MR>(
+					params.getAsInteger("size", 100000));
+			if (params.contains("file")) {
+				final File file = params.getAsFile("file");
+				if (file.exists()) {
+					try {
+						cache.load(file);
+					} catch (final IOException e) {
+						throw new IllegalStateException(
+								"Failed to load lexical cache: " + file, e);
+					}
+				}
+			}
+			return cache;
+		}
+
+		@Override
+		public String type() {
+			return type;
+		}
+
+		@Override
+		public ResourceUsage usage() {
+			return ResourceUsage.builder(type, LexicalEntryCache.class)
+					.setDescription(
+							"Bounded cache of the lexical entries of the model lexicon, used by CKY parsers to avoid re-computing lexical entries when re-parsing sentences")
+					.addParam("size", Integer.class,
+							"Maximum number of cached token sequences (default: 100000)")
+					.addParam("file", File.class,
+							"File to load cached entries from, if it exists (default: none)")
+					.build();
+		}
+
+	}
+
+	private static class Entries<MR> implements Serializable {
+		private static final long				serialVersionUID	= 4087337018390541734L;
+		private final List<LexicalEntry<MR>>	entries;
+		private final int						lexiconSize;
+
+		public Entries(List<LexicalEntry<MR>> entries, int lexiconSize) {
+			this.entries = entries;
+			this.lexiconSize = lexiconSize;
+		}
+	}
+
+	private class CachedLexicon implements ILexiconImmutable<MR> {
+		private static final long			serialVersionUID	= -2519519373522532573L;
+		private final ILexiconImmutable<MR>	lexicon;
+
+		/**
+		 * The lexicon size when the view was created. Computed once, since
+		 * it's not constant time for all lexicons.
+		 */
+		private final int					lexiconSize;
+
+		public CachedLexicon(ILexiconImmutable<MR> lexicon) {
+			this.lexicon = lexicon;
+			this.lexiconSize = lexicon.size();
+		}
+
+		@Override
+		public boolean contains(LexicalEntry<MR> lex) {
+			return lexicon.contains(lex);
+		}
+
+		@Override
+		public Iterator<? extends LexicalEntry<MR>> get(TokenSeq tokens) {
+			final Entries<MR> cached = cache.getIfPresent(tokens);
+			if (cached != null) {
+				if (cached.lexiconSize == lexiconSize) {
+					return cached.entries.iterator();
+				}
+				staleCount.incrementAndGet();
+			}
+			final List<LexicalEntry<MR>> entries = new ArrayList<LexicalEntry<MR>>();
+			final Iterator<? extends LexicalEntry<MR>> iterator = lexicon
+					.get(tokens);
+			while (iterator.hasNext()) {
+				entries.add(iterator.next());
+			}
+			final List<LexicalEntry<MR>> unmodifiable = Collections
+					.unmodifiableList(entries);
+			cache.put(tokens, new Entries<MR>(unmodifiable, lexiconSize));
+			return unmodifiable.iterator();
+		}
+
+		@Override
+		public int size() {
+			return lexiconSize;
+		}
+
+		@Override
+		public Collection<LexicalEntry<MR>> toCollection() {
+			return lexicon.toCollection();
+		}
+
+		@Override
+		public String toString() {
+			return lexicon.toString();
+		}
+	}
+
+}
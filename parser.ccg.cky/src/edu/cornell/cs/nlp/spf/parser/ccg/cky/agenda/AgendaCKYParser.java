@@ -0,0 +1,638 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky.agenda;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import edu.cornell.cs.nlp.spf.ccg.categories.Category;
+import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.ILexiconImmutable;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.explat.IResourceRepository;
+import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment;
+import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
+import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
+import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
+import edu.cornell.cs.nlp.spf.parser.ISentenceLexiconGenerator;
+import edu.cornell.cs.nlp.spf.parser.ParsingOp;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.AbstractCKYParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYBinaryParsingRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYForestCache;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYUnaryParsingRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.LexicalEntryCache;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.AbstractCellFactory;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Cell;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Chart;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.IBeamPolicy;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IDataItemModel;
+import edu.cornell.cs.nlp.spf.parser.ccg.normalform.NormalFormValidator;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.BinaryRuleSet;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.IBinaryParseRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.ILexicalRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.IUnaryParseRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.LexicalRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.ParseRuleCache;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.UnaryRuleSet;
+import edu.cornell.cs.nlp.utils.composites.Pair;
+import edu.cornell.cs.nlp.utils.filter.FilterUtils;
+import edu.cornell.cs.nlp.utils.filter.IFilter;
+import edu.cornell.cs.nlp.utils.log.ILogger;
+import edu.cornell.cs.nlp.utils.log.LoggerFactory;
+
+/**
+ * Agenda-based best-first CKY parser. Instead of filling the chart span by
+ * span, cells are kept in an agenda ordered by their viterbi score plus an
+ * estimate of the score of the rest of the sentence, and are moved to the
+ * chart in this order. Each cell added to the chart is combined with the cells
+ * already in adjacent spans. Parsing stops when the first complete parse is
+ * taken from the agenda, or when the agenda is empty.
+ * <p>
+ * The outside estimate of a span is the sum of the best lexical score per
+ * token over all tokens outside of the span, where the score of a lexical cell
+ * is divided evenly between the tokens it covers. The estimate is admissible
+ * (and the first complete parse is the viterbi parse) when the local scores of
+ * all non-lexical steps are non-positive. Otherwise, it's a heuristic. In
+ * both cases, the chart is the product of a partial search, so when parsing
+ * stops before the agenda is exhausted the complete span is marked as pruned
+ * and the output is not exact.
+ *
+ * @param <DI>
+ *            Data item.
+ * @param <MR>
+ *            Meaning representation.
+ */
+public class AgendaCKYParser<DI extends Sentence, MR>
+		extends AbstractCKYParser<DI, MR> {
+	public static final ILogger	LOG					= LoggerFactory
+			.create(AgendaCKYParser.class);
+	private static final long	serialVersionUID	= -2946103958521379342L;
+
+	private AgendaCKYParser(int maxNumberOfCellsInSpan,
+			CKYBinaryParsingRule<MR>[] binaryRules,
+			List<ISentenceLexiconGenerator<DI, MR>> sentenceLexiconGenerators,
+			List<ISentenceLexiconGenerator<DI, MR>> sloppyLexicalGenerators,
+			ICategoryServices<MR> categoryServices, boolean pruneLexicalCells,
+			IFilter<Category<MR>> completeParseFilter,
+			CKYUnaryParsingRule<MR>[] unaryRules, ILexicalRule<MR> lexicalRule,
+			boolean breakTies, int chartPoolSize, long timeout,
+			IBeamPolicy beamPolicy, boolean compactCells,
+			LexicalEntryCache<MR> lexicalCache,
+			CKYForestCache<MR> forestCache) {
+		// Cells are expanded one at a time, no splits are processed, so
+		// there's no need for a split pool.
+		super(maxNumberOfCellsInSpan, binaryRules, sentenceLexiconGenerators,
+				sloppyLexicalGenerators, categoryServices, pruneLexicalCells,
+				completeParseFilter, unaryRules, lexicalRule, breakTies, 1,
+				chartPoolSize, timeout,
+				beamPolicy, compactCells, lexicalCache, forestCache);
+	}
+
+	@Override
+	protected Chart<MR> doParse(final Predicate<ParsingOp<MR>> pruningFilter,
+			IDataItemModel<MR> model, Chart<MR> chart, int numTokens,
+			AbstractCellFactory<MR> cellFactory,
+			ILexiconImmutable<MR> lexicon) {
+
+		final int sentenceLength = chart.getSentenceLength();
+
+		// Generate all lexical cells and the unary cells created from them.
+		// These are the initial agenda items. The best lexical score of each
+		// token is used to compute the outside estimates.
+		final List<Cell<MR>> initialCells = new ArrayList<>();
+		final double[] bestTokenScores = new double[numTokens];
+		Arrays.fill(bestTokenScores, Double.NEGATIVE_INFINITY);
+		for (int start = 0; start < numTokens; start++) {
+			for (int end = start; end < numTokens; end++) {
+				final Pair<Collection<Cell<MR>>, Boolean> processingPair = generateLexicalCells(
+						start, end, chart, lexicon, model, pruningFilter);
+				if (processingPair.second()) {
+					chart.externalPruning(start, end);
+				}
+				for (final Cell<MR> cell : processingPair.first()) {
+					final double tokenScore = cell.getViterbiScore()
+							/ (end - start + 1);
+					for (int i = start; i <= end; ++i) {
+						if (tokenScore > bestTokenScores[i]) {
+							bestTokenScores[i] = tokenScore;
+						}
+					}
+					initialCells.add(cell);
+					initialCells.addAll(unaryProcessCell(cell, sentenceLength,
+							cellFactory, pruningFilter, model));
+				}
+			}
+		}
+
+		// Tokens not covered by any lexical cell can't be part of a complete
+		// parse. Their estimate is neutral, so the agenda will be exhausted.
+		for (int i = 0; i < numTokens; ++i) {
+			if (bestTokenScores[i] == Double.NEGATIVE_INFINITY) {
+				LOG.debug("No lexical cells for token %d", i);
+				bestTokenScores[i] = 0.0;
+			}
+		}
+
+		// Prefix sums of the best token scores. The outside estimate of the
+		// span [start, end] is prefix[numTokens] - (prefix[end + 1] -
+		// prefix[start]).
+		final double[] prefix = new double[numTokens + 1];
+		for (int i = 0; i < numTokens; ++i) {
+			prefix[i + 1] = prefix[i] + bestTokenScores[i];
+		}
+
+		// Initial cells are compared by identity, since different initial
+		// cells may have the same signature.
+		final Set<Cell<MR>> initialCellSet = Collections
+				.newSetFromMap(new IdentityHashMap<Cell<MR>, Boolean>());
+		initialCellSet.addAll(initialCells);
+		final PriorityQueue<AgendaItem<MR>> agenda = new PriorityQueue<>();
+		int pushed = 0;
+		for (final Cell<MR> cell : initialCells) {
+			agenda.add(new AgendaItem<>(cell,
+					outsideEstimate(cell, prefix, numTokens), pushed++));
+		}
+
+		int popped = 0;
+		while (!agenda.isEmpty()) {
+			if (chart.isPastDeadline()) {
+				// The search was stopped early, so the chart is not exact.
+				// Lexical cells and their unary cells that were not popped yet
+				// are added, so every token keeps its derivations.
+				LOG.debug("Deadline passed after %d pops", popped);
+				for (final AgendaItem<MR> item : agenda) {
+					if (initialCellSet.contains(item.cell)) {
+						chart.add(item.cell);
+					}
+				}
+				chart.externalPruning(0, numTokens - 1);
+				break;
+			}
+
+			final Cell<MR> cell = agenda.poll().cell;
+			++popped;
+
+			if (chart.contains(cell)) {
+				// Case the cell signature is already in the chart. Add the
+				// derivation steps to the existing cell. The existing cell was
+				// already expanded, and the new cells created from it point to
+				// it, so no need to expand this one.
+				LOG.debug("Merging popped cell into existing chart cell: %s",
+						cell);
+				chart.add(cell);
+				continue;
+			}
+
+			chart.add(cell);
+			if (!chart.contains(cell)) {
+				// Case the cell was pruned by the chart beam.
+				LOG.debug("Popped cell pruned by chart: %s", cell);
+				continue;
+			}
+
+			if (cell.isFullParse()) {
+				LOG.debug("Found complete parse after %d pops: %s", popped,
+						cell);
+				if (!agenda.isEmpty()) {
+					// The search was stopped early, so the chart is not exact.
+					chart.externalPruning(0, numTokens - 1);
+				}
+				break;
+			}
+
+			// Expand the cell with binary rules, using the cells in adjacent
+			// spans already in the chart, and with unary rules.
+			final List<Cell<MR>> newCells = new ArrayList<>();
+			for (int otherEnd = cell.getEnd()
+					+ 1; otherEnd < numTokens; ++otherEnd) {
+				newCells.addAll(binaryProcessCell(cell, cell.getEnd() + 1,
+						otherEnd, true, sentenceLength, chart, cellFactory,
+						pruningFilter, model));
+			}
+			for (int otherStart = 0; otherStart < cell
+					.getStart(); ++otherStart) {
+				newCells.addAll(binaryProcessCell(cell, otherStart,
+						cell.getStart() - 1, false, sentenceLength, chart,
+						cellFactory, pruningFilter, model));
+			}
+			if (!cell.hasLexicalStep()) {
+				// Lexical cells were processed with unary rules when the
+				// agenda was initialized.
+				newCells.addAll(unaryProcessCell(cell, sentenceLength,
+						cellFactory, pruningFilter, model));
+			}
+
+			for (final Cell<MR> newCell : newCells) {
+				agenda.add(new AgendaItem<>(newCell,
+						outsideEstimate(newCell, prefix, numTokens),
+						pushed++));
+			}
+		}
+
+		LOG.debug("Agenda parsing done: %d pushed, %d popped, %d left",
+				pushed, popped, agenda.size());
+
+		return chart;
+	}
+
+	private double outsideEstimate(Cell<MR> cell, double[] prefix,
+			int numTokens) {
+		return prefix[numTokens] - prefix[cell.getEnd() + 1]
+				+ prefix[cell.getStart()];
+	}
+
+	/**
+	 * Builder for {@link AgendaCKYParser}.
+	 */
+	public static class Builder<DI extends Sentence, MR> {
+
+		/**
+		 * Policy to adapt the beam of each span (null for a fixed beam). The
+		 * beam of each span is bounded by {@link #maxNumberOfCellsInSpan}.
+		 */
+		private IBeamPolicy										beamPolicy					= null;
+
+		private final Set<CKYBinaryParsingRule<MR>>				binaryRules					= new HashSet<CKYBinaryParsingRule<MR>>();
+
+		private boolean											breakTies					= false;
+
+		private final ICategoryServices<MR>						categoryServices;
+
+		/**
+		 * Number of charts to keep for re-use (0 disables pooling). Pooled
+		 * charts are only recycled when outputs are released.
+		 */
+		private int												chartPoolSize				= 0;
+
+		/**
+		 * Store cell derivation steps compactly to reduce the memory of large
+		 * charts.
+		 */
+		private boolean											compactCells				= false;
+
+		private IFilter<Category<MR>>							completeParseFilter			= FilterUtils
+				.stubTrue();
+
+		/**
+		 * Cache of exact charts to re-score when sentences are parsed again
+		 * (null to always search). Not used with a beam policy.
+		 */
+		private CKYForestCache<MR>								forestCache					= null;
+
+		/**
+		 * Cache of the entries of the model lexicon (null to always use the
+		 * lexicon directly).
+		 */
+		private LexicalEntryCache<MR>							lexicalCache				= null;
+
+		private ILexicalRule<MR>								lexicalRule					= new LexicalRule<MR>();
+
+		/** The maximum number of cells allowed in each span */
+		private int												maxNumberOfCellsInSpan		= 50;
+
+		private boolean											pruneLexicalCells			= false;
+
+		private final List<ISentenceLexiconGenerator<DI, MR>>	sentenceLexicalGenerators	= new ArrayList<ISentenceLexiconGenerator<DI, MR>>();
+
+		private final List<ISentenceLexiconGenerator<DI, MR>>	sloppyLexicalGenerators		= new ArrayList<ISentenceLexiconGenerator<DI, MR>>();
+
+		/**
+		 * Time limit for each parse in milliseconds (0 for no limit). Once
+		 * it passes, the remaining spans are skipped and the output is not
+		 * exact.
+		 */
+		private long											timeout						= 0;
+
+		private final Set<CKYUnaryParsingRule<MR>>				unaryRules					= new HashSet<CKYUnaryParsingRule<MR>>();
+
+		public Builder(ICategoryServices<MR> categoryServices) {
+			this.categoryServices = categoryServices;
+		}
+
+		public Builder<DI, MR> addParseRule(CKYBinaryParsingRule<MR> rule) {
+			binaryRules.add(rule);
+			return this;
+		}
+
+		public Builder<DI, MR> addParseRule(CKYUnaryParsingRule<MR> rule) {
+			unaryRules.add(rule);
+			return this;
+		}
+
+		public Builder<DI, MR> addSentenceLexicalGenerator(
+				ISentenceLexiconGenerator<DI, MR> generator) {
+			sentenceLexicalGenerators.add(generator);
+			return this;
+		}
+
+		public Builder<DI, MR> addSloppyLexicalGenerator(
+				ISentenceLexiconGenerator<DI, MR> sloppyGenerator) {
+			sloppyLexicalGenerators.add(sloppyGenerator);
+			return this;
+		}
+
+		@SuppressWarnings("unchecked")
+		public AgendaCKYParser<DI, MR> build() {
+			return new AgendaCKYParser<DI, MR>(maxNumberOfCellsInSpan,
+					binaryRules.toArray((CKYBinaryParsingRule<MR>[]) Array
+							.newInstance(CKYBinaryParsingRule.class,
+									binaryRules.size())),
+					sentenceLexicalGenerators, sloppyLexicalGenerators,
+					categoryServices, pruneLexicalCells, completeParseFilter,
+					unaryRules.toArray((CKYUnaryParsingRule<MR>[]) Array
+							.newInstance(CKYUnaryParsingRule.class,
+									unaryRules.size())),
+					lexicalRule, breakTies, chartPoolSize, timeout,
+					beamPolicy, compactCells, lexicalCache, forestCache);
+		}
+
+		public Builder<DI, MR> setBeamPolicy(IBeamPolicy beamPolicy) {
+			this.beamPolicy = beamPolicy;
+			return this;
+		}
+
+		public Builder<DI, MR> setBreakTies(boolean breakTies) {
+			this.breakTies = breakTies;
+			return this;
+		}
+
+		public Builder<DI, MR> setChartPoolSize(int chartPoolSize) {
+			this.chartPoolSize = chartPoolSize;
+			return this;
+		}
+
+		public Builder<DI, MR> setCompactCells(boolean compactCells) {
+			this.compactCells = compactCells;
+			return this;
+		}
+
+		public Builder<DI, MR> setCompleteParseFilter(
+				IFilter<Category<MR>> completeParseFilter) {
+			this.completeParseFilter = completeParseFilter;
+			return this;
+		}
+
+		public Builder<DI, MR> setForestCache(CKYForestCache<MR> forestCache) {
+			this.forestCache = forestCache;
+			return this;
+		}
+
+		public Builder<DI, MR> setLexicalCache(
+				LexicalEntryCache<MR> lexicalCache) {
+			this.lexicalCache = lexicalCache;
+			return this;
+		}
+
+		public Builder<DI, MR> setLexicalRule(ILexicalRule<MR> lexicalRule) {
+			this.lexicalRule = lexicalRule;
+			return this;
+		}
+
+		public Builder<DI, MR> setMaxNumberOfCellsInSpan(
+				int maxNumberOfCellsInSpan) {
+			this.maxNumberOfCellsInSpan = maxNumberOfCellsInSpan;
+			return this;
+		}
+
+		public Builder<DI, MR> setPruneLexicalCells(boolean pruneLexicalCells) {
+			this.pruneLexicalCells = pruneLexicalCells;
+			return this;
+		}
+
+		public Builder<DI, MR> setTimeout(long timeout) {
+			this.timeout = timeout;
+			return this;
+		}
+	}
+
+	public static class Creator<DI extends Sentence, MR>
+			implements IResourceObjectCreator<AgendaCKYParser<DI, MR>> {
+
+		private final String type;
+
+		public Creator() {
+			this("parser.cky.agenda");
+		}
+
+		public Creator(String type) {
+			this.type = type;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public AgendaCKYParser<DI, MR> create(Parameters params,
+				IResourceRepository repo) {
+			final Builder<DI, MR> builder = new Builder<DI, MR>(
+					(ICategoryServices<MR>) repo.get(
+							ParameterizedExperiment.CATEGORY_SERVICES_RESOURCE));
+
+			if (params.contains("breakTies")) {
+				builder.setBreakTies(params.getAsBoolean("breakTies"));
+			}
+
+			if (params.contains("chartPool")) {
+				builder.setChartPoolSize(params.getAsInteger("chartPool"));
+			}
+
+			if (params.contains("compactCells")) {
+				builder.setCompactCells(params.getAsBoolean("compactCells"));
+			}
+
+			if (params.contains("timeout")) {
+				builder.setTimeout(params.getAsLong("timeout"));
+			}
+
+			if (params.contains("parseFilter")) {
+				builder.setCompleteParseFilter((IFilter<Category<MR>>) repo
+						.get(params.get("parseFilter")));
+			}
+
+			if (params.contains("beam")) {
+				builder.setMaxNumberOfCellsInSpan(params.getAsInteger("beam"));
+			}
+
+			if (params.contains("beamPolicy")) {
+				builder.setBeamPolicy(
+						(IBeamPolicy) repo.get(params.get("beamPolicy")));
+			}
+
+			if (params.contains("lexicalCache")) {
+				builder.setLexicalCache((LexicalEntryCache<MR>) repo
+						.get(params.get("lexicalCache")));
+			}
+
+			if (params.contains("forestCache")) {
+				builder.setForestCache((CKYForestCache<MR>) repo
+						.get(params.get("forestCache")));
+			}
+
+			if (params.contains("lex")) {
+				builder.setLexicalRule(
+						(ILexicalRule<MR>) repo.get(params.get("lex")));
+			}
+
+			if (params.contains("pruneLexicalCells")) {
+				builder.setPruneLexicalCells(
+						params.getAsBoolean("pruneLexicalCells"));
+			}
+
+			for (final String id : params.getSplit("generators")) {
+				builder.addSentenceLexicalGenerator(
+						(ISentenceLexiconGenerator<DI, MR>) repo.get(id));
+			}
+
+			for (final String id : params.getSplit("sloppyGenerators")) {
+				builder.addSloppyLexicalGenerator(
+						(ISentenceLexiconGenerator<DI, MR>) repo.get(id));
+			}
+
+			final NormalFormValidator nfValidator;
+			if (params.contains("nfValidator")) {
+				nfValidator = repo.get(params.get("nfValidator"));
+			} else {
+				nfValidator = null;
+			}
+
+			final ParseRuleCache<MR> ruleCache;
+			if (params.contains("ruleCache")) {
+				ruleCache = repo.get(params.get("ruleCache"));
+			} else {
+				ruleCache = null;
+			}
+
+			for (final String id : params.getSplit("rules")) {
+				final Object rule = ruleCache == null ? repo.get(id)
+						: ruleCache.wrapIfParseRule(repo.get(id));
+				if (rule instanceof BinaryRuleSet) {
+					for (final IBinaryParseRule<MR> singleRule : (BinaryRuleSet<MR>) rule) {
+						addRule(builder,
+								ruleCache == null ? singleRule
+										: ruleCache.wrap(singleRule),
+								nfValidator);
+					}
+				} else if (rule instanceof UnaryRuleSet) {
+					for (final IUnaryParseRule<MR> singleRule : (UnaryRuleSet<MR>) rule) {
+						addRule(builder,
+								ruleCache == null ? singleRule
+										: ruleCache.wrap(singleRule),
+								nfValidator);
+					}
+				} else {
+					addRule(builder, rule, nfValidator);
+				}
+			}
+
+			return builder.build();
+		}
+
+		@Override
+		public String type() {
+			return type;
+		}
+
+		@Override
+		public ResourceUsage usage() {
+			return ResourceUsage.builder(type, AgendaCKYParser.class)
+					.addParam("breakTies", Boolean.class,
+							"Breaks ties during pruning using the order of insertion to the queue (default: false)")
+					.addParam("chartPool", Integer.class,
+							"Number of charts to keep for re-use. Charts are recycled when parser outputs are released (default: 0, no pooling)")
+					.addParam("compactCells", Boolean.class,
+							"Store the derivation steps of cells compactly to reduce the memory of large charts (default: false)")
+					.addParam("parseFilter", IFilter.class,
+							"Filter to determine complete parses.")
+					.addParam("beam", Integer.class,
+							"Beam to use for cell pruning (default: 50).")
+					.addParam("beamPolicy", IBeamPolicy.class,
+							"Policy to adapt the beam of each span. The beam of every span is bounded by the beam parameter (default: none, fixed beam)")
+					.addParam("lexicalCache", LexicalEntryCache.class,
+							"Cache of the lexical entries of the model lexicon, re-used across parses of the same sentences (default: none)")
+					.addParam("forestCache", CKYForestCache.class,
+							"Cache of exact charts, re-scored with the current model when sentences are parsed again. Not used with a beam policy (default: none)")
+					.addParam("lex", ILexicalRule.class,
+							"Lexical rule (default: simple generic rule)")
+					.addParam("pruneLexicalCells", Boolean.class,
+							"Prune lexical entries similarly to conventional categories (default: false)")
+					.addParam("timeout", Long.class,
+							"Time limit for each parse in milliseconds. Once it passes, remaining spans are skipped and the output is not exact (default: 0, no limit)")
+					.addParam("generators", ISentenceLexiconGenerator.class,
+							"List of dynamic sentence lexical generators.")
+					.addParam("sloppyGenerators",
+							ISentenceLexiconGenerator.class,
+							"List of dynamic sentence lexical generators for sloppy inference.")
+					.addParam("nfValidator", NormalFormValidator.class,
+							"Normal form validator (default: none)")
+					.addParam("rules", IBinaryParseRule.class,
+							"Binary parsing rules.")
+					.addParam("ruleCache", ParseRuleCache.class,
+							"Cache for the results of rule applications, wraps all rules given in 'rules' (default: none)")
+					.build();
+		}
+
+		@SuppressWarnings("unchecked")
+		private void addRule(Builder<DI, MR> builder, Object rule,
+				NormalFormValidator nfValidator) {
+			if (rule instanceof IBinaryParseRule) {
+				builder.addParseRule(new CKYBinaryParsingRule<MR>(
+						(IBinaryParseRule<MR>) rule, nfValidator));
+			} else if (rule instanceof IUnaryParseRule) {
+				builder.addParseRule(new CKYUnaryParsingRule<MR>(
+						(IUnaryParseRule<MR>) rule, nfValidator));
+			} else if (rule instanceof CKYBinaryParsingRule) {
+				builder.addParseRule((CKYBinaryParsingRule<MR>) rule);
+			} else if (rule instanceof CKYUnaryParsingRule) {
+				builder.addParseRule((CKYUnaryParsingRule<MR>) rule);
+			} else {
+				throw new IllegalArgumentException(
+						"Invalid rule class: " + rule);
+			}
+		}
+
+	}
+
+	/**
+	 * Agenda entry. Ordered by the sum of the viterbi score of the cell and
+	 * the outside estimate, highest first. Ties are broken by insertion order.
+	 */
+	private static class AgendaItem<MR> implements Comparable<AgendaItem<MR>> {
+		private final Cell<MR>	cell;
+		private final long		order;
+		private final double	priority;
+
+		public AgendaItem(Cell<MR> cell, double outsideEstimate, long order) {
+			this.cell = cell;
+			this.priority = cell.getViterbiScore() + outsideEstimate;
+			this.order = order;
+		}
+
+		@Override
+		public int compareTo(AgendaItem<MR> other) {
+			final int comp = Double.compare(other.priority, priority);
+			return comp == 0 ? Long.compare(order, other.order) : comp;
+		}
+	}
+
+}
@@ -33,7 +33,6 @@ import java.util.Set;
 import java.util.function.Function;
 
 import edu.cornell.cs.nlp.spf.base.hashvector.HashVectorFactory;
-import edu.cornell.cs.nlp.spf.base.hashvector.HashVectorUtils;
 import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector;
 import edu.cornell.cs.nlp.spf.base.hashvector.IHashVectorImmutable;
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
@@ -107,7 +106,7 @@ public class Cell<MR> implements IArrayRuleNameSet {
 	/**
 	 * Lists of derivation steps that created this cell
 	 */
-	private final Set<IWeightedCKYStep<MR>>	steps				= new HashSet<IWeightedCKYStep<MR>>();
+	private final Set<IWeightedCKYStep<MR>>	steps;
 
 	/**
 	 * Linear viterbi score.
@@ -133,6 +132,17 @@ public class Cell<MR> implements IArrayRuleNameSet {
 	protected List<IWeightedCKYStep<MR>>	viterbiSteps		= null;
 
 	protected Cell(IWeightedCKYStep<MR> parseStep, boolean isCompleteSpan) {
+		this(parseStep, isCompleteSpan, new HashSet<IWeightedCKYStep<MR>>());
+	}
+
+	/**
+	 * @param steps
+	 *            Empty set to store the derivation steps of the cell. Allows
+	 *            sub-classes to control the representation of steps.
+	 */
+	protected Cell(IWeightedCKYStep<MR> parseStep, boolean isCompleteSpan,
+			Set<IWeightedCKYStep<MR>> steps) {
+		this.steps = steps;
 		this.isCompleteSpan = isCompleteSpan;
 		this.isFullParse = parseStep.isFullParse();
 		this.category = parseStep.getRoot();
@@ -421,7 +431,7 @@ public class Cell<MR> implements IArrayRuleNameSet {
 		return result.toString();
 	}
 
-	private boolean addSteps(Collection<IWeightedCKYStep<MR>> stepsToAdd) {
+	boolean addSteps(Collection<IWeightedCKYStep<MR>> stepsToAdd) {
 		boolean addedToMaxChildren = false;
 		for (final IWeightedCKYStep<MR> derivationStep : stepsToAdd) {
 			assert derivationStep.getStart() == start
@@ -632,6 +642,13 @@ public class Cell<MR> implements IArrayRuleNameSet {
 		return false;
 	}
 
+	/**
+	 * Log-sum-exp a contribution into the outside score.
+	 */
+	void addLogOutsideScore(double logScore) {
+		logOutsideScore = LogSumExp.of(logOutsideScore, logScore);
+	}
+
 	/**
 	 * Update the cell's log expected feature values to the given hash vector.
 	 * Assumes outside and inside scores computed.
@@ -644,14 +661,24 @@ public class Cell<MR> implements IArrayRuleNameSet {
 				// Accumulate the weight for using this parse step: the outside
 				// of the root, the inside of each child and the local score
 				// associated with the current step.
-				double logWeight = logOutsideScore + step.getStepScore();
+				double stepLogWeight = logOutsideScore + step.getStepScore();
 				for (final Cell<MR> child : step) {
-					logWeight += child.logInsideScore;
+					stepLogWeight += child.logInsideScore;
 				}
+				final double logWeight = stepLogWeight;
 				// Update the weighted values of the local features into the
-				// result vector.
-				HashVectorUtils.logSumExpAdd(logWeight, step.getStepFeatures(),
-						expectedFeatures);
+				// result vector. Zero features add nothing, and their log
+				// (negative infinity) can't be log-sum-exp'ed into a missing
+				// (also negative infinity) value, so skip them.
+				step.getStepFeatures().iterate((key, value) -> {
+					if (value != 0.0) {
+						expectedFeatures.set(key,
+								LogSumExp.of(
+										expectedFeatures.get(key,
+												Double.NEGATIVE_INFINITY),
+										Math.log(value) + logWeight));
+					}
+				});
 			}
 		}
 	}
@@ -691,8 +718,13 @@ public class Cell<MR> implements IArrayRuleNameSet {
 	/**
 	 * Compute the contribution of the current cell to the log outside score of
 	 * its children, in all binary production for which it's the root.
+	 *
+	 * @param concurrent
+	 *            Cells in other spans are updated concurrently (see
+	 *            {@link Chart#setParallelPool}). They may share children
+	 *            with this cell, so updates to the children are synchronized.
 	 */
-	void updateBinaryChildrenLogOutsideScore() {
+	void updateBinaryChildrenLogOutsideScore(boolean concurrent) {
 		if (logOutsideScore != Double.NEGATIVE_INFINITY) {
 			// Iterate through all derivation steps: all ways of producing this
 			// cell
@@ -702,12 +734,21 @@ public class Cell<MR> implements IArrayRuleNameSet {
 					final double logScore = derivationStep.getStepScore();
 					final Cell<MR> child1 = derivationStep.getChildCell(0);
 					final Cell<MR> child2 = derivationStep.getChildCell(1);
-					child1.logOutsideScore = LogSumExp
-							.of(child1.logOutsideScore, logOutsideScore
-									+ child2.getLogInsideScore() + logScore);
-					child2.logOutsideScore = LogSumExp
-							.of(child2.logOutsideScore, logOutsideScore
-									+ child1.getLogInsideScore() + logScore);
+					final double logScore1 = logOutsideScore
+							+ child2.getLogInsideScore() + logScore;
+					final double logScore2 = logOutsideScore
+							+ child1.getLogInsideScore() + logScore;
+					if (concurrent) {
+						synchronized (child1) {
+							child1.addLogOutsideScore(logScore1);
+						}
+						synchronized (child2) {
+							child2.addLogOutsideScore(logScore2);
+						}
+					} else {
+						child1.addLogOutsideScore(logScore1);
+						child2.addLogOutsideScore(logScore2);
+					}
 				}
 			}
 		}
@@ -728,8 +769,7 @@ public class Cell<MR> implements IArrayRuleNameSet {
 				// non-terminal for a given span. For the unary case, there are
 				// no siblings, so no need to take any inside score into
 				// account, unlike the binary case.
-				derivationStep.getChildCell(0).logOutsideScore = LogSumExp.of(
-						derivationStep.getChildCell(0).logOutsideScore,
+				derivationStep.getChildCell(0).addLogOutsideScore(
 						logOutsideScore + derivationStep.getStepScore());
 			}
 		}
@@ -18,24 +18,35 @@ package edu.cornell.cs.nlp.spf.parser.ccg.cky.chart;
 
 import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
 import java.util.function.Function;
 
 import edu.cornell.cs.nlp.spf.base.hashvector.HashVectorFactory;
+import edu.cornell.cs.nlp.spf.base.hashvector.HashVectorUtils;
 import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector;
 import edu.cornell.cs.nlp.spf.base.hashvector.IHashVectorImmutable;
 import edu.cornell.cs.nlp.spf.base.token.TokenSeq;
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYDerivation;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.steps.IWeightedCKYStep;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IDataItemModel;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.Span;
 import edu.cornell.cs.nlp.utils.collections.CollectionUtils;
 import edu.cornell.cs.nlp.utils.collections.IScorer;
@@ -63,32 +74,90 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 
 	private final int						beamSize;
 
-	private final AbstractCellFactory<MR>	cellFactory;
+	/**
+	 * Policy to adapt the beam of each span. Null if all spans use the fixed
+	 * beam.
+	 */
+	private final IBeamPolicy				beamPolicy;
+
+	/**
+	 * Time (as given by {@link System#currentTimeMillis()}) after which no
+	 * more spans should be processed. {@link Long#MAX_VALUE} if there's no
+	 * deadline.
+	 */
+	private volatile long					deadline	= Long.MAX_VALUE;
+
+	/**
+	 * Break ties in span queues using the order of insertion.
+	 */
+	private final boolean					breakTies;
+
+	private AbstractCellFactory<MR>			cellFactory;
 
-	/** An array of spans for every starting and end indices. */
-	private final AbstractSpan<MR>[][]		chart;
+	/**
+	 * Pool to compute outside scores and expected features in parallel. Null
+	 * if these computations are sequential.
+	 */
+	private ForkJoinPool					pool		= null;
+
+	/**
+	 * An array of spans for every starting and end indices. The array may be
+	 * larger than the sentence, when the chart is re-used. Spans beyond the
+	 * sentence length are always empty.
+	 */
+	private AbstractSpan<MR>[][]			chart;
 
 	/** Number of words in input sentence. */
-	private final int						sentenceLength;
+	private int								sentenceLength;
+
+	/**
+	 * Each span keeps lexical cells in a separate queue.
+	 */
+	private final boolean					separateLexicalQueue;
+
+	/**
+	 * Some of the spans are shared with another chart, so the chart can't be
+	 * reset.
+	 */
+	private final boolean					sharedSpans;
 
 	/**
 	 * The tokens this chart is created for.
 	 */
-	private final TokenSeq					tokens;
+	private TokenSeq						tokens;
 
 	/**
 	 * @param breakTies
 	 *            Breaks ties during pruning using the order of insertion to the
 	 *            queue. In a multi-threaded parser, this is essentially random.
 	 */
-	@SuppressWarnings("unchecked")
 	public Chart(TokenSeq tokens, int maxNumberOfCellPerSpan,
 			AbstractCellFactory<MR> cellFactory, boolean separateLexicalQueue,
 			boolean breakTies) {
+		this(tokens, maxNumberOfCellPerSpan, cellFactory, separateLexicalQueue,
+				breakTies, null);
+	}
+
+	/**
+	 * @param breakTies
+	 *            Breaks ties during pruning using the order of insertion to the
+	 *            queue. In a multi-threaded parser, this is essentially random.
+	 * @param beamPolicy
+	 *            Policy to adapt the beam of each span (can be null).
+	 *            {@code maxNumberOfCellPerSpan} bounds the beam of every span.
+	 */
+	@SuppressWarnings("unchecked")
+	public Chart(TokenSeq tokens, int maxNumberOfCellPerSpan,
+			AbstractCellFactory<MR> cellFactory, boolean separateLexicalQueue,
+			boolean breakTies, IBeamPolicy beamPolicy) {
 		this.beamSize = maxNumberOfCellPerSpan;
+		this.beamPolicy = beamPolicy;
 		this.tokens = tokens;
 		this.cellFactory = cellFactory;
 		this.sentenceLength = tokens.size();
+		this.separateLexicalQueue = separateLexicalQueue;
+		this.breakTies = breakTies;
+		this.sharedSpans = false;
 		// Somewhat complex init to avoid warnings due to untyped generic
 		// classes. This way, it only generated an unchecked warning, which we
 		// suppress.
@@ -96,13 +165,101 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 				AbstractSpan.class, sentenceLength, sentenceLength);
 		for (int i = 0; i < sentenceLength; i++) {
 			for (int j = i; j < sentenceLength; j++) {
-				chart[i][j] = separateLexicalQueue
-						? new TwoQueueSpan<MR>(maxNumberOfCellPerSpan,
-								!breakTies)
-						: new SingleQueueSpan<MR>(maxNumberOfCellPerSpan,
-								!breakTies);
+				chart[i][j] = createSpan(j - i + 1);
+			}
+		}
+	}
+
+	/**
+	 * Creates a chart for a sequence of tokens that extends the tokens of the
+	 * given chart. Spans that end before the given index are shared with the
+	 * base chart, rather than copied. All other spans are created empty. The
+	 * beam and queue settings are taken from the base chart.
+	 * <p>
+	 * Shared spans must not be modified through either chart. Computing
+	 * outside scores or maxes in one chart updates the shared cells, so only
+	 * one of the charts should be used for these computations at a time.
+	 *
+	 * @param sharedEnd
+	 *            Spans ending before this index are shared. Can't be larger
+	 *            than the length of the base chart.
+	 */
+	@SuppressWarnings("unchecked")
+	public Chart(Chart<MR> base, TokenSeq tokens,
+			AbstractCellFactory<MR> cellFactory, int sharedEnd) {
+		if (sharedEnd < 0 || sharedEnd > base.sentenceLength) {
+			throw new IllegalArgumentException(
+					"Invalid number of shared spans ends: " + sharedEnd);
+		}
+		if (tokens.size() < base.sentenceLength || !tokens
+				.sub(0, base.sentenceLength).equals(base.tokens)) {
+			throw new IllegalArgumentException(
+					"Tokens must extend the tokens of the base chart: " + tokens
+							+ " vs. " + base.tokens);
+		}
+		this.beamSize = base.beamSize;
+		this.beamPolicy = base.beamPolicy;
+		this.tokens = tokens;
+		this.cellFactory = cellFactory;
+		this.sentenceLength = tokens.size();
+		this.separateLexicalQueue = base.separateLexicalQueue;
+		this.breakTies = base.breakTies;
+		this.sharedSpans = sharedEnd > 0;
+		this.chart = (AbstractSpan<MR>[][]) Array.newInstance(
+				AbstractSpan.class, sentenceLength, sentenceLength);
+		for (int i = 0; i < sentenceLength; i++) {
+			for (int j = i; j < sentenceLength; j++) {
+				chart[i][j] = j < sharedEnd ? base.chart[i][j]
+						: createSpan(j - i + 1);
+			}
+		}
+	}
+
+	/**
+	 * Clear the chart and re-use it for a new sequence of tokens. The span
+	 * structures are recycled, and new ones are only created if the new
+	 * sequence is longer than any sequence the chart was used for. All cells
+	 * are removed from the chart, but remain valid for any derivation that
+	 * still references them. Not thread-safe.
+	 *
+	 * @throws IllegalStateException
+	 *             If the chart shares spans with another chart.
+	 */
+	@SuppressWarnings("unchecked")
+	public void reset(TokenSeq newTokens,
+			AbstractCellFactory<MR> newCellFactory) {
+		if (sharedSpans) {
+			throw new IllegalStateException(
+					"Can't reset a chart that shares spans with another chart");
+		}
+
+		// Clear all the spans used so far. Spans beyond the sentence length
+		// are empty.
+		for (int i = 0; i < sentenceLength; i++) {
+			for (int j = i; j < sentenceLength; j++) {
+				chart[i][j].clear();
+			}
+		}
+
+		// Grow the span array, if needed.
+		final int newLength = newTokens.size();
+		if (newLength > chart.length) {
+			final AbstractSpan<MR>[][] newChart = (AbstractSpan<MR>[][]) Array
+					.newInstance(AbstractSpan.class, newLength, newLength);
+			for (int i = 0; i < newLength; i++) {
+				for (int j = i; j < newLength; j++) {
+					newChart[i][j] = j < chart.length ? chart[i][j]
+							: createSpan(j - i + 1);
+				}
 			}
+			chart = newChart;
 		}
+
+		this.tokens = newTokens;
+		this.cellFactory = newCellFactory;
+		this.sentenceLength = newLength;
+		this.deadline = Long.MAX_VALUE;
+		this.pool = null;
 	}
 
 	/**
@@ -128,6 +285,32 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 		}
 	}
 
+	/**
+	 * Compute the features of all steps in the chart. Steps compute their
+	 * features lazily from the model they were scored with. If the model
+	 * changes after parsing (e.g., the learner adds lexical entries before the
+	 * parameter update), features computed later won't match the scores.
+	 * Calling this before the model changes fixes the features to the model
+	 * used for parsing.
+	 *
+	 * @see edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYParserOutput#fixFeatures()
+	 */
+	public void computeStepFeatures() {
+		if (pool != null) {
+			for (int len = 0; len < sentenceLength; len++) {
+				forEachSpanOfLength(len, s -> {
+					for (final Cell<MR> cell : s) {
+						computeStepFeatures(cell);
+					}
+				});
+			}
+			return;
+		}
+		for (final Cell<MR> cell : this) {
+			computeStepFeatures(cell);
+		}
+	}
+
 	public boolean contains(Cell<MR> cell) {
 		return chart[cell.getStart()][cell.getEnd()].get(cell) != null;
 	}
@@ -140,10 +323,18 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 		chart[start][end].externallyPruned = true;
 	}
 
+	public IBeamPolicy getBeamPolicy() {
+		return beamPolicy;
+	}
+
 	public int getBeamSize() {
 		return beamSize;
 	}
 
+	public long getDeadline() {
+		return deadline;
+	}
+
 	public Cell<MR> getCell(Cell<MR> cell) {
 		return chart[cell.getStart()][cell.getEnd()].get(cell);
 	}
@@ -228,10 +419,29 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 		return CollectionUtils.sorted(cells, comparator).iterator();
 	}
 
+	/**
+	 * Return the cells in a given span grouped by their syntax. The returned
+	 * map is a read-only view, and should not be accessed while the span is
+	 * being modified.
+	 */
+	public Map<Syntax, Set<Cell<MR>>> getSpanSyntaxIndex(int startIndex,
+			int endIndex) {
+		return chart[startIndex][endIndex].getSyntaxIndex();
+	}
+
 	public TokenSeq getTokens() {
 		return tokens;
 	}
 
+	/**
+	 * Checks if the parsing deadline passed. Parsers should skip any
+	 * remaining spans and mark them as externally pruned.
+	 */
+	public boolean isPastDeadline() {
+		return deadline != Long.MAX_VALUE
+				&& System.currentTimeMillis() >= deadline;
+	}
+
 	@Override
 	public Iterator<Cell<MR>> iterator() {
 		return iterator(null);
@@ -320,6 +530,35 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 		return LogSumExp.of(logInsideScores);
 	}
 
+	/**
+	 * Create a copy of the chart re-scored with the given model. Each cell is
+	 * copied with its derivation steps re-created with the new local scores,
+	 * and its scores are computed from its copied children. The content of the
+	 * copy is the same, so it's identical to parsing with the new model only
+	 * if no span was pruned (see {@link #getPrunedSpans()}). This chart isn't
+	 * modified, so derivations that reference its cells keep their scores.
+	 * Several copies may be created concurrently, as long as this chart isn't
+	 * modified.
+	 */
+	public Chart<MR> rescore(IDataItemModel<MR> model) {
+		final Chart<MR> rescored = new Chart<MR>(tokens, beamSize, cellFactory,
+				separateLexicalQueue, breakTies, beamPolicy);
+		final Map<Cell<MR>, Cell<MR>> copies = new IdentityHashMap<Cell<MR>, Cell<MR>>();
+		for (final Cell<MR> cell : this) {
+			rescored.add(rescore(cell, copies, model));
+		}
+		return rescored;
+	}
+
+	/**
+	 * Set the deadline for processing the chart.
+	 *
+	 * @see #isPastDeadline()
+	 */
+	public void setDeadline(long deadline) {
+		this.deadline = deadline;
+	}
+
 	/**
 	 * Flag all cells that participate in the parses with the highest score that
 	 * lead to given semantics.
@@ -352,6 +591,21 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 		propogateMaxes();
 	}
 
+	/**
+	 * Set a pool to compute outside scores and expected features in parallel.
+	 * All spans of the same length are processed concurrently. Expected
+	 * features are accumulated into separate vectors for groups of spans,
+	 * which are then merged pairwise. The order of summation depends on the
+	 * scheduling, so results may differ from sequential computation in the
+	 * least significant digits.
+	 *
+	 * @param pool
+	 *            Null for sequential computation.
+	 */
+	public void setParallelPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
 	public int spanSize(int begin, int end) {
 		return chart[begin][end].size();
 	}
@@ -429,6 +683,20 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 	 * log outside scores were computed.
 	 */
 	private IHashVector collectLogExpectedFeatures() {
+		if (pool != null) {
+			// Expected features of different cells are independent, so all
+			// spans are processed at once.
+			final List<AbstractSpan<MR>> spans = new ArrayList<AbstractSpan<MR>>();
+			for (int len = sentenceLength - 1; len >= 0; len--) {
+				for (int begin = 0; begin < sentenceLength - len; begin++) {
+					spans.add(chart[begin][begin + len]);
+				}
+			}
+			final int grain = Math.max(1,
+					spans.size() / (4 * pool.getParallelism()));
+			return invoke(new FeaturesTask(spans, 0, spans.size(), grain));
+		}
+
 		final IHashVector feats = HashVectorFactory.create();
 		for (int len = sentenceLength - 1; len >= 0; len--) {
 			for (int begin = 0; begin < sentenceLength - len; begin++) {
@@ -442,6 +710,47 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 		return feats;
 	}
 
+	/**
+	 * Checks if the chart was created with the given span settings, so it can
+	 * be re-used in place of such a chart.
+	 */
+	boolean hasSpanSettings(int otherBeamSize,
+			boolean otherSeparateLexicalQueue, boolean otherBreakTies,
+			IBeamPolicy otherBeamPolicy) {
+		return beamSize == otherBeamSize && beamPolicy == otherBeamPolicy
+				&& separateLexicalQueue == otherSeparateLexicalQueue
+				&& breakTies == otherBreakTies && !sharedSpans;
+	}
+
+	private void computeStepFeatures(Cell<MR> cell) {
+		for (final IWeightedCKYStep<MR> step : cell.getSteps()) {
+			step.getStepFeatures();
+		}
+	}
+
+	private AbstractSpan<MR> createSpan(int spanLength) {
+		final int capacity = beamPolicy == null ? beamSize
+				: Math.min(beamSize,
+						beamPolicy.beamSize(spanLength, beamSize));
+		return separateLexicalQueue
+				? new TwoQueueSpan<MR>(capacity, !breakTies, beamPolicy)
+				: new SingleQueueSpan<MR>(capacity, !breakTies, beamPolicy);
+	}
+
+	/**
+	 * Apply an action to all spans of the given length in the parallel pool.
+	 * Returns when all spans are processed.
+	 */
+	private void forEachSpanOfLength(int len,
+			Consumer<AbstractSpan<MR>> action) {
+		final List<AbstractSpan<MR>> spans = new ArrayList<AbstractSpan<MR>>(
+				sentenceLength - len);
+		for (int begin = 0; begin < sentenceLength - len; begin++) {
+			spans.add(chart[begin][begin + len]);
+		}
+		invoke(new SpanAction(spans, 0, spans.size(), action));
+	}
+
 	private List<Cell<MR>> fullparses() {
 		final List<Cell<MR>> result = new LinkedList<Cell<MR>>();
 		final Iterator<Cell<MR>> k = getSpanIterator(0, sentenceLength - 1);
@@ -523,6 +832,17 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 			Function<Category<MR>, Double> initialScorer, Span span) {
 		// First, init all outside probabilities. All roots of complete parses
 		// are scored using the given scorer.
+		if (pool != null) {
+			for (int len = sentenceLength - 1; len >= 0; len--) {
+				forEachSpanOfLength(len, s -> {
+					for (final Cell<MR> cell : s) {
+						cell.initializeLogOutsideProbabilities(initialScorer,
+								span);
+					}
+				});
+			}
+			return;
+		}
 		for (int len = sentenceLength - 1; len >= 0; len--) {
 			for (int begin = 0; begin < sentenceLength - len; begin++) {
 				final Iterator<Cell<MR>> spanIterator = getSpanIterator(begin,
@@ -535,11 +855,40 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 		}
 	}
 
+	private <T> T invoke(ForkJoinTask<T> task) {
+		if (ForkJoinTask.getPool() == pool) {
+			// Case already running in the pool, fork into the worker's own
+			// queue.
+			return task.invoke();
+		} else {
+			return pool.invoke(task);
+		}
+	}
+
 	/**
 	 * Propagates log outside probabilities. Assumes that all appropriate source
 	 * cells were initialized.
 	 */
 	private void propagateLogOutsideProbabilities() {
+		if (pool != null) {
+			// Spans of the same length only update the outside scores of cells
+			// in shorter spans (binary steps) or in the same span (unary
+			// steps), so they can be processed concurrently. Only the binary
+			// updates are synchronized, since cells in different spans may
+			// share children.
+			for (int len = sentenceLength - 1; len >= 0; len--) {
+				forEachSpanOfLength(len, s -> {
+					for (final Cell<MR> cell : s) {
+						cell.updateUnaryChildrenLogOutsideScore();
+					}
+					for (final Cell<MR> cell : s) {
+						cell.updateBinaryChildrenLogOutsideScore(true);
+					}
+				});
+			}
+			return;
+		}
+
 		// Iterate over all spans from the entire sentence to the token level.
 		for (int len = sentenceLength - 1; len >= 0; len--) {
 			for (int begin = 0; begin < sentenceLength - len; begin++) {
@@ -555,7 +904,7 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 						begin, begin + len);
 				while (binarySpanIterator.hasNext()) {
 					binarySpanIterator.next()
-							.updateBinaryChildrenLogOutsideScore();
+							.updateBinaryChildrenLogOutsideScore(false);
 				}
 			}
 		}
@@ -584,6 +933,35 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 		}
 	}
 
+	/**
+	 * Get the re-scored copy of a cell, creating it after the copies of all
+	 * its descendants. Unary steps have children in the same span, so the
+	 * order of spans isn't sufficient.
+	 */
+	private Cell<MR> rescore(Cell<MR> cell, Map<Cell<MR>, Cell<MR>> copies,
+			IDataItemModel<MR> model) {
+		if (copies.containsKey(cell)) {
+			final Cell<MR> copy = copies.get(cell);
+			if (copy == null) {
+				throw new IllegalStateException(
+						"Cyclic derivation steps: " + cell);
+			}
+			return copy;
+		}
+		// Mark the cell as in progress.
+		copies.put(cell, null);
+		final List<IWeightedCKYStep<MR>> steps = new ArrayList<IWeightedCKYStep<MR>>(
+				cell.numSteps());
+		for (final IWeightedCKYStep<MR> step : cell.getSteps()) {
+			steps.add(step.rescore(model,
+					child -> rescore(child, copies, model)));
+		}
+		final Cell<MR> copy = cellFactory.create(steps.get(0));
+		copy.addSteps(steps.subList(1, steps.size()));
+		copies.put(cell, copy);
+		return copy;
+	}
+
 	private void resetMaxes() {
 		for (int len = sentenceLength - 1; len >= 0; len--) {
 			for (int begin = 0; begin < sentenceLength - len; begin++) {
@@ -603,17 +981,61 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 	 */
 	private static abstract class AbstractSpan<MR>
 			implements Iterable<Cell<MR>> {
+		/**
+		 * Policy to prune cells beyond the capacity of the queue (can be
+		 * null).
+		 */
+		protected final IBeamPolicy beamPolicy;
+
 		/**
 		 * A flag to indicate if this abstract was pruned externally (i.e.,
 		 * outside the chart).
 		 */
 		protected boolean externallyPruned = false;
 
+		/**
+		 * The highest pruning score of a cell in the prunable queue. Only
+		 * maintained when there's a beam policy. Cells are only evicted from
+		 * the bottom of the queue, so this value is only reset when the span
+		 * is cleared.
+		 */
+		protected double maxScore = Double.NEGATIVE_INFINITY;
+
+		/**
+		 * A flag to indicate if cells were pruned by the beam policy.
+		 */
+		protected boolean policyPruned = false;
+
+		/**
+		 * The cells of the span indexed by their syntax. Updated when cells
+		 * are added or evicted.
+		 */
+		private final Map<Syntax, Set<Cell<MR>>> syntaxIndex = new HashMap<>();
+
+		public AbstractSpan(IBeamPolicy beamPolicy) {
+			this.beamPolicy = beamPolicy;
+		}
+
 		public abstract void addToExisting(Cell<MR> existingCell,
 				Cell<MR> newCell);
 
+		/**
+		 * Remove all cells and reset the pruning flags.
+		 */
+		public void clear() {
+			clearCells();
+			syntaxIndex.clear();
+			externallyPruned = false;
+			policyPruned = false;
+			maxScore = Double.NEGATIVE_INFINITY;
+		}
+
 		public abstract Cell<MR> get(Cell<MR> cell);
 
+		public Map<Syntax, Set<Cell<MR>>> getSyntaxIndex() {
+			return Collections.unmodifiableMap(syntaxIndex);
+		}
+
 		public abstract boolean isPruned();
 
 		public abstract Pair<Double, Double> minQeueuScore();
@@ -622,6 +1044,91 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 
 		public abstract int size();
 
+		protected abstract void clearCells();
+
+		protected void index(Cell<MR> cell) {
+			syntaxIndex.computeIfAbsent(cell.getCategory().getSyntax(),
+					s -> new HashSet<>()).add(cell);
+		}
+
+		/**
+		 * Offer a cell to a bounded queue and update the syntax index. A
+		 * queue may evict more than its minimal element when offered a new
+		 * cell. For example, an order invariant queue evicts all the cells
+		 * tied with the minimum, and may reject the new cell as well. If a
+		 * single cell was evicted, it must be the minimal one. Otherwise, all
+		 * indexed cells are re-validated.
+		 */
+		protected boolean offerAndIndex(
+				IDirectAccessBoundedPriorityQueue<Cell<MR>> queue,
+				Cell<MR> cell) {
+			final int sizeBefore = queue.size();
+			final Cell<MR> min = queue.peek();
+			final boolean added = queue.offer(cell);
+			final int evicted = sizeBefore + (added ? 1 : 0) - queue.size();
+			if (evicted == 1 && !queue.contains(min)) {
+				unindex(min);
+			} else if (evicted > 0) {
+				unindexRemoved();
+			}
+			if (added) {
+				index(cell);
+				if (beamPolicy != null) {
+					maxScore = Math.max(maxScore, cell.getPruneScore());
+					applyPolicy(queue);
+					return queue.contains(cell);
+				}
+			}
+			return added;
+		}
+
+		/**
+		 * Remove the lowest scoring cells from the queue, as long as the beam
+		 * policy requires it. Always keeps at least one cell.
+		 */
+		protected void applyPolicy(
+				IDirectAccessBoundedPriorityQueue<Cell<MR>> queue) {
+			final DoubleSupplier logMass = () -> {
+				if (maxScore == Double.NEGATIVE_INFINITY) {
+					return Double.NEGATIVE_INFINITY;
+				}
+				double sum = 0.0;
+				for (final Cell<MR> cell : queue) {
+					sum += Math.exp(cell.getPruneScore() - maxScore);
+				}
+				return maxScore + Math.log(sum);
+			};
+			while (queue.size() > 1 && beamPolicy
+					.pruneMin(queue.peek().getPruneScore(), maxScore, logMass)) {
+				unindex(queue.poll());
+				policyPruned = true;
+			}
+		}
+
+		private void unindex(Cell<MR> cell) {
+			final Syntax syntax = cell.getCategory().getSyntax();
+			final Set<Cell<MR>> cells = syntaxIndex.get(syntax);
+			if (cells != null && cells.remove(cell) && cells.isEmpty()) {
+				syntaxIndex.remove(syntax);
+			}
+		}
+
+		/**
+		 * Remove from the syntax index all the cells that are no longer in the
+		 * span.
+		 */
+		private void unindexRemoved() {
+			final Iterator<Set<Cell<MR>>> iterator = syntaxIndex.values()
+					.iterator();
+			while (iterator.hasNext()) {
+				final Set<Cell<MR>> cells = iterator.next();
+				cells.removeIf(c -> get(c) != c);
+				if (cells.isEmpty()) {
+					iterator.remove();
+				}
+			}
+		}
+
 	}
 
 	private class CellIterator implements Iterator<Cell<MR>> {
@@ -687,6 +1194,79 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 
 	}
 
+	/**
+	 * Collects the log expected features of a range of spans. Each leaf task
+	 * accumulates into its own vector, and vectors are merged pairwise when
+	 * tasks join.
+	 */
+	private class FeaturesTask extends RecursiveTask<IHashVector> {
+		private static final long				serialVersionUID	= -3094733655474226406L;
+		private final int						end;
+		private final int						grain;
+		private final List<AbstractSpan<MR>>	spans;
+		private final int						start;
+
+		public FeaturesTask(List<AbstractSpan<MR>> spans, int start, int end,
+				int grain) {
+			this.spans = spans;
+			this.start = start;
+			this.end = end;
+			this.grain = grain;
+		}
+
+		@Override
+		protected IHashVector compute() {
+			if (end - start <= grain) {
+				final IHashVector feats = HashVectorFactory.create();
+				for (int i = start; i < end; ++i) {
+					for (final Cell<MR> cell : spans.get(i)) {
+						cell.collectLogExpectedFeatures(feats);
+					}
+				}
+				return feats;
+			} else {
+				final int middle = (start + end) / 2;
+				final FeaturesTask right = new FeaturesTask(spans, middle, end,
+						grain);
+				right.fork();
+				final IHashVector feats = new FeaturesTask(spans, start,
+						middle, grain).compute();
+				HashVectorUtils.sumExpLogged(right.join(), feats);
+				return feats;
+			}
+		}
+	}
+
+	/**
+	 * Applies an action to each span in a range, one task per span.
+	 */
+	private class SpanAction extends RecursiveAction {
+		private static final long				serialVersionUID	= 8725128101357340335L;
+		private final Consumer<AbstractSpan<MR>>	action;
+		private final int						end;
+		private final List<AbstractSpan<MR>>	spans;
+		private final int						start;
+
+		public SpanAction(List<AbstractSpan<MR>> spans, int start, int end,
+				Consumer<AbstractSpan<MR>> action) {
+			this.spans = spans;
+			this.start = start;
+			this.end = end;
+			this.action = action;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start == 1) {
+				action.accept(spans.get(start));
+			} else if (end - start > 1) {
+				final int middle = (start + end) / 2;
+				invokeAll(new SpanAction(spans, start, middle, action),
+						new SpanAction(spans, middle, end, action));
+			}
+		}
+	}
+
 	/**
 	 * Span that maintains a single queue for both lexical and non-lexical
 	 * cells. The queue is order invariant.
@@ -697,7 +1277,9 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 	private static class SingleQueueSpan<MR> extends AbstractSpan<MR> {
 		private final IDirectAccessBoundedPriorityQueue<Cell<MR>> queue;
 
-		public SingleQueueSpan(int capacity, boolean orderInvariant) {
+		public SingleQueueSpan(int capacity, boolean orderInvariant,
+				IBeamPolicy beamPolicy) {
+			super(beamPolicy);
 			this.queue = orderInvariant
 					? new OrderInvariantDirectAccessBoundedQueue<Cell<MR>>(
 							capacity, new Cell.ScoreComparator<MR>())
@@ -717,6 +1299,11 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 							"Failed to remove existing cell -- this is a bug");
 				}
 				queue.add(existingCell);
+				if (beamPolicy != null && existingCell
+						.getPruneScore() > maxScore) {
+					maxScore = existingCell.getPruneScore();
+					applyPolicy(queue);
+				}
 			}
 		}
 
@@ -727,7 +1314,7 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 
 		@Override
 		public boolean isPruned() {
-			return externallyPruned || queue.isPruned();
+			return externallyPruned || policyPruned || queue.isPruned();
 		}
 
 		@Override
@@ -748,7 +1335,7 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 
 		@Override
 		public boolean offer(Cell<MR> cell) {
-			return queue.offer(cell);
+			return offerAndIndex(queue, cell);
 		}
 
 		@Override
@@ -756,13 +1343,20 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 			return queue.size();
 		}
 
+		@Override
+		protected void clearCells() {
+			queue.clear();
+		}
+
 	}
 
 	private static class TwoQueueSpan<MR> extends AbstractSpan<MR> {
 		private final Map<Cell<MR>, Cell<MR>>						lexicals	= new HashMap<Cell<MR>, Cell<MR>>();
 		private final IDirectAccessBoundedPriorityQueue<Cell<MR>>	nonLexicalQueue;
 
-		public TwoQueueSpan(int capacity, boolean orderInvariant) {
+		public TwoQueueSpan(int capacity, boolean orderInvariant,
+				IBeamPolicy beamPolicy) {
+			super(beamPolicy);
 			this.nonLexicalQueue = orderInvariant
 					? new OrderInvariantDirectAccessBoundedQueue<Cell<MR>>(
 							capacity, new Cell.ScoreComparator<MR>())
@@ -784,6 +1378,11 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 				if (existingCell.addCell(newCell)) {
 					nonLexicalQueue.remove(existingCell);
 					nonLexicalQueue.add(existingCell);
+					if (beamPolicy != null && existingCell
+							.getPruneScore() > maxScore) {
+						maxScore = existingCell.getPruneScore();
+						applyPolicy(nonLexicalQueue);
+					}
 				}
 			}
 		}
@@ -799,7 +1398,8 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 
 		@Override
 		public boolean isPruned() {
-			return externallyPruned || nonLexicalQueue.isPruned();
+			return externallyPruned || policyPruned
+					|| nonLexicalQueue.isPruned();
 		}
 
 		@Override
@@ -826,9 +1426,10 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 		public boolean offer(Cell<MR> cell) {
 			if (cell.hasLexicalStep()) {
 				lexicals.put(cell, cell);
+				index(cell);
 				return true;
 			} else {
-				return nonLexicalQueue.offer(cell);
+				return offerAndIndex(nonLexicalQueue, cell);
 			}
 		}
 
@@ -837,6 +1438,12 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 			return lexicals.size() + nonLexicalQueue.size();
 		}
 
+		@Override
+		protected void clearCells() {
+			lexicals.clear();
+			nonLexicalQueue.clear();
+		}
+
 	}
 
 }
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky.chart;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import edu.cornell.cs.nlp.spf.base.token.TokenSeq;
+
+/**
+ * A bounded pool of charts. Released charts are cleared and their span
+ * structures are re-used for later sentences, instead of allocating a new
+ * chart for every sentence. Thread-safe.
+ *
+ * @param <MR>
+ *            Type of meaning representation
+ */
+public class ChartPool<MR> {
+
+	private final IBeamPolicy				beamPolicy;
+
+	private final int						beamSize;
+
+	private final boolean					breakTies;
+
+	private final BlockingQueue<Chart<MR>>	charts;
+
+	private final boolean					separateLexicalQueue;
+
+	public ChartPool(int capacity, int beamSize, boolean separateLexicalQueue,
+			boolean breakTies) {
+		this(capacity, beamSize, separateLexicalQueue, breakTies, null);
+	}
+
+	/**
+	 * @param beamPolicy
+	 *            Beam policy of the pooled charts (can be null).
+	 */
+	public ChartPool(int capacity, int beamSize, boolean separateLexicalQueue,
+			boolean breakTies, IBeamPolicy beamPolicy) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException(
+					"Invalid chart pool capacity: " + capacity);
+		}
+		this.charts = new ArrayBlockingQueue<Chart<MR>>(capacity);
+		this.beamSize = beamSize;
+		this.separateLexicalQueue = separateLexicalQueue;
+		this.breakTies = breakTies;
+		this.beamPolicy = beamPolicy;
+	}
+
+	/**
+	 * Get an empty chart for the given tokens. Re-uses a released chart, if
+	 * one is available.
+	 */
+	public Chart<MR> acquire(TokenSeq tokens,
+			AbstractCellFactory<MR> cellFactory) {
+		final Chart<MR> chart = charts.poll();
+		if (chart == null) {
+			return new Chart<MR>(tokens, beamSize, cellFactory,
+					separateLexicalQueue, breakTies, beamPolicy);
+		} else {
+			chart.reset(tokens, cellFactory);
+			return chart;
+		}
+	}
+
+	/**
+	 * Return a chart to the pool. The chart is cleared immediately, so it must
+	 * not be used after it's released. If the pool is full, the chart is
+	 * discarded.
+	 */
+	public void release(Chart<MR> chart) {
+		if (!chart.hasSpanSettings(beamSize, separateLexicalQueue, breakTies,
+				beamPolicy)) {
+			throw new IllegalArgumentException(
+					"Chart doesn't match the settings of the pool");
+		}
+		// Clear the chart to release the cells it references.
+		chart.reset(TokenSeq.of(), chart.getCellFactory());
+		charts.offer(chart);
+	}
+
+	public int size() {
+		return charts.size();
+	}
+
+}
@@ -14,30 +14,22 @@
  * this program; if not, write to the Free Software Foundation, Inc., 51
  * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
  *******************************************************************************/
-package edu.cornell.cs.nlp.spf.parser.ccg.cky.multi;
+package edu.cornell.cs.nlp.spf.parser.ccg.cky.chart;
 
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.steps.IWeightedCKYStep;
 
-public class SpanLock {
-	
-	private final Lock[][]	spans;
-	
-	public SpanLock(int length) {
-		this.spans = new Lock[length][length];
-		for (int i = 0; i < length; ++i) {
-			for (int j = 0; j < length; ++j) {
-				spans[i][j] = new ReentrantLock();
-			}
-		}
-	}
-	
-	public void lock(int start, int end) {
-		spans[start][end].lock();
-	}
-	
-	public void unlock(int start, int end) {
-		spans[start][end].unlock();
+/**
+ * Chart cell with a compact representation of its derivation steps (see
+ * {@link CompactStepSet}). Otherwise identical to {@link Cell}.
+ *
+ * @param <MR>
+ *            Meaning representation.
+ */
+public class CompactCell<MR> extends Cell<MR> {
+
+	protected CompactCell(IWeightedCKYStep<MR> parseStep,
+			boolean isCompleteSpan) {
+		super(parseStep, isCompleteSpan, new CompactStepSet<MR>());
 	}
-	
+
 }
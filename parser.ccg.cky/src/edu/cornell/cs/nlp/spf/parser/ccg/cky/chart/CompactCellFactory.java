@@ -14,28 +14,24 @@
  * this program; if not, write to the Free Software Foundation, Inc., 51
  * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
  *******************************************************************************/
-package edu.cornell.cs.nlp.spf.parser.ccg.cky.multi;
+package edu.cornell.cs.nlp.spf.parser.ccg.cky.chart;
 
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.steps.IWeightedCKYStep;
 
-public class IndexLock {
-	
-	private final Lock[]	indices;
-	
-	public IndexLock(int length) {
-		this.indices = new Lock[length];
-		for (int i = 0; i < length; ++i) {
-			indices[i] = new ReentrantLock();
-		}
-	}
-	
-	public void lock(int index) {
-		indices[index].lock();
+/**
+ * Factory for {@link CompactCell} objects. Reduces the memory of large
+ * charts.
+ */
+public class CompactCellFactory<MR> extends AbstractCellFactory<MR> {
+
+	public CompactCellFactory(int sentenceSize) {
+		super(sentenceSize);
 	}
-	
-	public void unlock(int index) {
-		indices[index].unlock();
+
+	@Override
+	protected Cell<MR> doCreate(IWeightedCKYStep<MR> parseStep,
+			boolean isCompleteSpan) {
+		return new CompactCell<MR>(parseStep, isCompleteSpan);
 	}
-	
+
 }
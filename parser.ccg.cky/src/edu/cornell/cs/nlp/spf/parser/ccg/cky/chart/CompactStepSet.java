@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky.chart;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.steps.IWeightedCKYStep;
+
+/**
+ * Insertion-ordered set of derivation steps. Small sets are backed by two
+ * parallel arrays: the steps and their hash codes. Membership tests scan the
+ * hash codes, and only compare steps with an equal hash code. This requires a
+ * fraction of the memory of a hash set (no table and no entry object per
+ * step), but membership tests and removal are linear in the size of the set.
+ * Once the set grows beyond {@link #HASH_THRESHOLD} steps, the steps move to a
+ * {@link LinkedHashSet}, so filling a cell with many steps doesn't take
+ * quadratic time. Not thread-safe.
+ *
+ * @param <MR>
+ *            Meaning representation.
+ */
+class CompactStepSet<MR> extends AbstractSet<IWeightedCKYStep<MR>> {
+
+	/**
+	 * Maximum number of steps kept in the arrays.
+	 */
+	static final int							HASH_THRESHOLD		= 8;
+
+	private static final int					INITIAL_CAPACITY	= 2;
+
+	/**
+	 * The steps, once the set grew beyond {@link #HASH_THRESHOLD} steps.
+	 * Otherwise, null.
+	 */
+	private LinkedHashSet<IWeightedCKYStep<MR>>	hashed				= null;
+
+	private int[]								hashes;
+
+	private int									size				= 0;
+
+	private IWeightedCKYStep<MR>[]				steps;
+
+	public CompactStepSet() {
+		initArrays();
+	}
+
+	@Override
+	public boolean add(IWeightedCKYStep<MR> step) {
+		if (hashed != null) {
+			return hashed.add(step);
+		}
+		final int hash = step.hashCode();
+		if (indexOf(step, hash) >= 0) {
+			return false;
+		}
+		if (size == HASH_THRESHOLD) {
+			hashed = new LinkedHashSet<IWeightedCKYStep<MR>>();
+			for (int i = 0; i < size; ++i) {
+				hashed.add(steps[i]);
+			}
+			hashed.add(step);
+			hashes = null;
+			steps = null;
+			size = 0;
+			return true;
+		}
+		if (size == steps.length) {
+			final int capacity = size + (size >> 1) + 1;
+			hashes = Arrays.copyOf(hashes, capacity);
+			steps = Arrays.copyOf(steps, capacity);
+		}
+		hashes[size] = hash;
+		steps[size] = step;
+		++size;
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		if (hashed != null) {
+			hashed = null;
+			initArrays();
+		} else {
+			Arrays.fill(steps, 0, size, null);
+			size = 0;
+		}
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (hashed != null) {
+			return hashed.contains(o);
+		}
+		return o != null && indexOf(o, o.hashCode()) >= 0;
+	}
+
+	@Override
+	public Iterator<IWeightedCKYStep<MR>> iterator() {
+		if (hashed != null) {
+			return hashed.iterator();
+		}
+		return new Iterator<IWeightedCKYStep<MR>>() {
+			private int		index		= 0;
+			private boolean	removable	= false;
+
+			@Override
+			public boolean hasNext() {
+				return index < size;
+			}
+
+			@Override
+			public IWeightedCKYStep<MR> next() {
+				if (index < size) {
+					removable = true;
+					return steps[index++];
+				} else {
+					throw new NoSuchElementException();
+				}
+			}
+
+			@Override
+			public void remove() {
+				if (!removable) {
+					throw new IllegalStateException();
+				}
+				removable = false;
+				removeAt(--index);
+			}
+		};
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (hashed != null) {
+			return hashed.remove(o);
+		}
+		if (o == null) {
+			return false;
+		}
+		final int index = indexOf(o, o.hashCode());
+		if (index < 0) {
+			return false;
+		}
+		removeAt(index);
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return hashed == null ? size : hashed.size();
+	}
+
+	private int indexOf(Object o, int hash) {
+		for (int i = 0; i < size; ++i) {
+			if (hashes[i] == hash && steps[i].equals(o)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void initArrays() {
+		this.hashes = new int[INITIAL_CAPACITY];
+		this.steps = new IWeightedCKYStep[INITIAL_CAPACITY];
+		this.size = 0;
+	}
+
+	private void removeAt(int index) {
+		final int tail = size - index - 1;
+		System.arraycopy(hashes, index + 1, hashes, index, tail);
+		System.arraycopy(steps, index + 1, steps, index, tail);
+		steps[--size] = null;
+	}
+
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky.chart;
+
+import java.util.function.DoubleSupplier;
+
+import edu.cornell.cs.nlp.spf.explat.IResourceRepository;
+import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
+import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
+import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
+
+/**
+ * Beam policy that keeps the smallest set of top cells that covers a given
+ * share of the probability mass of a span. The probability of each cell is
+ * computed by normalizing the exponentiated pruning scores over the cells in
+ * the span. The lowest scoring cell is pruned if all the other cells already
+ * cover the required mass.
+ */
+public class CumulativeProbabilityBeamPolicy implements IBeamPolicy {
+
+	private static final long	serialVersionUID	= 5330372046315307014L;
+
+	private final double		logMassCutoff;
+
+	private final double		massCutoff;
+
+	public CumulativeProbabilityBeamPolicy(double massCutoff) {
+		if (massCutoff <= 0.0 || massCutoff > 1.0) {
+			throw new IllegalArgumentException(
+					"Invalid mass cutoff: " + massCutoff);
+		}
+		this.massCutoff = massCutoff;
+		this.logMassCutoff = Math.log(massCutoff);
+	}
+
+	@Override
+	public int beamSize(int spanLength, int chartBeamSize) {
+		return chartBeamSize;
+	}
+
+	@Override
+	public boolean pruneMin(double minScore, double maxScore,
+			DoubleSupplier logMass) {
+		// The normalized mass of all cells, except the lowest scoring one, is
+		// 1 - p(min). Compare in log space: log(1 - p(min)) >= log(cutoff).
+		final double minProb = Math.exp(minScore - logMass.getAsDouble());
+		return minProb < 1.0 && Math.log1p(-minProb) >= logMassCutoff;
+	}
+
+	@Override
+	public String toString() {
+		return CumulativeProbabilityBeamPolicy.class.getSimpleName() + "["
+				+ massCutoff + "]";
+	}
+
+	public static class Creator
+			implements IResourceObjectCreator<CumulativeProbabilityBeamPolicy> {
+
+		private final String type;
+
+		public Creator() {
+			this("beam.mass");
+		}
+
+		public Creator(String type) {
+			this.type = type;
+		}
+
+		@Override
+		public CumulativeProbabilityBeamPolicy create(Parameters params,
+				IResourceRepository repo) {
+			return new CumulativeProbabilityBeamPolicy(
+					params.getAsDouble("mass"));
+		}
+
+		@Override
+		public String type() {
+			return type;
+		}
+
+		@Override
+		public ResourceUsage usage() {
+			return ResourceUsage
+					.builder(type, CumulativeProbabilityBeamPolicy.class)
+					.setDescription(
+							"Beam policy that keeps the top cells covering a share of the probability mass of each span")
+					.addParam("mass", Double.class,
+							"Share of the span probability mass to keep, in (0,1]")
+					.build();
+		}
+
+	}
+
+}
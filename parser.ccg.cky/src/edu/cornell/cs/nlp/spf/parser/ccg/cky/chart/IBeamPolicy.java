@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky.chart;
+
+import java.io.Serializable;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Policy to adapt the beam of each chart span. The policy is consulted
+ * whenever a cell is added to a span, and can reduce the number of cells the
+ * span holds below the beam of the chart. Cells removed by the policy mark
+ * the span as pruned. Lexical cells kept in a separate queue (i.e., when
+ * lexical cells are not pruned) are not affected.
+ */
+public interface IBeamPolicy extends Serializable {
+
+	/**
+	 * The maximum number of cells to keep in a span of the given length.
+	 *
+	 * @param spanLength
+	 *            Number of tokens covered by the span.
+	 * @param chartBeamSize
+	 *            The beam of the chart. Values larger than the chart beam have
+	 *            no effect.
+	 */
+	int beamSize(int spanLength, int chartBeamSize);
+
+	/**
+	 * Decide if the lowest scoring cell in a span should be pruned. Scores are
+	 * the pruning scores of the cells (see {@link Cell#getPruneScore()}).
+	 * The span always keeps at least one cell.
+	 *
+	 * @param minScore
+	 *            The score of the lowest scoring cell.
+	 * @param maxScore
+	 *            The score of the highest scoring cell.
+	 * @param logMass
+	 *            Computes the log of the sum of the exponentiated scores of all
+	 *            cells in the span. Takes linear time in the size of the span,
+	 *            so should only be called if needed.
+	 */
+	boolean pruneMin(double minScore, double maxScore, DoubleSupplier logMass);
+
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky.chart;
+
+import java.util.function.DoubleSupplier;
+
+import edu.cornell.cs.nlp.spf.explat.IResourceRepository;
+import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
+import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
+import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
+
+/**
+ * Beam policy that prunes cells that score too far below the best cell in
+ * their span. The threshold is an additive difference between pruning
+ * scores, which are log-linear, so it's a relative threshold on the
+ * unnormalized probabilities of the cells.
+ */
+public class RelativeThresholdBeamPolicy implements IBeamPolicy {
+
+	private static final long	serialVersionUID	= 2702381094451470585L;
+
+	private final double		threshold;
+
+	public RelativeThresholdBeamPolicy(double threshold) {
+		if (threshold < 0.0) {
+			throw new IllegalArgumentException(
+					"Invalid threshold: " + threshold);
+		}
+		this.threshold = threshold;
+	}
+
+	@Override
+	public int beamSize(int spanLength, int chartBeamSize) {
+		return chartBeamSize;
+	}
+
+	@Override
+	public boolean pruneMin(double minScore, double maxScore,
+			DoubleSupplier logMass) {
+		return minScore < maxScore - threshold;
+	}
+
+	@Override
+	public String toString() {
+		return RelativeThresholdBeamPolicy.class.getSimpleName() + "["
+				+ threshold + "]";
+	}
+
+	public static class Creator
+			implements IResourceObjectCreator<RelativeThresholdBeamPolicy> {
+
+		private final String type;
+
+		public Creator() {
+			this("beam.threshold");
+		}
+
+		public Creator(String type) {
+			this.type = type;
+		}
+
+		@Override
+		public RelativeThresholdBeamPolicy create(Parameters params,
+				IResourceRepository repo) {
+			return new RelativeThresholdBeamPolicy(
+					params.getAsDouble("threshold"));
+		}
+
+		@Override
+		public String type() {
+			return type;
+		}
+
+		@Override
+		public ResourceUsage usage() {
+			return ResourceUsage
+					.builder(type, RelativeThresholdBeamPolicy.class)
+					.setDescription(
+							"Beam policy that prunes cells scoring too far below the best cell in their span")
+					.addParam("threshold", Double.class,
+							"Maximum difference between the score of a cell and the best score in its span")
+					.build();
+		}
+
+	}
+
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky.chart;
+
+import java.util.function.DoubleSupplier;
+
+import edu.cornell.cs.nlp.spf.explat.IResourceRepository;
+import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
+import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
+import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
+
+/**
+ * Beam policy that narrows the beam as spans get longer. Single token spans
+ * use the full beam of the chart, and the beam of each longer span is reduced
+ * by a constant factor per token: K(l) = max(min, ceil(K * decay^(l-1))).
+ */
+public class SpanLengthBeamPolicy implements IBeamPolicy {
+
+	private static final long	serialVersionUID	= -6044781722914520853L;
+
+	private final double		decay;
+
+	private final int			minBeamSize;
+
+	public SpanLengthBeamPolicy(double decay, int minBeamSize) {
+		if (decay <= 0.0 || decay > 1.0) {
+			throw new IllegalArgumentException("Invalid decay: " + decay);
+		}
+		if (minBeamSize < 1) {
+			throw new IllegalArgumentException(
+					"Invalid minimal beam size: " + minBeamSize);
+		}
+		this.decay = decay;
+		this.minBeamSize = minBeamSize;
+	}
+
+	@Override
+	public int beamSize(int spanLength, int chartBeamSize) {
+		final int size = (int) Math
+				.ceil(chartBeamSize * Math.pow(decay, spanLength - 1));
+		return Math.min(chartBeamSize, Math.max(minBeamSize, size));
+	}
+
+	@Override
+	public boolean pruneMin(double minScore, double maxScore,
+			DoubleSupplier logMass) {
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return SpanLengthBeamPolicy.class.getSimpleName() + "[decay=" + decay
+				+ ", min=" + minBeamSize + "]";
+	}
+
+	public static class Creator
+			implements IResourceObjectCreator<SpanLengthBeamPolicy> {
+
+		private final String type;
+
+		public Creator() {
+			this("beam.length");
+		}
+
+		public Creator(String type) {
+			this.type = type;
+		}
+
+		@Override
+		public SpanLengthBeamPolicy create(Parameters params,
+				IResourceRepository repo) {
+			return new SpanLengthBeamPolicy(params.getAsDouble("decay"),
+					params.getAsInteger("minBeam", 1));
+		}
+
+		@Override
+		public String type() {
+			return type;
+		}
+
+		@Override
+		public ResourceUsage usage() {
+			return ResourceUsage.builder(type, SpanLengthBeamPolicy.class)
+					.setDescription(
+							"Beam policy that narrows the beam of longer spans")
+					.addParam("decay", Double.class,
+							"Factor to reduce the beam with each additional token in the span, in (0,1]")
+					.addParam("minBeam", Integer.class,
+							"Minimal beam size for any span (default: 1)")
+					.build();
+		}
+
+	}
+
+}
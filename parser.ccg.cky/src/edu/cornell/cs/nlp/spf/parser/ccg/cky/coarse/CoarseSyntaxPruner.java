@@ -0,0 +1,561 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky.coarse;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import edu.cornell.cs.nlp.spf.base.token.TokenSeq;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.CompositeImmutableLexicon;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.ILexiconImmutable;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.Lexicon;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.explat.IResourceRepository;
+import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
+import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
+import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
+import edu.cornell.cs.nlp.spf.parser.ISentenceLexiconGenerator;
+import edu.cornell.cs.nlp.spf.parser.ParsingOp;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.steps.CKYLexicalStep;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IDataItemModel;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.BinaryRuleSet;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.IBinaryParseRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.ILexicalRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.IUnaryParseRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.LexicalResult;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.LexicalRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.SentenceSpan;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.UnaryRuleSet;
+import edu.cornell.cs.nlp.utils.filter.FilterUtils;
+import edu.cornell.cs.nlp.utils.filter.IFilter;
+import edu.cornell.cs.nlp.utils.log.ILogger;
+import edu.cornell.cs.nlp.utils.log.LoggerFactory;
+
+/**
+ * Coarse-to-fine pruning for CKY parsing. Runs a coarse CKY pass over the
+ * syntax of categories only, ignoring their semantics, using the syntax-only
+ * application of the parsing rules (see
+ * {@link IBinaryParseRule#applySyntax(Syntax, Syntax, SentenceSpan)}). The
+ * coarse chart is scored with the lexical scores of the model, and
+ * inside-outside is used to compute the posterior of each (span, syntax)
+ * item. The result is a pruning filter that only accepts parsing operations
+ * that create a category with a syntax that survived the posterior threshold
+ * in the same span. The filter is given to the full parser through the
+ * pruning filter argument of
+ * {@link edu.cornell.cs.nlp.spf.parser.ccg.cky.AbstractCKYParser#parse(Sentence, Predicate, IDataItemModel)}
+ * .
+ * <p>
+ * The coarse pass follows the unary rules convention of the CKY parsers: unary
+ * rules are applied once, to categories created by lexical and binary rules.
+ * If the coarse pass can't find a complete parse, the filter accepts all
+ * operations.
+ *
+ * @param <DI>
+ *            Data item.
+ * @param <MR>
+ *            Meaning representation.
+ */
+public class CoarseSyntaxPruner<DI extends Sentence, MR> {
+	public static final ILogger								LOG	= LoggerFactory
+			.create(CoarseSyntaxPruner.class);
+
+	private final IBinaryParseRule<MR>[]					binaryRules;
+
+	/**
+	 * Filter to determine the syntax of complete parses.
+	 */
+	private final IFilter<Syntax>							completeSyntaxFilter;
+
+	private final ILexicalRule<MR>							lexicalRule;
+
+	/**
+	 * Log of the minimal posterior of a (span, syntax) item to survive
+	 * pruning.
+	 */
+	private final double									logThreshold;
+
+	/**
+	 * Lexical generators that use the sentence itself to generate lexical
+	 * entries. Should match the generators used by the full parser.
+	 */
+	private final List<ISentenceLexiconGenerator<DI, MR>>	sentenceLexiconGenerators;
+
+	private final IUnaryParseRule<MR>[]						unaryRules;
+
+	private CoarseSyntaxPruner(IBinaryParseRule<MR>[] binaryRules,
+			IUnaryParseRule<MR>[] unaryRules, ILexicalRule<MR> lexicalRule,
+			List<ISentenceLexiconGenerator<DI, MR>> sentenceLexiconGenerators,
+			IFilter<Syntax> completeSyntaxFilter, double threshold) {
+		if (threshold < 0.0 || threshold > 1.0) {
+			throw new IllegalArgumentException(
+					"Invalid posterior threshold: " + threshold);
+		}
+		this.binaryRules = binaryRules;
+		this.unaryRules = unaryRules;
+		this.lexicalRule = lexicalRule;
+		this.sentenceLexiconGenerators = sentenceLexiconGenerators;
+		this.completeSyntaxFilter = completeSyntaxFilter;
+		this.logThreshold = Math.log(threshold);
+		LOG.info("Init %s :: threshold=%f, binaryRules=%d, unaryRules=%d",
+				getClass().getSimpleName(), threshold, binaryRules.length,
+				unaryRules.length);
+	}
+
+	private static void logAdd(Map<Syntax, Double> scores, Syntax syntax,
+			double score) {
+		final Double current = scores.get(syntax);
+		scores.put(syntax, current == null ? score : logAdd(current, score));
+	}
+
+	private static double logAdd(double a, double b) {
+		if (a == Double.NEGATIVE_INFINITY) {
+			return b;
+		} else if (b == Double.NEGATIVE_INFINITY) {
+			return a;
+		} else if (a > b) {
+			return a + Math.log1p(Math.exp(b - a));
+		} else {
+			return b + Math.log1p(Math.exp(a - b));
+		}
+	}
+
+	private static double score(Map<Syntax, Double> scores, Syntax syntax) {
+		final Double score = scores.get(syntax);
+		return score == null ? Double.NEGATIVE_INFINITY : score;
+	}
+
+	/**
+	 * Create a pruning filter for the given sentence.
+	 */
+	public Predicate<ParsingOp<MR>> createFilter(DI dataItem,
+			IDataItemModel<MR> model) {
+		return createFilter(dataItem, model, null);
+	}
+
+	/**
+	 * Create a pruning filter for the given sentence.
+	 *
+	 * @param tempLexicon
+	 *            Temporary lexicon to use in addition to the model lexicon.
+	 *            Can be null.
+	 */
+	public Predicate<ParsingOp<MR>> createFilter(DI dataItem,
+			IDataItemModel<MR> model, ILexiconImmutable<MR> tempLexicon) {
+		final long start = System.currentTimeMillis();
+
+		final List<ILexiconImmutable<MR>> lexicons = new ArrayList<ILexiconImmutable<MR>>();
+		for (final ISentenceLexiconGenerator<DI, MR> generator : sentenceLexiconGenerators) {
+			lexicons.add(new Lexicon<MR>(generator.generateLexicon(dataItem)));
+		}
+		lexicons.add(model.getLexicon());
+		if (tempLexicon != null) {
+			lexicons.add(tempLexicon);
+		}
+
+		final Set<Syntax>[][] surviving = coarseParse(dataItem.getTokens(),
+				model, new CompositeImmutableLexicon<MR>(lexicons));
+
+		LOG.debug("Coarse pass done (%.3fsec)",
+				(System.currentTimeMillis() - start) / 1000.0);
+
+		if (surviving == null) {
+			LOG.debug("No complete coarse parse, pruning disabled");
+			return op -> true;
+		}
+
+		return op -> {
+			final Set<Syntax> syntaxSet = surviving[op.getSpan()
+					.getStart()][op.getSpan().getEnd()];
+			return syntaxSet != null
+					&& syntaxSet.contains(op.getCategory().getSyntax());
+		};
+	}
+
+	/**
+	 * Coarse syntax-only CKY pass with inside-outside.
+	 *
+	 * @return For each span, the set of syntactic categories that survived
+	 *         the posterior threshold, or null if there are no complete coarse
+	 *         parses.
+	 */
+	private Set<Syntax>[][] coarseParse(TokenSeq tokens,
+			IDataItemModel<MR> model, ILexiconImmutable<MR> lexicon) {
+		final int numTokens = tokens.size();
+
+		// Inside scores of items created by lexical and binary rules (pre),
+		// and of all items (full), including the ones created by unary rules.
+		// Binary rules combine full items.
+		final Map<Syntax, Double>[][] preInside = createScoresTable(numTokens);
+		final Map<Syntax, Double>[][] fullInside = createScoresTable(numTokens);
+		@SuppressWarnings("unchecked")
+		final List<BinaryEdge>[][] binaryEdges = (List<BinaryEdge>[][]) Array
+				.newInstance(List.class, numTokens, numTokens);
+		@SuppressWarnings("unchecked")
+		final List<UnaryEdge>[][] unaryEdges = (List<UnaryEdge>[][]) Array
+				.newInstance(List.class, numTokens, numTokens);
+
+		for (int len = 0; len < numTokens; ++len) {
+			for (int begin = 0; begin < numTokens - len; ++begin) {
+				final int end = begin + len;
+				final SentenceSpan span = new SentenceSpan(begin, end,
+						numTokens);
+				final Map<Syntax, Double> pre = preInside[begin][end];
+
+				// Lexical items.
+				final Iterator<LexicalResult<MR>> lexicalResults = lexicalRule
+						.apply(tokens.sub(begin, end + 1), span, lexicon);
+				while (lexicalResults.hasNext()) {
+					final LexicalResult<MR> result = lexicalResults.next();
+					logAdd(pre, result.getResultCategory().getSyntax(),
+							model.score(model.computeFeatures(
+									new CKYLexicalStep<MR>(
+											result.getResultCategory(),
+											result.getEntry(), false, begin,
+											end))));
+				}
+
+				// Binary items. Rules don't contribute to the score.
+				final List<BinaryEdge> spanBinaryEdges = new ArrayList<>();
+				for (int split = begin; split < end; ++split) {
+					final Map<Syntax, Double> leftItems = fullInside[begin][split];
+					final Map<Syntax, Double> rightItems = fullInside[split
+							+ 1][end];
+					for (final Entry<Syntax, Double> left : leftItems
+							.entrySet()) {
+						for (final Entry<Syntax, Double> right : rightItems
+								.entrySet()) {
+							final Set<Syntax> results = new HashSet<>();
+							for (final IBinaryParseRule<MR> rule : binaryRules) {
+								if (rule.isValidArgument(left.getKey(),
+										right.getKey())) {
+									results.addAll(rule.applySyntax(
+											left.getKey(), right.getKey(),
+											span));
+								}
+							}
+							for (final Syntax result : results) {
+								logAdd(pre, result,
+										left.getValue() + right.getValue());
+								spanBinaryEdges.add(new BinaryEdge(split,
+										left.getKey(), right.getKey(),
+										result));
+							}
+						}
+					}
+				}
+				binaryEdges[begin][end] = spanBinaryEdges;
+
+				// Unary items, created from pre items only.
+				final Map<Syntax, Double> full = fullInside[begin][end];
+				full.putAll(pre);
+				final List<UnaryEdge> spanUnaryEdges = new ArrayList<>();
+				for (final Entry<Syntax, Double> entry : pre.entrySet()) {
+					final Set<Syntax> results = new HashSet<>();
+					for (final IUnaryParseRule<MR> rule : unaryRules) {
+						results.addAll(rule.applySyntax(entry.getKey(), span));
+					}
+					for (final Syntax result : results) {
+						logAdd(full, result, entry.getValue());
+						spanUnaryEdges
+								.add(new UnaryEdge(entry.getKey(), result));
+					}
+				}
+				unaryEdges[begin][end] = spanUnaryEdges;
+			}
+		}
+
+		// Outside scores. Spans are processed from the longest to the
+		// shortest, so all parents of a span are processed before it.
+		final Map<Syntax, Double>[][] preOutside = createScoresTable(numTokens);
+		final Map<Syntax, Double>[][] fullOutside = createScoresTable(
+				numTokens);
+		double logNorm = Double.NEGATIVE_INFINITY;
+		for (final Entry<Syntax, Double> entry : fullInside[0][numTokens - 1]
+				.entrySet()) {
+			if (completeSyntaxFilter.test(entry.getKey())) {
+				fullOutside[0][numTokens - 1].put(entry.getKey(), 0.0);
+				logNorm = logAdd(logNorm, entry.getValue());
+			}
+		}
+
+		if (logNorm == Double.NEGATIVE_INFINITY) {
+			return null;
+		}
+
+		@SuppressWarnings("unchecked")
+		final Set<Syntax>[][] surviving = (Set<Syntax>[][]) Array
+				.newInstance(Set.class, numTokens, numTokens);
+		int numItems = 0;
+		int numSurviving = 0;
+		for (int len = numTokens - 1; len >= 0; --len) {
+			for (int begin = 0; begin < numTokens - len; ++begin) {
+				final int end = begin + len;
+				final Map<Syntax, Double> fullOut = fullOutside[begin][end];
+				final Map<Syntax, Double> preOut = preOutside[begin][end];
+
+				// Pre items contribute to the full item with the same syntax
+				// and to the results of unary rules.
+				for (final Syntax syntax : preInside[begin][end].keySet()) {
+					if (fullOut.containsKey(syntax)) {
+						logAdd(preOut, syntax, fullOut.get(syntax));
+					}
+				}
+				for (final UnaryEdge edge : unaryEdges[begin][end]) {
+					if (fullOut.containsKey(edge.parent)) {
+						logAdd(preOut, edge.child, fullOut.get(edge.parent));
+					}
+				}
+
+				// Propagate to the children of binary edges.
+				for (final BinaryEdge edge : binaryEdges[begin][end]) {
+					final double parentOutside = score(preOut, edge.parent);
+					if (parentOutside == Double.NEGATIVE_INFINITY) {
+						continue;
+					}
+					logAdd(fullOutside[begin][edge.split], edge.left,
+							parentOutside + score(fullInside[edge.split
+									+ 1][end], edge.right));
+					logAdd(fullOutside[edge.split + 1][end], edge.right,
+							parentOutside + score(
+									fullInside[begin][edge.split],
+									edge.left));
+				}
+
+				// Collect the items that survive the posterior threshold.
+				final Set<Syntax> spanSurviving = new HashSet<>();
+				for (final Entry<Syntax, Double> entry : fullInside[begin][end]
+						.entrySet()) {
+					++numItems;
+					final Syntax syntax = entry.getKey();
+					final double posterior = Math.max(
+							entry.getValue() + score(fullOut, syntax),
+							score(preInside[begin][end], syntax)
+									+ score(preOut, syntax))
+							- logNorm;
+					if (posterior >= logThreshold) {
+						spanSurviving.add(syntax);
+					}
+				}
+				numSurviving += spanSurviving.size();
+				surviving[begin][end] = spanSurviving;
+			}
+		}
+
+		LOG.debug("Coarse pass: %d items, %d survived pruning, logNorm=%f",
+				numItems, numSurviving, logNorm);
+
+		return surviving;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<Syntax, Double>[][] createScoresTable(int numTokens) {
+		final Map<Syntax, Double>[][] table = (Map<Syntax, Double>[][]) Array
+				.newInstance(Map.class, numTokens, numTokens);
+		for (int i = 0; i < numTokens; ++i) {
+			for (int j = i; j < numTokens; ++j) {
+				table[i][j] = new HashMap<>();
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Builder for {@link CoarseSyntaxPruner}.
+	 */
+	public static class Builder<DI extends Sentence, MR> {
+
+		private final List<IBinaryParseRule<MR>>				binaryRules					= new ArrayList<IBinaryParseRule<MR>>();
+
+		private IFilter<Syntax>									completeSyntaxFilter		= FilterUtils
+				.stubTrue();
+
+		private ILexicalRule<MR>								lexicalRule					= new LexicalRule<MR>();
+
+		private final List<ISentenceLexiconGenerator<DI, MR>>	sentenceLexicalGenerators	= new ArrayList<ISentenceLexiconGenerator<DI, MR>>();
+
+		/** Minimal posterior for a (span, syntax) item to survive */
+		private double											threshold					= 0.0001;
+
+		private final List<IUnaryParseRule<MR>>					unaryRules					= new ArrayList<IUnaryParseRule<MR>>();
+
+		public Builder<DI, MR> addParseRule(IBinaryParseRule<MR> rule) {
+			binaryRules.add(rule);
+			return this;
+		}
+
+		public Builder<DI, MR> addParseRule(IUnaryParseRule<MR> rule) {
+			unaryRules.add(rule);
+			return this;
+		}
+
+		public Builder<DI, MR> addSentenceLexicalGenerator(
+				ISentenceLexiconGenerator<DI, MR> generator) {
+			sentenceLexicalGenerators.add(generator);
+			return this;
+		}
+
+		@SuppressWarnings("unchecked")
+		public CoarseSyntaxPruner<DI, MR> build() {
+			return new CoarseSyntaxPruner<DI, MR>(
+					binaryRules.toArray((IBinaryParseRule<MR>[]) Array
+							.newInstance(IBinaryParseRule.class,
+									binaryRules.size())),
+					unaryRules.toArray((IUnaryParseRule<MR>[]) Array
+							.newInstance(IUnaryParseRule.class,
+									unaryRules.size())),
+					lexicalRule, sentenceLexicalGenerators,
+					completeSyntaxFilter, threshold);
+		}
+
+		public Builder<DI, MR> setCompleteSyntaxFilter(
+				IFilter<Syntax> completeSyntaxFilter) {
+			this.completeSyntaxFilter = completeSyntaxFilter;
+			return this;
+		}
+
+		public Builder<DI, MR> setLexicalRule(ILexicalRule<MR> lexicalRule) {
+			this.lexicalRule = lexicalRule;
+			return this;
+		}
+
+		public Builder<DI, MR> setThreshold(double threshold) {
+			this.threshold = threshold;
+			return this;
+		}
+	}
+
+	public static class Creator<DI extends Sentence, MR>
+			implements IResourceObjectCreator<CoarseSyntaxPruner<DI, MR>> {
+
+		private final String type;
+
+		public Creator() {
+			this("parser.cky.coarse");
+		}
+
+		public Creator(String type) {
+			this.type = type;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public CoarseSyntaxPruner<DI, MR> create(Parameters params,
+				IResourceRepository repo) {
+			final Builder<DI, MR> builder = new Builder<DI, MR>();
+
+			if (params.contains("threshold")) {
+				builder.setThreshold(params.getAsDouble("threshold"));
+			}
+
+			if (params.contains("lex")) {
+				builder.setLexicalRule(
+						(ILexicalRule<MR>) repo.get(params.get("lex")));
+			}
+
+			if (params.contains("completeSyntaxFilter")) {
+				builder.setCompleteSyntaxFilter((IFilter<Syntax>) repo
+						.get(params.get("completeSyntaxFilter")));
+			}
+
+			for (final String id : params.getSplit("generators")) {
+				builder.addSentenceLexicalGenerator(
+						(ISentenceLexiconGenerator<DI, MR>) repo.get(id));
+			}
+
+			for (final String id : params.getSplit("rules")) {
+				final Object rule = repo.get(id);
+				if (rule instanceof BinaryRuleSet) {
+					for (final IBinaryParseRule<MR> singleRule : (BinaryRuleSet<MR>) rule) {
+						builder.addParseRule(singleRule);
+					}
+				} else if (rule instanceof UnaryRuleSet) {
+					for (final IUnaryParseRule<MR> singleRule : (UnaryRuleSet<MR>) rule) {
+						builder.addParseRule(singleRule);
+					}
+				} else if (rule instanceof IBinaryParseRule) {
+					builder.addParseRule((IBinaryParseRule<MR>) rule);
+				} else if (rule instanceof IUnaryParseRule) {
+					builder.addParseRule((IUnaryParseRule<MR>) rule);
+				} else {
+					throw new IllegalArgumentException(
+							"Invalid rule class: " + rule);
+				}
+			}
+
+			return builder.build();
+		}
+
+		@Override
+		public String type() {
+			return type;
+		}
+
+		@Override
+		public ResourceUsage usage() {
+			return ResourceUsage.builder(type, CoarseSyntaxPruner.class)
+					.setDescription(
+							"Coarse syntax-only CKY pass to create pruning filters for the full parser")
+					.addParam("threshold", Double.class,
+							"Minimal posterior of a (span, syntax) item in the coarse chart to survive pruning (default: 0.0001)")
+					.addParam("lex", ILexicalRule.class,
+							"Lexical rule (default: simple generic rule)")
+					.addParam("completeSyntaxFilter", IFilter.class,
+							"Filter to determine the syntax of complete parses (default: accept all)")
+					.addParam("generators", ISentenceLexiconGenerator.class,
+							"List of dynamic sentence lexical generators. Should match the ones used by the parser.")
+					.addParam("rules", IBinaryParseRule.class,
+							"Parsing rules. Should match the ones used by the parser.")
+					.build();
+		}
+
+	}
+
+	private static class BinaryEdge {
+		private final Syntax	left;
+		private final Syntax	parent;
+		private final Syntax	right;
+		private final int		split;
+
+		public BinaryEdge(int split, Syntax left, Syntax right,
+				Syntax parent) {
+			this.split = split;
+			this.left = left;
+			this.right = right;
+			this.parent = parent;
+		}
+	}
+
+	private static class UnaryEdge {
+		private final Syntax	child;
+		private final Syntax	parent;
+
+		public UnaryEdge(Syntax child, Syntax parent) {
+			this.child = child;
+			this.parent = parent;
+		}
+	}
+
+}
@@ -21,12 +21,18 @@ import java.io.ObjectInputStream;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.function.Predicate;
 
 import com.google.common.base.Function;
@@ -47,10 +53,13 @@ import edu.cornell.cs.nlp.spf.parser.ISentenceLexiconGenerator;
 import edu.cornell.cs.nlp.spf.parser.ParsingOp;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.AbstractCKYParser;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYBinaryParsingRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYForestCache;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYUnaryParsingRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.LexicalEntryCache;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.AbstractCellFactory;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Cell;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Chart;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.IBeamPolicy;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.sloppy.AggressiveWordSkippingLexicalGenerator;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.sloppy.BackwardSkippingRule;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.sloppy.ForwardSkippingRule;
@@ -63,6 +72,7 @@ import edu.cornell.cs.nlp.spf.parser.ccg.rules.IBinaryParseRule;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.ILexicalRule;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.IUnaryParseRule;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.LexicalRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.ParseRuleCache;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.UnaryRuleSet;
 import edu.cornell.cs.nlp.utils.collections.SetUtils;
 import edu.cornell.cs.nlp.utils.composites.Pair;
@@ -92,6 +102,12 @@ public class MultiCKYParser<DI extends Sentence, MR>
 	private final boolean			preChartPruning;
 	private final String			threadNamePrefix;
 
+	/**
+	 * Process the chart in waves of spans of equal length instead of
+	 * scheduling each job when its dependencies complete.
+	 */
+	private final boolean			wavefront;
+
 	private MultiCKYParser(int maxNumberOfCellsInSpan,
 			CKYBinaryParsingRule<MR>[] binaryRules,
 			List<ISentenceLexiconGenerator<DI, MR>> sentenceLexiconGenerators,
@@ -100,10 +116,16 @@ public class MultiCKYParser<DI extends Sentence, MR>
 			boolean preChartPruning, IFilter<Category<MR>> completeParseFilter,
 			CKYUnaryParsingRule<MR>[] unaryRules, Integer numThreads,
 			String threadNamePrefix, ILexicalRule<MR> lexicalRule,
-			boolean breakTies) {
+			boolean breakTies, int splitParallelism, int chartPoolSize,
+			boolean wavefront, long timeout,
+			IBeamPolicy beamPolicy, boolean compactCells,
+			LexicalEntryCache<MR> lexicalCache,
+			CKYForestCache<MR> forestCache) {
 		super(maxNumberOfCellsInSpan, binaryRules, sentenceLexiconGenerators,
 				sloppyLexicalGenerators, categoryServices, pruneLexicalCells,
-				completeParseFilter, unaryRules, lexicalRule, breakTies);
+				completeParseFilter, unaryRules, lexicalRule, breakTies,
+				splitParallelism, chartPoolSize, timeout,
+				beamPolicy, compactCells, lexicalCache, forestCache);
 		this.numThreads = numThreads;
 		this.threadNamePrefix = threadNamePrefix;
 		this.executor = new TinyExecutorService(
@@ -112,6 +134,7 @@ public class MultiCKYParser<DI extends Sentence, MR>
 				new LoggingThreadFactory(threadNamePrefix),
 				ITinyExecutor.DEFAULT_MONITOR_SLEEP);
 		this.preChartPruning = preChartPruning;
+		this.wavefront = wavefront;
 	}
 
 	@Override
@@ -164,77 +187,158 @@ public class MultiCKYParser<DI extends Sentence, MR>
 		LOG.debug(
 				"Starting a multi-threaded CKY parse (chart already populated)");
 
-		// Generate all triplets of span and splits <begin,end,split> and
-		// store them in a set. Notice the added dummy splits for lexical jobs.
-		final Map<SpanPair, Set<SplitTriplet>> spans = new HashMap<SpanPair, Set<SplitTriplet>>();
-		for (int len = 0; len < numTokens; len++) {
-			for (int begin = 0; begin < numTokens - len; begin++) {
-				final HashSet<SplitTriplet> triplets = new HashSet<SplitTriplet>();
-				spans.put(new SpanPair(begin, begin + len), triplets);
-				// Add dummy split for the lexical job
-				triplets.add(new SplitTriplet(begin, begin + len, -1));
-				for (int split = 0; split < len; split++) {
-					triplets.add(new SplitTriplet(begin, begin + len, split));
-				}
+		if (wavefront) {
+			return doWavefrontParse(pruningFilter, model, chart, numTokens,
+					cellFactory, lexicon);
+		}
+
+		final SpanScheduler scheduler = new SpanScheduler(pruningFilter, model,
+				chart, numTokens, cellFactory);
+
+		// Create all lexical jobs to start the parsing process. All other jobs
+		// are created by the scheduler when their dependencies are complete.
+		LOG.debug("Creating initial lexical jobs");
+		for (int i = 0; i < numTokens; i++) {
+			for (int j = i; j < numTokens; j++) {
+				executor.execute(new LexicalJob(scheduler, i, j, lexicon));
 			}
 		}
 
-		// Create a map to hold all completed spans, index them by both
-		// start and end points (so most will appear in the map twice).
-		final Map<Integer, Set<SpanPair>> completedSpanBegins = new HashMap<Integer, Set<SpanPair>>();
-		final Map<Integer, Set<SpanPair>> completedSpanEnds = new HashMap<Integer, Set<SpanPair>>();
-		for (int i = 0; i < numTokens; ++i) {
-			completedSpanBegins.put(i, new HashSet<SpanPair>());
-			completedSpanEnds.put(i, new HashSet<SpanPair>());
+		// Wait for all spans to complete.
+		try {
+			scheduler.awaitCompletion();
+		} catch (final InterruptedException e) {
+			throw new IllegalStateException(e);
 		}
 
-		// Lock
-		final SpanLock lock = new SpanLock(numTokens);
+		return chart;
+	}
 
-		// Create the listener
-		final Listener listener = new Listener(completedSpanBegins,
-				completedSpanEnds, pruningFilter, model, chart, numTokens,
-				cellFactory, lock, spans);
+	/**
+	 * Parse in anti-diagonal waves: all spans of the same length are processed
+	 * in parallel, with a barrier between lengths. Each wave runs in the
+	 * parser's split pool, so the lexical and split tasks of all spans in the
+	 * wave, and the cells of each split, are balanced by work stealing.
+	 */
+	private Chart<MR> doWavefrontParse(Predicate<ParsingOp<MR>> pruningFilter,
+			IDataItemModel<MR> model, Chart<MR> chart, int numTokens,
+			AbstractCellFactory<MR> cellFactory,
+			ILexiconImmutable<MR> lexicon) {
+		final ForkJoinPool pool = getSplitPool();
+		for (int len = 0; len < numTokens; len++) {
+			LOG.debug("Processing wave of spans of length %d", len + 1);
+			final List<ForkJoinTask<?>> spanTasks = new ArrayList<ForkJoinTask<?>>(
+					numTokens - len);
+			for (int begin = 0; begin < numTokens - len; begin++) {
+				final int start = begin;
+				final int end = begin + len;
+				spanTasks.add(ForkJoinTask.adapt(() -> processWavefrontSpan(
+						start, end, pruningFilter, model, chart, numTokens,
+						cellFactory, lexicon)));
+			}
+			// Blocks until the entire wave is processed.
+			pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask
+					.invokeAll(spanTasks)));
+		}
+		return chart;
+	}
 
-		try {
-			// Need to sync over splits, in case the jobs will complete before
-			// we get to wait on it. Plus, to wait we need to lock it using
-			// sync.
-			synchronized (spans) {
-				// Add all lexical jobs to start the parsing process
-				LOG.debug("Creating initial lexical jobs");
-
-				// Create all lexical jobs.
-				for (int i = 0; i < numTokens; i++) {
-					for (int j = i; j < numTokens; j++) {
-						executor.execute(new LexicalJob(cellFactory, chart,
-								listener, lock, model, new SpanPair(i, j),
-								lexicon, pruningFilter, numTokens));
-					}
-				}
+	/**
+	 * Process a single span in a wave. The lexical job and all split jobs are
+	 * forked as separate tasks. Only the span's own task adds cells to the
+	 * span, so the chart requires no locking.
+	 */
+	private void processWavefrontSpan(int start, int end,
+			Predicate<ParsingOp<MR>> pruningFilter, IDataItemModel<MR> model,
+			Chart<MR> chart, int numTokens, AbstractCellFactory<MR> cellFactory,
+			ILexiconImmutable<MR> lexicon) {
+		if (end > start && chart.isPastDeadline()) {
+			// Skip the span. Single tokens are always processed, so each
+			// token keeps its lexical and unary cells.
+			chart.externalPruning(start, end);
+			return;
+		}
+
+		final List<ForkJoinTask<? extends Pair<? extends Collection<Cell<MR>>, Boolean>>> jobs = new ArrayList<ForkJoinTask<? extends Pair<? extends Collection<Cell<MR>>, Boolean>>>(
+				1 + end - start);
+		jobs.add(ForkJoinTask.adapt(() -> generateLexicalCells(start, end,
+				chart, lexicon, model, pruningFilter)));
+		for (int split = 0; split < end - start; split++) {
+			final int spanSplit = split;
+			jobs.add(ForkJoinTask.adapt(() -> preChartPruning
+					? processSplitAndPrune(start, end, spanSplit, numTokens,
+							chart, cellFactory, pruningFilter,
+							chart.getBeamSize(), model)
+					: processSplit(start, end, spanSplit, numTokens, chart,
+							cellFactory, pruningFilter, model)));
+		}
+		ForkJoinTask.invokeAll(jobs);
 
-				// Wait for the set of triplets to be empty, i.e., all spans are
-				// processed.
-				spans.wait();
+		for (final ForkJoinTask<? extends Pair<? extends Collection<Cell<MR>>, Boolean>> job : jobs) {
+			final Pair<? extends Collection<Cell<MR>>, Boolean> processingPair = job
+					.join();
+			for (final Cell<MR> cell : processingPair.first()) {
+				chart.add(cell);
+			}
+			if (processingPair.second()) {
+				chart.externalPruning(start, end);
 			}
-		} catch (final InterruptedException e) {
-			throw new IllegalStateException(e);
 		}
 
-		return chart;
+		final Pair<List<Cell<MR>>, Boolean> unaryPair = preChartPruning
+				? unaryProcessSpanAndPrune(start, end, numTokens, chart,
+						cellFactory, pruningFilter, chart.getBeamSize(), model)
+				: unaryProcessSpan(start, end, numTokens, chart, cellFactory,
+						pruningFilter, model);
+		for (final Cell<MR> cell : unaryPair.first()) {
+			chart.add(cell);
+		}
+		if (unaryPair.second()) {
+			chart.externalPruning(start, end);
+		}
 	}
 
 	public static class Builder<DI extends Sentence, MR> {
 
+		/**
+		 * Policy to adapt the beam of each span (null for a fixed beam). The
+		 * beam of each span is bounded by {@link #maxNumberOfCellsInSpan}.
+		 */
+		private IBeamPolicy										beamPolicy					= null;
+
 		private final Set<CKYBinaryParsingRule<MR>>				binaryRules					= new HashSet<CKYBinaryParsingRule<MR>>();
 
 		private boolean											breakTies					= false;
 
 		private final ICategoryServices<MR>						categoryServices;
 
+		/**
+		 * Number of charts to keep for re-use (0 disables pooling). Pooled
+		 * charts are only recycled when outputs are released.
+		 */
+		private int												chartPoolSize				= 0;
+
+		/**
+		 * Store cell derivation steps compactly to reduce the memory of large
+		 * charts.
+		 */
+		private boolean											compactCells				= false;
+
 		private IFilter<Category<MR>>							completeParseFilter			= FilterUtils
 				.stubTrue();
 
+		/**
+		 * Cache of exact charts to re-score when sentences are parsed again
+		 * (null to always search). Not used with a beam policy.
+		 */
+		private CKYForestCache<MR>								forestCache					= null;
+
+		/**
+		 * Cache of the entries of the model lexicon (null to always use the
+		 * lexicon directly).
+		 */
+		private LexicalEntryCache<MR>							lexicalCache				= null;
+
 		private ILexicalRule<MR>								lexicalRule					= new LexicalRule<MR>();
 
 		/** The maximum number of cells allowed in each span */
@@ -258,10 +362,34 @@ public class MultiCKYParser<DI extends Sentence, MR>
 
 		private final List<ISentenceLexiconGenerator<DI, MR>>	sloppyLexicalGenerators		= new ArrayList<ISentenceLexiconGenerator<DI, MR>>();
 
+		/**
+		 * Number of threads to process each split. The split pool is owned by
+		 * the parser and is shared by all its worker threads, so the total
+		 * number of threads doing split work is bounded regardless of the
+		 * number of worker threads.
+		 */
+		private int												splitParallelism			= Runtime
+				.getRuntime().availableProcessors();
+
 		private String											threadNamePrefix			= "CKY";
 
+		/**
+		 * Time limit for each parse in milliseconds (0 for no limit). Once
+		 * it passes, the remaining spans are skipped and the output is not
+		 * exact.
+		 */
+		private long											timeout						= 0;
+
 		private final Set<CKYUnaryParsingRule<MR>>				unaryRules					= new HashSet<CKYUnaryParsingRule<MR>>();
 
+		/**
+		 * Process spans in waves of equal length, using the split pool,
+		 * instead of scheduling jobs on the worker threads as their
+		 * dependencies complete. The number of worker threads is ignored in
+		 * this mode.
+		 */
+		private boolean											wavefront					= false;
+
 		public Builder(ICategoryServices<MR> categoryServices) {
 			this.categoryServices = categoryServices;
 		}
@@ -300,7 +428,14 @@ public class MultiCKYParser<DI extends Sentence, MR>
 					unaryRules.toArray((CKYUnaryParsingRule<MR>[]) Array
 							.newInstance(CKYUnaryParsingRule.class,
 									unaryRules.size())),
-					numThreads, threadNamePrefix, lexicalRule, breakTies);
+					numThreads, threadNamePrefix, lexicalRule, breakTies,
+					splitParallelism, chartPoolSize, wavefront, timeout,
+					beamPolicy, compactCells, lexicalCache, forestCache);
+		}
+
+		public Builder<DI, MR> setBeamPolicy(IBeamPolicy beamPolicy) {
+			this.beamPolicy = beamPolicy;
+			return this;
 		}
 
 		public Builder<DI, MR> setBreakTies(boolean breakTies) {
@@ -308,12 +443,33 @@ public class MultiCKYParser<DI extends Sentence, MR>
 			return this;
 		}
 
+		public Builder<DI, MR> setChartPoolSize(int chartPoolSize) {
+			this.chartPoolSize = chartPoolSize;
+			return this;
+		}
+
+		public Builder<DI, MR> setCompactCells(boolean compactCells) {
+			this.compactCells = compactCells;
+			return this;
+		}
+
 		public Builder<DI, MR> setCompleteParseFilter(
 				IFilter<Category<MR>> completeParseFilter) {
 			this.completeParseFilter = completeParseFilter;
 			return this;
 		}
 
+		public Builder<DI, MR> setForestCache(CKYForestCache<MR> forestCache) {
+			this.forestCache = forestCache;
+			return this;
+		}
+
+		public Builder<DI, MR> setLexicalCache(
+				LexicalEntryCache<MR> lexicalCache) {
+			this.lexicalCache = lexicalCache;
+			return this;
+		}
+
 		public void setLexicalRule(ILexicalRule<MR> lexicalRule) {
 			this.lexicalRule = lexicalRule;
 		}
@@ -343,10 +499,25 @@ public class MultiCKYParser<DI extends Sentence, MR>
 			return this;
 		}
 
+		public Builder<DI, MR> setSplitParallelism(int splitParallelism) {
+			this.splitParallelism = splitParallelism;
+			return this;
+		}
+
 		public Builder<DI, MR> setThreadNamePrefix(String threadNamePrefix) {
 			this.threadNamePrefix = threadNamePrefix;
 			return this;
 		}
+
+		public Builder<DI, MR> setTimeout(long timeout) {
+			this.timeout = timeout;
+			return this;
+		}
+
+		public Builder<DI, MR> setWavefront(boolean wavefront) {
+			this.wavefront = wavefront;
+			return this;
+		}
 	}
 
 	public static class Creator<DI extends Sentence, MR>
@@ -379,6 +550,21 @@ public class MultiCKYParser<DI extends Sentence, MR>
 				builder.setMaxNumberOfCellsInSpan(params.getAsInteger("beam"));
 			}
 
+			if (params.contains("beamPolicy")) {
+				builder.setBeamPolicy(
+						(IBeamPolicy) repo.get(params.get("beamPolicy")));
+			}
+
+			if (params.contains("lexicalCache")) {
+				builder.setLexicalCache((LexicalEntryCache<MR>) repo
+						.get(params.get("lexicalCache")));
+			}
+
+			if (params.contains("forestCache")) {
+				builder.setForestCache((CKYForestCache<MR>) repo
+						.get(params.get("forestCache")));
+			}
+
 			if (params.contains("lex")) {
 				builder.setLexicalRule(
 						(ILexicalRule<MR>) repo.get(params.get("lex")));
@@ -397,11 +583,31 @@ public class MultiCKYParser<DI extends Sentence, MR>
 				builder.setBreakTies(params.getAsBoolean("breakTies"));
 			}
 
+			if (params.contains("chartPool")) {
+				builder.setChartPoolSize(params.getAsInteger("chartPool"));
+			}
+
+			if (params.contains("compactCells")) {
+				builder.setCompactCells(params.getAsBoolean("compactCells"));
+			}
+
+			if (params.contains("timeout")) {
+				builder.setTimeout(params.getAsLong("timeout"));
+			}
+
+			if (params.contains("wavefront")) {
+				builder.setWavefront(params.getAsBoolean("wavefront"));
+			}
+
 			if (params.contains("pruneLexicalCells")) {
 				builder.setPruneLexicalCells(
 						params.getAsBoolean("pruneLexicalCells"));
 			}
 
+			if (params.contains("splitThreads")) {
+				builder.setSplitParallelism(params.getAsInteger("splitThreads"));
+			}
+
 			if (params.contains("threadPrefix")) {
 				builder.setThreadNamePrefix(params.get("threadsPrefix"));
 			}
@@ -483,15 +689,29 @@ public class MultiCKYParser<DI extends Sentence, MR>
 				addRule(builder, forwardSkip, nfValidator, params);
 			}
 
+			final ParseRuleCache<MR> ruleCache;
+			if (params.contains("ruleCache")) {
+				ruleCache = repo.get(params.get("ruleCache"));
+			} else {
+				ruleCache = null;
+			}
+
 			for (final String id : params.getSplit("rules")) {
-				final Object rule = repo.get(id);
+				final Object rule = ruleCache == null ? repo.get(id)
+						: ruleCache.wrapIfParseRule(repo.get(id));
 				if (rule instanceof BinaryRuleSet) {
 					for (final IBinaryParseRule<MR> singleRule : (BinaryRuleSet<MR>) rule) {
-						addRule(builder, singleRule, nfValidator, params);
+						addRule(builder,
+								ruleCache == null ? singleRule
+										: ruleCache.wrap(singleRule),
+								nfValidator, params);
 					}
 				} else if (rule instanceof UnaryRuleSet) {
 					for (final IUnaryParseRule<MR> singleRule : (UnaryRuleSet<MR>) rule) {
-						addRule(builder, singleRule, nfValidator, params);
+						addRule(builder,
+								ruleCache == null ? singleRule
+										: ruleCache.wrap(singleRule),
+								nfValidator, params);
 					}
 				} else {
 					addRule(builder, rule, nfValidator, params);
@@ -511,16 +731,32 @@ public class MultiCKYParser<DI extends Sentence, MR>
 			return ResourceUsage.builder(type, MultiCKYParser.class)
 					.addParam("breakTies", Boolean.class,
 							"Breaks ties during pruning using the order of insertion to the queue. In a multi-threaded parser, this is essentially random (default: false)")
+					.addParam("chartPool", Integer.class,
+							"Number of charts to keep for re-use. Charts are recycled when parser outputs are released (default: 0, no pooling)")
+					.addParam("compactCells", Boolean.class,
+							"Store the derivation steps of cells compactly to reduce the memory of large charts (default: false)")
 					.addParam("parseFilter", IFilter.class,
 							"Filter to determine complete parses.")
 					.addParam("beam", Integer.class,
 							"Beam to use for cell pruning (default: 50).")
+					.addParam("beamPolicy", IBeamPolicy.class,
+							"Policy to adapt the beam of each span. The beam of every span is bounded by the beam parameter (default: none, fixed beam)")
+					.addParam("lexicalCache", LexicalEntryCache.class,
+							"Cache of the lexical entries of the model lexicon, re-used across parses of the same sentences (default: none)")
+					.addParam("forestCache", CKYForestCache.class,
+							"Cache of exact charts, re-scored with the current model when sentences are parsed again. Not used with a beam policy (default: none)")
 					.addParam("lex", ILexicalRule.class,
 							"Lexical rule (default: simple generic rule)")
 					.addParam("preChartPruning", Boolean.class,
 							"Prune categories before adding to the chart (default: false)")
 					.addParam("pruneLexicalCells", Boolean.class,
 							"Prune lexical entries similarly to conventional categories (default: false)")
+					.addParam("timeout", Long.class,
+							"Time limit for each parse in milliseconds. Once it passes, remaining spans are skipped and the output is not exact (default: 0, no limit)")
+					.addParam("splitThreads", Integer.class,
+							"Number of threads in the parser's pool for processing each split (default: number of available processors)")
+					.addParam("wavefront", Boolean.class,
+							"Process spans in waves of equal length on the split pool, instead of scheduling jobs on the worker threads as their dependencies complete (default: false)")
 					.addParam("wordSkipping", String.class,
 							"Type of word skpping to use during sloppy inference: none, simple or aggressive (default: none)")
 					.addParam("generators", ISentenceLexiconGenerator.class,
@@ -532,6 +768,8 @@ public class MultiCKYParser<DI extends Sentence, MR>
 							"Transformation to be applied to each category before it's added to the chart (default: none).")
 					.addParam("rules", IBinaryParseRule.class,
 							"Binary parsing rules.")
+					.addParam("ruleCache", ParseRuleCache.class,
+							"Cache for the results of rule applications, wraps all rules given in 'rules' (default: none)")
 					.build();
 		}
 
@@ -562,420 +800,312 @@ public class MultiCKYParser<DI extends Sentence, MR>
 	}
 
 	private abstract class AbstractJob extends LoggingRunnable {
-		protected final AbstractCellFactory<MR>	cellFactory;
-		protected final Chart<MR>				chart;
-		protected final Listener				listener;
-		protected final SpanLock				lock;
-		protected final IDataItemModel<MR>		model;
-		protected final int						sentenceLength;
-		protected final SplitTriplet			split;
-
-		public AbstractJob(AbstractCellFactory<MR> cellFactory, Chart<MR> chart,
-				Listener listener, SpanLock lock, IDataItemModel<MR> model,
-				SplitTriplet split, int sentenceLength) {
-			this.cellFactory = cellFactory;
-			this.chart = chart;
-			this.listener = listener;
-			this.lock = lock;
-			this.model = model;
-			this.split = split;
-			this.sentenceLength = sentenceLength;
+		protected final int				end;
+		protected final SpanScheduler	scheduler;
+		protected final int				start;
+
+		public AbstractJob(SpanScheduler scheduler, int start, int end) {
+			this.scheduler = scheduler;
+			this.start = start;
+			this.end = end;
 		}
 	}
 
 	private class LexicalJob extends AbstractJob {
 
-		private final ILexiconImmutable<MR>		lexicon;
-		private final Predicate<ParsingOp<MR>>	pruningFilter;
+		private final ILexiconImmutable<MR> lexicon;
 
-		public LexicalJob(AbstractCellFactory<MR> cellFactory, Chart<MR> chart,
-				Listener listener, SpanLock lock, IDataItemModel<MR> model,
-				SpanPair span, ILexiconImmutable<MR> lexicon,
-				Predicate<ParsingOp<MR>> pruningFilter, int sentenceLength) {
-			super(cellFactory, chart, listener, lock, model,
-					new SplitTriplet(span.start, span.end, -1), sentenceLength);
+		public LexicalJob(SpanScheduler scheduler, int start, int end,
+				ILexiconImmutable<MR> lexicon) {
+			super(scheduler, start, end);
 			this.lexicon = lexicon;
-			this.pruningFilter = pruningFilter;
-			LOG.debug("Created lexical job for %s", split.span);
+			LOG.debug("Created lexical job for (%d-%d)", start, end);
 		}
 
 		@Override
 		public void loggedRun() {
-			LOG.debug("%s Lexical job started", split.span);
+			LOG.debug("(%d-%d): Lexical job started", start, end);
 
 			final Pair<Collection<Cell<MR>>, Boolean> processingPair = generateLexicalCells(
-					split.start, split.end, chart, lexicon, model,
-					pruningFilter);
+					start, end, scheduler.chart, lexicon, scheduler.model,
+					scheduler.pruningFilter);
 
-			// Add all the valid cells under a span lock.
-			lock.lock(split.start, split.end);
-			for (final Cell<MR> newCell : processingPair.first()) {
-				chart.add(newCell);
-			}
-			if (processingPair.second()) {
-				chart.externalPruning(split.start, split.end);
-			}
-			lock.unlock(split.start, split.end);
-
-			LOG.debug("%s: Lexical job completed, tried to add %d entries",
-					split.span, processingPair.first().size());
+			LOG.debug("(%d-%d): Lexical job completed, trying to add %d entries",
+					start, end, processingPair.first().size());
 
-			// Signal the job is complete.
-			listener.jobComplete(this);
+			// Hand the cells to the scheduler, which adds them to the chart.
+			scheduler.jobComplete(start, end, processingPair.first(),
+					processingPair.second());
 		}
 	}
 
-	private class Listener {
-		private final IndexLock							adjacentLock;
-		private final AbstractCellFactory<MR>			cellFactory;
-		private final Chart<MR>							chart;
-		private final Map<Integer, Set<SpanPair>>		completedSpanBegins;
-		private final Map<Integer, Set<SpanPair>>		completedSpanEnds;
-		private final SpanLock							lock;
-		private final IDataItemModel<MR>				model;
-		private final int								numTokens;
-		private final Predicate<ParsingOp<MR>>			pruningFilter;
-		private final Map<SpanPair, Set<SplitTriplet>>	spans;
-
-		public Listener(Map<Integer, Set<SpanPair>> completedSpanBegins,
-				Map<Integer, Set<SpanPair>> completedSpanEnds,
-				Predicate<ParsingOp<MR>> pruningFilter,
+	/**
+	 * Dependency-counting scheduler for a single parse. Each span counts its
+	 * outstanding jobs (the lexical job and one job per split). When the count
+	 * reaches zero, the span is processed with unary rules, and is then
+	 * complete. Each split counts its incomplete child spans, and its job is
+	 * queued by the thread that completes the second child. All coordination
+	 * is done with atomic counters, so no thread blocks on another, except for
+	 * the parsing thread that waits for the parse to complete.
+	 * <p>
+	 * Cells are added to each span by a single thread at a time. A job that
+	 * completes hands its cells to the span's queue of pending batches, and
+	 * the thread that wins the span's adding flag drains the queue into the
+	 * chart. Spans are only read by jobs of their parent spans, which are
+	 * created after the span is complete.
+	 */
+	private class SpanScheduler {
+		/**
+		 * Flag for each span, set while a thread adds cells to the span.
+		 */
+		private final AtomicIntegerArray								adding;
+		private final AbstractCellFactory<MR>							cellFactory;
+		private final Chart<MR>											chart;
+		private final CountDownLatch									completed;
+		private final IDataItemModel<MR>								model;
+		private final int												numTokens;
+		private final List<Queue<Pair<Collection<Cell<MR>>, Boolean>>>	pendingBatches;
+
+		/**
+		 * Number of outstanding lexical and split jobs for each span.
+		 */
+		private final AtomicIntegerArray								pendingJobs;
+		private final Predicate<ParsingOp<MR>>							pruningFilter;
+		private final AtomicInteger										remainingSpans;
+
+		/**
+		 * Number of incomplete child spans for each split. Indexed using
+		 * {@link #splitOffsets}.
+		 */
+		private final AtomicIntegerArray								splitDependencies;
+
+		/**
+		 * The index of the first split of each span in
+		 * {@link #splitDependencies}.
+		 */
+		private final int[]												splitOffsets;
+
+		public SpanScheduler(Predicate<ParsingOp<MR>> pruningFilter,
 				IDataItemModel<MR> model, Chart<MR> chart, int numTokens,
-				AbstractCellFactory<MR> cellFactory, SpanLock lock,
-				Map<SpanPair, Set<SplitTriplet>> spans) {
-			this.completedSpanBegins = completedSpanBegins;
-			this.completedSpanEnds = completedSpanEnds;
+				AbstractCellFactory<MR> cellFactory) {
 			this.pruningFilter = pruningFilter;
 			this.model = model;
 			this.chart = chart;
 			this.numTokens = numTokens;
 			this.cellFactory = cellFactory;
-			this.lock = lock;
-			this.spans = spans;
-			this.adjacentLock = new IndexLock(numTokens);
-		}
-
-		public void jobComplete(AbstractJob job) {
-			final boolean doSpanUnary;
-			final boolean spanComplete;
-
-			synchronized (spans) {
-				// Remove split from splits set
-				final Set<SplitTriplet> spanSplits = spans.get(job.split.span);
-				final boolean removed = spanSplits.remove(job.split);
-
-				// Case all splits for this span are processed
-				if (removed && spanSplits.isEmpty()) {
-					// Case last split in the span finished. Next, should
-					// process the span with unary rules.
-					spanComplete = false;
-					doSpanUnary = true;
-				} else if (spanSplits.isEmpty()) {
-					// Case the span was empty of splits, so this is the unary
-					// job returning. Mark that we complete the span.
-					spanComplete = true;
-					doSpanUnary = false;
-				} else {
-					// Case split jobs are still pending.
-					spanComplete = false;
-					doSpanUnary = false;
-				}
-
-				// If the span is complete, can remove it from the spans map.
-				if (spanComplete) {
-					LOG.debug("Span complete: %s", job.split.span);
-
-					// Remove span
-					spans.remove(job.split.span);
-
-					if (spans.isEmpty()) {
-						// Case all splits processed, notify the spans object.
-						// The main thread is waiting on this object.
-						LOG.debug("All spans complete -- notifying parser");
-						spans.notifyAll();
+			final int numSpans = numTokens * numTokens;
+			this.adding = new AtomicIntegerArray(numSpans);
+			this.pendingJobs = new AtomicIntegerArray(numSpans);
+			this.pendingBatches = new ArrayList<Queue<Pair<Collection<Cell<MR>>, Boolean>>>(
+					numSpans);
+			this.splitOffsets = new int[numSpans];
+			int numSplits = 0;
+			for (int start = 0; start < numTokens; start++) {
+				for (int end = 0; end < numTokens; end++) {
+					if (end >= start) {
+						final int index = spanIndex(start, end);
+						// The lexical job and a job for each split.
+						pendingJobs.set(index, 1 + end - start);
+						splitOffsets[index] = numSplits;
+						numSplits += end - start;
+						pendingBatches.add(
+								new ConcurrentLinkedQueue<Pair<Collection<Cell<MR>>, Boolean>>());
+					} else {
+						pendingBatches.add(null);
 					}
 				}
 			}
+			this.splitDependencies = new AtomicIntegerArray(numSplits);
+			for (int i = 0; i < numSplits; i++) {
+				splitDependencies.set(i, 2);
+			}
+			this.remainingSpans = new AtomicInteger(
+					numTokens * (numTokens + 1) / 2);
+			this.completed = new CountDownLatch(1);
+		}
 
-			if (doSpanUnary) {
-				// Case all splits processed, we still require processing with
-				// unary rules.
-				executor.execute(new UnarySpanJob(pruningFilter, model, chart,
-						cellFactory, job.split.span, lock, this, numTokens));
-			}
-
-			// If span is complete, process it with unary rules.
-			if (spanComplete) {
-				// Case the span is complete, including processing with unary
-				// rules.
-				LOG.debug("Span completed: %s", job.split.span);
-
-				// Iterate over all neighboring completed spans, and
-				// create and queue split jobs with them. For each
-				// pair of spans only one of them gets here while the other
-				// already exists, so there's no duplicate work. This is why
-				// it's critical to access this part under the same lock in
-				// which the newly added span is added to the being and ends
-				// maps.
-
-				// Block I: Queue jobs with spans on the left
-
-				// Lock to stop all spans that are adjacent to the current
-				// span on the left from getting into block II.
-				if (job.split.start > 0) {
-					adjacentLock.lock(job.split.start - 1);
-					for (final SpanPair leftSpan : completedSpanEnds
-							.get(job.split.start - 1)) {
-						executor.execute(new SplitJob(pruningFilter, model,
-								chart, cellFactory,
-								new SplitTriplet(leftSpan.start, job.split.end,
-										leftSpan.end - leftSpan.start),
-								lock, this, numTokens));
-					}
-				}
-				// Add the beginning index of the span to the completed
-				// map.
-				completedSpanBegins.get(job.split.start).add(job.split.span);
-				if (job.split.start > 0) {
-					adjacentLock.unlock(job.split.start - 1);
-				}
+		public void awaitCompletion() throws InterruptedException {
+			if (numTokens > 0) {
+				completed.await();
+			}
+		}
 
-				// Block II: Queue jobs with spans on the right.
-
-				// Lock to stop all spans that are adjacent to the current
-				// span on the right from getting into block I.
-				if (job.split.end < numTokens - 1) {
-					adjacentLock.lock(job.split.end);
-					for (final SpanPair rightSpan : completedSpanBegins
-							.get(job.split.end + 1)) {
-						executor.execute(new SplitJob(pruningFilter, model,
-								chart, cellFactory,
-								new SplitTriplet(job.split.start, rightSpan.end,
-										job.split.end - job.split.start),
-								lock, this, numTokens));
+		/**
+		 * Signal that a lexical or split job completed.
+		 *
+		 * @param cells
+		 *            The cells to add to the span.
+		 * @param pruned
+		 *            Pruning external to the chart was done.
+		 */
+		public void jobComplete(int start, int end,
+				Collection<Cell<MR>> cells, boolean pruned) {
+			final int index = spanIndex(start, end);
+			final Queue<Pair<Collection<Cell<MR>>, Boolean>> batches = pendingBatches
+					.get(index);
+			batches.add(Pair.of(cells, pruned));
+
+			// Only the thread that sets the adding flag modifies the span. A
+			// batch added while the flag is set is picked up by the adding
+			// thread when it re-checks the queue after clearing the flag.
+			while (!batches.isEmpty() && adding.compareAndSet(index, 0, 1)) {
+				int numAdded = 0;
+				Pair<Collection<Cell<MR>>, Boolean> batch;
+				while ((batch = batches.poll()) != null) {
+					for (final Cell<MR> cell : batch.first()) {
+						chart.add(cell);
+					}
+					if (batch.second()) {
+						chart.externalPruning(start, end);
 					}
+					++numAdded;
 				}
-				// Add the end index of the span to the completed map
-				completedSpanEnds.get(job.split.end).add(job.split.span);
-				if (job.split.end < numTokens - 1) {
-					adjacentLock.unlock(job.split.end);
+				adding.set(index, 0);
+
+				// Jobs are only counted once their cells are in the chart, so
+				// all cells are added when the count reaches zero. Another
+				// thread may have drained the queue between the emptiness
+				// check and winning the flag. Only the thread that actually
+				// added batches may observe the count reaching zero, so the
+				// unary job is queued once.
+				if (numAdded > 0
+						&& pendingJobs.addAndGet(index, -numAdded) == 0) {
+					// Case all jobs for this span are processed. Next, should
+					// process the span with unary rules.
+					executor.execute(new UnarySpanJob(this, start, end));
 				}
 			}
 		}
-	}
-
-	private static class SpanPair {
-		final int	end;
-		final int	hashCode;
-		final int	start;
-
-		public SpanPair(int begin, int end) {
-			this.start = begin;
-			this.end = end;
-			this.hashCode = calcHashCode();
-		}
 
-		public int calcHashCode() {
-			final int prime = 31;
-			int result = 1;
-			result = prime * result + start;
-			result = prime * result + end;
-			return result;
-		}
+		/**
+		 * Signal that a span is complete, including processing with unary
+		 * rules. Queues all splits that are waiting only for this span.
+		 */
+		public void spanComplete(int start, int end) {
+			LOG.debug("Span complete: (%d-%d)", start, end);
 
-		@Override
-		public boolean equals(Object obj) {
-			if (this == obj) {
-				return true;
-			}
-			if (obj == null) {
-				return false;
+			// Splits where this span is the left child.
+			for (int parentEnd = end + 1; parentEnd < numTokens; parentEnd++) {
+				childComplete(start, parentEnd, end - start);
 			}
-			if (getClass() != obj.getClass()) {
-				return false;
-			}
-			final SpanPair other = (SpanPair) obj;
-			if (start != other.start) {
-				return false;
+
+			// Splits where this span is the right child.
+			for (int parentStart = 0; parentStart < start; parentStart++) {
+				childComplete(parentStart, end, start - 1 - parentStart);
 			}
-			if (end != other.end) {
-				return false;
+
+			if (remainingSpans.decrementAndGet() == 0) {
+				// Case all spans processed, release the parsing thread.
+				LOG.debug("All spans complete -- notifying parser");
+				completed.countDown();
 			}
-			return true;
 		}
 
-		@Override
-		public int hashCode() {
-			return hashCode;
+		private void childComplete(int start, int end, int split) {
+			if (splitDependencies.decrementAndGet(
+					splitOffsets[spanIndex(start, end)] + split) == 0) {
+				executor.execute(new SplitJob(this, start, end, split));
+			}
 		}
 
-		@Override
-		public String toString() {
-			return "(" + start + "-" + end + ")";
+		private int spanIndex(int start, int end) {
+			return start * numTokens + end;
 		}
 	}
 
 	private class SplitJob extends AbstractJob {
 
-		private final Predicate<ParsingOp<MR>> pruningFilter;
-
-		public SplitJob(Predicate<ParsingOp<MR>> pruningFilter,
-				IDataItemModel<MR> model, Chart<MR> chart,
-				AbstractCellFactory<MR> cellFactory, SplitTriplet split,
-				SpanLock lock, Listener listener, int sentenceLength) {
-			super(cellFactory, chart, listener, lock, model, split,
-					sentenceLength);
-			this.pruningFilter = pruningFilter;
-			LOG.debug("Created split job for %s", split);
-		}
-
-		@Override
-		public void loggedRun() {
-			LOG.debug("%s: Split job started", split);
-
-			final Pair<List<Cell<MR>>, Boolean> processingPair = preChartPruning
-					? processSplitAndPrune(split.start, split.end, split.split,
-							sentenceLength, chart, cellFactory, pruningFilter,
-							chart.getBeamSize(), model)
-					: processSplit(split.start, split.end, split.split,
-							sentenceLength, chart, cellFactory, pruningFilter,
-							model);
-
-			final List<Cell<MR>> newCells = processingPair.first();
-
-			LOG.debug("%s: %d new cells", split, newCells.size());
-
-			// Add all the valid cells under a span lock
-			lock.lock(split.start, split.end);
-			for (final Cell<MR> newCell : newCells) {
-				chart.add(newCell);
-			}
-			if (processingPair.second()) {
-				chart.externalPruning(split.start, split.end);
-			}
-			lock.unlock(split.start, split.end);
-
-			LOG.debug("%s: Split job completed", split);
+		private final int split;
 
-			// Signal the job is complete
-			listener.jobComplete(this);
-		}
-	}
-
-	private static class SplitTriplet {
-		final int		end;
-		final int		hashCode;
-		final SpanPair	span;
-		final int		split;
-		final int		start;
-
-		public SplitTriplet(int begin, int end, int split) {
-			this.start = begin;
-			this.end = end;
+		public SplitJob(SpanScheduler scheduler, int start, int end,
+				int split) {
+			super(scheduler, start, end);
 			this.split = split;
-			this.span = new SpanPair(begin, end);
-			this.hashCode = calcHashCode();
-		}
-
-		public int calcHashCode() {
-			final int prime = 31;
-			int result = 1;
-			result = prime * result + start;
-			result = prime * result + end;
-			result = prime * result + split;
-			return result;
+			LOG.debug("Created split job for (%d-%d, %d-%d)", start,
+					start + split, start + split + 1, end);
 		}
 
 		@Override
-		public boolean equals(Object obj) {
-			if (this == obj) {
-				return true;
-			}
-			if (obj == null) {
-				return false;
-			}
-			if (getClass() != obj.getClass()) {
-				return false;
-			}
-			final SplitTriplet other = (SplitTriplet) obj;
-			if (start != other.start) {
-				return false;
-			}
-			if (end != other.end) {
-				return false;
-			}
-			if (split != other.split) {
-				return false;
+		public void loggedRun() {
+			if (scheduler.chart.isPastDeadline()) {
+				// Skip the split and mark the span as pruned, so the output is
+				// not exact.
+				scheduler.jobComplete(start, end,
+						Collections.<Cell<MR>> emptyList(), true);
+				return;
 			}
-			return true;
-		}
 
-		@Override
-		public int hashCode() {
-			return hashCode;
-		}
+			LOG.debug("(%d-%d, %d-%d): Split job started", start,
+					start + split, start + split + 1, end);
 
-		@Override
-		public String toString() {
-			if (split < 0) {
-				return "(" + start + "-" + end + ")";
-			} else {
-				return "(" + start + "-" + (start + split) + ", "
-						+ (start + split + 1) + "-" + end + ")";
-			}
+			final Pair<List<Cell<MR>>, Boolean> processingPair = preChartPruning
+					? processSplitAndPrune(start, end, split,
+							scheduler.numTokens, scheduler.chart,
+							scheduler.cellFactory, scheduler.pruningFilter,
+							scheduler.chart.getBeamSize(), scheduler.model)
+					: processSplit(start, end, split, scheduler.numTokens,
+							scheduler.chart, scheduler.cellFactory,
+							scheduler.pruningFilter, scheduler.model);
+
+			LOG.debug("(%d-%d, %d-%d): Split job completed, %d new cells",
+					start, start + split, start + split + 1, end,
+					processingPair.first().size());
+
+			// Hand the cells to the scheduler, which adds them to the chart.
+			scheduler.jobComplete(start, end, processingPair.first(),
+					processingPair.second());
 		}
-
 	}
 
 	/**
 	 * Process a single span using all unary rules. Assumes the span has been
-	 * processed using {@link LexicalJob} and {@link SplitJob}.
+	 * processed using {@link LexicalJob} and {@link SplitJob}. This is the
+	 * last job of the span, so it adds its cells to the chart directly.
 	 *
 	 * @author Yoav Artzi
 	 */
 	private class UnarySpanJob extends AbstractJob {
 
-		private final Predicate<ParsingOp<MR>> pruningFilter;
-
-		public UnarySpanJob(Predicate<ParsingOp<MR>> pruningFilter,
-				IDataItemModel<MR> model, Chart<MR> chart,
-				AbstractCellFactory<MR> cellFactory, SpanPair span,
-				SpanLock lock, Listener listener, int sentenceLength) {
-			super(cellFactory, chart, listener, lock, model,
-					new SplitTriplet(span.start, span.end, -1), sentenceLength);
-			this.pruningFilter = pruningFilter;
-			LOG.debug("Created unary job for %s", split.span);
+		public UnarySpanJob(SpanScheduler scheduler, int start, int end) {
+			super(scheduler, start, end);
+			LOG.debug("Created unary job for (%d-%d)", start, end);
 		}
 
 		@Override
 		public void loggedRun() {
-			LOG.debug("%s: Unary span job started", split.span);
+			final Chart<MR> chart = scheduler.chart;
+			if (end > start && chart.isPastDeadline()) {
+				// Skip the span. Single tokens are always processed, so each
+				// token keeps its lexical and unary cells.
+				chart.externalPruning(start, end);
+				scheduler.spanComplete(start, end);
+				return;
+			}
 
+			LOG.debug("(%d-%d): Unary span job started", start, end);
 			final Pair<List<Cell<MR>>, Boolean> processingPair = preChartPruning
-					? unaryProcessSpanAndPrune(split.start, split.end,
-							sentenceLength, chart, cellFactory, pruningFilter,
-							chart.getBeamSize(), model)
-					: unaryProcessSpan(split.start, split.end, sentenceLength,
-							chart, cellFactory, pruningFilter, model);
+					? unaryProcessSpanAndPrune(start, end, scheduler.numTokens,
+							chart, scheduler.cellFactory,
+							scheduler.pruningFilter, chart.getBeamSize(),
+							scheduler.model)
+					: unaryProcessSpan(start, end, scheduler.numTokens, chart,
+							scheduler.cellFactory, scheduler.pruningFilter,
+							scheduler.model);
 
 			final List<Cell<MR>> newCells = processingPair.first();
 
-			LOG.debug("%s: %d new cells", split, newCells.size());
+			LOG.debug("(%d-%d): %d new cells", start, end, newCells.size());
 
-			// Add all the valid cells under a span lock.
-			lock.lock(split.start, split.end);
 			for (final Cell<MR> newCell : newCells) {
 				chart.add(newCell);
 			}
 			if (processingPair.second()) {
-				chart.externalPruning(split.start, split.end);
+				chart.externalPruning(start, end);
 			}
-			lock.unlock(split.start, split.end);
 
-			LOG.debug("%s: Unary span job completed", split);
+			LOG.debug("(%d-%d): Unary span job completed", start, end);
 
-			// Signal the job is complete
-			listener.jobComplete(this);
+			scheduler.spanComplete(start, end);
 		}
 	}
 
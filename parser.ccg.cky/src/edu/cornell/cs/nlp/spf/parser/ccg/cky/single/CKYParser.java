@@ -39,10 +39,13 @@ import edu.cornell.cs.nlp.spf.parser.ISentenceLexiconGenerator;
 import edu.cornell.cs.nlp.spf.parser.ParsingOp;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.AbstractCKYParser;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYBinaryParsingRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYForestCache;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYUnaryParsingRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.LexicalEntryCache;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.AbstractCellFactory;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Cell;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Chart;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.IBeamPolicy;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.sloppy.AggressiveWordSkippingLexicalGenerator;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.sloppy.BackwardSkippingRule;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.sloppy.ForwardSkippingRule;
@@ -55,6 +58,7 @@ import edu.cornell.cs.nlp.spf.parser.ccg.rules.IBinaryParseRule;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.ILexicalRule;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.IUnaryParseRule;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.LexicalRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.ParseRuleCache;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.UnaryRuleSet;
 import edu.cornell.cs.nlp.utils.collections.SetUtils;
 import edu.cornell.cs.nlp.utils.composites.Pair;
@@ -84,10 +88,16 @@ public class CKYParser<DI extends Sentence, MR>
 			ICategoryServices<MR> categoryServices, boolean pruneLexicalCells,
 			IFilter<Category<MR>> completeParseFilter,
 			CKYUnaryParsingRule<MR>[] unaryRules, ILexicalRule<MR> lexicalRule,
-			boolean breakTies) {
+			boolean breakTies, int splitParallelism, int chartPoolSize,
+			long timeout,
+			IBeamPolicy beamPolicy, boolean compactCells,
+			LexicalEntryCache<MR> lexicalCache,
+			CKYForestCache<MR> forestCache) {
 		super(maxNumberOfCellsInSpan, binaryRules, sentenceLexiconGenerators,
 				sloppyLexicalGenerators, categoryServices, pruneLexicalCells,
-				completeParseFilter, unaryRules, lexicalRule, breakTies);
+				completeParseFilter, unaryRules, lexicalRule, breakTies,
+				splitParallelism, chartPoolSize, timeout,
+				beamPolicy, compactCells, lexicalCache, forestCache);
 	}
 
 	/**
@@ -140,6 +150,14 @@ public class CKYParser<DI extends Sentence, MR>
 		// now do the CKY parsing:
 		for (int len = 1; len < numTokens; len++) {
 			for (int begin = 0; begin < numTokens - len; begin++) {
+				if (chart.isPastDeadline()) {
+					// Skip the remaining spans and mark them as pruned, so
+					// the output is not exact.
+					LOG.debug("Deadline passed, skipping span (%d, %d)", begin,
+							begin + len);
+					chart.externalPruning(begin, begin + len);
+					continue;
+				}
 				for (int split = 0; split < len; split++) {
 					final Pair<List<Cell<MR>>, Boolean> processingPair = processSplit(
 							begin, begin + len, split, sentenceLength, chart,
@@ -169,15 +187,45 @@ public class CKYParser<DI extends Sentence, MR>
 	 */
 	public static class Builder<DI extends Sentence, MR> {
 
+		/**
+		 * Policy to adapt the beam of each span (null for a fixed beam). The
+		 * beam of each span is bounded by {@link #maxNumberOfCellsInSpan}.
+		 */
+		private IBeamPolicy										beamPolicy					= null;
+
 		private final Set<CKYBinaryParsingRule<MR>>				binaryRules					= new HashSet<CKYBinaryParsingRule<MR>>();
 
 		private boolean											breakTies					= false;
 
 		private final ICategoryServices<MR>						categoryServices;
 
+		/**
+		 * Number of charts to keep for re-use (0 disables pooling). Pooled
+		 * charts are only recycled when outputs are released.
+		 */
+		private int												chartPoolSize				= 0;
+
+		/**
+		 * Store cell derivation steps compactly to reduce the memory of large
+		 * charts.
+		 */
+		private boolean											compactCells				= false;
+
 		private IFilter<Category<MR>>							completeParseFilter			= FilterUtils
 				.stubTrue();
 
+		/**
+		 * Cache of exact charts to re-score when sentences are parsed again
+		 * (null to always search). Not used with a beam policy.
+		 */
+		private CKYForestCache<MR>								forestCache					= null;
+
+		/**
+		 * Cache of the entries of the model lexicon (null to always use the
+		 * lexicon directly).
+		 */
+		private LexicalEntryCache<MR>							lexicalCache				= null;
+
 		private ILexicalRule<MR>								lexicalRule					= new LexicalRule<MR>();
 
 		/** The maximum number of cells allowed in each span */
@@ -189,6 +237,20 @@ public class CKYParser<DI extends Sentence, MR>
 
 		private final List<ISentenceLexiconGenerator<DI, MR>>	sloppyLexicalGenerators		= new ArrayList<ISentenceLexiconGenerator<DI, MR>>();
 
+		/**
+		 * Number of threads to process each split. The split pool is owned by
+		 * the parser and is not shared with other parsers.
+		 */
+		private int												splitParallelism			= Runtime
+				.getRuntime().availableProcessors();
+
+		/**
+		 * Time limit for each parse in milliseconds (0 for no limit). Once
+		 * it passes, the remaining spans are skipped and the output is not
+		 * exact.
+		 */
+		private long											timeout						= 0;
+
 		private final Set<CKYUnaryParsingRule<MR>>				unaryRules					= new HashSet<CKYUnaryParsingRule<MR>>();
 
 		public Builder(ICategoryServices<MR> categoryServices) {
@@ -228,7 +290,14 @@ public class CKYParser<DI extends Sentence, MR>
 					unaryRules.toArray((CKYUnaryParsingRule<MR>[]) Array
 							.newInstance(CKYUnaryParsingRule.class,
 									unaryRules.size())),
-					lexicalRule, breakTies);
+					lexicalRule, breakTies, splitParallelism, chartPoolSize,
+					timeout,
+					beamPolicy, compactCells, lexicalCache, forestCache);
+		}
+
+		public Builder<DI, MR> setBeamPolicy(IBeamPolicy beamPolicy) {
+			this.beamPolicy = beamPolicy;
+			return this;
 		}
 
 		public Builder<DI, MR> setBreakTies(boolean breakTies) {
@@ -236,12 +305,33 @@ public class CKYParser<DI extends Sentence, MR>
 			return this;
 		}
 
+		public Builder<DI, MR> setChartPoolSize(int chartPoolSize) {
+			this.chartPoolSize = chartPoolSize;
+			return this;
+		}
+
+		public Builder<DI, MR> setCompactCells(boolean compactCells) {
+			this.compactCells = compactCells;
+			return this;
+		}
+
 		public Builder<DI, MR> setCompleteParseFilter(
 				IFilter<Category<MR>> completeParseFilter) {
 			this.completeParseFilter = completeParseFilter;
 			return this;
 		}
 
+		public Builder<DI, MR> setForestCache(CKYForestCache<MR> forestCache) {
+			this.forestCache = forestCache;
+			return this;
+		}
+
+		public Builder<DI, MR> setLexicalCache(
+				LexicalEntryCache<MR> lexicalCache) {
+			this.lexicalCache = lexicalCache;
+			return this;
+		}
+
 		public void setLexicalRule(ILexicalRule<MR> lexicalRule) {
 			this.lexicalRule = lexicalRule;
 		}
@@ -256,6 +346,16 @@ public class CKYParser<DI extends Sentence, MR>
 			this.pruneLexicalCells = pruneLexicalCells;
 			return this;
 		}
+
+		public Builder<DI, MR> setSplitParallelism(int splitParallelism) {
+			this.splitParallelism = splitParallelism;
+			return this;
+		}
+
+		public Builder<DI, MR> setTimeout(long timeout) {
+			this.timeout = timeout;
+			return this;
+		}
 	}
 
 	public static class Creator<DI extends Sentence, MR>
@@ -283,6 +383,18 @@ public class CKYParser<DI extends Sentence, MR>
 				builder.setBreakTies(params.getAsBoolean("breakTies"));
 			}
 
+			if (params.contains("chartPool")) {
+				builder.setChartPoolSize(params.getAsInteger("chartPool"));
+			}
+
+			if (params.contains("compactCells")) {
+				builder.setCompactCells(params.getAsBoolean("compactCells"));
+			}
+
+			if (params.contains("timeout")) {
+				builder.setTimeout(params.getAsLong("timeout"));
+			}
+
 			if (params.contains("parseFilter")) {
 				builder.setCompleteParseFilter((IFilter<Category<MR>>) repo
 						.get(params.get("parseFilter")));
@@ -292,6 +404,21 @@ public class CKYParser<DI extends Sentence, MR>
 				builder.setMaxNumberOfCellsInSpan(params.getAsInteger("beam"));
 			}
 
+			if (params.contains("beamPolicy")) {
+				builder.setBeamPolicy(
+						(IBeamPolicy) repo.get(params.get("beamPolicy")));
+			}
+
+			if (params.contains("lexicalCache")) {
+				builder.setLexicalCache((LexicalEntryCache<MR>) repo
+						.get(params.get("lexicalCache")));
+			}
+
+			if (params.contains("forestCache")) {
+				builder.setForestCache((CKYForestCache<MR>) repo
+						.get(params.get("forestCache")));
+			}
+
 			if (params.contains("lex")) {
 				builder.setLexicalRule(
 						(ILexicalRule<MR>) repo.get(params.get("lex")));
@@ -302,6 +429,10 @@ public class CKYParser<DI extends Sentence, MR>
 						params.getAsBoolean("pruneLexicalCells"));
 			}
 
+			if (params.contains("splitThreads")) {
+				builder.setSplitParallelism(params.getAsInteger("splitThreads"));
+			}
+
 			for (final String id : params.getSplit("generators")) {
 				builder.addSentenceLexicalGenerator(
 						(ISentenceLexiconGenerator<DI, MR>) repo.get(id));
@@ -379,15 +510,29 @@ public class CKYParser<DI extends Sentence, MR>
 				addRule(builder, forwardSkip, nfValidator);
 			}
 
+			final ParseRuleCache<MR> ruleCache;
+			if (params.contains("ruleCache")) {
+				ruleCache = repo.get(params.get("ruleCache"));
+			} else {
+				ruleCache = null;
+			}
+
 			for (final String id : params.getSplit("rules")) {
-				final Object rule = repo.get(id);
+				final Object rule = ruleCache == null ? repo.get(id)
+						: ruleCache.wrapIfParseRule(repo.get(id));
 				if (rule instanceof BinaryRuleSet) {
 					for (final IBinaryParseRule<MR> singleRule : (BinaryRuleSet<MR>) rule) {
-						addRule(builder, singleRule, nfValidator);
+						addRule(builder,
+								ruleCache == null ? singleRule
+										: ruleCache.wrap(singleRule),
+								nfValidator);
 					}
 				} else if (rule instanceof UnaryRuleSet) {
 					for (final IUnaryParseRule<MR> singleRule : (UnaryRuleSet<MR>) rule) {
-						addRule(builder, singleRule, nfValidator);
+						addRule(builder,
+								ruleCache == null ? singleRule
+										: ruleCache.wrap(singleRule),
+								nfValidator);
 					}
 				} else {
 					addRule(builder, rule, nfValidator);
@@ -407,14 +552,28 @@ public class CKYParser<DI extends Sentence, MR>
 			return ResourceUsage.builder(type, CKYParser.class)
 					.addParam("breakTies", Boolean.class,
 							"Breaks ties during pruning using the order of insertion to the queue. In a single-threaded parser, this is essentially deterministic (default: false)")
+					.addParam("chartPool", Integer.class,
+							"Number of charts to keep for re-use. Charts are recycled when parser outputs are released (default: 0, no pooling)")
+					.addParam("compactCells", Boolean.class,
+							"Store the derivation steps of cells compactly to reduce the memory of large charts (default: false)")
 					.addParam("parseFilter", IFilter.class,
 							"Filter to determine complete parses.")
 					.addParam("beam", Integer.class,
 							"Beam to use for cell pruning (default: 50).")
+					.addParam("beamPolicy", IBeamPolicy.class,
+							"Policy to adapt the beam of each span. The beam of every span is bounded by the beam parameter (default: none, fixed beam)")
+					.addParam("lexicalCache", LexicalEntryCache.class,
+							"Cache of the lexical entries of the model lexicon, re-used across parses of the same sentences (default: none)")
+					.addParam("forestCache", CKYForestCache.class,
+							"Cache of exact charts, re-scored with the current model when sentences are parsed again. Not used with a beam policy (default: none)")
 					.addParam("lex", ILexicalRule.class,
 							"Lexical rule (default: simple generic rule)")
 					.addParam("pruneLexicalCells", Boolean.class,
 							"Prune lexical entries similarly to conventional categories (default: false)")
+					.addParam("timeout", Long.class,
+							"Time limit for each parse in milliseconds. Once it passes, remaining spans are skipped and the output is not exact (default: 0, no limit)")
+					.addParam("splitThreads", Integer.class,
+							"Number of threads in the parser's pool for processing each split (default: number of available processors)")
 					.addParam("wordSkipping", String.class,
 							"Type of word skpping to use during sloppy inference: none, simple or aggressive (default: none)")
 					.addParam("generators", ISentenceLexiconGenerator.class,
@@ -426,6 +585,8 @@ public class CKYParser<DI extends Sentence, MR>
 							"Transformation to be applied to each category before it's added to the chart (default: none).")
 					.addParam("rules", IBinaryParseRule.class,
 							"Binary parsing rules.")
+					.addParam("ruleCache", ParseRuleCache.class,
+							"Cache for the results of rule applications, wraps all rules given in 'rules' (default: none)")
 					.build();
 		}
 
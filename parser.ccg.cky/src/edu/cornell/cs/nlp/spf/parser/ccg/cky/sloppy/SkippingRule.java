@@ -16,8 +16,12 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.cky.sloppy;
 
+import java.util.Collections;
+import java.util.Set;
+
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.IBinaryParseRule;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.ParseRuleResult;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.RuleName;
@@ -59,6 +63,15 @@ public class SkippingRule<MR> implements IBinaryParseRule<MR> {
 		}
 	}
 
+	@Override
+	public Set<Syntax> applySyntax(Syntax left, Syntax right,
+			SentenceSpan span) {
+		if (!isValidArgument(left, right)) {
+			return Collections.emptySet();
+		}
+		return Collections.singleton(backward ? right : left);
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj) {
@@ -104,6 +117,14 @@ public class SkippingRule<MR> implements IBinaryParseRule<MR> {
 		return result;
 	}
 
+	@Override
+	public boolean isValidArgument(Syntax left, Syntax right) {
+		if (emptyCategory == null) {
+			return false;
+		}
+		return emptyCategory.getSyntax().equals(backward ? left : right);
+	}
+
 	@Override
 	public String toString() {
 		return name.toString();
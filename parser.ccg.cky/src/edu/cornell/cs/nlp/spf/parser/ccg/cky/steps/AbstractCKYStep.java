@@ -16,10 +16,8 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.cky.steps;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Iterator;
-import java.util.List;
+import java.util.NoSuchElementException;
 
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Cell;
@@ -35,17 +33,21 @@ import edu.cornell.cs.nlp.spf.parser.ccg.rules.RuleName;
  */
 public abstract class AbstractCKYStep<MR> implements ICKYStep<MR> {
 
-	/**
-	 * TODO: remove the list from here or add a comment to clarify. It's
-	 * confusing and not efficient.
-	 */
-	private final List<Cell<MR>>	children;
 	private final int				end;
 	private int						hashCode;
 	private final boolean			isFullParse;
 	private final boolean			isUnary;
 
-	private final Category<MR> root;
+	/**
+	 * The children are stored in fields, rather than a list, to avoid
+	 * allocating a list (and its backing array) for each step. Both are null
+	 * for lexical steps, and the right child is null for unary steps.
+	 */
+	private final Cell<MR>			leftChild;
+	private final int				numChildren;
+	private final Cell<MR>			rightChild;
+
+	private final Category<MR>		root;
 
 	private final RuleName	ruleName;
 	private final int		start;
@@ -65,22 +67,18 @@ public abstract class AbstractCKYStep<MR> implements ICKYStep<MR> {
 		this.start = start;
 		this.end = end;
 		this.isUnary = rightChild == null;
-		List<Cell<MR>> list;
 		if (isUnary) {
 			assert leftChild != null;
-			list = new ArrayList<Cell<MR>>(1);
-			list.add(leftChild);
 			assert leftChild.getStart() == start && leftChild.getEnd() == end;
 		} else {
 			assert leftChild != null;
 			assert rightChild != null;
-			list = new ArrayList<Cell<MR>>(2);
-			list.add(leftChild);
-			list.add(rightChild);
 			assert leftChild.getStart() == start && rightChild.getEnd() == end
 					&& leftChild.getEnd() + 1 == rightChild.getStart();
 		}
-		this.children = Collections.unmodifiableList(list);
+		this.leftChild = leftChild;
+		this.rightChild = rightChild;
+		this.numChildren = isUnary ? 1 : 2;
 		this.ruleName = ruleName;
 		this.hashCode = calcHashCode();
 	}
@@ -95,7 +93,9 @@ public abstract class AbstractCKYStep<MR> implements ICKYStep<MR> {
 		this.end = end;
 		this.isUnary = false;
 		this.ruleName = ruleName;
-		this.children = Collections.emptyList();
+		this.leftChild = null;
+		this.rightChild = null;
+		this.numChildren = 0;
 		this.hashCode = calcHashCode();
 	}
 
@@ -127,7 +127,15 @@ public abstract class AbstractCKYStep<MR> implements ICKYStep<MR> {
 		if (!root.equals(other.root)) {
 			return false;
 		}
-		if (!children.equals(other.children)) {
+		if (numChildren != other.numChildren) {
+			return false;
+		}
+		if (leftChild == null ? other.leftChild != null
+				: !leftChild.equals(other.leftChild)) {
+			return false;
+		}
+		if (rightChild == null ? other.rightChild != null
+				: !rightChild.equals(other.rightChild)) {
 			return false;
 		}
 		return true;
@@ -140,7 +148,11 @@ public abstract class AbstractCKYStep<MR> implements ICKYStep<MR> {
 
 	@Override
 	public Cell<MR> getChildCell(int i) {
-		return children.get(i);
+		if (i < 0 || i >= numChildren) {
+			throw new IndexOutOfBoundsException(
+					"Index: " + i + ", Size: " + numChildren);
+		}
+		return i == 0 ? leftChild : rightChild;
 	}
 
 	@Override
@@ -180,12 +192,27 @@ public abstract class AbstractCKYStep<MR> implements ICKYStep<MR> {
 
 	@Override
 	public Iterator<Cell<MR>> iterator() {
-		return children.iterator();
+		return new Iterator<Cell<MR>>() {
+			private int i = 0;
+
+			@Override
+			public boolean hasNext() {
+				return i < numChildren;
+			}
+
+			@Override
+			public Cell<MR> next() {
+				if (i >= numChildren) {
+					throw new NoSuchElementException();
+				}
+				return getChildCell(i++);
+			}
+		};
 	}
 
 	@Override
 	public int numChildren() {
-		return children.size();
+		return numChildren;
 	}
 
 	/**
@@ -206,7 +233,7 @@ public abstract class AbstractCKYStep<MR> implements ICKYStep<MR> {
 		final StringBuilder ret = new StringBuilder("[").append(start)
 				.append("-").append(end).append(" :: ").append(ruleName)
 				.append(" :: ");
-		final Iterator<Cell<MR>> iterator = children.iterator();
+		final Iterator<Cell<MR>> iterator = iterator();
 		while (iterator.hasNext()) {
 			final Cell<MR> child = iterator.next();
 			ret.append(child.getStart()).append("-").append(child.getEnd());
@@ -216,7 +243,7 @@ public abstract class AbstractCKYStep<MR> implements ICKYStep<MR> {
 		}
 		if (verbose) {
 			ret.append(" :: ");
-			final Iterator<Cell<MR>> iter = children.iterator();
+			final Iterator<Cell<MR>> iter = iterator();
 			while (iter.hasNext()) {
 				if (recursive) {
 					ret.append(iter.next().toString());
@@ -236,7 +263,15 @@ public abstract class AbstractCKYStep<MR> implements ICKYStep<MR> {
 	private int calcHashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + children.hashCode();
+		// Same as the hash code of a list of the children.
+		int childrenHashCode = 1;
+		if (leftChild != null) {
+			childrenHashCode = prime * childrenHashCode + leftChild.hashCode();
+		}
+		if (rightChild != null) {
+			childrenHashCode = prime * childrenHashCode + rightChild.hashCode();
+		}
+		result = prime * result + childrenHashCode;
 		result = prime * result + end;
 		result = prime * result + (isFullParse ? 1231 : 1237);
 		result = prime * result + (isUnary ? 1231 : 1237);
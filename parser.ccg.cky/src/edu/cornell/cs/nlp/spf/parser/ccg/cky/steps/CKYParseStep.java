@@ -63,6 +63,19 @@ public class CKYParseStep<MR> extends AbstractCKYStep<MR> {
 		return new WeightedCKYParseStep<MR>(overloaded, model);
 	}
 
+	/**
+	 * Create the same step with different children. The new children must
+	 * have the same categories and spans.
+	 *
+	 * @param rightChild
+	 *            Null for unary steps.
+	 */
+	public CKYParseStep<MR> replaceChildren(Cell<MR> leftChild,
+			Cell<MR> rightChild) {
+		return new CKYParseStep<MR>(getRoot(), leftChild, rightChild,
+				isFullParse(), getRuleName(), getStart(), getEnd());
+	}
+
 	private static class Overloaded<MR> extends CKYParseStep<MR> implements
 			IOverloadedParseStep<MR> {
 
@@ -123,6 +136,14 @@ public class CKYParseStep<MR> extends AbstractCKYStep<MR> {
 					"Can't overload an already overloaded step");
 		}
 
+		@Override
+		public CKYParseStep<MR> replaceChildren(Cell<MR> leftChild,
+				Cell<MR> rightChild) {
+			return new Overloaded<MR>(getRoot(), leftChild, rightChild,
+					isFullParse(), getRuleName(), getStart(), getEnd(),
+					intermediate);
+		}
+
 	}
 
 }
@@ -16,7 +16,11 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.cky.steps;
 
+import java.util.function.UnaryOperator;
+
 import edu.cornell.cs.nlp.spf.parser.ccg.IWeightedParseStep;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Cell;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IDataItemModel;
 
 /**
  * CKY parse step with model score and local features.
@@ -28,6 +32,14 @@ import edu.cornell.cs.nlp.spf.parser.ccg.IWeightedParseStep;
 public interface IWeightedCKYStep<MR>
 		extends ICKYStep<MR>, IWeightedParseStep<MR> {
 
-	// Nothing to add, used to simply merge the two interfaces.
+	/**
+	 * Create the same step scored by the given model.
+	 *
+	 * @param children
+	 *            Maps each child cell of the step to the cell that replaces it
+	 *            in the new step.
+	 */
+	IWeightedCKYStep<MR> rescore(IDataItemModel<MR> model,
+			UnaryOperator<Cell<MR>> children);
 
 }
@@ -17,6 +17,7 @@
 package edu.cornell.cs.nlp.spf.parser.ccg.cky.steps;
 
 import java.util.Iterator;
+import java.util.function.UnaryOperator;
 
 import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector;
 import edu.cornell.cs.nlp.spf.base.hashvector.IHashVectorImmutable;
@@ -177,6 +178,13 @@ public class WeightedCKYLexicalStep<MR>
 				model);
 	}
 
+	@Override
+	public WeightedCKYLexicalStep<MR> rescore(IDataItemModel<MR> model,
+			UnaryOperator<Cell<MR>> children) {
+		// Lexical steps have no children.
+		return new WeightedCKYLexicalStep<MR>(step, model);
+	}
+
 	@Override
 	public String toString() {
 		return toString(true, true, null);
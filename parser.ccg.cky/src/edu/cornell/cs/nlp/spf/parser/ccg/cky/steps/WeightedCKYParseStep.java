@@ -17,6 +17,7 @@
 package edu.cornell.cs.nlp.spf.parser.ccg.cky.steps;
 
 import java.util.Iterator;
+import java.util.function.UnaryOperator;
 
 import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector;
 import edu.cornell.cs.nlp.spf.base.hashvector.IHashVectorImmutable;
@@ -27,7 +28,10 @@ import edu.cornell.cs.nlp.spf.parser.ccg.rules.ParseRuleResult;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.RuleName;
 
 /**
- * {@link CKYParseStep} with features and model score.
+ * {@link CKYParseStep} with features and model score. The score is computed
+ * eagerly without materializing the features. The feature vector is only
+ * computed when requested (e.g., when computing expected features or
+ * updating the model), so candidates dropped by the beam never create one.
  *
  * @author Yoav Artzi
  * @param <MR>
@@ -35,18 +39,18 @@ import edu.cornell.cs.nlp.spf.parser.ccg.rules.RuleName;
  */
 public class WeightedCKYParseStep<MR> implements IWeightedCKYStep<MR> {
 
-	private final int				hashCode;
-	private final CKYParseStep<MR>	step;
-	private final IHashVector		stepFeatures;
-	private final Double			stepScore;
+	private final int					hashCode;
+	private final IDataItemModel<MR>	model;
+	private final CKYParseStep<MR>		step;
+	private volatile IHashVector		stepFeatures	= null;
+	private final double				stepScore;
 
 	public WeightedCKYParseStep(CKYParseStep<MR> step,
 			IDataItemModel<MR> model) {
 		assert step != null;
 		this.step = step;
-		this.stepFeatures = model.computeFeatures(step);
-		assert stepFeatures != null;
-		this.stepScore = model.score(stepFeatures);
+		this.model = model;
+		this.stepScore = model.score(step);
 		assert !Double.isNaN(stepScore) && !Double.isInfinite(stepScore);
 		this.hashCode = calcHashCode();
 	}
@@ -71,12 +75,11 @@ public class WeightedCKYParseStep<MR> implements IWeightedCKYStep<MR> {
 			return false;
 		}
 
+		// Structural equality: the features and score are determined by the
+		// step (rule, children and result) and the model.
 		if (!step.equals(other.step)) {
 			return false;
 		}
-		if (!stepFeatures.equals(other.stepFeatures)) {
-			return false;
-		}
 		return true;
 	}
 
@@ -112,7 +115,14 @@ public class WeightedCKYParseStep<MR> implements IWeightedCKYStep<MR> {
 
 	@Override
 	public IHashVector getStepFeatures() {
-		return stepFeatures;
+		// Computing the features twice in a race is harmless, so no locking.
+		IHashVector features = stepFeatures;
+		if (features == null) {
+			features = model.computeFeatures(step);
+			assert features != null;
+			stepFeatures = features;
+		}
+		return features;
 	}
 
 	/**
@@ -167,6 +177,15 @@ public class WeightedCKYParseStep<MR> implements IWeightedCKYStep<MR> {
 				model);
 	}
 
+	@Override
+	public WeightedCKYParseStep<MR> rescore(IDataItemModel<MR> model,
+			UnaryOperator<Cell<MR>> children) {
+		return new WeightedCKYParseStep<MR>(step.replaceChildren(
+				children.apply(step.getChildCell(0)),
+				step.isUnary() ? null : children.apply(step.getChildCell(1))),
+				model);
+	}
+
 	@Override
 	public String toString() {
 		return toString(true, true, null);
@@ -182,8 +201,9 @@ public class WeightedCKYParseStep<MR> implements IWeightedCKYStep<MR> {
 			IHashVectorImmutable theta) {
 		final StringBuilder sb = new StringBuilder(
 				step.toString(verbose, recursive));
+		final IHashVector features = getStepFeatures();
 		sb.append("{").append(
-				theta == null ? stepFeatures : theta.printValues(stepFeatures));
+				theta == null ? features : theta.printValues(features));
 		sb.append(" -> ").append(stepScore).append("}");
 		return sb.toString();
 	}
@@ -192,7 +212,6 @@ public class WeightedCKYParseStep<MR> implements IWeightedCKYStep<MR> {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + step.hashCode();
-		result = prime * result + stepFeatures.hashCode();
 		return result;
 	}
 
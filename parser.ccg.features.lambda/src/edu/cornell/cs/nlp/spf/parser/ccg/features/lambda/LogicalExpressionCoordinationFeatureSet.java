@@ -141,6 +141,10 @@ public class LogicalExpressionCoordinationFeatureSet<DI extends IDataItem<?>>
 	 * well, to control repetitions.</li>
 	 * <li>REPT = Counting repeats of literals inside a coordination predicate.</li>
 	 * </ul>
+	 * Features are only generated by coordination literals, so sub-expressions
+	 * that contain no coordination predicate are skipped. This is decided using
+	 * the cached summaries of the sub-expressions (see
+	 * {@link LogicalExpression#getSummary()}).
 	 *
 	 * @author Yoav Artzi
 	 */
@@ -180,14 +184,29 @@ public class LogicalExpressionCoordinationFeatureSet<DI extends IDataItem<?>>
 			return visitor.features;
 		}
 
+		private static boolean containsCoordination(LogicalExpression exp) {
+			final Set<LogicalConstant> constants = exp.getSummary()
+					.getConstants();
+			return constants.contains(LogicLanguageServices
+					.getConjunctionPredicate())
+					|| constants.contains(LogicLanguageServices
+							.getDisjunctionPredicate());
+		}
+
 		@Override
 		public void visit(Lambda lambda) {
+			if (!containsCoordination(lambda)) {
+				return;
+			}
 			lambda.getArgument().accept(this);
 			lambda.getBody().accept(this);
 		}
 
 		@Override
 		public void visit(Literal literal) {
+			if (!containsCoordination(literal)) {
+				return;
+			}
 			final boolean coordinationPredicate = LogicLanguageServices
 					.isCoordinationPredicate(literal.getPredicate());
 
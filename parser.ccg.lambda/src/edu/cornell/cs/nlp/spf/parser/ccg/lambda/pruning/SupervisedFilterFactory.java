@@ -523,6 +523,9 @@ public class SupervisedFilterFactory<DI extends ILabeledDataItem<?, LogicalExpre
 		public boolean test(ParsingOp<LogicalExpression> op) {
 			LOG.debug("Validating %s", op);
 			if (op.getCategory().getSemantics() != null) {
+				if (hasUnexpectedConstant(op.getCategory().getSemantics())) {
+					return false;
+				}
 				final CollectStats stats = new CollectStats(constantFilter,
 						argumentFilter, constants, coordinationCooc,
 						predicateArg, constantPreprocessor);
@@ -533,6 +536,28 @@ public class SupervisedFilterFactory<DI extends ILabeledDataItem<?, LogicalExpre
 			}
 		}
 
+		/**
+		 * Quick test for constants that don't appear in the labeled logical
+		 * form, which would invalidate the expression when collecting
+		 * statistics. Uses the cached set of constants of the expression (see
+		 * {@link LogicalExpression#getSummary()}), which is mostly computed
+		 * from the cached summaries of sub-expressions validated earlier, so
+		 * doesn't require walking the expression.
+		 */
+		private boolean hasUnexpectedConstant(LogicalExpression semantics) {
+			for (final LogicalConstant constant : semantics.getSummary()
+					.getConstants()) {
+				final LogicalConstant processed = constantPreprocessor
+						.apply(constant);
+				if (constantFilter.test(processed)
+						&& !constants.containsKey(processed)) {
+					LOG.debug("Invalid - unexpected %s", processed);
+					return true;
+				}
+			}
+			return false;
+		}
+
 	}
 
 	/**
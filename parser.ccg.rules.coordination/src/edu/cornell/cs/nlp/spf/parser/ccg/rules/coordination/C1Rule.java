@@ -16,6 +16,10 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.rules.coordination;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.syntax.ComplexSyntax;
 import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Slash;
@@ -68,6 +72,20 @@ class C1Rule<MR> implements IBinaryParseRule<MR> {
 		return null;
 	}
 
+	@Override
+	public Set<Syntax> applySyntax(Syntax left, Syntax right,
+			SentenceSpan span) {
+		if (!left.equals(Syntax.C)) {
+			return Collections.emptySet();
+		}
+		// Simple or partial coordination, depending on the semantics.
+		final Set<Syntax> results = new HashSet<Syntax>(2);
+		results.add(new ComplexSyntax(right, right, Slash.BACKWARD));
+		results.add(new ComplexSyntax(new ComplexSyntax(left, right,
+				Slash.VERTICAL), right, Slash.BACKWARD));
+		return results;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj) {
@@ -106,4 +124,9 @@ class C1Rule<MR> implements IBinaryParseRule<MR> {
 		return result;
 	}
 
+	@Override
+	public boolean isValidArgument(Syntax left, Syntax right) {
+		return left.equals(Syntax.C);
+	}
+
 }
@@ -16,6 +16,9 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.rules.coordination;
 
+import java.util.Collections;
+import java.util.Set;
+
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.syntax.ComplexSyntax;
 import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Slash;
@@ -60,6 +63,17 @@ class C2Rule<MR> implements IBinaryParseRule<MR> {
 		return null;
 	}
 
+	@Override
+	public Set<Syntax> applySyntax(Syntax left, Syntax right,
+			SentenceSpan span) {
+		if (isValidArgument(left, right)) {
+			return Collections.singleton(new ComplexSyntax(right,
+					SyntaxCoordinationServices.getCoordinationType(right),
+					Slash.BACKWARD));
+		}
+		return Collections.emptySet();
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj) {
@@ -98,4 +112,10 @@ class C2Rule<MR> implements IBinaryParseRule<MR> {
 		return result;
 	}
 
+	@Override
+	public boolean isValidArgument(Syntax left, Syntax right) {
+		return left.equals(Syntax.C)
+				&& SyntaxCoordinationServices.isCoordinationOfType(right, null);
+	}
+
 }
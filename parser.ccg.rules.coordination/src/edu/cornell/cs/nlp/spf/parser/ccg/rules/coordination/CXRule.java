@@ -16,6 +16,9 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.rules.coordination;
 
+import java.util.Collections;
+import java.util.Set;
+
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.syntax.ComplexSyntax;
 import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Slash;
@@ -63,6 +66,15 @@ class CXRule<MR> implements IBinaryParseRule<MR> {
 		return null;
 	}
 
+	@Override
+	public Set<Syntax> applySyntax(Syntax left, Syntax right,
+			SentenceSpan span) {
+		if (isValidArgument(left, right)) {
+			return Collections.singleton(((ComplexSyntax) left).getLeft());
+		}
+		return Collections.emptySet();
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj) {
@@ -101,4 +113,12 @@ class CXRule<MR> implements IBinaryParseRule<MR> {
 		return result;
 	}
 
+	@Override
+	public boolean isValidArgument(Syntax left, Syntax right) {
+		return left instanceof ComplexSyntax
+				&& ((ComplexSyntax) left).getSlash().equals(Slash.FORWARD)
+				&& SyntaxCoordinationServices.isCoordinationOfType(right,
+						((ComplexSyntax) left).getRight());
+	}
+
 }
@@ -16,6 +16,9 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.rules.lambda;
 
+import java.util.Collections;
+import java.util.Set;
+
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.ComplexCategory;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
@@ -104,4 +107,32 @@ public class ForwardTopicalizedApplication extends
 				newSyntax, newSem);
 		return doApplication(newLeft, right, false);
 	}
+
+	@Override
+	public Set<Syntax> applySyntax(Syntax left, Syntax right,
+			SentenceSpan span) {
+		if (!(right instanceof ComplexSyntax)) {
+			return Collections.emptySet();
+		}
+		final ComplexSyntax rightSyntax = (ComplexSyntax) right;
+		if (rightSyntax.getSlash() != Slash.FORWARD
+				|| !rightSyntax.getLeft().equals(Syntax.S)
+				|| !rightSyntax.getRight().equals(left)) {
+			return Collections.emptySet();
+		}
+		return doApplicationSyntax(new ComplexSyntax(Syntax.S,
+				new ComplexSyntax(Syntax.S, left, Slash.FORWARD),
+				Slash.FORWARD), right, false);
+	}
+
+	@Override
+	public boolean isValidArgument(Syntax left, Syntax right) {
+		if (!(right instanceof ComplexSyntax)) {
+			return false;
+		}
+		final ComplexSyntax rightSyntax = (ComplexSyntax) right;
+		return rightSyntax.getSlash() != Slash.BACKWARD
+				&& rightSyntax.getLeft().equals(Syntax.S)
+				&& rightSyntax.getRight().equals(left);
+	}
 }
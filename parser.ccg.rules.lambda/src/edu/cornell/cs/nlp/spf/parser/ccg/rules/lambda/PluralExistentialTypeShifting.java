@@ -16,6 +16,10 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.rules.lambda;
 
+import java.util.Collections;
+import java.util.Set;
+
+import edu.cornell.cs.nlp.spf.ccg.categories.AbstractCategoryServices;
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.ComplexCategory;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
@@ -76,6 +80,26 @@ public class PluralExistentialTypeShifting extends
 		return doApplication(first.getResultCategory(), left, false);
 	}
 
+	@Override
+	public Set<Syntax> applySyntax(Syntax left, Syntax right,
+			SentenceSpan span) {
+		if (right.unify(Syntax.N) == null) {
+			return Collections.emptySet();
+		}
+
+		final Syntax first = AbstractCategoryServices.applySyntax(
+				workerCategory.getSyntax(), right);
+		if (first == null) {
+			return Collections.emptySet();
+		}
+		return doApplicationSyntax(first, left, false);
+	}
+
+	@Override
+	public boolean isValidArgument(Syntax left, Syntax right) {
+		return right.unify(Syntax.N) != null;
+	}
+
 	public static class Creator implements
 			IResourceObjectCreator<PluralExistentialTypeShifting> {
 
@@ -16,6 +16,10 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.rules.lambda;
 
+import java.util.Collections;
+import java.util.Set;
+
+import edu.cornell.cs.nlp.spf.ccg.categories.AbstractCategoryServices;
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.ComplexCategory;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
@@ -89,6 +93,34 @@ public class ThatlessRelative extends AbstractApplication<LogicalExpression> {
 		return doApplication(first.getResultCategory(), right, false);
 	}
 
+	@Override
+	public Set<Syntax> applySyntax(Syntax left, Syntax right,
+			SentenceSpan span) {
+		if (!isValidArgument(left, right)) {
+			return Collections.emptySet();
+		}
+
+		final ComplexCategory<LogicalExpression> workerCategory;
+		if (((ComplexSyntax) right).getSlash().equals(Slash.FORWARD)) {
+			workerCategory = workerCategoryForwardSlash;
+		} else {
+			workerCategory = workerCategoryBackSlash;
+		}
+		final Syntax first = AbstractCategoryServices.applySyntax(
+				workerCategory.getSyntax(), left);
+		if (first == null) {
+			return Collections.emptySet();
+		}
+		return doApplicationSyntax(first, right, false);
+	}
+
+	@Override
+	public boolean isValidArgument(Syntax left, Syntax right) {
+		return Syntax.N.unify(left) != null && right instanceof ComplexSyntax
+				&& ((ComplexSyntax) right).getLeft().equals(Syntax.S)
+				&& ((ComplexSyntax) right).getRight().equals(Syntax.NP);
+	}
+
 	public static class Creator implements
 			IResourceObjectCreator<ThatlessRelative> {
 
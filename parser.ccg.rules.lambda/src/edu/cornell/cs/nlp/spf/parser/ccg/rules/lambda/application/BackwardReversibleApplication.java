@@ -21,6 +21,7 @@ import java.util.Set;
 
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
 import edu.cornell.cs.nlp.spf.explat.IResourceRepository;
 import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment;
 import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
@@ -59,6 +60,16 @@ public class BackwardReversibleApplication extends
 		return doApplication(right, left, true);
 	}
 
+	@Override
+	public Set<Syntax> applySyntax(Syntax left, Syntax right, SentenceSpan span) {
+		return doApplicationSyntax(right, left, true);
+	}
+
+	@Override
+	public boolean isValidArgument(Syntax left, Syntax right) {
+		return isValidApplication(right, left, true);
+	}
+
 	@Override
 	public Set<Category<LogicalExpression>> reverseApplyLeft(
 			Category<LogicalExpression> left,
@@ -16,12 +16,16 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.rules.lambda.typeraising;
 
+import java.util.Collections;
+import java.util.Set;
+
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.ComplexCategory;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
 import edu.cornell.cs.nlp.spf.ccg.categories.syntax.ComplexSyntax;
 import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Slash;
 import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax.Unification;
 import edu.cornell.cs.nlp.spf.explat.IResourceRepository;
 import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment;
 import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
@@ -134,6 +138,49 @@ public class ForwardTypeRaisedComposition extends
 				compositionResult.getResultCategory());
 	}
 
+	@Override
+	public Set<Syntax> applySyntax(Syntax left, Syntax right,
+			SentenceSpan span) {
+		// Verify the structure of the secondary: (T\X)/Y.
+		if (!(right instanceof ComplexSyntax)
+				|| ((ComplexSyntax) right).getSlash() != Slash.FORWARD
+				|| !(((ComplexSyntax) right).getLeft() instanceof ComplexSyntax)) {
+			return Collections.emptySet();
+		}
+		final ComplexSyntax secondaryLeft = (ComplexSyntax) ((ComplexSyntax) right)
+				.getLeft();
+		if (secondaryLeft.getSlash() != Slash.BACKWARD
+				|| secondaryLeft.getRight().unify(left) == null) {
+			return Collections.emptySet();
+		}
+
+		// Type raise the primary to T/(T\X), following the type raising
+		// rule.
+		final Syntax secondaryT = secondaryLeft.getLeft();
+		final Unification unification = left.unify(left);
+		if (unification == null
+				|| unification.getUnifiedSyntax().hasAttributeVariable()
+				&& secondaryT.hasAttributeVariable()) {
+			return Collections.emptySet();
+		}
+		return doCompositionSyntax(new ComplexSyntax(secondaryT,
+				new ComplexSyntax(secondaryT, unification.getUnifiedSyntax(),
+						Slash.BACKWARD), Slash.FORWARD), right, false);
+	}
+
+	@Override
+	public boolean isValidArgument(Syntax left, Syntax right) {
+		if (!(right instanceof ComplexSyntax)
+				|| ((ComplexSyntax) right).getSlash() == Slash.BACKWARD) {
+			return false;
+		}
+		final Syntax rightLeft = ((ComplexSyntax) right).getLeft();
+		return rightLeft instanceof ComplexSyntax
+				&& ((ComplexSyntax) rightLeft).getSlash().equals(
+						Slash.BACKWARD)
+				&& ((ComplexSyntax) rightLeft).getRight().unify(left) != null;
+	}
+
 	public static class Creator implements
 			IResourceObjectCreator<ForwardTypeRaisedComposition> {
 
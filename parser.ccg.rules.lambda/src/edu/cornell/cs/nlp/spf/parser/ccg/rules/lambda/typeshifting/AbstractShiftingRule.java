@@ -70,33 +70,25 @@ public abstract class AbstractShiftingRule
 	@Override
 	public ParseRuleResult<LogicalExpression> apply(
 			Category<LogicalExpression> category, SentenceSpan span) {
-		final Unification sourceUnification = sourceSyntax
-				.unify(category.getSyntax());
-		if (sourceUnification != null) {
+		final Syntax syntax = shiftSyntax(category.getSyntax());
+		if (syntax != null) {
 			final LogicalExpression raisedSemantics = typeShiftSemantics(
 					category.getSemantics());
 			if (raisedSemantics != null) {
-				final Syntax base;
-				if (((SimpleSyntax) sourceUnification.getUnifiedSyntax())
-						.getAttribute() == null) {
-					base = targetBaseSyntax;
-				} else {
-					base = targetBaseSyntax.cloneWithAttribute(
-							((SimpleSyntax) sourceUnification
-									.getUnifiedSyntax()).getAttribute());
-				}
-				if (base == null) {
-					return null;
-				}
 				return new ParseRuleResult<LogicalExpression>(name,
-						Category.create(
-								new ComplexSyntax(base, base, targetSlash),
-								raisedSemantics));
+						Category.create(syntax, raisedSemantics));
 			}
 		}
 		return null;
 	}
 
+	@Override
+	public Set<Syntax> applySyntax(Syntax syntax, SentenceSpan span) {
+		final Syntax shifted = shiftSyntax(syntax);
+		return shifted == null ? Collections.<Syntax> emptySet()
+				: Collections.singleton(shifted);
+	}
+
 	@Override
 	public UnaryRuleName getName() {
 		return name;
@@ -168,6 +160,30 @@ public abstract class AbstractShiftingRule
 		return name.toString();
 	}
 
+	/**
+	 * The syntax of the shifted category, or null if the rule can't shift a
+	 * category with the given syntax.
+	 */
+	private Syntax shiftSyntax(Syntax syntax) {
+		final Unification sourceUnification = sourceSyntax.unify(syntax);
+		if (sourceUnification == null) {
+			return null;
+		}
+		final Syntax base;
+		if (((SimpleSyntax) sourceUnification.getUnifiedSyntax())
+				.getAttribute() == null) {
+			base = targetBaseSyntax;
+		} else {
+			base = targetBaseSyntax.cloneWithAttribute(
+					((SimpleSyntax) sourceUnification.getUnifiedSyntax())
+							.getAttribute());
+		}
+		if (base == null) {
+			return null;
+		}
+		return new ComplexSyntax(base, base, targetSlash);
+	}
+
 	/**
 	 * (lambda $0:x (g $0)) ==> (lambda $0:<x,t> (lambda $1:x (and:<t*,t> ($0
 	 * $1) (g $1))))
@@ -16,6 +16,9 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.rules.lambda.typeshifting;
 
+import java.util.Collections;
+import java.util.Set;
+
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
 import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
@@ -70,6 +73,12 @@ public class PluralTypeShifting implements IUnaryParseRule<LogicalExpression> {
 		return null;
 	}
 
+	@Override
+	public Set<Syntax> applySyntax(Syntax syntax, SentenceSpan span) {
+		return syntax.equals(Syntax.N) ? Collections.singleton(Syntax.N)
+				: Collections.<Syntax> emptySet();
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj) {
@@ -93,6 +93,16 @@ public class SententialAdverbialTypeShifting implements
 		return null;
 	}
 
+	@Override
+	public Set<Syntax> applySyntax(Syntax syntax, SentenceSpan span) {
+		final Unification baseUnification = Syntax.S.unify(syntax);
+		if (baseUnification == null) {
+			return Collections.emptySet();
+		}
+		return Collections.singleton(new ComplexSyntax(baseUnification
+				.getUnifiedSyntax(), Syntax.AP, Slash.FORWARD));
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj) {
@@ -16,9 +16,11 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.rules.skolem;
 
+import java.util.Collections;
 import java.util.Set;
 
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
 import edu.cornell.cs.nlp.spf.mr.lambda.LogicalConstant;
 import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.IUnaryParseRule;
@@ -57,6 +59,14 @@ public class SkolemIDRule implements IUnaryParseRule<LogicalExpression> {
 		}
 	}
 
+	/**
+	 * The rule only modifies the semantics.
+	 */
+	@Override
+	public Set<Syntax> applySyntax(Syntax syntax, SentenceSpan span) {
+		return Collections.singleton(syntax);
+	}
+
 	@Override
 	public UnaryRuleName getName() {
 		return name;
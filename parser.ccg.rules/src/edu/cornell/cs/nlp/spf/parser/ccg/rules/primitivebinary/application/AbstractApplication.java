@@ -16,14 +16,21 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.rules.primitivebinary.application;
 
+import java.util.Collections;
+import java.util.Set;
+
+import edu.cornell.cs.nlp.spf.ccg.categories.AbstractCategoryServices;
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.ComplexCategory;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.ComplexSyntax;
 import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Slash;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.IBinaryParseRule;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.ParseRuleResult;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.RuleName;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.RuleName.Direction;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.SentenceSpan;
 
 /**
  * An abstract rule for logical application.
@@ -128,4 +135,41 @@ public abstract class AbstractApplication<MR> implements IBinaryParseRule<MR> {
 		return null;
 	}
 
+	/**
+	 * Syntax-only application, mirroring
+	 * {@link #doApplication(Category, Category, boolean)}.
+	 *
+	 * @see IBinaryParseRule#applySyntax(Syntax, Syntax, SentenceSpan)
+	 */
+	protected Set<Syntax> doApplicationSyntax(Syntax function,
+			Syntax argument, boolean backward) {
+		if (function instanceof ComplexSyntax
+				&& ((ComplexSyntax) function).getSlash() == (backward ? Slash.BACKWARD
+						: Slash.FORWARD)) {
+			final Syntax result = AbstractCategoryServices.applySyntax(
+					(ComplexSyntax) function, argument);
+			if (result != null) {
+				return Collections.singleton(result);
+			}
+		}
+		return Collections.emptySet();
+	}
+
+	/**
+	 * Syntax-only test for {@link #doApplication(Category, Category, boolean)}.
+	 * Returns 'false' only if application is guaranteed to fail.
+	 *
+	 * @see IBinaryParseRule#isValidArgument(Syntax, Syntax)
+	 */
+	protected boolean isValidApplication(Syntax function, Syntax argument,
+			boolean backward) {
+		if (function instanceof ComplexSyntax) {
+			final ComplexSyntax functionSyntax = (ComplexSyntax) function;
+			return functionSyntax.getSlash() == (backward ? Slash.BACKWARD
+					: Slash.FORWARD)
+					&& functionSyntax.getRight().unify(argument) != null;
+		}
+		return false;
+	}
+
 }
@@ -16,8 +16,11 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.rules.primitivebinary.application;
 
+import java.util.Set;
+
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
 import edu.cornell.cs.nlp.spf.explat.IResourceRepository;
 import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment;
 import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
@@ -49,6 +52,16 @@ public class BackwardApplication<MR> extends AbstractApplication<MR> {
 		return doApplication(right, left, true);
 	}
 
+	@Override
+	public Set<Syntax> applySyntax(Syntax left, Syntax right, SentenceSpan span) {
+		return doApplicationSyntax(right, left, true);
+	}
+
+	@Override
+	public boolean isValidArgument(Syntax left, Syntax right) {
+		return isValidApplication(right, left, true);
+	}
+
 	public static class Creator<MR> implements
 			IResourceObjectCreator<BackwardApplication<MR>> {
 
@@ -16,8 +16,11 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.rules.primitivebinary.application;
 
+import java.util.Set;
+
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
 import edu.cornell.cs.nlp.spf.explat.IResourceRepository;
 import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment;
 import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
@@ -47,6 +50,16 @@ public class ForwardApplication<MR> extends AbstractApplication<MR> {
 		return doApplication(left, right, false);
 	}
 
+	@Override
+	public Set<Syntax> applySyntax(Syntax left, Syntax right, SentenceSpan span) {
+		return doApplicationSyntax(left, right, false);
+	}
+
+	@Override
+	public boolean isValidArgument(Syntax left, Syntax right) {
+		return isValidApplication(left, right, false);
+	}
+
 	public static class Creator<MR> implements
 			IResourceObjectCreator<ForwardApplication<MR>> {
 
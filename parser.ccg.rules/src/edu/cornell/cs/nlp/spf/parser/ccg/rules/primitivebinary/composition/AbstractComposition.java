@@ -16,14 +16,21 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.rules.primitivebinary.composition;
 
+import java.util.Collections;
+import java.util.Set;
+
+import edu.cornell.cs.nlp.spf.ccg.categories.AbstractCategoryServices;
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.ComplexCategory;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.ComplexSyntax;
 import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Slash;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.IBinaryParseRule;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.ParseRuleResult;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.RuleName;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.RuleName.Direction;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.SentenceSpan;
 import edu.cornell.cs.nlp.utils.log.ILogger;
 import edu.cornell.cs.nlp.utils.log.LoggerFactory;
 
@@ -145,4 +152,70 @@ public abstract class AbstractComposition<MR> implements IBinaryParseRule<MR> {
 
 		return null;
 	}
+
+	/**
+	 * Syntax-only composition, mirroring
+	 * {@link #doComposition(Category, Category, boolean)}.
+	 *
+	 * @see IBinaryParseRule#applySyntax(Syntax, Syntax, SentenceSpan)
+	 */
+	protected Set<Syntax> doCompositionSyntax(Syntax primary,
+			Syntax secondary, boolean backward) {
+		if (primary instanceof ComplexSyntax
+				&& ((ComplexSyntax) primary).getSlash() == (backward ? Slash.BACKWARD
+						: Slash.FORWARD)) {
+			final Syntax result = AbstractCategoryServices.composeSyntax(
+					(ComplexSyntax) primary, secondary, order, cross);
+			if (result != null) {
+				return Collections.singleton(result);
+			}
+		}
+		return Collections.emptySet();
+	}
+
+	/**
+	 * Syntax-only test for {@link #doComposition(Category, Category, boolean)}
+	 * . Returns 'false' only if composition is guaranteed to fail.
+	 *
+	 * @see IBinaryParseRule#isValidArgument(Syntax, Syntax)
+	 */
+	protected boolean isValidComposition(Syntax primary, Syntax secondary,
+			boolean backward) {
+		if (!(primary instanceof ComplexSyntax)
+				|| !(secondary instanceof ComplexSyntax)) {
+			return false;
+		}
+
+		final ComplexSyntax primarySyntax = (ComplexSyntax) primary;
+		if (primarySyntax.getSlash() != (backward ? Slash.BACKWARD
+				: Slash.FORWARD)) {
+			return false;
+		}
+
+		// Descend into the secondary syntax to the order of the composition.
+		Syntax current = secondary;
+		Slash firstSlash = null;
+		for (int i = 0; i < order; ++i) {
+			if (!(current instanceof ComplexSyntax)) {
+				return false;
+			}
+			if (i == 0) {
+				firstSlash = ((ComplexSyntax) current).getSlash();
+			}
+			current = ((ComplexSyntax) current).getLeft();
+		}
+
+		// Slash directionality constraints for first order composition.
+		if (order == 1) {
+			if (firstSlash == Slash.VERTICAL) {
+				return false;
+			}
+			if (cross == (primarySyntax.getSlash() == firstSlash)) {
+				return false;
+			}
+		}
+
+		return primarySyntax.getRight().unify(current) != null;
+	}
+
 }
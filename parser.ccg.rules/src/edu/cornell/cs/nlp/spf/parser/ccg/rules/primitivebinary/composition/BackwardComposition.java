@@ -16,8 +16,11 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.rules.primitivebinary.composition;
 
+import java.util.Set;
+
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
 import edu.cornell.cs.nlp.spf.explat.IResourceRepository;
 import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment;
 import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
@@ -50,6 +53,16 @@ public class BackwardComposition<MR> extends AbstractComposition<MR> {
 		return doComposition(right, left, true);
 	}
 
+	@Override
+	public Set<Syntax> applySyntax(Syntax left, Syntax right, SentenceSpan span) {
+		return doCompositionSyntax(right, left, true);
+	}
+
+	@Override
+	public boolean isValidArgument(Syntax left, Syntax right) {
+		return isValidComposition(right, left, true);
+	}
+
 	public static class Creator<MR> implements
 			IResourceObjectCreator<BackwardComposition<MR>> {
 
@@ -59,6 +59,18 @@ public class PunctuationRule<MR> implements IBinaryReversibleParseRule<MR> {
 		return null;
 	}
 
+	@Override
+	public Set<Syntax> applySyntax(Syntax left, Syntax right,
+			SentenceSpan span) {
+		return Syntax.PUNCT.equals(right) ? Collections.singleton(left)
+				: Collections.<Syntax> emptySet();
+	}
+
+	@Override
+	public boolean isValidArgument(Syntax left, Syntax right) {
+		return Syntax.PUNCT.equals(right);
+	}
+
 	@Override
 	public RuleName getName() {
 		return name;
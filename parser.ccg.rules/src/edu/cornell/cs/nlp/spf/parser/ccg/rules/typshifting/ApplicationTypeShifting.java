@@ -16,6 +16,10 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.rules.typshifting;
 
+import java.util.Collections;
+import java.util.Set;
+
+import edu.cornell.cs.nlp.spf.ccg.categories.AbstractCategoryServices;
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.ComplexCategory;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
@@ -84,6 +88,29 @@ public class ApplicationTypeShifting<MR> implements IUnaryParseRule<MR> {
 		}
 	}
 
+	@Override
+	public Set<Syntax> applySyntax(Syntax syntax, SentenceSpan span) {
+		if (sentenceStartOnly && !span.isStart()) {
+			return Collections.emptySet();
+		}
+
+		if (sentenceEndOnly && !span.isEnd()) {
+			return Collections.emptySet();
+		}
+
+		if (matchSyntax && !inputSyntax.equals(syntax)) {
+			return Collections.emptySet();
+		}
+
+		final Syntax shifted = AbstractCategoryServices.applySyntax(
+				function.getSyntax(), syntax);
+		if (shifted == null) {
+			return Collections.emptySet();
+		} else {
+			return Collections.singleton(shifted);
+		}
+	}
+
 	@Override
 	public UnaryRuleName getName() {
 		return ruleName;
@@ -0,0 +1,327 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+import edu.cornell.cs.nlp.spf.base.concurrency.ITinyExecutor;
+import edu.cornell.cs.nlp.spf.base.concurrency.Shutdownable;
+import edu.cornell.cs.nlp.spf.base.concurrency.TinyExecutorService;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IDataItemModel;
+import edu.cornell.cs.nlp.utils.log.ILogger;
+import edu.cornell.cs.nlp.utils.log.LoggerFactory;
+import edu.cornell.cs.nlp.utils.log.thread.LoggingThreadFactory;
+
+/**
+ * Parses batches of sentences in parallel using a shared thread pool. Short
+ * sentences are packed together into tasks, to amortize scheduling overhead.
+ * Long sentences are scheduled first, each in its own task, so they don't
+ * delay the end of the batch, and rely on the intra-sentence parallelism of
+ * the parser (e.g., the split pool of a CKY parser) to use idle threads.
+ * <p>
+ * The wrapped parser must be thread-safe. Batch methods must not be called
+ * from a task of the same batch parser.
+ *
+ * @param <DI>
+ *            Data item type.
+ * @param <MR>
+ *            Meaning representation.
+ */
+public class BatchParser<DI extends Sentence, MR> implements Shutdownable {
+	public static final ILogger		LOG	= LoggerFactory
+			.create(BatchParser.class);
+
+	private final ITinyExecutor		executor;
+
+	/**
+	 * Sentences with at most this number of tokens are packed together.
+	 */
+	private final int				maxPackedLength;
+
+	/**
+	 * Maximum total number of tokens in each pack of short sentences.
+	 */
+	private final int				packSize;
+
+	private final IParser<DI, MR>	parser;
+
+	private BatchParser(IParser<DI, MR> parser, int numThreads,
+			String threadNamePrefix, int maxPackedLength, int packSize) {
+		if (numThreads < 1) {
+			throw new IllegalArgumentException(
+					"Invalid number of threads: " + numThreads);
+		}
+		if (packSize < maxPackedLength) {
+			throw new IllegalArgumentException(
+					"Pack size must allow at least a single sentence: "
+							+ packSize + " < " + maxPackedLength);
+		}
+		this.parser = parser;
+		this.maxPackedLength = maxPackedLength;
+		this.packSize = packSize;
+		this.executor = new TinyExecutorService(numThreads,
+				new LoggingThreadFactory(threadNamePrefix),
+				ITinyExecutor.DEFAULT_MONITOR_SLEEP);
+		LOG.info("Init :: %s: numThreads=%d maxPackedLength=%d packSize=%d",
+				getClass(), numThreads, maxPackedLength, packSize);
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit)
+			throws InterruptedException {
+		return executor.awaitTermination(timeout, unit);
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return executor.isShutdown();
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return executor.isTerminated();
+	}
+
+	/**
+	 * Parse all data items and return the outputs in the order of the input.
+	 * Blocks until all items are parsed.
+	 *
+	 * @param modelFactory
+	 *            Creates the data item model for each item. Called from the
+	 *            worker threads.
+	 */
+	public List<IParserOutput<MR>> parse(List<? extends DI> dataItems,
+			Function<? super DI, ? extends IDataItemModel<MR>> modelFactory) {
+		final AtomicReferenceArray<IParserOutput<MR>> outputs = new AtomicReferenceArray<IParserOutput<MR>>(
+				dataItems.size());
+		parse(dataItems, modelFactory,
+				(index, dataItem, model, output) -> outputs.set(index, output));
+		final List<IParserOutput<MR>> outputList = new ArrayList<IParserOutput<MR>>(
+				dataItems.size());
+		for (int i = 0; i < dataItems.size(); ++i) {
+			outputList.add(outputs.get(i));
+		}
+		return outputList;
+	}
+
+	/**
+	 * Parse all data items, calling the callback as each item completes.
+	 * Items don't complete in the order of the input. The callback is called
+	 * from the worker threads, so it must be thread-safe. Blocks until all
+	 * items are parsed and their callbacks returned.
+	 *
+	 * @param modelFactory
+	 *            Creates the data item model for each item. Called from the
+	 *            worker threads.
+	 * @throws IllegalStateException
+	 *             If parsing any of the items failed. All other items are
+	 *             still parsed. The cause is the first failure, and later
+	 *             failures are suppressed by it.
+	 * @throws RuntimeException
+	 *             The first exception thrown by the callback, re-thrown as is
+	 *             once all items are parsed. Later callback and parsing
+	 *             failures are suppressed by it.
+	 */
+	public void parse(List<? extends DI> dataItems,
+			Function<? super DI, ? extends IDataItemModel<MR>> modelFactory,
+			ICompletionCallback<DI, MR> callback) {
+		final List<List<Integer>> tasks = createTasks(dataItems);
+		LOG.debug("Parsing %d items in %d tasks", dataItems.size(),
+				tasks.size());
+
+		final CountDownLatch completed = new CountDownLatch(tasks.size());
+		final AtomicReference<RuntimeException> parseFailure = new AtomicReference<RuntimeException>();
+		final AtomicReference<RuntimeException> callbackFailure = new AtomicReference<RuntimeException>();
+		for (final List<Integer> task : tasks) {
+			executor.execute(() -> {
+				try {
+					for (final int index : task) {
+						final DI dataItem = dataItems.get(index);
+						final IDataItemModel<MR> model;
+						final IParserOutput<MR> output;
+						try {
+							model = modelFactory.apply(dataItem);
+							output = parser.parse(dataItem, model);
+						} catch (final RuntimeException e) {
+							LOG.error(String.format("Failed to parse item %d",
+									index), e);
+							addFailure(parseFailure, e);
+							continue;
+						}
+						// Failures of the callback are not parsing failures,
+						// so they are re-thrown as is.
+						try {
+							callback.completed(index, dataItem, model, output);
+						} catch (final RuntimeException e) {
+							LOG.error(String.format(
+									"Completion callback failed for item %d",
+									index), e);
+							addFailure(callbackFailure, e);
+						}
+					}
+				} finally {
+					completed.countDown();
+				}
+			});
+		}
+
+		try {
+			completed.await();
+		} catch (final InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+
+		if (callbackFailure.get() != null) {
+			if (parseFailure.get() != null) {
+				callbackFailure.get().addSuppressed(parseFailure.get());
+			}
+			throw callbackFailure.get();
+		}
+
+		if (parseFailure.get() != null) {
+			throw new IllegalStateException("Batch parsing failed",
+					parseFailure.get());
+		}
+	}
+
+	@Override
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		return executor.shutdownNow();
+	}
+
+	/**
+	 * Record a failure. The first failure is kept, and later ones are
+	 * suppressed by it.
+	 */
+	private static void addFailure(AtomicReference<RuntimeException> failure,
+			RuntimeException e) {
+		if (!failure.compareAndSet(null, e)) {
+			failure.get().addSuppressed(e);
+		}
+	}
+
+	/**
+	 * Create the tasks of the batch, each a list of item indices. Items are
+	 * ordered by decreasing length. Long items get a task each, and short
+	 * items are packed greedily up to the pack size.
+	 */
+	private List<List<Integer>> createTasks(List<? extends DI> dataItems) {
+		final List<Integer> indices = new ArrayList<Integer>(dataItems.size());
+		for (int i = 0; i < dataItems.size(); ++i) {
+			indices.add(i);
+		}
+		Collections.sort(indices, Comparator.comparingInt(
+				(Integer i) -> dataItems.get(i).getTokens().size()).reversed());
+
+		final List<List<Integer>> tasks = new ArrayList<List<Integer>>();
+		List<Integer> pack = null;
+		int packTokens = 0;
+		for (final int index : indices) {
+			final int length = dataItems.get(index).getTokens().size();
+			if (length > maxPackedLength) {
+				tasks.add(Collections.singletonList(index));
+			} else {
+				if (pack == null || packTokens + length > packSize) {
+					pack = new ArrayList<Integer>();
+					packTokens = 0;
+					tasks.add(pack);
+				}
+				pack.add(index);
+				packTokens += length;
+			}
+		}
+		return tasks;
+	}
+
+	public static class Builder<DI extends Sentence, MR> {
+
+		/**
+		 * Sentences with at most this number of tokens are packed together.
+		 */
+		private int						maxPackedLength		= 8;
+
+		private int						numThreads			= Runtime
+				.getRuntime().availableProcessors();
+
+		/**
+		 * Maximum total number of tokens in each pack of short sentences.
+		 */
+		private int						packSize			= 32;
+
+		private final IParser<DI, MR>	parser;
+
+		private String					threadNamePrefix	= "BatchParser";
+
+		public Builder(IParser<DI, MR> parser) {
+			this.parser = parser;
+		}
+
+		public BatchParser<DI, MR> build() {
+			return new BatchParser<DI, MR>(parser, numThreads,
+					threadNamePrefix, maxPackedLength, packSize);
+		}
+
+		public Builder<DI, MR> setMaxPackedLength(int maxPackedLength) {
+			this.maxPackedLength = maxPackedLength;
+			return this;
+		}
+
+		public Builder<DI, MR> setNumThreads(int numThreads) {
+			this.numThreads = numThreads;
+			return this;
+		}
+
+		public Builder<DI, MR> setPackSize(int packSize) {
+			this.packSize = packSize;
+			return this;
+		}
+
+		public Builder<DI, MR> setThreadNamePrefix(String threadNamePrefix) {
+			this.threadNamePrefix = threadNamePrefix;
+			return this;
+		}
+	}
+
+	/**
+	 * Callback for each parsed item of a batch.
+	 *
+	 * @param <DI>
+	 *            Data item type.
+	 * @param <MR>
+	 *            Meaning representation.
+	 */
+	@FunctionalInterface
+	public interface ICompletionCallback<DI, MR> {
+		void completed(int index, DI dataItem, IDataItemModel<MR> model,
+				IParserOutput<MR> output);
+	}
+
+}
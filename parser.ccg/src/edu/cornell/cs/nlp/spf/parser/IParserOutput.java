@@ -31,6 +31,16 @@ import edu.cornell.cs.nlp.utils.filter.IFilter;
  */
 public interface IParserOutput<MR> {
 
+	/**
+	 * Compute the features of all derivation steps with the model used for
+	 * parsing, so later changes to the model (e.g., adding lexical entries)
+	 * don't change them. Outputs that compute features lazily should fix them
+	 * before the model is changed. Does nothing by default.
+	 */
+	default void fixFeatures() {
+		// Features are computed when parsing.
+	}
+
 	/**
 	 * Get all complete derivations.
 	 *
@@ -65,4 +75,13 @@ public interface IParserOutput<MR> {
 	 */
 	boolean isExact();
 
+	/**
+	 * Release resources held by the output (e.g., a pooled chart) once it's
+	 * no longer used. The derivations remain valid, but methods that require
+	 * these resources may fail. Does nothing by default.
+	 */
+	default void release() {
+		// Nothing to release.
+	}
+
 }
@@ -59,6 +59,11 @@ public class DataItemModel<DI extends IDataItem<?>, MR> implements
 		return model.score(features);
 	}
 
+	@Override
+	public double score(IParseStep<MR> parseStep) {
+		return model.score(parseStep, dataItem);
+	}
+
 	@Override
 	public double score(LexicalEntry<MR> entry) {
 		return model.score(entry);
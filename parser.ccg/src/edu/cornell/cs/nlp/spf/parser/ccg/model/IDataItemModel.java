@@ -50,6 +50,14 @@ public interface IDataItemModel<MR> {
 	 */
 	double score(IHashVectorImmutable features);
 
+	/**
+	 * @see IModelImmutable#score(IParseStep,
+	 *      edu.cornell.cs.nlp.spf.data.IDataItem)
+	 */
+	default double score(IParseStep<MR> parseStep) {
+		return score(computeFeatures(parseStep));
+	}
+
 	/**
 	 * @see IModelImmutable#score(LexicalEntry)
 	 */
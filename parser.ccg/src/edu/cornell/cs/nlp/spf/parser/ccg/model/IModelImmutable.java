@@ -74,4 +74,13 @@ public interface IModelImmutable<DI extends IDataItem<?>, MR> extends
 	double score(IHashVectorImmutable features);
 
 	double score(LexicalEntry<MR> entry);
+
+	/**
+	 * Score a parsing step without returning its features. Implementations
+	 * may avoid materializing the feature vector. Equivalent to scoring the
+	 * output of {@link #computeFeatures(IParseStep, IDataItem)}.
+	 */
+	default double score(IParseStep<MR> parseStep, DI dataItem) {
+		return score(computeFeatures(parseStep, dataItem));
+	}
 }
@@ -71,6 +71,13 @@ public class Model<DI extends IDataItem<?>, MR>
 	public static final ILogger									LOG					= LoggerFactory
 			.create(Model.class);
 
+	/**
+	 * Per-thread vector used to compute features when only the score of a
+	 * parsing step is required. Cleared after each use.
+	 */
+	private static final ThreadLocal<IHashVector>				SCORE_FEATURES		= ThreadLocal
+			.withInitial(HashVectorFactory::create);
+
 	private static final long									serialVersionUID	= -1858505634505111170L;
 
 	private final List<IParseFeatureSet<DI, MR>>				featureSets;
@@ -276,6 +283,21 @@ public class Model<DI extends IDataItem<?>, MR>
 		return theta.dotProduct(features);
 	}
 
+	@Override
+	public double score(IParseStep<MR> parseStep, DI dataItem) {
+		// Compute the features into a re-used vector, so no vector is
+		// allocated for the step.
+		final IHashVector features = SCORE_FEATURES.get();
+		try {
+			for (final IParseFeatureSetImmutable<DI, MR> featureSet : featureSets) {
+				featureSet.setFeatures(parseStep, features, dataItem);
+			}
+			return score(features);
+		} finally {
+			features.clear();
+		}
+	}
+
 	@Override
 	public double score(LexicalEntry<MR> entry) {
 		return score(computeFeatures(entry));
@@ -17,8 +17,11 @@
 package edu.cornell.cs.nlp.spf.parser.ccg.rules;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.Set;
 
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
 
 /**
  * Binary CCG parse rule.
@@ -40,8 +43,44 @@ public interface IBinaryParseRule<MR> extends Serializable {
 	@Override
 	boolean equals(Object obj);
 
+	/**
+	 * Syntax-only version of {@link #apply(Category, Category, SentenceSpan)}
+	 * for coarse parsing passes that ignore the semantics. Returns the syntax
+	 * of all results the rule may create from categories with the given
+	 * syntax, or an empty set if the rule can't apply. The result must
+	 * over-approximate the full rule: if
+	 * {@link #apply(Category, Category, SentenceSpan)} returns a result, its
+	 * syntax is in the returned set.
+	 * <p>
+	 * By default, applies the rule to categories with the given syntax and no
+	 * semantics, and returns the syntax of the result. Rules with a direct
+	 * syntax-only computation should override this method. Rules that can't
+	 * apply without semantics must override it to keep the
+	 * over-approximation.
+	 */
+	default Set<Syntax> applySyntax(Syntax left, Syntax right,
+			SentenceSpan span) {
+		final ParseRuleResult<MR> result = apply(Category.<MR> create(left),
+				Category.<MR> create(right), span);
+		return result == null ? Collections.<Syntax> emptySet()
+				: Collections.singleton(result.getResultCategory().getSyntax());
+	}
+
 	RuleName getName();
 
 	@Override
 	int hashCode();
+
+	/**
+	 * A quick syntax-only test to check if the rule may apply to a pair of
+	 * adjacent categories with the given syntax. This test is required to be
+	 * efficient and return 'true' for all syntax pairs the rule may apply for
+	 * (i.e., !{@link #isValidArgument(Syntax, Syntax)} \implies
+	 * {@link #apply(Category, Category, SentenceSpan)} == null). The result
+	 * may only depend on the two {@link Syntax} objects, so parsers can cache
+	 * it. By default, assumes the rule may apply to any pair.
+	 */
+	default boolean isValidArgument(Syntax left, Syntax right) {
+		return true;
+	}
 }
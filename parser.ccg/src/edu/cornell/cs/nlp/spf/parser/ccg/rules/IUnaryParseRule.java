@@ -17,8 +17,11 @@
 package edu.cornell.cs.nlp.spf.parser.ccg.rules;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.Set;
 
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
 
 /**
  * A unary parse rule. Consumes a single span and modifies it.
@@ -40,6 +43,18 @@ public interface IUnaryParseRule<MR> extends Serializable {
 	@Override
 	boolean equals(Object obj);
 
+	/**
+	 * Syntax-only version of {@link #apply(Category, SentenceSpan)}. See
+	 * {@link IBinaryParseRule#applySyntax(Syntax, Syntax, SentenceSpan)},
+	 * including the default behavior.
+	 */
+	default Set<Syntax> applySyntax(Syntax syntax, SentenceSpan span) {
+		final ParseRuleResult<MR> result = apply(Category.<MR> create(syntax),
+				span);
+		return result == null ? Collections.<Syntax> emptySet()
+				: Collections.singleton(result.getResultCategory().getSyntax());
+	}
+
 	UnaryRuleName getName();
 
 	@Override
@@ -0,0 +1,433 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.rules;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Optional;
+import java.util.Set;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import edu.cornell.cs.nlp.spf.ccg.categories.Category;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
+import edu.cornell.cs.nlp.spf.explat.IResourceRepository;
+import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
+import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
+import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
+import edu.cornell.cs.nlp.utils.log.ILogger;
+import edu.cornell.cs.nlp.utils.log.LoggerFactory;
+
+/**
+ * Bounded concurrent cache of rule applications. Rules wrapped with
+ * {@link #wrap(IBinaryParseRule)} and {@link #wrap(IUnaryParseRule)} store
+ * the result of each application, including failed applications, keyed by
+ * the rule instance, the input categories and the position of the span in the
+ * sentence (whether it's at the start and/or end). The same cache may be
+ * shared by multiple rules and parsers. Rules only consult the span position,
+ * so results are re-used across splits, spans and sentences. Wrappers
+ * preserve the reversible rule interfaces ({@link IBinaryReversibleParseRule}
+ * and {@link IUnaryReversibleParseRule}).
+ * <p>
+ * The cache is not serialized. It's re-created empty when de-serialized.
+ *
+ * @param <MR>
+ *            Meaning representation.
+ */
+public class ParseRuleCache<MR> implements Serializable {
+	public static final ILogger												LOG					= LoggerFactory
+			.create(ParseRuleCache.class);
+
+	private static final long												serialVersionUID	= 2306524119389470364L;
+
+	private transient Cache<Key<MR>, Optional<ParseRuleResult<MR>>>	cache;
+
+	private final long														maxSize;
+
+	public ParseRuleCache(long maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException(
+					"Invalid cache size: " + maxSize);
+		}
+		this.maxSize = maxSize;
+		this.cache = createCache(maxSize);
+		LOG.info("Init %s :: maxSize=%d", getClass().getSimpleName(),
+				maxSize);
+	}
+
+	private static <MR> Cache<Key<MR>, Optional<ParseRuleResult<MR>>> createCache(
+			long maxSize) {
+		return CacheBuilder.newBuilder().maximumSize(maxSize).recordStats()
+				.build();
+	}
+
+	public void clear() {
+		cache.invalidateAll();
+	}
+
+	public long getHitCount() {
+		return cache.stats().hitCount();
+	}
+
+	public double getHitRate() {
+		return cache.stats().hitRate();
+	}
+
+	public long getMissCount() {
+		return cache.stats().missCount();
+	}
+
+	public long size() {
+		return cache.size();
+	}
+
+	@Override
+	public String toString() {
+		final CacheStats stats = cache.stats();
+		return String.format(
+				"%s[size=%d, maxSize=%d, hits=%d, misses=%d, hitRate=%.4f, evictions=%d]",
+				getClass().getSimpleName(), cache.size(), maxSize,
+				stats.hitCount(), stats.missCount(), stats.hitRate(),
+				stats.evictionCount());
+	}
+
+	/**
+	 * Wrap a binary rule so all its applications go through the cache. If the
+	 * rule is an {@link IBinaryReversibleParseRule}, so is the returned
+	 * wrapper.
+	 */
+	public IBinaryParseRule<MR> wrap(IBinaryParseRule<MR> rule) {
+		if (rule instanceof IBinaryReversibleParseRule) {
+			return new CachedBinaryReversibleRule<MR>(
+					(IBinaryReversibleParseRule<MR>) rule, this);
+		} else {
+			return new CachedBinaryRule<MR>(rule, this);
+		}
+	}
+
+	/**
+	 * Wrap a unary rule so all its applications go through the cache. If the
+	 * rule is an {@link IUnaryReversibleParseRule}, so is the returned wrapper.
+	 */
+	public IUnaryParseRule<MR> wrap(IUnaryParseRule<MR> rule) {
+		if (rule instanceof IUnaryReversibleParseRule) {
+			return new CachedUnaryReversibleRule<MR>(
+					(IUnaryReversibleParseRule<MR>) rule, this);
+		} else {
+			return new CachedUnaryRule<MR>(rule, this);
+		}
+	}
+
+	/**
+	 * Wrap the given object if it's a binary or unary parse rule. Any other
+	 * object is returned as is. Used by resource creators that accept rules of
+	 * different types.
+	 */
+	@SuppressWarnings("unchecked")
+	public Object wrapIfParseRule(Object rule) {
+		if (rule instanceof IBinaryParseRule) {
+			return wrap((IBinaryParseRule<MR>) rule);
+		} else if (rule instanceof IUnaryParseRule) {
+			return wrap((IUnaryParseRule<MR>) rule);
+		} else {
+			return rule;
+		}
+	}
+
+	private void readObject(ObjectInputStream in)
+			throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		cache = createCache(maxSize);
+	}
+
+	public static class Creator<MR>
+			implements IResourceObjectCreator<ParseRuleCache<MR>> {
+
+		private final String type;
+
+		public Creator() {
+			this("rule.cache");
+		}
+
+		public Creator(String type) {
+			this.type = type;
+		}
+
+		@Override
+		public ParseRuleCache<MR> create(Parameters params,
+				IResourceRepository repo) {
+			return new ParseRuleCache<MR>(
+					params.getAsInteger("size", 1000000));
+		}
+
+		@Override
+		public String type() {
+			return type;
+		}
+
+		@Override
+		public ResourceUsage usage() {
+			return ResourceUsage.builder(type, ParseRuleCache.class)
+					.setDescription(
+							"Bounded cache of rule applications, used by parsers to avoid re-computing rules over the same categories")
+					.addParam("size", Integer.class,
+							"Maximum number of cached applications (default: 1000000)")
+					.build();
+		}
+
+	}
+
+	private static class CachedBinaryReversibleRule<MR> extends
+			CachedBinaryRule<MR> implements IBinaryReversibleParseRule<MR> {
+		private static final long						serialVersionUID	= -6146185296213412577L;
+		private final IBinaryReversibleParseRule<MR>	reversibleRule;
+
+		public CachedBinaryReversibleRule(IBinaryReversibleParseRule<MR> rule,
+				ParseRuleCache<MR> ruleCache) {
+			super(rule, ruleCache);
+			this.reversibleRule = rule;
+		}
+
+		@Override
+		public Set<Category<MR>> reverseApplyLeft(Category<MR> left,
+				Category<MR> result, SentenceSpan span) {
+			return reversibleRule.reverseApplyLeft(left, result, span);
+		}
+
+		@Override
+		public Set<Category<MR>> reverseApplyRight(Category<MR> right,
+				Category<MR> result, SentenceSpan span) {
+			return reversibleRule.reverseApplyRight(right, result, span);
+		}
+	}
+
+	private static class CachedBinaryRule<MR> implements IBinaryParseRule<MR> {
+		private static final long			serialVersionUID	= -3003442016813950012L;
+		private final IBinaryParseRule<MR>	rule;
+		private final ParseRuleCache<MR>	ruleCache;
+
+		public CachedBinaryRule(IBinaryParseRule<MR> rule,
+				ParseRuleCache<MR> ruleCache) {
+			this.rule = rule;
+			this.ruleCache = ruleCache;
+		}
+
+		@Override
+		public ParseRuleResult<MR> apply(Category<MR> left,
+				Category<MR> right, SentenceSpan span) {
+			final Key<MR> key = new Key<MR>(rule, left, right, span);
+			final Optional<ParseRuleResult<MR>> cached = ruleCache.cache
+					.getIfPresent(key);
+			if (cached != null) {
+				return cached.orElse(null);
+			}
+			final ParseRuleResult<MR> result = rule.apply(left, right, span);
+			ruleCache.cache.put(key, Optional.ofNullable(result));
+			return result;
+		}
+
+		@Override
+		public Set<Syntax> applySyntax(Syntax left, Syntax right,
+				SentenceSpan span) {
+			return rule.applySyntax(left, right, span);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			return rule.equals(((CachedBinaryRule<?>) obj).rule);
+		}
+
+		@Override
+		public RuleName getName() {
+			return rule.getName();
+		}
+
+		@Override
+		public int hashCode() {
+			return rule.hashCode();
+		}
+
+		@Override
+		public boolean isValidArgument(Syntax left, Syntax right) {
+			return rule.isValidArgument(left, right);
+		}
+
+		@Override
+		public String toString() {
+			return rule.toString();
+		}
+	}
+
+	private static class CachedUnaryReversibleRule<MR> extends
+			CachedUnaryRule<MR> implements IUnaryReversibleParseRule<MR> {
+		private static final long						serialVersionUID	= 3164373493305846361L;
+		private final IUnaryReversibleParseRule<MR>	reversibleRule;
+
+		public CachedUnaryReversibleRule(IUnaryReversibleParseRule<MR> rule,
+				ParseRuleCache<MR> ruleCache) {
+			super(rule, ruleCache);
+			this.reversibleRule = rule;
+		}
+
+		@Override
+		public Set<Category<MR>> reverseApply(Category<MR> result,
+				SentenceSpan span) {
+			return reversibleRule.reverseApply(result, span);
+		}
+	}
+
+	private static class CachedUnaryRule<MR> implements IUnaryParseRule<MR> {
+		private static final long			serialVersionUID	= 5369305713212930306L;
+		private final IUnaryParseRule<MR>	rule;
+		private final ParseRuleCache<MR>	ruleCache;
+
+		public CachedUnaryRule(IUnaryParseRule<MR> rule,
+				ParseRuleCache<MR> ruleCache) {
+			this.rule = rule;
+			this.ruleCache = ruleCache;
+		}
+
+		@Override
+		public ParseRuleResult<MR> apply(Category<MR> category,
+				SentenceSpan span) {
+			final Key<MR> key = new Key<MR>(rule, category, null, span);
+			final Optional<ParseRuleResult<MR>> cached = ruleCache.cache
+					.getIfPresent(key);
+			if (cached != null) {
+				return cached.orElse(null);
+			}
+			final ParseRuleResult<MR> result = rule.apply(category, span);
+			ruleCache.cache.put(key, Optional.ofNullable(result));
+			return result;
+		}
+
+		@Override
+		public Set<Syntax> applySyntax(Syntax syntax, SentenceSpan span) {
+			return rule.applySyntax(syntax, span);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			return rule.equals(((CachedUnaryRule<?>) obj).rule);
+		}
+
+		@Override
+		public UnaryRuleName getName() {
+			return rule.getName();
+		}
+
+		@Override
+		public int hashCode() {
+			return rule.hashCode();
+		}
+
+		@Override
+		public boolean isValidArgument(Category<MR> category,
+				SentenceSpan span) {
+			return rule.isValidArgument(category, span);
+		}
+
+		@Override
+		public String toString() {
+			return rule.toString();
+		}
+	}
+
+	/**
+	 * Cache key. The rule is compared by identity: rules that share a name may
+	 * still differ in their configuration (e.g., the same rule with different
+	 * category services).
+	 */
+	private static class Key<MR> {
+		private final boolean		end;
+		private final int			hashCode;
+		private final Category<MR>	left;
+		private final Category<MR>	right;
+		private final Object		rule;
+		private final boolean		start;
+
+		public Key(Object rule, Category<MR> left, Category<MR> right,
+				SentenceSpan span) {
+			this.rule = rule;
+			this.left = left;
+			this.right = right;
+			this.start = span.isStart();
+			this.end = span.isEnd();
+			this.hashCode = calcHashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null) {
+				return false;
+			}
+			if (getClass() != obj.getClass()) {
+				return false;
+			}
+			final Key<?> other = (Key<?>) obj;
+			if (hashCode != other.hashCode || start != other.start
+					|| end != other.end) {
+				return false;
+			}
+			if (rule != other.rule) {
+				return false;
+			}
+			if (left != other.left && !left.equals(other.left)) {
+				return false;
+			}
+			if (right == null) {
+				return other.right == null;
+			}
+			return right == other.right || right.equals(other.right);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		private int calcHashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + (end ? 1231 : 1237);
+			result = prime * result + left.hashCode();
+			result = prime * result + (right == null ? 0 : right.hashCode());
+			result = prime * result + System.identityHashCode(rule);
+			result = prime * result + (start ? 1231 : 1237);
+			return result;
+		}
+	}
+
+}
@@ -261,11 +261,13 @@ public class Tester<SAMPLE extends IDataItem<?>, MR, DI extends ILabeledDataItem
 						}
 					}
 				}
+				parserOutputWithSkipping.release();
 			} else {
 				LOG.info("Skipping word-skip parsing due to length");
 				stats.recordNoParseWithSkipping(dataItem);
 			}
 		}
+		modelParserOutput.release();
 	}
 
 	public static class Builder<SAMPLE extends IDataItem<?>, MR, DI extends ILabeledDataItem<SAMPLE, MR>> {
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.learn.validation.stocgrad;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.base.hashvector.HashVectorFactory;
+import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector;
+import edu.cornell.cs.nlp.spf.base.hashvector.IHashVectorImmutable;
+import edu.cornell.cs.nlp.spf.base.hashvector.KeyArgs;
+import edu.cornell.cs.nlp.spf.ccg.categories.Category;
+import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.ILexiconImmutable;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.Lexicon;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.data.singlesentence.SingleSentence;
+import edu.cornell.cs.nlp.spf.data.singlesentence.SingleSentenceCollection;
+import edu.cornell.cs.nlp.spf.genlex.ccg.ILexiconGenerator;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.ILexicalParseStep;
+import edu.cornell.cs.nlp.spf.parser.ccg.IParseStep;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYBinaryParsingRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYParserOutput;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYTestServices;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.single.CKYParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IDataItemModel;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IModelImmutable;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.lexical.ILexicalFeatureSet;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.parse.IParseFeatureSet;
+import edu.cornell.cs.nlp.utils.filter.IFilter;
+
+public class ValidationStocGradTest {
+
+	private static final String	GENERATED	= "border :- S\\NP/NP : (lambda $0:e (lambda $1:e (next_to:<lo,<lo,t>> $1 $0)))";
+
+	public ValidationStocGradTest() {
+		TestServices.init();
+	}
+
+	private static Model<Sentence, LogicalExpression> createModel(
+			Lexicon<LogicalExpression> lexicon) {
+		return CKYTestServices.createModel(1, false, lexicon,
+				Collections.<IParseFeatureSet<Sentence, LogicalExpression>> singletonList(
+						new LexiconVersionFeatureSet()));
+	}
+
+	/**
+	 * Expected features under the distribution of the parses that pass the
+	 * filter, as computed by the learner.
+	 */
+	private static IHashVector expectedFeatures(
+			CKYParserOutput<LogicalExpression> output,
+			IFilter<LogicalExpression> filter) {
+		final IFilter<Category<LogicalExpression>> categoryFilter = c -> filter
+				.test(c.getSemantics());
+		final IHashVector features = output.logExpectedFeatures(categoryFilter);
+		features.add(-output.logNorm(categoryFilter));
+		features.applyFunction(value -> Math.exp(value));
+		features.dropNoise();
+		return features;
+	}
+
+	/**
+	 * The generated lexical entry is added to the model before the update,
+	 * which changes the features of parse steps. The update must use the
+	 * features the generation parse was scored with.
+	 */
+	@Test
+	public void test() {
+		final LogicalExpression gold = TestServices.getCategoryServices()
+				.readSemantics(
+						"(lambda $0:e (and:<t*,t> (state:<s,t> $0) (next_to:<lo,<lo,t>> $0 texas:s)))");
+		final SingleSentence dataItem = new SingleSentence(
+				new Sentence(CKYTestServices.SENTENCES[0]), gold);
+		final LexicalEntry<LogicalExpression> generated = CKYTestServices
+				.createEntry(GENERATED);
+		final Lexicon<LogicalExpression> lexicon = new Lexicon<LogicalExpression>();
+		for (final LexicalEntry<LogicalExpression> entry : CKYTestServices
+				.createLexicon().toCollection()) {
+			if (!entry.equals(generated)) {
+				lexicon.add(entry);
+			}
+		}
+		final Lexicon<LogicalExpression> generatedLexicon = new Lexicon<LogicalExpression>();
+		generatedLexicon.add(generated);
+
+		final CKYParser.Builder<Sentence, LogicalExpression> builder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : CKYTestServices
+				.createBinaryRules()) {
+			builder.addParseRule(rule);
+		}
+		final CKYParser<Sentence, LogicalExpression> parser = builder
+				.setMaxNumberOfCellsInSpan(1000).build();
+
+		// Compute the expected update with a copy of the model that is never
+		// changed.
+		final Model<Sentence, LogicalExpression> referenceModel = createModel(
+				lexicon);
+		final IDataItemModel<LogicalExpression> referenceDataItemModel = referenceModel
+				.createDataItemModel(dataItem.getSample());
+		final IHashVector update = expectedFeatures(
+				parser.parse(dataItem.getSample(), null,
+						referenceDataItemModel, false, generatedLexicon, 1000),
+				e -> gold.equals(e));
+		expectedFeatures(
+				parser.parse(dataItem.getSample(), referenceDataItemModel),
+				e -> true).addTimesInto(-1.0, update);
+		final IHashVector expected = HashVectorFactory
+				.create(referenceModel.getTheta());
+		update.addTimesInto(1.0, expected);
+
+		final Model<Sentence, LogicalExpression> model = createModel(lexicon);
+		new ValidationStocGrad.Builder<Sentence, SingleSentence, LogicalExpression>(
+				new SingleSentenceCollection(
+						Collections.singletonList(dataItem)),
+				parser, (d, e) -> gold.equals(e)).setNumIterations(1)
+						.setAlpha0(1.0).setC(0.0)
+						.setConflateGenlexAndPrunedParses(true)
+						.setLexiconGenerationBeamSize(1000)
+						.setGenlex(new ConstantGenlex(generatedLexicon),
+								TestServices.getCategoryServices())
+						.build().train(model);
+
+		Assert.assertTrue(model.getLexicon().contains(generated));
+		Assert.assertTrue(update.size() > 0);
+		assertSameValues(expected, model.getTheta());
+	}
+
+	private void assertSameValues(IHashVectorImmutable expected,
+			IHashVectorImmutable actual) {
+		expected.iterate((key, value) -> Assert.assertEquals(key.toString(),
+				value, actual.get(key), 1e-9));
+		actual.iterate((key, value) -> Assert.assertEquals(key.toString(),
+				expected.get(key), value, 1e-9));
+	}
+
+	/**
+	 * Always generates the same lexicon.
+	 */
+	private static class ConstantGenlex implements
+			ILexiconGenerator<SingleSentence, LogicalExpression, IModelImmutable<Sentence, LogicalExpression>> {
+		private static final long					serialVersionUID	= 7301573004713637318L;
+		private final Lexicon<LogicalExpression>	lexicon;
+
+		public ConstantGenlex(Lexicon<LogicalExpression> lexicon) {
+			this.lexicon = lexicon;
+		}
+
+		@Override
+		public ILexiconImmutable<LogicalExpression> generate(
+				SingleSentence dataItem,
+				IModelImmutable<Sentence, LogicalExpression> model,
+				ICategoryServices<LogicalExpression> categoryServices) {
+			return lexicon;
+		}
+
+		@Override
+		public void init(IModelImmutable<Sentence, LogicalExpression> model) {
+			// Nothing to initialize.
+		}
+
+		@Override
+		public boolean isGenerated(LexicalEntry<LogicalExpression> entry) {
+			return lexicon.contains(entry);
+		}
+	}
+
+	/**
+	 * Rule features of non-lexical steps, keyed by the number of entries added
+	 * to the model so far. Stands in for feature sets that assign ids to
+	 * entries as they are added (e.g., factored lexicon features).
+	 */
+	private static class LexiconVersionFeatureSet implements
+			ILexicalFeatureSet<Sentence, LogicalExpression> {
+		private static final long	serialVersionUID	= -4263591815498106221L;
+		private int					version				= 0;
+
+		@Override
+		public boolean addEntry(LexicalEntry<LogicalExpression> entry,
+				IHashVector parametersVector) {
+			++version;
+			return false;
+		}
+
+		@Override
+		public Set<KeyArgs> getDefaultFeatures() {
+			return Collections.emptySet();
+		}
+
+		@Override
+		public void setFeatures(IParseStep<LogicalExpression> parseStep,
+				IHashVector feats, Sentence dataItem) {
+			if (!(parseStep instanceof ILexicalParseStep)) {
+				feats.add("RULE", parseStep.getRuleName().toString(),
+						String.valueOf(version), 1.0);
+			}
+		}
+	}
+
+}
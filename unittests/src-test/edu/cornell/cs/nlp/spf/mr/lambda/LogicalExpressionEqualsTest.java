@@ -123,4 +123,28 @@ public class LogicalExpressionEqualsTest {
 		Assert.assertNotEquals(e1, e2);
 	}
 
+	@Test
+	public void test10() {
+		final LogicalExpression e1 = LogicalExpression
+				.read("(lambda $0:e (lambda $1:e (and:<t*,t> (boo:<e,t> $0) (foo:<e,<e,t>> $1 $0) (goo:<e,t> $1))))");
+		final LogicalExpression e2 = LogicalExpression
+				.read("(lambda $0:e (lambda $1:e (and:<t*,t> (goo:<e,t> $1) (boo:<e,t> $0) (foo:<e,<e,t>> $1 $0))))");
+		Assert.assertEquals(e1, e2);
+		Assert.assertEquals(e2, e1);
+	}
+
+	@Test
+	public void test11() {
+		// Arguments with identical hash codes.
+		final LogicalExpression e1 = LogicalExpression
+				.read("(lambda $0:e (lambda $1:e (and:<t*,t> (pred:<e,<e,t>> $0 $1) (pred:<e,<e,t>> $1 $0))))");
+		final LogicalExpression e2 = LogicalExpression
+				.read("(lambda $0:e (lambda $1:e (and:<t*,t> (pred:<e,<e,t>> $1 $0) (pred:<e,<e,t>> $0 $1))))");
+		final LogicalExpression e3 = LogicalExpression
+				.read("(lambda $0:e (lambda $1:e (and:<t*,t> (pred:<e,<e,t>> $0 $1) (pred:<e,<e,t>> $0 $1))))");
+		Assert.assertEquals(e1, e2);
+		Assert.assertNotEquals(e1, e3);
+		Assert.assertNotEquals(e3, e2);
+	}
+
 }
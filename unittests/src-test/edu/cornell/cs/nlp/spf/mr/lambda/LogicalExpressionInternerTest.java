@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.mr.lambda;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+
+public class LogicalExpressionInternerTest {
+
+	public LogicalExpressionInternerTest() {
+		TestServices.init();
+	}
+
+	@Test
+	public void test1() {
+		final LogicalExpressionInterner interner = new LogicalExpressionInterner();
+		final LogicalExpression e1 = interner.intern(LogicalExpression
+				.read("(lambda $0:e (and:<t*,t> (boo:<e,t> $0) (foo:<e,t> $0)))"));
+		final LogicalExpression e2 = interner.intern(LogicalExpression
+				.read("(lambda $1:e (and:<t*,t> (boo:<e,t> $1) (foo:<e,t> $1)))"));
+		Assert.assertSame(e1, e2);
+		Assert.assertTrue(interner.getHitCount() > 0);
+	}
+
+	@Test
+	public void test2() {
+		final LogicalExpressionInterner interner = new LogicalExpressionInterner();
+		final LogicalExpression e1 = interner.intern(LogicalExpression
+				.read("(lambda $0:e (lambda $1:e (pred:<e,<e,t>> $0 $1)))"));
+		final LogicalExpression e2 = interner.intern(LogicalExpression
+				.read("(lambda $0:e (lambda $1:e (pred:<e,<e,t>> $1 $0)))"));
+		Assert.assertNotSame(e1, e2);
+		Assert.assertNotEquals(e1, e2);
+	}
+
+	@Test
+	public void test3() {
+		final LogicalExpressionInterner interner = new LogicalExpressionInterner();
+		final Literal e1 = (Literal) interner.intern(LogicalExpression
+				.read("(pred:<e,<e,t>> (io:<<e,t>,e> (lambda $0:e (boo:<e,t> $0))) boo:e)"));
+		final Lambda e2 = (Lambda) interner.intern(LogicalExpression
+				.read("(lambda $1:e (boo:<e,t> $1))"));
+		Assert.assertSame(((Literal) e1.getArg(0)).getArg(0), e2);
+	}
+
+	@Test
+	public void test4() {
+		final LogicalExpressionInterner interner = new LogicalExpressionInterner();
+		final LogicalExpression exp = LogicalExpression
+				.read("(lambda $0:e (boo:<e,t> $0))");
+		final LogicalExpression body = ((Lambda) exp).getBody();
+		// Expressions with free variables are not interned.
+		Assert.assertSame(body, interner.intern(body));
+	}
+
+	@Test
+	public void test5() {
+		final LogicalExpressionInterner interner = new LogicalExpressionInterner();
+		final LogicalExpression e1 = interner.intern(LogicalExpression
+				.read("(lambda $0:e (and:<t*,t> (boo:<e,t> $0) (foo:<e,t> $0)))"));
+		final LogicalExpression e2 = interner.intern(LogicalExpression
+				.read("(lambda $0:e (and:<t*,t> (foo:<e,t> $0) (boo:<e,t> $0)))"));
+		Assert.assertSame(e1, e2);
+	}
+
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.mr.lambda;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.GetAllPredicates;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.GetConstantsSet;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.GetStructure;
+
+public class LogicalExpressionSummaryTest {
+
+	public LogicalExpressionSummaryTest() {
+		TestServices.init();
+	}
+
+	@Test
+	public void test1() {
+		final LogicalExpression exp = LogicalExpression
+				.read("(lambda $0:e (and:<t*,t> (boo:<e,t> $0) (foo:<e,t> $0) (boo:<e,t> koo:e)))");
+		final LogicalExpressionSummary summary = exp.getSummary();
+		final Set<LogicalConstant> expected = new HashSet<LogicalConstant>();
+		expected.add(LogicLanguageServices.getConjunctionPredicate());
+		expected.add(LogicalConstant.read("boo:<e,t>"));
+		expected.add(LogicalConstant.read("foo:<e,t>"));
+		expected.add(LogicalConstant.read("koo:e"));
+		Assert.assertEquals(expected, summary.getConstants());
+		Assert.assertEquals(expected, GetConstantsSet.of(exp));
+		Assert.assertEquals(4, summary.getDepth());
+		Assert.assertEquals(13, summary.getSize());
+	}
+
+	@Test
+	public void test2() {
+		final Lambda exp = (Lambda) LogicalExpression
+				.read("(lambda $0:e (and:<t*,t> (boo:<e,t> $0) (foo:<e,t> $0)))");
+		final LogicalExpressionSummary summary = exp.getSummary();
+		// Summaries of sub-expressions are cached and shared.
+		Assert.assertSame(summary, exp.getSummary());
+		Assert.assertSame(exp.getBody().getSummary().getConstants(),
+				summary.getConstants());
+		final Literal body = (Literal) exp.getBody();
+		Assert.assertSame(body.getArg(0).getSummary(), body.getArg(0)
+				.getSummary());
+	}
+
+	@Test
+	public void test3() {
+		final LogicalExpression exp = LogicalExpression
+				.read("(lambda $0:e (and:<t*,t> (boo:<e,t> $0) (foo:<e,t> $0)))");
+		final LogicalExpression structure = GetStructure.of(exp);
+		Assert.assertSame(structure, GetStructure.of(exp));
+		Assert.assertEquals(GetStructure.of(exp,
+				GetStructure.DEFAULT_ANONNYMOUS_TAG), structure);
+	}
+
+	@Test
+	public void test4() {
+		final LogicalExpression exp = LogicalExpression
+				.read("(lambda $0:e (and:<t*,t> (boo:<e,t> $0) (foo:<e,t> $0) (boo:<e,t> koo:e)))");
+		final Set<LogicalConstant> expected = new HashSet<LogicalConstant>();
+		expected.add(LogicalConstant.read("boo:<e,t>"));
+		expected.add(LogicalConstant.read("foo:<e,t>"));
+		Assert.assertEquals(expected, GetAllPredicates.of(exp));
+	}
+
+}
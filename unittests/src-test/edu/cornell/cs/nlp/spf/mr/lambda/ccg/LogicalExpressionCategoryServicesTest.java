@@ -680,4 +680,47 @@ public class LogicalExpressionCategoryServicesTest {
 				.read("S[dcl]\\NP\\N[x]/NP : (lambda $0:e (lambda $1:<e,t> (lambda $2:e (lambda $3:e (and:<t*,t> (state-01:<e,t> $3) (c_ARGX:<e,<e,t>> $3 $2) (c_ARGX:<e,<e,t>> $3 (a:<id,<<e,t>,e>> na:id (lambda $4:e (and:<t*,t> (c_REL:<e,<e,t>> $4 (a:<id,<<e,t>,e>> na:id (lambda $5:e (little:<e,t> $5)))) (limit-01:<e,t> $4) (c_ARGX:<e,<e,t>> $4 (a:<id,<<e,t>,e>> na:id (lambda $6:e (and:<t*,t> (c_ARGX-of:<e,<e,t>> $6 (a:<id,<<e,t>,e>> na:id (lambda $7:e (ban-01:<e,t> $7)))) (c_REL:<e,<e,t>> $6 (a:<id,<<e,t>,e>> na:id (lambda $8:e (religious:<e,t> $8)))) ($1 $6) (c_REL:<e,<e,t>> $6 $0) (c_ARGX-of:<e,<e,t>> $6 (a:<id,<<e,t>,e>> na:id (lambda $9:e (and:<t*,t> (clamp-01:<e,t> $9) (c_REL:<e,<e,t>> $9 (a:<id,<<e,t>,e>> na:id (lambda $10:e (extremism:<e,t> $10)))))))) (c_ARGX:<e,<e,t>> $6 (a:<id,<<e,t>,e>> na:id (lambda $11:e (and:<t*,t> (c_REL:<e,<e,t>> $11 (a:<id,<<e,t>,e>> na:id (lambda $12:e (and:<t*,t> (c_op:<e,<txt,t>> $12 Pervez++Musharraf:txt) (name:<e,t> $12))))) (person:<e,t> $11))))))))) (c_ARGX:<e,<e,t>> $4 (a:<id,<<e,t>,e>> na:id (lambda $13:e (demand-01:<e,t> $13)))))))))))))");
 		Assert.assertNotEquals(c1.hashCode(), c2.hashCode());
 	}
+
+	@Test
+	public void memoTest1() {
+		final LogicalExpressionCategoryServices services = new LogicalExpressionCategoryServices(
+				true, 100);
+		final LogicalExpression f = services
+				.readSemantics("(lambda $0:<e,t> (lambda $1:e (and:<t*,t> ($0 $1) (boo:<e,t> $1))))");
+		final LogicalExpression a1 = services
+				.readSemantics("(lambda $0:e (foo:<e,t> $0))");
+		final LogicalExpression a2 = services
+				.readSemantics("(lambda $1:e (foo:<e,t> $1))");
+		final LogicalExpression r1 = services.apply(f, a1);
+		final LogicalExpression r2 = services.apply(f, a2);
+		Assert.assertSame(r1, r2);
+		Assert.assertEquals(TestServices.getCategoryServices().apply(f, a1),
+				r1);
+		Assert.assertEquals(1,
+				services.getApplicationCache().getHitCount());
+	}
+
+	@Test
+	public void memoTest2() {
+		final LogicalExpressionCategoryServices services = new LogicalExpressionCategoryServices(
+				true, 100);
+		final LogicalExpression f = services
+				.readSemantics("(lambda $0:e (lambda $1:e (pred:<e,<e,t>> $0 $1)))");
+		final LogicalExpression g = services
+				.readSemantics("(lambda $0:e (foo:<e,e> $0))");
+		final LogicalExpression t = services.readSemantics("boo:t");
+		Assert.assertNull(services.apply(f, t));
+		Assert.assertNull(services.apply(f, t));
+		Assert.assertEquals(1,
+				services.getApplicationCache().getHitCount());
+		// Application and composition are cached separately.
+		Assert.assertEquals(
+				TestServices.getCategoryServices().compose(f, g, 1),
+				services.compose(f, g, 1));
+		Assert.assertEquals(services.compose(f, g, 1),
+				services.compose(f, g, 1));
+		Assert.assertEquals(3,
+				services.getApplicationCache().getHitCount());
+	}
+
 }
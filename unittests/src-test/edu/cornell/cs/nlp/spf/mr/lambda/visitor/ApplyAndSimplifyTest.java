@@ -16,6 +16,9 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.mr.lambda.visitor;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
@@ -69,6 +72,51 @@ public class ApplyAndSimplifyTest {
 				expected1.equals(r1));
 	}
 
+	@Test
+	public void test12() {
+		final LogicalExpression e1 = LogicalExpression
+				.read("(lambda $0:<e,t> (lambda $1:e (and:<t*,t> ($0 $1) (state:<s,t> $1))))");
+		final LogicalExpression a1 = LogicalExpression
+				.read("(lambda $0:e (state:<s,t> $0))");
+		final LogicalExpression r1 = ApplyAndSimplify.ofTypeChecked(e1, a1);
+		final LogicalExpression expected1 = ApplyAndSimplify.of(e1, a1);
+		assertTrue(String.format("%s != %s", r1, expected1),
+				expected1.equals(r1));
+	}
+
+	@Test
+	public void test13() {
+		final LogicalExpression e1 = LogicalExpression
+				.read("(lambda $0:<e,t> (lambda $1:e (and:<t*,t> ($0 $1) (state:<s,t> $1))))");
+		final LogicalExpression a1 = LogicalExpression
+				.read("(lambda $0:e (city:<c,t> $0))");
+		// Application succeeds, but $1 can't be both a city and a state.
+		final LogicalExpression r1 = ApplyAndSimplify.of(e1, a1);
+		assertNotNull(r1);
+		assertFalse(IsTypeConsistent.of(r1));
+		assertNull(ApplyAndSimplify.ofTypeChecked(e1, a1));
+	}
+
+	@Test
+	public void test14() {
+		final LogicalExpression e1 = LogicalExpression
+				.read("(lambda $0:<e,t> (lambda $1:e (and:<t*,t> ($0 $1) (state:<s,t> $1) false:t)))");
+		final LogicalExpression a1 = LogicalExpression
+				.read("(lambda $0:e (city:<c,t> $0))");
+		// The intermediate conjunction is ill-typed ($1 can't be both a city
+		// and a state), but it simplifies to false, so the result is well
+		// typed.
+		final LogicalExpression r1 = ApplyAndSimplify.of(e1, a1);
+		final LogicalExpression expected1 = LogicalExpression
+				.read("(lambda $0:e false:t)");
+		assertTrue(String.format("%s != %s", r1, expected1),
+				expected1.equals(r1));
+		assertTrue(IsTypeConsistent.of(r1));
+		final LogicalExpression r2 = ApplyAndSimplify.ofTypeChecked(e1, a1);
+		assertTrue(String.format("%s != %s", r2, expected1),
+				expected1.equals(r2));
+	}
+
 	@Test
 	public void test2() {
 		final LogicalExpression e1 = LogicalExpression.read("goo:<<e,t>,t>");
@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.base.token.TokenSeq;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.ILexiconImmutable;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYBinaryParsingRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYParserOutput;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYTestServices;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.single.CKYParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IDataItemModel;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+
+public class BatchParserTest {
+
+	/**
+	 * Sentences of mixed lengths, so sorting by length and packing short
+	 * sentences changes the order they are parsed in.
+	 */
+	private static final String[]							ITEMS	= {
+			"texas", CKYTestServices.SENTENCES[1], "states",
+			CKYTestServices.SENTENCES[0], "what states", "border texas",
+			CKYTestServices.SENTENCES[2], "rivers", "states border texas" };
+
+	private final Model<Sentence, LogicalExpression>		model;
+
+	private final CKYParser<Sentence, LogicalExpression>	parser;
+
+	public BatchParserTest() {
+		TestServices.init();
+		this.model = CKYTestServices.createModel(1, false);
+		final CKYParser.Builder<Sentence, LogicalExpression> builder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : CKYTestServices
+				.createBinaryRules()) {
+			builder.addParseRule(rule);
+		}
+		this.parser = builder.setMaxNumberOfCellsInSpan(1000).build();
+	}
+
+	private static List<Sentence> createItems() {
+		final List<Sentence> items = new ArrayList<Sentence>();
+		for (final String item : ITEMS) {
+			items.add(new Sentence(item));
+		}
+		return items;
+	}
+
+	/**
+	 * Outputs are returned in the order of the input, each the same as
+	 * parsing its item alone.
+	 */
+	@Test
+	public void test1() {
+		final BatchParser<Sentence, LogicalExpression> batchParser = new BatchParser.Builder<Sentence, LogicalExpression>(
+				parser).setNumThreads(4).setMaxPackedLength(2).setPackSize(3)
+						.build();
+		try {
+			final List<Sentence> items = createItems();
+			final List<IParserOutput<LogicalExpression>> outputs = batchParser
+					.parse(items, item -> model.createDataItemModel(item));
+			Assert.assertEquals(items.size(), outputs.size());
+			for (int i = 0; i < items.size(); ++i) {
+				CKYTestServices.assertSameOutput(
+						parser.parse(items.get(i),
+								model.createDataItemModel(items.get(i))),
+						(CKYParserOutput<LogicalExpression>) outputs.get(i));
+			}
+		} finally {
+			batchParser.shutdownNow();
+		}
+	}
+
+	/**
+	 * The callback is called once for each item, with the item's index and
+	 * output. Values are checked after the batch, since the callback runs in
+	 * the worker threads.
+	 */
+	@Test
+	public void test2() {
+		final BatchParser<Sentence, LogicalExpression> batchParser = new BatchParser.Builder<Sentence, LogicalExpression>(
+				parser).setNumThreads(4).setMaxPackedLength(2).setPackSize(3)
+						.build();
+		try {
+			final List<Sentence> items = createItems();
+			final List<Integer> indices = Collections
+					.synchronizedList(new ArrayList<Integer>());
+			final Map<Integer, Sentence> callbackItems = new ConcurrentHashMap<Integer, Sentence>();
+			final Map<Integer, TokenSeq> outputTokens = new ConcurrentHashMap<Integer, TokenSeq>();
+			batchParser.parse(items, item -> model.createDataItemModel(item),
+					(index, item, itemModel, output) -> {
+						indices.add(index);
+						callbackItems.put(index, item);
+						outputTokens.put(index,
+								((CKYParserOutput<LogicalExpression>) output)
+										.getChart().getTokens());
+					});
+			Collections.sort(indices);
+			Assert.assertEquals(items.size(), indices.size());
+			for (int i = 0; i < items.size(); ++i) {
+				Assert.assertEquals(i, indices.get(i).intValue());
+				Assert.assertSame(items.get(i), callbackItems.get(i));
+				Assert.assertEquals(items.get(i).getTokens(),
+						outputTokens.get(i));
+			}
+		} finally {
+			batchParser.shutdownNow();
+		}
+	}
+
+	/**
+	 * A failed item fails the batch with the first failure as the cause and
+	 * the others suppressed. All other items are still parsed.
+	 */
+	@Test
+	public void test3() {
+		final BatchParser<Sentence, LogicalExpression> batchParser = new BatchParser.Builder<Sentence, LogicalExpression>(
+				new FailingParser(parser, "texas")).setNumThreads(4)
+						.setMaxPackedLength(2).setPackSize(3).build();
+		try {
+			final List<Sentence> items = createItems();
+			final Set<Integer> indices = ConcurrentHashMap.newKeySet();
+			try {
+				batchParser.parse(items,
+						item -> model.createDataItemModel(item),
+						(index, item, itemModel, output) -> indices
+								.add(index));
+				Assert.fail("Batch didn't fail");
+			} catch (final IllegalStateException e) {
+				Assert.assertTrue(e.getCause() instanceof FailureException);
+				final int numFailed = (int) items.stream()
+						.filter(item -> item.getTokens().toList()
+								.contains("texas"))
+						.count();
+				Assert.assertEquals(numFailed - 1,
+						e.getCause().getSuppressed().length);
+				Assert.assertEquals(items.size() - numFailed, indices.size());
+				for (int i = 0; i < items.size(); ++i) {
+					Assert.assertEquals(
+							!items.get(i).getTokens().toList()
+									.contains("texas"),
+							indices.contains(i));
+				}
+			}
+		} finally {
+			batchParser.shutdownNow();
+		}
+	}
+
+	/**
+	 * A failed callback is not a parsing failure. The batch re-throws the
+	 * callback's exception as is, after the callbacks of all other items are
+	 * called.
+	 */
+	@Test
+	public void test4() {
+		final BatchParser<Sentence, LogicalExpression> batchParser = new BatchParser.Builder<Sentence, LogicalExpression>(
+				parser).setNumThreads(4).setMaxPackedLength(2).setPackSize(3)
+						.build();
+		try {
+			final List<Sentence> items = createItems();
+			final Set<Integer> indices = ConcurrentHashMap.newKeySet();
+			try {
+				batchParser.parse(items,
+						item -> model.createDataItemModel(item),
+						(index, item, itemModel, output) -> {
+							indices.add(index);
+							if (item.getTokens().toList().contains("texas")) {
+								throw new FailureException();
+							}
+						});
+				Assert.fail("Batch didn't fail");
+			} catch (final FailureException e) {
+				final int numFailed = (int) items.stream()
+						.filter(item -> item.getTokens().toList()
+								.contains("texas"))
+						.count();
+				Assert.assertEquals(numFailed - 1, e.getSuppressed().length);
+				Assert.assertEquals(items.size(), indices.size());
+			}
+		} finally {
+			batchParser.shutdownNow();
+		}
+	}
+
+	/**
+	 * Fails to parse every sentence that contains a given token.
+	 */
+	private static class FailingParser
+			implements IParser<Sentence, LogicalExpression> {
+		private static final long							serialVersionUID	= -3017467012624519442L;
+		private final IParser<Sentence, LogicalExpression>	parser;
+		private final String								token;
+
+		public FailingParser(IParser<Sentence, LogicalExpression> parser,
+				String token) {
+			this.parser = parser;
+			this.token = token;
+		}
+
+		@Override
+		public IParserOutput<LogicalExpression> parse(Sentence dataItem,
+				Predicate<ParsingOp<LogicalExpression>> filter,
+				IDataItemModel<LogicalExpression> model,
+				boolean allowWordSkipping,
+				ILexiconImmutable<LogicalExpression> tempLexicon,
+				Integer beamSize) {
+			if (dataItem.getTokens().toList().contains(token)) {
+				throw new FailureException();
+			}
+			return parser.parse(dataItem, filter, model, allowWordSkipping,
+					tempLexicon, beamSize);
+		}
+	}
+
+	private static class FailureException extends RuntimeException {
+		private static final long serialVersionUID = 5196460733541209773L;
+	}
+
+}
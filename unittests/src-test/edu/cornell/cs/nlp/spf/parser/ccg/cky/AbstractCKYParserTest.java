@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.ccg.categories.Category;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.agenda.AgendaCKYParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Cell;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.CellFactory;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Chart;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.single.CKYParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IDataItemModel;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.ParseRuleResult;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.SentenceSpan;
+
+public class AbstractCKYParserTest {
+
+	public AbstractCKYParserTest() {
+		TestServices.init();
+	}
+
+	/**
+	 * The per-cell binary processing used by the agenda parser only tries the
+	 * rules the index returns for each pair of syntactic categories. It must
+	 * create the same categories as trying all rules on all pairs of cells.
+	 */
+	@Test
+	public void test1() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(1, false);
+		final List<CKYBinaryParsingRule<LogicalExpression>> rules = CKYTestServices
+				.createBinaryRules();
+		final CKYParser.Builder<Sentence, LogicalExpression> builder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		final AgendaCKYParser.Builder<Sentence, LogicalExpression> agendaBuilder = new AgendaCKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : rules) {
+			builder.addParseRule(rule);
+			agendaBuilder.addParseRule(rule);
+		}
+		final AbstractCKYParser<Sentence, LogicalExpression> agendaParser = agendaBuilder
+				.build();
+
+		final Sentence sentence = new Sentence(CKYTestServices.SENTENCES[1]);
+		final IDataItemModel<LogicalExpression> dataItemModel = model
+				.createDataItemModel(sentence);
+		final Chart<LogicalExpression> chart = builder
+				.setMaxNumberOfCellsInSpan(1000).build()
+				.parse(sentence, dataItemModel).getChart();
+		final int length = chart.getSentenceLength();
+
+		int numCompared = 0;
+		for (final Cell<LogicalExpression> cell : chart) {
+			for (int otherEnd = cell.getEnd() + 1; otherEnd < length; ++otherEnd) {
+				final SentenceSpan span = new SentenceSpan(cell.getStart(),
+						otherEnd, length);
+				final Set<Category<LogicalExpression>> expected = new HashSet<Category<LogicalExpression>>();
+				for (final Cell<LogicalExpression> other : chart
+						.getSpanIterable(cell.getEnd() + 1, otherEnd)) {
+					for (final CKYBinaryParsingRule<LogicalExpression> rule : rules) {
+						final ParseRuleResult<LogicalExpression> result = rule
+								.apply(cell, other, span);
+						if (result != null
+								&& result.getResultCategory().getSemantics() != null) {
+							expected.add(result.getResultCategory());
+						}
+					}
+				}
+				final Set<Category<LogicalExpression>> actual = new HashSet<Category<LogicalExpression>>();
+				for (final Cell<LogicalExpression> newCell : agendaParser
+						.binaryProcessCell(cell, cell.getEnd() + 1, otherEnd,
+								true, length, chart,
+								new CellFactory<LogicalExpression>(length),
+								null, dataItemModel)) {
+					actual.add(newCell.getCategory());
+				}
+				Assert.assertEquals(expected, actual);
+				numCompared += expected.size();
+			}
+		}
+		Assert.assertTrue(numCompared > 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test2() {
+		final AgendaCKYParser.Builder<Sentence, LogicalExpression> builder = new AgendaCKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : CKYTestServices
+				.createBinaryRules()) {
+			builder.addParseRule(rule);
+		}
+		final Sentence sentence = new Sentence(CKYTestServices.SENTENCES[0]);
+		final IDataItemModel<LogicalExpression> dataItemModel = CKYTestServices
+				.createModel(1, false).createDataItemModel(sentence);
+		final CKYParserOutput<LogicalExpression> output = builder.build()
+				.parse(sentence, dataItemModel);
+		final Cell<LogicalExpression> cell = output.getChart().iterator()
+				.next();
+		// The span must be adjacent to the cell.
+		builder.build().binaryProcessCell(cell, cell.getEnd() + 2,
+				cell.getEnd() + 2, true, 4, output.getChart(),
+				new CellFactory<LogicalExpression>(4), null, dataItemModel);
+	}
+
+}
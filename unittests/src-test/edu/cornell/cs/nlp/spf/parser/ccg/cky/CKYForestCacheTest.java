@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ISentenceLexiconGenerator;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.single.CKYParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+
+public class CKYForestCacheTest {
+
+	public CKYForestCacheTest() {
+		TestServices.init();
+	}
+
+	private static CKYParser<Sentence, LogicalExpression> createParser(
+			CKYForestCache<LogicalExpression> forestCache,
+			ISentenceLexiconGenerator<Sentence, LogicalExpression> generator) {
+		final CKYParser.Builder<Sentence, LogicalExpression> builder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : CKYTestServices
+				.createBinaryRules()) {
+			builder.addParseRule(rule);
+		}
+		if (forestCache != null) {
+			builder.setForestCache(forestCache);
+		}
+		if (generator != null) {
+			builder.addSentenceLexicalGenerator(generator);
+		}
+		return builder.setMaxNumberOfCellsInSpan(1000).build();
+	}
+
+	/**
+	 * Re-scoring a stored chart after the weights change gives the same output
+	 * as parsing with the new weights.
+	 */
+	@Test
+	public void test1() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(1, false);
+		final CKYForestCache<LogicalExpression> cache = new CKYForestCache<LogicalExpression>(
+				100);
+		final CKYParser<Sentence, LogicalExpression> cachedParser = createParser(
+				cache, null);
+		final CKYParser<Sentence, LogicalExpression> parser = createParser(
+				null, null);
+		for (final String string : CKYTestServices.SENTENCES) {
+			final Sentence sentence = new Sentence(string);
+			final CKYParserOutput<LogicalExpression> first = cachedParser
+					.parse(sentence, model.createDataItemModel(sentence));
+			Assert.assertTrue(first.isExact());
+			final CKYParserOutput<LogicalExpression> expectedFirst = parser
+					.parse(sentence, model.createDataItemModel(sentence));
+			CKYTestServices.assertSameOutput(expectedFirst, first);
+		}
+		Assert.assertEquals(CKYTestServices.SENTENCES.length, cache.size());
+		Assert.assertEquals(0, cache.getHitCount());
+
+		// Change the weights, so the best parses change.
+		model.getTheta().applyFunction(value -> 0.5 - value);
+
+		for (final String string : CKYTestServices.SENTENCES) {
+			final Sentence sentence = new Sentence(string);
+			final CKYParserOutput<LogicalExpression> expected = parser
+					.parse(sentence, model.createDataItemModel(sentence));
+			final CKYParserOutput<LogicalExpression> actual = cachedParser
+					.parse(sentence, model.createDataItemModel(sentence));
+			CKYTestServices.assertSameOutput(expected, actual);
+		}
+		Assert.assertEquals(CKYTestServices.SENTENCES.length,
+				cache.getHitCount());
+	}
+
+	/**
+	 * The output that stored a chart keeps its scores when the chart is
+	 * re-scored, and can still be used after it.
+	 */
+	@Test
+	public void test2() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(2, false);
+		final CKYForestCache<LogicalExpression> cache = new CKYForestCache<LogicalExpression>(
+				100);
+		final CKYParser<Sentence, LogicalExpression> cachedParser = createParser(
+				cache, null);
+		final CKYParser<Sentence, LogicalExpression> parser = createParser(
+				null, null);
+		final Sentence sentence = new Sentence(CKYTestServices.SENTENCES[0]);
+		final CKYParserOutput<LogicalExpression> first = cachedParser
+				.parse(sentence, model.createDataItemModel(sentence));
+		Assert.assertFalse(first.getBestDerivations().isEmpty());
+		final double bestScore = first.getBestDerivations().get(0).getScore();
+
+		model.getTheta().applyFunction(value -> 0.5 - value);
+		final CKYParserOutput<LogicalExpression> second = cachedParser
+				.parse(sentence, model.createDataItemModel(sentence));
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertNotSame(first.getChart(), second.getChart());
+
+		// The first output is identical to parsing with the old weights.
+		Assert.assertEquals(bestScore,
+				first.getBestDerivations().get(0).getScore(), 0.0);
+		model.getTheta().applyFunction(value -> 0.5 - value);
+		CKYTestServices.assertSameOutput(
+				parser.parse(sentence, model.createDataItemModel(sentence)),
+				first);
+	}
+
+	/**
+	 * A chart is stale once the model lexicon grows, or when the model uses
+	 * another lexicon of the same size.
+	 */
+	@Test
+	public void test3() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(3, false);
+		final CKYForestCache<LogicalExpression> cache = new CKYForestCache<LogicalExpression>(
+				100);
+		final CKYParser<Sentence, LogicalExpression> cachedParser = createParser(
+				cache, null);
+		final CKYParser<Sentence, LogicalExpression> parser = createParser(
+				null, null);
+		final Sentence sentence = new Sentence(CKYTestServices.SENTENCES[0]);
+		cachedParser.parse(sentence, model.createDataItemModel(sentence));
+
+		// Another model with an equal lexicon.
+		final Model<Sentence, LogicalExpression> otherModel = CKYTestServices
+				.createModel(3, false);
+		Assert.assertEquals(model.getLexicon().size(),
+				otherModel.getLexicon().size());
+		cachedParser.parse(sentence, otherModel.createDataItemModel(sentence));
+		Assert.assertEquals(0, cache.getHitCount());
+		Assert.assertEquals(1, cache.getStaleCount());
+
+		// The model lexicon grows.
+		cachedParser.parse(sentence, model.createDataItemModel(sentence));
+		Assert.assertEquals(2, cache.getStaleCount());
+		model.addLexEntry(CKYTestServices
+				.createEntry("texas :- N : state:<s,t>"));
+		final CKYParserOutput<LogicalExpression> actual = cachedParser
+				.parse(sentence, model.createDataItemModel(sentence));
+		Assert.assertEquals(3, cache.getStaleCount());
+		Assert.assertEquals(0, cache.getHitCount());
+		CKYTestServices.assertSameOutput(
+				parser.parse(sentence, model.createDataItemModel(sentence)),
+				actual);
+
+		// Re-parsing with the same lexicon hits.
+		cachedParser.parse(sentence, model.createDataItemModel(sentence));
+		Assert.assertEquals(1, cache.getHitCount());
+	}
+
+	/**
+	 * Charts are keyed by the generated entries of the sentence, in addition
+	 * to its tokens.
+	 */
+	@Test
+	public void test4() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(4, false);
+		final Set<LexicalEntry<LogicalExpression>> generated = new HashSet<LexicalEntry<LogicalExpression>>();
+		final ISentenceLexiconGenerator<Sentence, LogicalExpression> generator = sentence -> Collections
+				.unmodifiableSet(
+						new HashSet<LexicalEntry<LogicalExpression>>(generated));
+		final CKYForestCache<LogicalExpression> cache = new CKYForestCache<LogicalExpression>(
+				100);
+		final CKYParser<Sentence, LogicalExpression> cachedParser = createParser(
+				cache, generator);
+		final CKYParser<Sentence, LogicalExpression> parser = createParser(
+				null, generator);
+		final Sentence sentence = new Sentence(CKYTestServices.SENTENCES[0]);
+		cachedParser.parse(sentence, model.createDataItemModel(sentence));
+
+		generated.add(CKYTestServices
+				.createEntry("texas :- N : state:<s,t>"));
+		final CKYParserOutput<LogicalExpression> actual = cachedParser
+				.parse(sentence, model.createDataItemModel(sentence));
+		Assert.assertEquals(0, cache.getHitCount());
+		Assert.assertEquals(2, cache.size());
+		CKYTestServices.assertSameOutput(
+				parser.parse(sentence, model.createDataItemModel(sentence)),
+				actual);
+
+		// The same generated entries hit.
+		cachedParser.parse(sentence, model.createDataItemModel(sentence));
+		Assert.assertEquals(1, cache.getHitCount());
+	}
+
+}
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.single.CKYParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+
+public class CKYKBestIteratorTest {
+
+	public CKYKBestIteratorTest() {
+		TestServices.init();
+	}
+
+	/**
+	 * Iterate over all the trees of the output and compare them to the
+	 * packed chart: the first tree is the viterbi parse, the scores don't
+	 * increase, the number of trees is the number of parses, and the trees
+	 * sum to the normalization constant.
+	 */
+	private static void assertAllTrees(
+			CKYParserOutput<LogicalExpression> output) {
+		final List<CKYTreeDerivation<LogicalExpression>> trees = new ArrayList<CKYTreeDerivation<LogicalExpression>>();
+		final Iterator<CKYTreeDerivation<LogicalExpression>> iterator = output
+				.getDerivationTreeIterator();
+		while (iterator.hasNext()) {
+			trees.add(iterator.next());
+		}
+		try {
+			iterator.next();
+			Assert.fail("Expected an exhausted iterator");
+		} catch (final NoSuchElementException e) {
+			// Expected.
+		}
+
+		long numParses = 0;
+		for (final CKYDerivation<LogicalExpression> parse : output
+				.getAllDerivations()) {
+			numParses += parse.numParses();
+		}
+		Assert.assertEquals(numParses, trees.size());
+
+		if (trees.isEmpty()) {
+			Assert.assertTrue(output.getBestDerivations().isEmpty());
+			return;
+		}
+
+		final List<CKYDerivation<LogicalExpression>> best = output
+				.getBestDerivations();
+		Assert.assertFalse(best.isEmpty());
+		Assert.assertEquals(best.get(0).getScore(), trees.get(0).getScore(),
+				1e-9);
+		boolean found = false;
+		for (final CKYDerivation<LogicalExpression> derivation : best) {
+			found |= derivation.getSemantics()
+					.equals(trees.get(0).getSemantics());
+		}
+		Assert.assertTrue(found);
+
+		double max = Double.NEGATIVE_INFINITY;
+		for (final CKYTreeDerivation<LogicalExpression> tree : trees) {
+			max = Math.max(max, tree.getScore());
+		}
+		double sum = 0.0;
+		for (int i = 0; i < trees.size(); ++i) {
+			if (i > 0) {
+				Assert.assertTrue(trees.get(i).getScore() <= trees.get(i - 1)
+						.getScore() + 1e-9);
+			}
+			sum += Math.exp(trees.get(i).getScore() - max);
+		}
+		Assert.assertEquals(output.logNorm(), max + Math.log(sum), 1e-6);
+
+		// The k-best list is a prefix of the iteration.
+		final List<CKYTreeDerivation<LogicalExpression>> kBest = output
+				.getKBestDerivationTrees(3);
+		Assert.assertEquals(Math.min(3, trees.size()), kBest.size());
+		for (int i = 0; i < kBest.size(); ++i) {
+			Assert.assertEquals(trees.get(i).getScore(),
+					kBest.get(i).getScore(), 1e-9);
+		}
+	}
+
+	private static CKYParser<Sentence, LogicalExpression> createParser() {
+		final CKYParser.Builder<Sentence, LogicalExpression> builder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : CKYTestServices
+				.createBinaryRules()) {
+			builder.addParseRule(rule);
+		}
+		return builder.setMaxNumberOfCellsInSpan(1000).build();
+	}
+
+	@Test
+	public void test1() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(1, false);
+		final CKYParser<Sentence, LogicalExpression> parser = createParser();
+		for (final String string : CKYTestServices.SENTENCES) {
+			final Sentence sentence = new Sentence(string);
+			assertAllTrees(
+					parser.parse(sentence, model.createDataItemModel(sentence)));
+		}
+	}
+
+	/**
+	 * A lexicon with many entries for each token, so there are many complete
+	 * parses and each may pack several trees.
+	 */
+	@Test
+	public void test2() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(2, false, CKYTestServices.createWideLexicon(5));
+		final CKYParser<Sentence, LogicalExpression> parser = createParser();
+		for (final String string : CKYTestServices.WIDE_SENTENCES) {
+			final Sentence sentence = new Sentence(string);
+			final CKYParserOutput<LogicalExpression> output = parser
+					.parse(sentence, model.createDataItemModel(sentence));
+			assertAllTrees(output);
+		}
+
+		// Each complete parse of "big big things" packs several trees.
+		final Sentence sentence = new Sentence(
+				CKYTestServices.WIDE_SENTENCES[1]);
+		for (final CKYDerivation<LogicalExpression> parse : parser
+				.parse(sentence, model.createDataItemModel(sentence))
+				.getAllDerivations()) {
+			Assert.assertTrue(parse.numParses() > 1);
+		}
+	}
+
+}
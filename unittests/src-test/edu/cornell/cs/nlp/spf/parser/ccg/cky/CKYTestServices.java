@@ -0,0 +1,292 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector;
+import edu.cornell.cs.nlp.spf.base.hashvector.KeyArgs;
+import edu.cornell.cs.nlp.spf.base.token.TokenSeq;
+import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.Lexicon;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Cell;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.CellFactory;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Chart;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.steps.CKYLexicalStep;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.steps.WeightedCKYLexicalStep;
+import edu.cornell.cs.nlp.spf.parser.ccg.features.basic.LexicalFeatureSet;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IDataItemModel;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.parse.IParseFeatureSet;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.IBinaryParseRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.primitivebinary.application.BackwardApplication;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.primitivebinary.application.ForwardApplication;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.primitivebinary.composition.BackwardComposition;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.primitivebinary.composition.ForwardComposition;
+import edu.cornell.cs.nlp.utils.composites.Pair;
+
+/**
+ * Shared fixtures for CKY parser tests: a small GeoQuery lexicon, a model with
+ * fixed pseudo-random weights, and the binary rules to parse with.
+ */
+public class CKYTestServices {
+
+	public static final String[]	LEXICON			= {
+			"what :- S/N : (lambda $0:<e,t> $0)",
+			"what :- S/(S\\NP)/N : (lambda $0:<e,t> (lambda $1:<e,t> (lambda $2:e (and:<t*,t> ($0 $2) ($1 $2)))))",
+			"states :- N : state:<s,t>",
+			"states :- NP : (lambda $0:e (state:<s,t> $0))",
+			"border :- S\\NP/NP : (lambda $0:e (lambda $1:e (next_to:<lo,<lo,t>> $1 $0)))",
+			"border :- N\\N/NP : (lambda $0:e (lambda $1:<e,t> (lambda $2:e (and:<t*,t> ($1 $2) (next_to:<lo,<lo,t>> $2 $0)))))",
+			"texas :- NP : texas:s",
+			"texas :- N/N : (lambda $0:<e,t> (lambda $1:e (and:<t*,t> ($0 $1) (loc:<lo,<lo,t>> $1 texas:s))))",
+			"rivers :- N : river:<r,t>",
+			"major :- N/N : (lambda $0:<e,t> (lambda $1:e (and:<t*,t> (major:<lo,t> $1) ($0 $1))))",
+			"in :- N\\N/NP : (lambda $0:e (lambda $1:<e,t> (lambda $2:e (and:<t*,t> ($1 $2) (loc:<lo,<lo,t>> $2 $0)))))",
+			"in :- S\\NP/NP : (lambda $0:e (lambda $1:e (loc:<lo,<lo,t>> $1 $0)))",
+			"the :- NP/N : (lambda $0:<e,t> (a:<<e,t>,e> $0))",
+			"the :- N/N : (lambda $0:<e,t> $0)" };
+
+	public static final String[]	SENTENCES		= {
+			"what states border texas",
+			"what major rivers in texas border the states in texas",
+			"what major major rivers in the texas border the major states in the texas border texas" };
+
+	/**
+	 * Sentences for the lexicon created by {@link #createWideLexicon(int)}.
+	 */
+	public static final String[]	WIDE_SENTENCES	= { "big things",
+			"big big things" };
+
+	private CKYTestServices() {
+		// Service class.
+	}
+
+	/**
+	 * Assert two outputs are the same: same complete parses, best parses,
+	 * normalization constant and expected features.
+	 */
+	public static void assertSameOutput(CKYParserOutput<LogicalExpression> expected,
+			CKYParserOutput<LogicalExpression> actual) {
+		Assert.assertEquals(semantics(expected.getAllDerivations()),
+				semantics(actual.getAllDerivations()));
+		Assert.assertEquals(semantics(expected.getBestDerivations()),
+				semantics(actual.getBestDerivations()));
+		if (!expected.getBestDerivations().isEmpty()) {
+			Assert.assertEquals(expected.getBestDerivations().get(0)
+					.getScore(), actual.getBestDerivations().get(0)
+					.getScore(), 1e-9);
+			Assert.assertEquals(expected.logNorm(), actual.logNorm(), 1e-9);
+			assertSameVector(expected.logExpectedFeatures(),
+					actual.logExpectedFeatures());
+		}
+	}
+
+	public static void assertSameVector(IHashVector expected,
+			IHashVector actual) {
+		Assert.assertEquals(expected.size(), actual.size());
+		expected.iterate((key, value) -> Assert.assertEquals(key.toString(),
+				value, actual.get(key), 1e-9));
+	}
+
+	/**
+	 * Assert the output of a parse with a deadline that passed before any
+	 * multi-token span was processed: the output is not exact, and the best
+	 * partial derivations are the max-scoring cells of single tokens. Every
+	 * token of the sentence must have lexical entries.
+	 */
+	public static void assertTokenPartialDerivations(
+			CKYParserOutput<LogicalExpression> output) {
+		Assert.assertFalse(output.isExact());
+		Assert.assertTrue(output.getAllDerivations().isEmpty());
+		final Chart<LogicalExpression> chart = output.getChart();
+		double maxScore = -Double.MAX_VALUE;
+		for (int i = 0; i < chart.getSentenceLength(); ++i) {
+			Assert.assertTrue(chart.spanSize(i, i) > 0);
+			for (final Cell<LogicalExpression> cell : chart.getSpanIterable(i,
+					i)) {
+				maxScore = Math.max(maxScore, cell.getViterbiScore());
+			}
+		}
+		final List<CKYDerivation<LogicalExpression>> partial = output
+				.getBestPartialDerivations();
+		Assert.assertFalse(partial.isEmpty());
+		for (final CKYDerivation<LogicalExpression> derivation : partial) {
+			Assert.assertEquals(derivation.getCell().getStart(),
+					derivation.getCell().getEnd());
+			Assert.assertEquals(maxScore, derivation.getScore(), 0.0);
+		}
+	}
+
+	public static List<CKYBinaryParsingRule<LogicalExpression>> createBinaryRules() {
+		final List<CKYBinaryParsingRule<LogicalExpression>> rules = new ArrayList<CKYBinaryParsingRule<LogicalExpression>>();
+		for (final IBinaryParseRule<LogicalExpression> rule : createPrimitiveBinaryRules()) {
+			rules.add(new CKYBinaryParsingRule<LogicalExpression>(rule));
+		}
+		return rules;
+	}
+
+	public static LexicalEntry<LogicalExpression> createEntry(String line) {
+		final String[] split = line.split(" :- ", 2);
+		return new LexicalEntry<LogicalExpression>(TokenSeq.of(split[0]
+				.split(" ")), TestServices.getCategoryServices().read(
+				split[1]), false, new HashMap<String, String>());
+	}
+
+	/**
+	 * Create a lexical cell for every entry of the model for the given token,
+	 * scored by the model.
+	 */
+	public static List<Cell<LogicalExpression>> createLexicalCells(
+			Model<Sentence, LogicalExpression> model, String token) {
+		final IDataItemModel<LogicalExpression> dataItemModel = model
+				.createDataItemModel(new Sentence(token));
+		final CellFactory<LogicalExpression> cellFactory = new CellFactory<LogicalExpression>(
+				1);
+		final List<Cell<LogicalExpression>> cells = new ArrayList<Cell<LogicalExpression>>();
+		final Iterator<? extends LexicalEntry<LogicalExpression>> iterator = model
+				.getLexicon().get(TokenSeq.of(token));
+		while (iterator.hasNext()) {
+			cells.add(cellFactory
+					.create(new WeightedCKYLexicalStep<LogicalExpression>(
+							new CKYLexicalStep<LogicalExpression>(
+									iterator.next(), true, 0, 0),
+							dataItemModel)));
+		}
+		return cells;
+	}
+
+	public static Lexicon<LogicalExpression> createLexicon() {
+		final Lexicon<LogicalExpression> lexicon = new Lexicon<LogicalExpression>();
+		for (final String line : LEXICON) {
+			lexicon.add(createEntry(line));
+		}
+		return lexicon;
+	}
+
+	/**
+	 * Create a model with a lexical feature set and the test lexicon. All
+	 * weights are drawn from a fixed seed.
+	 *
+	 * @param nonPositive
+	 *            Use only non-positive weights.
+	 */
+	public static Model<Sentence, LogicalExpression> createModel(long seed,
+			boolean nonPositive) {
+		return createModel(seed, nonPositive, createLexicon());
+	}
+
+	/**
+	 * Create a model with a lexical feature set and the given lexicon. All
+	 * weights are drawn from a fixed seed.
+	 *
+	 * @param nonPositive
+	 *            Use only non-positive weights.
+	 */
+	public static Model<Sentence, LogicalExpression> createModel(long seed,
+			boolean nonPositive, Lexicon<LogicalExpression> lexicon) {
+		return createModel(seed, nonPositive, lexicon,
+				Collections.<IParseFeatureSet<Sentence, LogicalExpression>> emptyList());
+	}
+
+	/**
+	 * Create a model with a lexical feature set, the given additional feature
+	 * sets and the given lexicon. All weights are drawn from a fixed seed.
+	 *
+	 * @param nonPositive
+	 *            Use only non-positive weights.
+	 */
+	public static Model<Sentence, LogicalExpression> createModel(long seed,
+			boolean nonPositive, Lexicon<LogicalExpression> lexicon,
+			List<IParseFeatureSet<Sentence, LogicalExpression>> featureSets) {
+		final Model.Builder<Sentence, LogicalExpression> builder = new Model.Builder<Sentence, LogicalExpression>()
+				.setLexicon(new Lexicon<LogicalExpression>())
+				.addFeatureSet(
+						new LexicalFeatureSet.Builder<Sentence, LogicalExpression>()
+								.build());
+		for (final IParseFeatureSet<Sentence, LogicalExpression> featureSet : featureSets) {
+			builder.addFeatureSet(featureSet);
+		}
+		final Model<Sentence, LogicalExpression> model = builder.build();
+		model.addLexEntries(lexicon.toCollection());
+		final List<KeyArgs> keys = new ArrayList<KeyArgs>();
+		for (final Pair<KeyArgs, Double> entry : model.getTheta()) {
+			keys.add(entry.first());
+		}
+		keys.sort(Comparator.comparing(KeyArgs::toString));
+		final Random random = new Random(seed);
+		for (final KeyArgs key : keys) {
+			final double weight = random.nextGaussian();
+			model.getTheta().set(key, nonPositive ? -Math.abs(weight) : weight);
+		}
+		return model;
+	}
+
+	/**
+	 * Create a lexicon where each word in {@link #WIDE_SENTENCES} has the given
+	 * number of entries, so every span has many cells.
+	 */
+	public static Lexicon<LogicalExpression> createWideLexicon(int width) {
+		final Lexicon<LogicalExpression> lexicon = new Lexicon<LogicalExpression>();
+		for (int i = 0; i < width; ++i) {
+			lexicon.add(createEntry("big :- N/N : (lambda $0:<e,t> (lambda $1:e (and:<t*,t> ($0 $1) (big"
+					+ i + ":<e,t> $1))))"));
+			lexicon.add(createEntry("things :- N : thing" + i + ":<e,t>"));
+		}
+		return lexicon;
+	}
+
+	/**
+	 * Application and first order composition.
+	 */
+	public static List<IBinaryParseRule<LogicalExpression>> createPrimitiveBinaryRules() {
+		final ICategoryServices<LogicalExpression> categoryServices = TestServices
+				.getCategoryServices();
+		final List<IBinaryParseRule<LogicalExpression>> rules = new ArrayList<IBinaryParseRule<LogicalExpression>>();
+		rules.add(new ForwardApplication<LogicalExpression>(categoryServices));
+		rules.add(new BackwardApplication<LogicalExpression>(categoryServices));
+		rules.add(new ForwardComposition<LogicalExpression>(categoryServices,
+				1, false));
+		rules.add(new BackwardComposition<LogicalExpression>(
+				categoryServices, 1, false));
+		return rules;
+	}
+
+	public static Set<LogicalExpression> semantics(
+			List<CKYDerivation<LogicalExpression>> derivations) {
+		final Set<LogicalExpression> semantics = new HashSet<LogicalExpression>();
+		for (final CKYDerivation<LogicalExpression> derivation : derivations) {
+			semantics.add(derivation.getSemantics());
+		}
+		return semantics;
+	}
+
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.base.token.TokenSeq;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.single.CKYParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+
+public class IncrementalCKYSessionTest {
+
+	public IncrementalCKYSessionTest() {
+		TestServices.init();
+	}
+
+	private static CKYParser<Sentence, LogicalExpression> createParser(
+			int beamSize) {
+		final CKYParser.Builder<Sentence, LogicalExpression> builder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : CKYTestServices
+				.createBinaryRules()) {
+			builder.addParseRule(rule);
+		}
+		return builder.setMaxNumberOfCellsInSpan(beamSize).build();
+	}
+
+	/**
+	 * After each token, the output of the session is the same as parsing the
+	 * prefix from scratch.
+	 */
+	@Test
+	public void test1() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(1, false);
+		final CKYParser<Sentence, LogicalExpression> parser = createParser(1000);
+		for (final String string : CKYTestServices.SENTENCES) {
+			assertSamePrefixOutputs(parser, model, new Sentence(string));
+		}
+	}
+
+	/**
+	 * Same as {@link #test1()}, with a beam small enough to prune spans.
+	 */
+	@Test
+	public void test2() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(2, false);
+		final CKYParser<Sentence, LogicalExpression> parser = createParser(3);
+		for (final String string : CKYTestServices.SENTENCES) {
+			assertSamePrefixOutputs(parser, model, new Sentence(string));
+		}
+	}
+
+	private void assertSamePrefixOutputs(
+			CKYParser<Sentence, LogicalExpression> parser,
+			Model<Sentence, LogicalExpression> model, Sentence sentence) {
+		final IncrementalCKYSession<LogicalExpression> session = parser
+				.createIncrementalSession(model.createDataItemModel(sentence));
+		Assert.assertNull(session.getOutput());
+		Assert.assertTrue(session.getPartialDerivations().isEmpty());
+		final TokenSeq tokens = sentence.getTokens();
+		for (int i = 0; i < tokens.size(); ++i) {
+			final CKYParserOutput<LogicalExpression> actual = session
+					.addToken(tokens.get(i));
+			Assert.assertSame(actual, session.getOutput());
+			Assert.assertEquals(tokens.sub(0, i + 1), session.getTokens());
+			final Sentence prefix = new Sentence(
+					tokens.sub(0, i + 1).toString());
+			CKYTestServices.assertSameOutput(
+					parser.parse(prefix, model.createDataItemModel(prefix)),
+					actual);
+			// A prefix with complete parses has cells spanning all of it.
+			if (!actual.getAllDerivations().isEmpty()) {
+				Assert.assertFalse(session.getPartialDerivations().isEmpty());
+			}
+		}
+	}
+
+}
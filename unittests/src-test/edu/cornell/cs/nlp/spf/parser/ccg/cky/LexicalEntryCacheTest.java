@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.base.token.TokenSeq;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.ILexiconImmutable;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.Lexicon;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.single.CKYParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+
+public class LexicalEntryCacheTest {
+
+	public LexicalEntryCacheTest() {
+		TestServices.init();
+	}
+
+	private static Set<LexicalEntry<LogicalExpression>> entries(
+			ILexiconImmutable<LogicalExpression> lexicon, String tokens) {
+		final Set<LexicalEntry<LogicalExpression>> entries = new HashSet<LexicalEntry<LogicalExpression>>();
+		final Iterator<? extends LexicalEntry<LogicalExpression>> iterator = lexicon
+				.get(TokenSeq.of(tokens.split(" ")));
+		while (iterator.hasNext()) {
+			entries.add(iterator.next());
+		}
+		return entries;
+	}
+
+	/**
+	 * Repeated look ups hit the cache and return the entries of the lexicon.
+	 */
+	@Test
+	public void test1() {
+		final Lexicon<LogicalExpression> lexicon = CKYTestServices
+				.createWideLexicon(3);
+		final LexicalEntryCache<LogicalExpression> cache = new LexicalEntryCache<LogicalExpression>(
+				10);
+		final Set<LexicalEntry<LogicalExpression>> expected = entries(lexicon,
+				"things");
+		Assert.assertEquals(3, expected.size());
+
+		Assert.assertEquals(expected, entries(cache.wrap(lexicon), "things"));
+		Assert.assertEquals(0, cache.getHitCount());
+		Assert.assertEquals(1, cache.getMissCount());
+		Assert.assertEquals(expected, entries(cache.wrap(lexicon), "things"));
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertEquals(1, cache.getMissCount());
+		Assert.assertEquals(1, cache.size());
+
+		// Sequences without entries are cached too.
+		Assert.assertTrue(entries(cache.wrap(lexicon), "rivers").isEmpty());
+		Assert.assertTrue(entries(cache.wrap(lexicon), "rivers").isEmpty());
+		Assert.assertEquals(2, cache.getHitCount());
+
+		cache.clear();
+		Assert.assertEquals(0, cache.size());
+	}
+
+	/**
+	 * Cached entries are stamped with the lexicon size: once the lexicon
+	 * grows, the entries are re-computed and include the new entry. Look ups
+	 * of stale entries count as misses.
+	 */
+	@Test
+	public void test2() {
+		final Lexicon<LogicalExpression> lexicon = CKYTestServices
+				.createWideLexicon(3);
+		final LexicalEntryCache<LogicalExpression> cache = new LexicalEntryCache<LogicalExpression>(
+				10);
+		Assert.assertEquals(3, entries(cache.wrap(lexicon), "things").size());
+		Assert.assertEquals(3, entries(cache.wrap(lexicon), "big").size());
+
+		final ILexiconImmutable<LogicalExpression> oldView = cache
+				.wrap(lexicon);
+		final LexicalEntry<LogicalExpression> entry = CKYTestServices
+				.createEntry("things :- N : thing3:<e,t>");
+		lexicon.add(entry);
+
+		final Set<LexicalEntry<LogicalExpression>> actual = entries(
+				cache.wrap(lexicon), "things");
+		Assert.assertEquals(4, actual.size());
+		Assert.assertTrue(actual.contains(entry));
+		Assert.assertEquals(entries(lexicon, "things"), actual);
+		Assert.assertEquals(0, cache.getHitCount());
+		Assert.assertEquals(3, cache.getMissCount());
+
+		// The new stamp is cached, and other sequences are re-computed once.
+		Assert.assertEquals(actual, entries(cache.wrap(lexicon), "things"));
+		Assert.assertEquals(3, entries(cache.wrap(lexicon), "big").size());
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertEquals(4, cache.getMissCount());
+
+		// A view created before the lexicon grew doesn't use the new stamp.
+		Assert.assertEquals(oldView.size() + 1, lexicon.size());
+		Assert.assertEquals(actual, entries(oldView, "things"));
+		Assert.assertEquals(5, cache.getMissCount());
+		Assert.assertEquals(1.0 / 6.0, cache.getHitRate(), 1e-9);
+	}
+
+	/**
+	 * Saved entries are loaded into a new cache and hit for the same lexicon.
+	 */
+	@Test
+	public void test3() throws IOException {
+		final Lexicon<LogicalExpression> lexicon = CKYTestServices
+				.createWideLexicon(3);
+		final LexicalEntryCache<LogicalExpression> cache = new LexicalEntryCache<LogicalExpression>(
+				10);
+		entries(cache.wrap(lexicon), "things");
+		entries(cache.wrap(lexicon), "big");
+
+		final File file = File.createTempFile("lexcache", ".bin");
+		file.deleteOnExit();
+		cache.save(file);
+
+		final LexicalEntryCache<LogicalExpression> loaded = new LexicalEntryCache<LogicalExpression>(
+				10);
+		loaded.load(file);
+		Assert.assertEquals(2, loaded.size());
+		Assert.assertEquals(entries(lexicon, "things"),
+				entries(loaded.wrap(lexicon), "things"));
+		Assert.assertEquals(1, loaded.getHitCount());
+		Assert.assertEquals(0, loaded.getMissCount());
+
+		// Loaded entries are re-computed for a different lexicon size.
+		lexicon.add(CKYTestServices.createEntry("big :- N : big:<e,t>"));
+		Assert.assertEquals(entries(lexicon, "big"),
+				entries(loaded.wrap(lexicon), "big"));
+		Assert.assertEquals(1, loaded.getMissCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test4() {
+		new LexicalEntryCache<LogicalExpression>(0);
+	}
+
+	/**
+	 * Parsing with the cache gives the same outputs as parsing without it,
+	 * and hits the cache when the sentences are parsed again.
+	 */
+	@Test
+	public void test5() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(1, false);
+		final LexicalEntryCache<LogicalExpression> cache = new LexicalEntryCache<LogicalExpression>(
+				1000);
+		final CKYParser.Builder<Sentence, LogicalExpression> builder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		final CKYParser.Builder<Sentence, LogicalExpression> cachedBuilder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : CKYTestServices
+				.createBinaryRules()) {
+			builder.addParseRule(rule);
+			cachedBuilder.addParseRule(rule);
+		}
+		final CKYParser<Sentence, LogicalExpression> parser = builder
+				.setMaxNumberOfCellsInSpan(1000).build();
+		final CKYParser<Sentence, LogicalExpression> cachedParser = cachedBuilder
+				.setMaxNumberOfCellsInSpan(1000).setLexicalCache(cache)
+				.build();
+		for (int i = 0; i < 2; ++i) {
+			for (final String string : CKYTestServices.SENTENCES) {
+				final Sentence sentence = new Sentence(string);
+				CKYTestServices.assertSameOutput(
+						parser.parse(sentence,
+								model.createDataItemModel(sentence)),
+						cachedParser.parse(sentence,
+								model.createDataItemModel(sentence)));
+			}
+			if (i == 0) {
+				Assert.assertTrue(cache.getMissCount() > 0);
+			}
+		}
+		Assert.assertTrue(cache.getHitCount() >= cache.getMissCount());
+	}
+
+}
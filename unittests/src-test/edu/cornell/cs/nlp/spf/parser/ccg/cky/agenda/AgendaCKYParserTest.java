@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky.agenda;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYBinaryParsingRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYParserOutput;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYTestServices;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.single.CKYParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+
+public class AgendaCKYParserTest {
+
+	public AgendaCKYParserTest() {
+		TestServices.init();
+	}
+
+	/**
+	 * With non-positive weights the outside estimate is admissible, so the
+	 * first complete parse is the viterbi parse of the exhaustive parser.
+	 */
+	@Test
+	public void test1() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(1, true);
+		final CKYParser.Builder<Sentence, LogicalExpression> builder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		final AgendaCKYParser.Builder<Sentence, LogicalExpression> agendaBuilder = new AgendaCKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : CKYTestServices
+				.createBinaryRules()) {
+			builder.addParseRule(rule);
+			agendaBuilder.addParseRule(rule);
+		}
+		final CKYParser<Sentence, LogicalExpression> parser = builder
+				.setMaxNumberOfCellsInSpan(1000).build();
+		final AgendaCKYParser<Sentence, LogicalExpression> agendaParser = agendaBuilder
+				.setMaxNumberOfCellsInSpan(1000).build();
+
+		for (final String string : CKYTestServices.SENTENCES) {
+			final Sentence sentence = new Sentence(string);
+			final CKYParserOutput<LogicalExpression> expected = parser.parse(
+					sentence, model.createDataItemModel(sentence));
+			final CKYParserOutput<LogicalExpression> actual = agendaParser
+					.parse(sentence, model.createDataItemModel(sentence));
+			if (expected.getBestDerivations().isEmpty()) {
+				Assert.assertTrue(actual.getBestDerivations().isEmpty());
+				continue;
+			}
+			Assert.assertEquals(1, actual.getBestDerivations().size());
+			Assert.assertEquals(expected.getBestDerivations().get(0)
+					.getScore(), actual.getBestDerivations().get(0)
+					.getScore(), 1e-9);
+			Assert.assertTrue(CKYTestServices.semantics(
+					expected.getBestDerivations()).contains(
+					actual.getBestDerivations().get(0).getSemantics()));
+			// The agenda parser stops at the first complete parse.
+			Assert.assertTrue(actual.getAllDerivations().size() <= expected
+					.getAllDerivations().size());
+		}
+	}
+
+	/**
+	 * With a deadline that already passed, no agenda item is expanded, but the
+	 * lexical cells are still added, so the best partial derivations are
+	 * token cells.
+	 */
+	@Test
+	public void test2() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(2, false);
+		final AgendaCKYParser.Builder<Sentence, LogicalExpression> builder = new AgendaCKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : CKYTestServices
+				.createBinaryRules()) {
+			builder.addParseRule(rule);
+		}
+		final AgendaCKYParser<Sentence, LogicalExpression> parser = builder
+				.setMaxNumberOfCellsInSpan(1000).build();
+		for (final String string : CKYTestServices.SENTENCES) {
+			final Sentence sentence = new Sentence(string);
+			CKYTestServices.assertTokenPartialDerivations(parser.parse(
+					sentence, model.createDataItemModel(sentence), 0L));
+		}
+	}
+
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky.chart;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYBinaryParsingRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYParserOutput;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYTestServices;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.single.CKYParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+
+public class ChartPoolTest {
+
+	public ChartPoolTest() {
+		TestServices.init();
+	}
+
+	private static CKYParser<Sentence, LogicalExpression> createParser(
+			int chartPoolSize) {
+		final CKYParser.Builder<Sentence, LogicalExpression> builder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : CKYTestServices
+				.createBinaryRules()) {
+			builder.addParseRule(rule);
+		}
+		return builder.setMaxNumberOfCellsInSpan(1000)
+				.setChartPoolSize(chartPoolSize).build();
+	}
+
+	/**
+	 * A released chart is cleared and re-used for the next sentence, which is
+	 * parsed as if with a new chart. The sentences are parsed from long to
+	 * short and back, so stale cells in spans beyond the current sentence
+	 * would show up.
+	 */
+	@Test
+	public void test1() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(1, false);
+		final CKYParser<Sentence, LogicalExpression> parser = createParser(0);
+		final CKYParser<Sentence, LogicalExpression> pooledParser = createParser(
+				1);
+		Chart<LogicalExpression> chart = null;
+		for (final String string : new String[] { CKYTestServices.SENTENCES[1],
+				CKYTestServices.SENTENCES[0], CKYTestServices.SENTENCES[2],
+				CKYTestServices.SENTENCES[1] }) {
+			final Sentence sentence = new Sentence(string);
+			final CKYParserOutput<LogicalExpression> output = pooledParser
+					.parse(sentence, model.createDataItemModel(sentence));
+			if (chart != null) {
+				Assert.assertSame(chart, output.getChart());
+			}
+			chart = output.getChart();
+			Assert.assertEquals(sentence.getTokens(), chart.getTokens());
+			CKYTestServices.assertSameOutput(
+					parser.parse(sentence, model.createDataItemModel(sentence)),
+					output);
+
+			output.release();
+			Assert.assertEquals(0, chart.getSentenceLength());
+			Assert.assertFalse(chart.iterator().hasNext());
+		}
+	}
+
+	/**
+	 * Derivations remain valid after the output is released, but the chart
+	 * can't be used. Releasing again has no effect.
+	 */
+	@Test
+	public void test2() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(2, false);
+		final Sentence sentence = new Sentence(CKYTestServices.SENTENCES[0]);
+		final CKYParserOutput<LogicalExpression> output = createParser(1)
+				.parse(sentence, model.createDataItemModel(sentence));
+		final LogicalExpression best = output.getBestDerivations().get(0)
+				.getSemantics();
+
+		output.release();
+		output.release();
+		Assert.assertEquals(best,
+				output.getBestDerivations().get(0).getSemantics());
+		Assert.assertFalse(output.getMaxDerivations(
+				c -> best.equals(c.getSemantics())).isEmpty());
+		try {
+			output.logNorm();
+			Assert.fail("Released chart used");
+		} catch (final IllegalStateException e) {
+			// Expected.
+		}
+		try {
+			output.getChart();
+			Assert.fail("Released chart used");
+		} catch (final IllegalStateException e) {
+			// Expected.
+		}
+	}
+
+	/**
+	 * The pool keeps at most its capacity of released charts.
+	 */
+	@Test
+	public void test3() {
+		final ChartPool<LogicalExpression> pool = new ChartPool<LogicalExpression>(
+				1, 10, false, false);
+		final Chart<LogicalExpression> first = pool.acquire(
+				new Sentence(CKYTestServices.SENTENCES[0]).getTokens(),
+				new CellFactory<LogicalExpression>(4));
+		final Chart<LogicalExpression> second = pool.acquire(
+				new Sentence(CKYTestServices.SENTENCES[1]).getTokens(),
+				new CellFactory<LogicalExpression>(10));
+		Assert.assertNotSame(first, second);
+		pool.release(first);
+		pool.release(second);
+		Assert.assertEquals(1, pool.size());
+		Assert.assertSame(first, pool.acquire(
+				new Sentence(CKYTestServices.SENTENCES[1]).getTokens(),
+				new CellFactory<LogicalExpression>(10)));
+		Assert.assertEquals(0, pool.size());
+	}
+
+}
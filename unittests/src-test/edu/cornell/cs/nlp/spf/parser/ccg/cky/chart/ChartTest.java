@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky.chart;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.base.token.TokenSeq;
+import edu.cornell.cs.nlp.spf.ccg.categories.Category;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.Lexicon;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYBinaryParsingRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYParserOutput;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYTestServices;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.single.CKYParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.steps.CKYLexicalStep;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.steps.WeightedCKYLexicalStep;
+import edu.cornell.cs.nlp.spf.parser.ccg.features.basic.LexicalFeatureSet;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IDataItemModel;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+import edu.cornell.cs.nlp.utils.filter.IFilter;
+
+public class ChartTest {
+
+	private final IDataItemModel<LogicalExpression>	model;
+
+	public ChartTest() {
+		TestServices.init();
+		// All weights are zero, so all cells are tied.
+		final Model<Sentence, LogicalExpression> m = new Model.Builder<Sentence, LogicalExpression>()
+				.setLexicon(new Lexicon<LogicalExpression>())
+				.addFeatureSet(
+						new LexicalFeatureSet.Builder<Sentence, LogicalExpression>()
+								.build()).build();
+		this.model = m.createDataItemModel(new Sentence("texas"));
+	}
+
+	private static Set<Cell<LogicalExpression>> indexed(
+			Chart<LogicalExpression> chart) {
+		final Set<Cell<LogicalExpression>> cells = new HashSet<Cell<LogicalExpression>>();
+		for (final Set<Cell<LogicalExpression>> syntaxCells : chart
+				.getSpanSyntaxIndex(0, 0).values()) {
+			cells.addAll(syntaxCells);
+		}
+		return cells;
+	}
+
+	private static Set<Cell<LogicalExpression>> inSpan(
+			Chart<LogicalExpression> chart) {
+		final Set<Cell<LogicalExpression>> cells = new HashSet<Cell<LogicalExpression>>();
+		for (final Cell<LogicalExpression> cell : chart.getSpanIterable(0, 0)) {
+			cells.add(cell);
+		}
+		return cells;
+	}
+
+	/**
+	 * Offering a tied cell to a full order invariant span evicts all the
+	 * cells tied with the minimum, and all of them must leave the syntax
+	 * index.
+	 */
+	@Test
+	public void test1() {
+		final Chart<LogicalExpression> chart = new Chart<LogicalExpression>(
+				TokenSeq.of("texas"), 2, new CellFactory<LogicalExpression>(1),
+				false, false);
+		chart.add(createCell("NP : texas:s"));
+		chart.add(createCell("N : (lambda $0:e (loc:<lo,<lo,t>> $0 texas:s))"));
+		Assert.assertEquals(2, chart.spanSize(0, 0));
+		Assert.assertEquals(inSpan(chart), indexed(chart));
+
+		chart.add(createCell("S : (state:<s,t> texas:s)"));
+		Assert.assertEquals(inSpan(chart), indexed(chart));
+		for (final Map.Entry<Syntax, Set<Cell<LogicalExpression>>> entry : chart
+				.getSpanSyntaxIndex(0, 0).entrySet()) {
+			Assert.assertFalse(entry.getValue().isEmpty());
+			for (final Cell<LogicalExpression> cell : entry.getValue()) {
+				Assert.assertTrue(chart.contains(cell));
+				Assert.assertEquals(entry.getKey(), cell.getCategory()
+						.getSyntax());
+			}
+		}
+	}
+
+	/**
+	 * With tie breaking, a single cell is evicted at a time.
+	 */
+	@Test
+	public void test2() {
+		final Chart<LogicalExpression> chart = new Chart<LogicalExpression>(
+				TokenSeq.of("texas"), 2, new CellFactory<LogicalExpression>(1),
+				false, true);
+		chart.add(createCell("NP : texas:s"));
+		chart.add(createCell("N : (lambda $0:e (loc:<lo,<lo,t>> $0 texas:s))"));
+		chart.add(createCell("S : (state:<s,t> texas:s)"));
+		Assert.assertEquals(2, chart.spanSize(0, 0));
+		Assert.assertEquals(inSpan(chart), indexed(chart));
+	}
+
+	/**
+	 * Computing outside scores and expected features in the parallel pool
+	 * gives the same results as computing them sequentially.
+	 */
+	@Test
+	public void test3() {
+		final Model<Sentence, LogicalExpression> m = CKYTestServices
+				.createModel(3, false);
+		final CKYParser.Builder<Sentence, LogicalExpression> builder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : CKYTestServices
+				.createBinaryRules()) {
+			builder.addParseRule(rule);
+		}
+		final CKYParser<Sentence, LogicalExpression> parser = builder
+				.setMaxNumberOfCellsInSpan(1000).setSplitParallelism(1)
+				.build();
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (final String string : CKYTestServices.SENTENCES) {
+				final Sentence sentence = new Sentence(string);
+				final CKYParserOutput<LogicalExpression> expected = parser
+						.parse(sentence, m.createDataItemModel(sentence));
+				final CKYParserOutput<LogicalExpression> actual = parser
+						.parse(sentence, m.createDataItemModel(sentence));
+				actual.getChart().setParallelPool(pool);
+				CKYTestServices.assertSameOutput(expected, actual);
+
+				if (!expected.getBestDerivations().isEmpty()) {
+					// Outside scores initialized only at the best parses.
+					final LogicalExpression best = expected
+							.getBestDerivations().get(0).getSemantics();
+					final IFilter<Category<LogicalExpression>> filter = c -> best
+							.equals(c.getSemantics());
+					Assert.assertEquals(expected.logNorm(filter),
+							actual.logNorm(filter), 1e-9);
+					CKYTestServices.assertSameVector(
+							expected.logExpectedFeatures(filter),
+							actual.logExpectedFeatures(filter));
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private Cell<LogicalExpression> createCell(String category) {
+		final LexicalEntry<LogicalExpression> entry = new LexicalEntry<LogicalExpression>(
+				TokenSeq.of("texas"), TestServices.getCategoryServices().read(
+						category), false, new HashMap<String, String>());
+		return new CellFactory<LogicalExpression>(1)
+				.create(new WeightedCKYLexicalStep<LogicalExpression>(
+						new CKYLexicalStep<LogicalExpression>(entry, true, 0, 0),
+						model));
+	}
+
+}
@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky.chart;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.ccg.categories.Category;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYBinaryParsingRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYParserOutput;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYTestServices;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.single.CKYParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.steps.IWeightedCKYStep;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+
+public class CompactCellTest {
+
+	public CompactCellTest() {
+		TestServices.init();
+	}
+
+	private static CKYParser<Sentence, LogicalExpression> createParser(
+			int beamSize, boolean compactCells) {
+		final CKYParser.Builder<Sentence, LogicalExpression> builder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : CKYTestServices
+				.createBinaryRules()) {
+			builder.addParseRule(rule);
+		}
+		return builder.setMaxNumberOfCellsInSpan(beamSize)
+				.setCompactCells(compactCells).build();
+	}
+
+	/**
+	 * Random adds and removes on a compact step set and a linked hash set
+	 * leave both with the same steps in the same order. The set grows beyond
+	 * {@link CompactStepSet#HASH_THRESHOLD}, so both of its representations
+	 * are used.
+	 */
+	@Test
+	public void test1() {
+		final List<IWeightedCKYStep<LogicalExpression>> steps = new ArrayList<IWeightedCKYStep<LogicalExpression>>();
+		for (final Cell<LogicalExpression> cell : CKYTestServices
+				.createLexicalCells(CKYTestServices.createModel(1, false,
+						CKYTestServices.createWideLexicon(20)), "things")) {
+			steps.addAll(cell.getSteps());
+		}
+		Assert.assertEquals(20, steps.size());
+
+		final CompactStepSet<LogicalExpression> actual = new CompactStepSet<LogicalExpression>();
+		final Set<IWeightedCKYStep<LogicalExpression>> expected = new LinkedHashSet<IWeightedCKYStep<LogicalExpression>>();
+		final Random random = new Random(1);
+		int maxSize = 0;
+		for (int i = 0; i < 1000; ++i) {
+			final IWeightedCKYStep<LogicalExpression> step = steps
+					.get(random.nextInt(steps.size()));
+			switch (random.nextInt(3)) {
+				case 0:
+					Assert.assertEquals(expected.remove(step),
+							actual.remove(step));
+					break;
+				case 1:
+					// Remove through the iterator.
+					final Iterator<IWeightedCKYStep<LogicalExpression>> iterator = actual
+							.iterator();
+					while (iterator.hasNext()) {
+						if (iterator.next().equals(step)) {
+							iterator.remove();
+						}
+					}
+					expected.remove(step);
+					break;
+				default:
+					Assert.assertEquals(expected.add(step), actual.add(step));
+			}
+			Assert.assertEquals(expected.size(), actual.size());
+			maxSize = Math.max(maxSize, actual.size());
+			Assert.assertEquals(new ArrayList<IWeightedCKYStep<LogicalExpression>>(
+					expected),
+					new ArrayList<IWeightedCKYStep<LogicalExpression>>(actual));
+			Assert.assertEquals(expected.contains(step), actual.contains(step));
+		}
+		Assert.assertTrue(maxSize > CompactStepSet.HASH_THRESHOLD);
+		actual.clear();
+		Assert.assertTrue(actual.isEmpty());
+		Assert.assertFalse(actual.contains(steps.get(0)));
+
+		// Fill the set again after clearing it.
+		Assert.assertTrue(actual.addAll(steps));
+		Assert.assertFalse(actual.addAll(steps));
+		Assert.assertEquals(steps,
+				new ArrayList<IWeightedCKYStep<LogicalExpression>>(actual));
+	}
+
+	/**
+	 * Parsing with compact cells gives the same chart as parsing with regular
+	 * cells: the same cells in every span, with the same number of steps and
+	 * the same scores.
+	 */
+	@Test
+	public void test2() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(2, false);
+		for (final int beamSize : new int[] { 3, 1000 }) {
+			final CKYParser<Sentence, LogicalExpression> parser = createParser(
+					beamSize, false);
+			final CKYParser<Sentence, LogicalExpression> compactParser = createParser(
+					beamSize, true);
+			for (final String string : CKYTestServices.SENTENCES) {
+				final Sentence sentence = new Sentence(string);
+				final CKYParserOutput<LogicalExpression> expected = parser
+						.parse(sentence, model.createDataItemModel(sentence));
+				final CKYParserOutput<LogicalExpression> actual = compactParser
+						.parse(sentence, model.createDataItemModel(sentence));
+				CKYTestServices.assertSameOutput(expected, actual);
+
+				final Chart<LogicalExpression> expectedChart = expected
+						.getChart();
+				final Chart<LogicalExpression> actualChart = actual.getChart();
+				for (int start = 0; start < expectedChart
+						.getSentenceLength(); ++start) {
+					for (int end = start; end < expectedChart
+							.getSentenceLength(); ++end) {
+						Assert.assertEquals(expectedChart.spanSize(start, end),
+								actualChart.spanSize(start, end));
+						// Cells of different classes are never equal, so
+						// match them by category.
+						final Map<Category<LogicalExpression>, Cell<LogicalExpression>> actualCells = new HashMap<Category<LogicalExpression>, Cell<LogicalExpression>>();
+						for (final Cell<LogicalExpression> cell : actualChart
+								.getSpanIterable(start, end)) {
+							Assert.assertTrue(cell instanceof CompactCell);
+							actualCells.put(cell.getCategory(), cell);
+						}
+						for (final Cell<LogicalExpression> cell : expectedChart
+								.getSpanIterable(start, end)) {
+							Assert.assertFalse(cell instanceof CompactCell);
+							final Cell<LogicalExpression> actualCell = actualCells
+									.get(cell.getCategory());
+							Assert.assertNotNull(actualCell);
+							Assert.assertEquals(cell.numSteps(),
+									actualCell.numSteps());
+							Assert.assertEquals(cell.getViterbiScore(),
+									actualCell.getViterbiScore(), 1e-9);
+							Assert.assertEquals(cell.getLogInsideScore(),
+									actualCell.getLogInsideScore(), 1e-9);
+							Assert.assertEquals(cell.getNumParses(),
+									actualCell.getNumParses());
+						}
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky.chart;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.base.token.TokenSeq;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYTestServices;
+
+public class CumulativeProbabilityBeamPolicyTest {
+
+	public CumulativeProbabilityBeamPolicyTest() {
+		TestServices.init();
+	}
+
+	private static List<Cell<LogicalExpression>> addAll(
+			Chart<LogicalExpression> chart,
+			List<Cell<LogicalExpression>> cells) {
+		for (final Cell<LogicalExpression> cell : cells) {
+			chart.add(cell);
+		}
+		final List<Cell<LogicalExpression>> spanCells = new ArrayList<Cell<LogicalExpression>>();
+		for (final Cell<LogicalExpression> cell : chart.getSpanIterable(0, 0)) {
+			spanCells.add(cell);
+		}
+		spanCells.sort(Comparator
+				.comparingDouble((Cell<LogicalExpression> c) -> c
+						.getPruneScore())
+				.reversed());
+		return spanCells;
+	}
+
+	/**
+	 * Cells with probabilities 0.5, 0.3 and 0.2.
+	 */
+	@Test
+	public void test1() {
+		final double minScore = Math.log(0.2);
+		final double maxScore = Math.log(0.5);
+		Assert.assertTrue(new CumulativeProbabilityBeamPolicy(0.75)
+				.pruneMin(minScore, maxScore, () -> 0.0));
+		Assert.assertFalse(new CumulativeProbabilityBeamPolicy(0.9)
+				.pruneMin(minScore, maxScore, () -> 0.0));
+		// Unnormalized scores.
+		Assert.assertTrue(new CumulativeProbabilityBeamPolicy(0.75).pruneMin(
+				minScore + 5.0, maxScore + 5.0, () -> 5.0));
+		// A single cell holds all the mass.
+		Assert.assertFalse(new CumulativeProbabilityBeamPolicy(0.5)
+				.pruneMin(maxScore, maxScore, () -> maxScore));
+		Assert.assertEquals(10,
+				new CumulativeProbabilityBeamPolicy(0.5).beamSize(3, 10));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test2() {
+		new CumulativeProbabilityBeamPolicy(0.0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test3() {
+		new CumulativeProbabilityBeamPolicy(1.5);
+	}
+
+	/**
+	 * A span keeps its top cells, and needs all of them to cover the mass
+	 * cutoff: without the lowest scoring cell, the others cover less.
+	 */
+	@Test
+	public void test4() {
+		final List<Cell<LogicalExpression>> cells = CKYTestServices
+				.createLexicalCells(CKYTestServices.createModel(2, false,
+						CKYTestServices.createWideLexicon(20)), "things");
+		final double cutoff = 0.9;
+		final Chart<LogicalExpression> chart = new Chart<LogicalExpression>(
+				TokenSeq.of("things"), 100,
+				new CellFactory<LogicalExpression>(1), false, false,
+				new CumulativeProbabilityBeamPolicy(cutoff));
+		final List<Cell<LogicalExpression>> kept = addAll(chart, cells);
+		Assert.assertTrue(kept.size() > 1);
+		Assert.assertTrue(kept.size() < cells.size());
+		Assert.assertFalse(chart.getPrunedSpans().isEmpty());
+
+		// The kept cells are the top cells of all the cells.
+		final List<Cell<LogicalExpression>> sorted = new ArrayList<Cell<LogicalExpression>>(
+				cells);
+		sorted.sort(Comparator
+				.comparingDouble((Cell<LogicalExpression> c) -> c
+						.getPruneScore())
+				.reversed());
+		Assert.assertEquals(sorted.subList(0, kept.size()), kept);
+
+		// Without the lowest scoring kept cell, the others don't cover the
+		// cutoff of the mass of the kept cells.
+		double mass = 0.0;
+		for (final Cell<LogicalExpression> cell : kept) {
+			mass += Math.exp(cell.getPruneScore());
+		}
+		final double minProb = Math
+				.exp(kept.get(kept.size() - 1).getPruneScore()) / mass;
+		Assert.assertTrue(1.0 - minProb < cutoff);
+	}
+
+	/**
+	 * Keeping all the mass never prunes.
+	 */
+	@Test
+	public void test5() {
+		final List<Cell<LogicalExpression>> cells = CKYTestServices
+				.createLexicalCells(CKYTestServices.createModel(2, false,
+						CKYTestServices.createWideLexicon(20)), "things");
+		final Chart<LogicalExpression> chart = new Chart<LogicalExpression>(
+				TokenSeq.of("things"), 100,
+				new CellFactory<LogicalExpression>(1), false, false,
+				new CumulativeProbabilityBeamPolicy(1.0));
+		Assert.assertEquals(cells.size(), addAll(chart, cells).size());
+		Assert.assertTrue(chart.getPrunedSpans().isEmpty());
+	}
+
+}
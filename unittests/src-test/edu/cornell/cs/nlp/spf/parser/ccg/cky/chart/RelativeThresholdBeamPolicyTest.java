@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky.chart;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.base.token.TokenSeq;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYTestServices;
+
+public class RelativeThresholdBeamPolicyTest {
+
+	public RelativeThresholdBeamPolicyTest() {
+		TestServices.init();
+	}
+
+	@Test
+	public void test1() {
+		final RelativeThresholdBeamPolicy policy = new RelativeThresholdBeamPolicy(
+				2.0);
+		Assert.assertTrue(policy.pruneMin(-3.0, 0.0, () -> {
+			throw new IllegalStateException("Mass not required");
+		}));
+		Assert.assertFalse(policy.pruneMin(-2.0, 0.0, () -> 0.0));
+		Assert.assertFalse(policy.pruneMin(0.0, 0.0, () -> 0.0));
+		Assert.assertEquals(10, policy.beamSize(3, 10));
+		// A zero threshold only keeps the cells tied with the best one.
+		Assert.assertTrue(new RelativeThresholdBeamPolicy(0.0).pruneMin(-1e-6,
+				0.0, () -> 0.0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test2() {
+		new RelativeThresholdBeamPolicy(-1.0);
+	}
+
+	/**
+	 * A span keeps exactly the cells that score within the threshold of its
+	 * best cell, regardless of the order cells are added in, and is marked as
+	 * pruned.
+	 */
+	@Test
+	public void test3() {
+		final List<Cell<LogicalExpression>> cells = CKYTestServices
+				.createLexicalCells(CKYTestServices.createModel(1, false,
+						CKYTestServices.createWideLexicon(20)), "things");
+		final double threshold = 1.0;
+		double maxScore = -Double.MAX_VALUE;
+		for (final Cell<LogicalExpression> cell : cells) {
+			maxScore = Math.max(maxScore, cell.getPruneScore());
+		}
+		final Set<Cell<LogicalExpression>> expected = new HashSet<Cell<LogicalExpression>>();
+		for (final Cell<LogicalExpression> cell : cells) {
+			if (cell.getPruneScore() >= maxScore - threshold) {
+				expected.add(cell);
+			}
+		}
+		Assert.assertTrue(expected.size() > 1);
+		Assert.assertTrue(expected.size() < cells.size());
+
+		final Chart<LogicalExpression> chart = new Chart<LogicalExpression>(
+				TokenSeq.of("things"), 100,
+				new CellFactory<LogicalExpression>(1), false, false,
+				new RelativeThresholdBeamPolicy(threshold));
+		for (final Cell<LogicalExpression> cell : cells) {
+			chart.add(cell);
+		}
+		final Set<Cell<LogicalExpression>> actual = new HashSet<Cell<LogicalExpression>>();
+		for (final Cell<LogicalExpression> cell : chart.getSpanIterable(0, 0)) {
+			actual.add(cell);
+		}
+		Assert.assertEquals(expected, actual);
+		Assert.assertFalse(chart.getPrunedSpans().isEmpty());
+	}
+
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky.chart;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYBinaryParsingRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYParserOutput;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYTestServices;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.single.CKYParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+
+public class SpanLengthBeamPolicyTest {
+
+	public SpanLengthBeamPolicyTest() {
+		TestServices.init();
+	}
+
+	@Test
+	public void test1() {
+		final SpanLengthBeamPolicy policy = new SpanLengthBeamPolicy(0.5, 2);
+		Assert.assertEquals(10, policy.beamSize(1, 10));
+		Assert.assertEquals(5, policy.beamSize(2, 10));
+		Assert.assertEquals(3, policy.beamSize(3, 10));
+		Assert.assertEquals(2, policy.beamSize(4, 10));
+		Assert.assertEquals(2, policy.beamSize(10, 10));
+		// Never larger than the chart beam.
+		Assert.assertEquals(1, policy.beamSize(3, 1));
+		Assert.assertFalse(policy.pruneMin(-100.0, 0.0, () -> 0.0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test2() {
+		new SpanLengthBeamPolicy(0.0, 1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test3() {
+		new SpanLengthBeamPolicy(0.5, 0);
+	}
+
+	/**
+	 * Each span is limited to the beam of its length, and keeps its highest
+	 * scoring cells.
+	 */
+	@Test
+	public void test4() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(3, false, CKYTestServices.createWideLexicon(5));
+		final SpanLengthBeamPolicy policy = new SpanLengthBeamPolicy(0.5, 2);
+		final CKYParser.Builder<Sentence, LogicalExpression> builder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : CKYTestServices
+				.createBinaryRules()) {
+			builder.addParseRule(rule);
+		}
+		final CKYParser<Sentence, LogicalExpression> parser = builder
+				.setMaxNumberOfCellsInSpan(10).setBeamPolicy(policy).build();
+		final Sentence sentence = new Sentence(
+				CKYTestServices.WIDE_SENTENCES[1]);
+		final CKYParserOutput<LogicalExpression> output = parser.parse(
+				sentence, model.createDataItemModel(sentence));
+		final Chart<LogicalExpression> chart = output.getChart();
+		for (int start = 0; start < 3; ++start) {
+			for (int end = start; end < 3; ++end) {
+				Assert.assertTrue(chart.spanSize(start, end) <= policy
+						.beamSize(end - start + 1, 10));
+			}
+		}
+		// "big things" has 25 cells, and "big big things" many more.
+		Assert.assertEquals(5, chart.spanSize(1, 2));
+		Assert.assertEquals(3, chart.spanSize(0, 2));
+		Assert.assertFalse(output.isExact());
+	}
+
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky.coarse;
+
+import java.util.function.Predicate;
+
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.IBinaryParseRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.SentenceSpan;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ParsingOp;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYBinaryParsingRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYParserOutput;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYTestServices;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Cell;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.single.CKYParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IDataItemModel;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+
+public class CoarseSyntaxPrunerTest {
+
+	private static final String[]									GOLD	= {
+			"(lambda $0:e (and:<t*,t> (state:<s,t> $0) (next_to:<lo,<lo,t>> $0 texas:s)))",
+			"(lambda $0:e (and:<t*,t> (major:<lo,t> $0) (river:<r,t> $0) (loc:<lo,<lo,t>> $0 texas:s) (next_to:<lo,<lo,t>> $0 (a:<<e,t>,e> (lambda $1:e (and:<t*,t> (state:<s,t> $1) (loc:<lo,<lo,t>> $1 texas:s)))))))" };
+
+	private final CKYParser<Sentence, LogicalExpression>			parser;
+
+	private final CoarseSyntaxPruner<Sentence, LogicalExpression>	pruner;
+
+	public CoarseSyntaxPrunerTest() {
+		TestServices.init();
+		final CKYParser.Builder<Sentence, LogicalExpression> builder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		final CoarseSyntaxPruner.Builder<Sentence, LogicalExpression> prunerBuilder = new CoarseSyntaxPruner.Builder<Sentence, LogicalExpression>();
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : CKYTestServices
+				.createBinaryRules()) {
+			builder.addParseRule(rule);
+		}
+		for (final IBinaryParseRule<LogicalExpression> rule : CKYTestServices
+				.createPrimitiveBinaryRules()) {
+			prunerBuilder.addParseRule(rule);
+		}
+		this.parser = builder.setMaxNumberOfCellsInSpan(1000).build();
+		this.pruner = prunerBuilder.build();
+	}
+
+	private static int numCells(CKYParserOutput<LogicalExpression> output) {
+		int numCells = 0;
+		for (@SuppressWarnings("unused")
+		final Cell<LogicalExpression> cell : output.getChart()) {
+			++numCells;
+		}
+		return numCells;
+	}
+
+	/**
+	 * Pruning keeps the gold parse and the viterbi parse, and never adds
+	 * cells.
+	 */
+	@Test
+	public void test1() {
+		for (long seed = 1; seed <= 5; ++seed) {
+			final Model<Sentence, LogicalExpression> model = CKYTestServices
+					.createModel(seed, false);
+			for (int i = 0; i < GOLD.length; ++i) {
+				final Sentence sentence = new Sentence(
+						CKYTestServices.SENTENCES[i]);
+				final IDataItemModel<LogicalExpression> dataItemModel = model
+						.createDataItemModel(sentence);
+				final CKYParserOutput<LogicalExpression> expected = parser
+						.parse(sentence, dataItemModel);
+				final CKYParserOutput<LogicalExpression> actual = parser
+						.parse(sentence,
+								pruner.createFilter(sentence, dataItemModel),
+								dataItemModel);
+				Assert.assertTrue(CKYTestServices.semantics(
+						actual.getAllDerivations()).contains(
+						TestServices.getCategoryServices().readSemantics(
+								GOLD[i])));
+				Assert.assertEquals(CKYTestServices.semantics(expected
+						.getBestDerivations()), CKYTestServices
+						.semantics(actual.getBestDerivations()));
+				Assert.assertEquals(expected.getBestDerivations().get(0)
+						.getScore(), actual.getBestDerivations().get(0)
+						.getScore(), 1e-9);
+				Assert.assertTrue(numCells(actual) <= numCells(expected));
+			}
+		}
+	}
+
+	/**
+	 * Without a complete coarse parse, the filter accepts everything.
+	 */
+	@Test
+	public void test2() {
+		final Sentence sentence = new Sentence(CKYTestServices.SENTENCES[2]);
+		final Predicate<ParsingOp<LogicalExpression>> filter = pruner
+				.createFilter(sentence, CKYTestServices.createModel(1, false)
+						.createDataItemModel(sentence));
+		Assert.assertTrue(filter.test(new ParsingOp<LogicalExpression>(
+				TestServices.getCategoryServices().read("S : texas:s"),
+				new SentenceSpan(0, 1, 17), null)));
+	}
+
+	/**
+	 * A stricter threshold prunes cells, but keeps the viterbi parse.
+	 */
+	@Test
+	public void test3() {
+		final CoarseSyntaxPruner.Builder<Sentence, LogicalExpression> builder = new CoarseSyntaxPruner.Builder<Sentence, LogicalExpression>();
+		for (final IBinaryParseRule<LogicalExpression> rule : CKYTestServices
+				.createPrimitiveBinaryRules()) {
+			builder.addParseRule(rule);
+		}
+		final CoarseSyntaxPruner<Sentence, LogicalExpression> strictPruner = builder
+				.setThreshold(0.01).build();
+		final Sentence sentence = new Sentence(CKYTestServices.SENTENCES[1]);
+		final IDataItemModel<LogicalExpression> dataItemModel = CKYTestServices
+				.createModel(1, false).createDataItemModel(sentence);
+		final CKYParserOutput<LogicalExpression> expected = parser.parse(
+				sentence, dataItemModel);
+		final CKYParserOutput<LogicalExpression> actual = parser.parse(
+				sentence, strictPruner.createFilter(sentence, dataItemModel),
+				dataItemModel);
+		Assert.assertEquals(CKYTestServices.semantics(expected
+				.getBestDerivations()), CKYTestServices.semantics(actual
+				.getBestDerivations()));
+		Assert.assertTrue(numCells(actual) < numCells(expected));
+	}
+
+}
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky.multi;
+
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYBinaryParsingRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYParserOutput;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYTestServices;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.single.CKYParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+
+public class MultiCKYParserTest {
+
+	public MultiCKYParserTest() {
+		TestServices.init();
+	}
+
+	/**
+	 * Parse all test sentences with both parsers and compare the outputs.
+	 * Unless cells are added to each span in the order of the sequential
+	 * parser, the beam must be wide enough to never prune, since the cells a
+	 * pruned span keeps depend on the order they are added in.
+	 */
+	private static void assertSameOutputs(int beamSize, long seed,
+			int numRepeats,
+			MultiCKYParser.Builder<Sentence, LogicalExpression> builder) {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(seed, false);
+		final CKYParser.Builder<Sentence, LogicalExpression> singleBuilder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : CKYTestServices
+				.createBinaryRules()) {
+			singleBuilder.addParseRule(rule);
+			builder.addParseRule(rule);
+		}
+		final CKYParser<Sentence, LogicalExpression> parser = singleBuilder
+				.setMaxNumberOfCellsInSpan(beamSize).build();
+		final MultiCKYParser<Sentence, LogicalExpression> multiParser = builder
+				.setMaxNumberOfCellsInSpan(beamSize).build();
+		try {
+			for (final String string : CKYTestServices.SENTENCES) {
+				final Sentence sentence = new Sentence(string);
+				final CKYParserOutput<LogicalExpression> expected = parser
+						.parse(sentence, model.createDataItemModel(sentence));
+				for (int i = 0; i < numRepeats; ++i) {
+					CKYTestServices.assertSameOutput(expected,
+							multiParser.parse(sentence,
+									model.createDataItemModel(sentence)));
+				}
+			}
+		} finally {
+			multiParser.shutdownNow();
+		}
+	}
+
+	/**
+	 * Jobs scheduled by dependency counting create the same chart as the
+	 * sequential parser.
+	 */
+	@Test
+	public void test1() {
+		assertSameOutputs(1000, 1, 1,
+				new MultiCKYParser.Builder<Sentence, LogicalExpression>(
+						TestServices.getCategoryServices()).setNumThreads(4));
+	}
+
+	/**
+	 * Same as {@link #test1()}, repeated with more threads than cores to vary
+	 * the order jobs complete in. Jobs of the same span complete concurrently
+	 * and hand their cells to the span's adding thread.
+	 */
+	@Test
+	public void test2() {
+		assertSameOutputs(1000, 2, 10,
+				new MultiCKYParser.Builder<Sentence, LogicalExpression>(
+						TestServices.getCategoryServices()).setNumThreads(16)
+								.setSplitParallelism(1));
+	}
+
+	/**
+	 * Waves of spans create the same chart as the sequential parser.
+	 */
+	@Test
+	public void test3() {
+		assertSameOutputs(1000, 3, 1,
+				new MultiCKYParser.Builder<Sentence, LogicalExpression>(
+						TestServices.getCategoryServices()).setNumThreads(4)
+								.setSplitParallelism(4).setWavefront(true));
+	}
+
+	/**
+	 * Same as {@link #test3()}, with a beam small enough to prune spans. Each
+	 * span adds its lexical cells and then the cells of each split in order,
+	 * like the sequential parser, so pruning keeps the same cells.
+	 */
+	@Test
+	public void test4() {
+		assertSameOutputs(3, 4, 5,
+				new MultiCKYParser.Builder<Sentence, LogicalExpression>(
+						TestServices.getCategoryServices()).setNumThreads(4)
+								.setSplitParallelism(4).setWavefront(true));
+	}
+
+	/**
+	 * With a deadline that already passed, both schedulers only process
+	 * single tokens, and the best partial derivations are token cells.
+	 */
+	@Test
+	public void test5() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(5, false);
+		for (final boolean wavefront : new boolean[] { false, true }) {
+			final MultiCKYParser.Builder<Sentence, LogicalExpression> builder = new MultiCKYParser.Builder<Sentence, LogicalExpression>(
+					TestServices.getCategoryServices());
+			for (final CKYBinaryParsingRule<LogicalExpression> rule : CKYTestServices
+					.createBinaryRules()) {
+				builder.addParseRule(rule);
+			}
+			final MultiCKYParser<Sentence, LogicalExpression> parser = builder
+					.setMaxNumberOfCellsInSpan(1000).setNumThreads(4)
+					.setWavefront(wavefront).build();
+			try {
+				for (final String string : CKYTestServices.SENTENCES) {
+					final Sentence sentence = new Sentence(string);
+					CKYTestServices.assertTokenPartialDerivations(parser.parse(
+							sentence, model.createDataItemModel(sentence),
+							0L));
+				}
+			} finally {
+				parser.shutdownNow();
+			}
+		}
+	}
+
+}
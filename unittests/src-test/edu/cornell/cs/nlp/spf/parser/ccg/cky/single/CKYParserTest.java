@@ -0,0 +1,328 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky.single;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.ccg.categories.Category;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ParsingOp;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYBinaryParsingRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYDerivation;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYParserOutput;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYTestServices;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Cell;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.steps.CKYParseStep;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.steps.IWeightedCKYStep;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.IBinaryParseRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.ParseRuleResult;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.RuleName;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.SentenceSpan;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.primitivebinary.composition.AbstractComposition;
+
+public class CKYParserTest {
+
+	public CKYParserTest() {
+		TestServices.init();
+	}
+
+	private static CKYParser<Sentence, LogicalExpression> createParser() {
+		final CKYParser.Builder<Sentence, LogicalExpression> builder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : CKYTestServices
+				.createBinaryRules()) {
+			builder.addParseRule(rule);
+		}
+		return builder.setMaxNumberOfCellsInSpan(1000).build();
+	}
+
+	/**
+	 * Processing splits in the parser-owned pool gives the same output as
+	 * processing them sequentially. The spans are wide enough for the work to
+	 * run in the pool.
+	 */
+	@Test
+	public void test1() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(1, false, CKYTestServices.createWideLexicon(20));
+		final Set<String> threads = ConcurrentHashMap.newKeySet();
+		final CKYParser.Builder<Sentence, LogicalExpression> builder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		final CKYParser.Builder<Sentence, LogicalExpression> splitBuilder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		for (final IBinaryParseRule<LogicalExpression> rule : CKYTestServices
+				.createPrimitiveBinaryRules()) {
+			builder.addParseRule(new CKYBinaryParsingRule<LogicalExpression>(
+					rule));
+			splitBuilder.addParseRule(new CKYBinaryParsingRule<LogicalExpression>(
+					new ThreadRecordingRule(rule, threads)));
+		}
+		final CKYParser<Sentence, LogicalExpression> parser = builder
+				.setMaxNumberOfCellsInSpan(1000).build();
+		final CKYParser<Sentence, LogicalExpression> splitParser = splitBuilder
+				.setMaxNumberOfCellsInSpan(1000).setSplitParallelism(4)
+				.build();
+
+		for (final String string : CKYTestServices.WIDE_SENTENCES) {
+			final Sentence sentence = new Sentence(string);
+			final CKYParserOutput<LogicalExpression> expected = parser.parse(
+					sentence, model.createDataItemModel(sentence));
+			final CKYParserOutput<LogicalExpression> actual = splitParser
+					.parse(sentence, model.createDataItemModel(sentence));
+			CKYTestServices.assertSameOutput(expected, actual);
+		}
+		Assert.assertTrue(threads.stream().anyMatch(
+				name -> name.startsWith("CKYParser-split-")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test2() {
+		new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices()).setSplitParallelism(0)
+				.build();
+	}
+
+	/**
+	 * The pruning filter sees every result of the binary rules. Rejecting all
+	 * composition results is the same as parsing without composition.
+	 */
+	@Test
+	public void test3() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(2, false);
+		final CKYParser.Builder<Sentence, LogicalExpression> builder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		final CKYParser.Builder<Sentence, LogicalExpression> applicationBuilder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		for (final IBinaryParseRule<LogicalExpression> rule : CKYTestServices
+				.createPrimitiveBinaryRules()) {
+			builder.addParseRule(new CKYBinaryParsingRule<LogicalExpression>(
+					rule));
+			if (!rule.getName().getLabel()
+					.equals(AbstractComposition.RULE_LABEL)) {
+				applicationBuilder
+						.addParseRule(new CKYBinaryParsingRule<LogicalExpression>(
+								rule));
+			}
+		}
+		final CKYParser<Sentence, LogicalExpression> parser = builder
+				.setMaxNumberOfCellsInSpan(1000).build();
+		final CKYParser<Sentence, LogicalExpression> applicationParser = applicationBuilder
+				.setMaxNumberOfCellsInSpan(1000).build();
+
+		for (final String string : CKYTestServices.SENTENCES) {
+			final Sentence sentence = new Sentence(string);
+			final int length = sentence.getTokens().size();
+			final List<ParsingOp<LogicalExpression>> ops = Collections
+					.synchronizedList(new ArrayList<ParsingOp<LogicalExpression>>());
+			final CKYParserOutput<LogicalExpression> actual = parser.parse(
+					sentence, op -> {
+						ops.add(op);
+						return !op.getRule().getLabel()
+								.equals(AbstractComposition.RULE_LABEL);
+					}, model.createDataItemModel(sentence));
+			CKYTestServices.assertSameOutput(applicationParser.parse(sentence,
+					model.createDataItemModel(sentence)), actual);
+			Assert.assertTrue(ops.stream().anyMatch(
+					op -> op.getRule().getLabel()
+							.equals(AbstractComposition.RULE_LABEL)));
+			for (final ParsingOp<LogicalExpression> op : ops) {
+				Assert.assertNotNull(op.getCategory().getSemantics());
+				Assert.assertTrue(op.getSpan().getStart() <= op.getSpan()
+						.getEnd());
+				Assert.assertTrue(op.getSpan().getEnd() < length);
+			}
+		}
+	}
+
+	/**
+	 * The children of each step are its child cells, in order, over adjacent
+	 * spans. Steps created from the same children are equal.
+	 */
+	@Test
+	public void test4() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(3, false);
+		final CKYParser.Builder<Sentence, LogicalExpression> builder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : CKYTestServices
+				.createBinaryRules()) {
+			builder.addParseRule(rule);
+		}
+		final CKYParser<Sentence, LogicalExpression> parser = builder
+				.setMaxNumberOfCellsInSpan(1000).build();
+		final Sentence sentence = new Sentence(CKYTestServices.SENTENCES[1]);
+		final CKYParserOutput<LogicalExpression> output = parser.parse(
+				sentence, model.createDataItemModel(sentence));
+		int numBinary = 0;
+		for (final Cell<LogicalExpression> cell : output.getChart()) {
+			for (final IWeightedCKYStep<LogicalExpression> step : cell
+					.getSteps()) {
+				final List<Cell<LogicalExpression>> children = new ArrayList<Cell<LogicalExpression>>();
+				step.iterator().forEachRemaining(children::add);
+				Assert.assertEquals(step.numChildren(), children.size());
+				for (int i = 0; i < children.size(); ++i) {
+					Assert.assertSame(children.get(i), step.getChildCell(i));
+					Assert.assertEquals(children.get(i).getCategory(),
+							step.getChild(i));
+				}
+				if (children.size() == 2) {
+					++numBinary;
+					final Cell<LogicalExpression> left = children.get(0);
+					final Cell<LogicalExpression> right = children.get(1);
+					Assert.assertEquals(step.getStart(), left.getStart());
+					Assert.assertEquals(left.getEnd() + 1, right.getStart());
+					Assert.assertEquals(step.getEnd(), right.getEnd());
+					final CKYParseStep<LogicalExpression> copy1 = new CKYParseStep<LogicalExpression>(
+							step.getRoot(), left, right, step.isFullParse(),
+							step.getRuleName(), step.getStart(), step.getEnd());
+					final CKYParseStep<LogicalExpression> copy2 = new CKYParseStep<LogicalExpression>(
+							step.getRoot(), left, right, step.isFullParse(),
+							step.getRuleName(), step.getStart(), step.getEnd());
+					Assert.assertEquals(copy1, copy2);
+					Assert.assertEquals(copy1.hashCode(), copy2.hashCode());
+					Assert.assertNotEquals(copy1,
+							new CKYParseStep<LogicalExpression>(step.getRoot(),
+									right, left, step.isFullParse(),
+									step.getRuleName(), step.getStart(),
+									step.getEnd()));
+				}
+			}
+		}
+		Assert.assertTrue(numBinary > 0);
+	}
+
+	/**
+	 * With a deadline that already passed, only single tokens are processed
+	 * and the best partial derivations are token cells. Without a deadline,
+	 * the partial derivations are the best complete parses, if any.
+	 */
+	@Test
+	public void test5() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(4, false);
+		final CKYParser<Sentence, LogicalExpression> parser = createParser();
+		for (final String string : CKYTestServices.SENTENCES) {
+			final Sentence sentence = new Sentence(string);
+			CKYTestServices.assertTokenPartialDerivations(parser.parse(
+					sentence, model.createDataItemModel(sentence), 0L));
+
+			final CKYParserOutput<LogicalExpression> output = parser.parse(
+					sentence, model.createDataItemModel(sentence),
+					Long.MAX_VALUE);
+			CKYTestServices.assertSameOutput(parser.parse(sentence,
+					model.createDataItemModel(sentence)), output);
+			if (!output.getBestDerivations().isEmpty()) {
+				Assert.assertEquals(output.getBestDerivations(),
+						output.getBestPartialDerivations());
+			}
+		}
+	}
+
+	/**
+	 * The deadline passes while processing the first span of three tokens.
+	 * The span is completed, all later spans are skipped, and the best partial
+	 * derivations span three tokens.
+	 */
+	@Test
+	public void test6() {
+		final Model<Sentence, LogicalExpression> model = CKYTestServices
+				.createModel(5, false);
+		final Sentence sentence = new Sentence(CKYTestServices.SENTENCES[1]);
+		final long deadline = System.currentTimeMillis() + 500;
+		final CKYParserOutput<LogicalExpression> output = createParser()
+				.parse(sentence, op -> {
+					if (op.getSpan().getEnd() - op.getSpan().getStart() == 2) {
+						while (System.currentTimeMillis() < deadline) {
+							try {
+								Thread.sleep(deadline
+										- System.currentTimeMillis() + 1);
+							} catch (final InterruptedException e) {
+								throw new IllegalStateException(e);
+							}
+						}
+					}
+					return true;
+				}, model.createDataItemModel(sentence), false, null, null,
+						null, deadline);
+		Assert.assertFalse(output.isExact());
+		Assert.assertTrue(output.getAllDerivations().isEmpty());
+		final List<CKYDerivation<LogicalExpression>> partial = output
+				.getBestPartialDerivations();
+		Assert.assertFalse(partial.isEmpty());
+		for (final CKYDerivation<LogicalExpression> derivation : partial) {
+			Assert.assertEquals(2, derivation.getCell().getEnd()
+					- derivation.getCell().getStart());
+		}
+		for (int start = 0; start + 3 < sentence.getTokens().size(); ++start) {
+			Assert.assertEquals(0,
+					output.getChart().spanSize(start, start + 3));
+		}
+	}
+
+	/**
+	 * Records the names of the threads applying the rule.
+	 */
+	private static class ThreadRecordingRule implements
+			IBinaryParseRule<LogicalExpression> {
+		private static final long							serialVersionUID	= -2001863567466412850L;
+		private final IBinaryParseRule<LogicalExpression>	rule;
+		private final Set<String>							threads;
+
+		public ThreadRecordingRule(IBinaryParseRule<LogicalExpression> rule,
+				Set<String> threads) {
+			this.rule = rule;
+			this.threads = threads;
+		}
+
+		@Override
+		public ParseRuleResult<LogicalExpression> apply(
+				Category<LogicalExpression> left,
+				Category<LogicalExpression> right, SentenceSpan span) {
+			threads.add(Thread.currentThread().getName());
+			return rule.apply(left, right, span);
+		}
+
+		@Override
+		public Set<Syntax> applySyntax(Syntax left, Syntax right,
+				SentenceSpan span) {
+			return rule.applySyntax(left, right, span);
+		}
+
+		@Override
+		public RuleName getName() {
+			return rule.getName();
+		}
+
+		@Override
+		public boolean isValidArgument(Syntax left, Syntax right) {
+			return rule.isValidArgument(left, right);
+		}
+	}
+
+}
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.rules;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.ccg.categories.Category;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.RuleName.Direction;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.lambda.application.ForwardReversibleApplication;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.lambda.typeshifting.AdjectiveTypeShifting;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.primitivebinary.punctuation.PunctuationRule;
+import edu.cornell.cs.nlp.utils.collections.SetUtils;
+
+public class ParseRuleCacheTest {
+
+	private final Category<LogicalExpression>	left;
+	private final Category<LogicalExpression>	right;
+	private final SentenceSpan					span	= new SentenceSpan(0,
+			1, 2);
+
+	public ParseRuleCacheTest() {
+		TestServices.init();
+		this.left = TestServices.getCategoryServices()
+				.read("S/NP : (lambda $0:e (next_to:<lo,<lo,t>> texas:s $0))");
+		this.right = TestServices.getCategoryServices().read("NP : utah:s");
+	}
+
+	/**
+	 * Rules that share a name don't share cache entries.
+	 */
+	@Test
+	public void test1() {
+		final ParseRuleCache<LogicalExpression> cache = new ParseRuleCache<LogicalExpression>(
+				100);
+		final RuleName name = RuleName.create("const", Direction.FORWARD);
+		final IBinaryParseRule<LogicalExpression> rule1 = cache
+				.wrap(new ConstantRule(name, left));
+		final IBinaryParseRule<LogicalExpression> rule2 = cache
+				.wrap(new ConstantRule(name, right));
+		Assert.assertEquals(left,
+				rule1.apply(left, right, span).getResultCategory());
+		Assert.assertEquals(right,
+				rule2.apply(left, right, span).getResultCategory());
+		Assert.assertEquals(left,
+				rule1.apply(left, right, span).getResultCategory());
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals(1, cache.getHitCount());
+	}
+
+	/**
+	 * Failed applications are cached too.
+	 */
+	@Test
+	public void test2() {
+		final ParseRuleCache<LogicalExpression> cache = new ParseRuleCache<LogicalExpression>(
+				100);
+		final IBinaryParseRule<LogicalExpression> rule = cache
+				.wrap(new ConstantRule(
+						RuleName.create("const", Direction.FORWARD), null));
+		Assert.assertNull(rule.apply(left, right, span));
+		Assert.assertNull(rule.apply(left, right, span));
+		Assert.assertEquals(1, cache.size());
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertEquals(1, cache.getMissCount());
+	}
+
+	/**
+	 * Wrapping preserves the binary reversible interface.
+	 */
+	@Test
+	public void test3() {
+		final ParseRuleCache<LogicalExpression> cache = new ParseRuleCache<LogicalExpression>(
+				100);
+		Assert.assertTrue(cache.wrap(new PunctuationRule<LogicalExpression>())
+				instanceof IBinaryReversibleParseRule);
+		final ForwardReversibleApplication rule = new ForwardReversibleApplication(
+				TestServices.getCategoryServices(), 3, 9, false,
+				SetUtils.createSet("sg", "pl"));
+		final IBinaryParseRule<LogicalExpression> wrapped = cache.wrap(rule);
+		Assert.assertTrue(wrapped instanceof IBinaryReversibleParseRule);
+		final Category<LogicalExpression> result = wrapped
+				.apply(left, right, span).getResultCategory();
+		final Set<Category<LogicalExpression>> expected = rule
+				.reverseApplyLeft(left, result, span);
+		Assert.assertFalse(expected.isEmpty());
+		Assert.assertEquals(expected,
+				((IBinaryReversibleParseRule<LogicalExpression>) wrapped)
+						.reverseApplyLeft(left, result, span));
+		Assert.assertEquals(rule.reverseApplyRight(right, result, span),
+				((IBinaryReversibleParseRule<LogicalExpression>) wrapped)
+						.reverseApplyRight(right, result, span));
+		Assert.assertFalse(
+				cache.wrap(new ConstantRule(
+						RuleName.create("const", Direction.FORWARD),
+						null)) instanceof IBinaryReversibleParseRule);
+	}
+
+	/**
+	 * Wrapping preserves the unary reversible interface.
+	 */
+	@Test
+	public void test4() {
+		final ParseRuleCache<LogicalExpression> cache = new ParseRuleCache<LogicalExpression>(
+				100);
+		final AdjectiveTypeShifting rule = new AdjectiveTypeShifting(
+				TestServices.getCategoryServices());
+		final IUnaryParseRule<LogicalExpression> wrapped = cache.wrap(rule);
+		Assert.assertTrue(wrapped instanceof IUnaryReversibleParseRule);
+		final Category<LogicalExpression> result = wrapped
+				.apply(TestServices.getCategoryServices()
+						.read("ADJ : (lambda $0:e (state:<s,t> $0))"), span)
+				.getResultCategory();
+		final Set<Category<LogicalExpression>> expected = rule
+				.reverseApply(result, span);
+		Assert.assertFalse(expected.isEmpty());
+		Assert.assertEquals(expected,
+				((IUnaryReversibleParseRule<LogicalExpression>) wrapped)
+						.reverseApply(result, span));
+	}
+
+	/**
+	 * Rules without a syntax-only implementation fall back to full
+	 * application, also when wrapped by the cache.
+	 */
+	@Test
+	public void test5() {
+		final ParseRuleCache<LogicalExpression> cache = new ParseRuleCache<LogicalExpression>(
+				100);
+		final RuleName name = RuleName.create("const", Direction.FORWARD);
+		final IBinaryParseRule<LogicalExpression> rule = cache
+				.wrap(new ConstantRule(name, left));
+		Assert.assertEquals(Collections.singleton(left.getSyntax()),
+				rule.applySyntax(left.getSyntax(), right.getSyntax(), span));
+		Assert.assertTrue(new ConstantRule(name, null)
+				.applySyntax(left.getSyntax(), right.getSyntax(), span)
+				.isEmpty());
+	}
+
+	private static class ConstantRule
+			implements IBinaryParseRule<LogicalExpression> {
+		private static final long					serialVersionUID	= 2891006384364478962L;
+		private final RuleName						name;
+		private final Category<LogicalExpression>	result;
+
+		public ConstantRule(RuleName name,
+				Category<LogicalExpression> result) {
+			this.name = name;
+			this.result = result;
+		}
+
+		@Override
+		public ParseRuleResult<LogicalExpression> apply(
+				Category<LogicalExpression> leftCategory,
+				Category<LogicalExpression> rightCategory,
+				SentenceSpan sentenceSpan) {
+			return result == null ? null
+					: new ParseRuleResult<LogicalExpression>(name, result);
+		}
+
+		@Override
+		public RuleName getName() {
+			return name;
+		}
+
+		@Override
+		public boolean isValidArgument(Syntax leftSyntax,
+				Syntax rightSyntax) {
+			return true;
+		}
+	}
+
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.rules.coordination;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.ccg.categories.Category;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalConstant;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.IBinaryParseRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.ParseRuleResult;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.SentenceSpan;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.coordination.lambda.LogicalExpressionCoordinationServices;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.primitivebinary.application.BackwardApplication;
+
+public class CoordinationRuleTest {
+
+	private final CoordinationRule<LogicalExpression>	rule;
+
+	public CoordinationRuleTest() {
+		TestServices.init();
+		this.rule = CoordinationRule
+				.create(new LogicalExpressionCoordinationServices(
+						(LogicalConstant) TestServices.getCategoryServices()
+								.readSemantics("conj:c"),
+						(LogicalConstant) TestServices
+								.getCategoryServices().readSemantics(
+										"disj:c"), TestServices
+								.getCategoryServices()));
+	}
+
+	/**
+	 * Syntax-only application over-approximates each coordination rule, on
+	 * categories created by coordinating "utah and texas".
+	 */
+	@Test
+	public void test() {
+		final SentenceSpan span = new SentenceSpan(0, 1, 2);
+		final List<Category<LogicalExpression>> categories = new ArrayList<Category<LogicalExpression>>();
+		categories.add(TestServices.getCategoryServices().read("C : conj:c"));
+		categories.add(TestServices.getCategoryServices().read(
+				"NP : texas:s"));
+		categories.add(TestServices.getCategoryServices().read(
+				"S : (next_to:<lo,<lo,t>> utah:s texas:s)"));
+		categories.add(TestServices.getCategoryServices().read(
+				"S\\NP/NP : (lambda $0:e (lambda $1:e (next_to:<lo,<lo,t>> $1 $0)))"));
+
+		// Close the categories under the coordination rules and backward
+		// application, to create the intermediate coordination categories.
+		final BackwardApplication<LogicalExpression> application = new BackwardApplication<LogicalExpression>(
+				TestServices.getCategoryServices());
+		for (int i = 0; i < 2; ++i) {
+			final List<Category<LogicalExpression>> created = new ArrayList<Category<LogicalExpression>>();
+			for (final Category<LogicalExpression> left : categories) {
+				for (final Category<LogicalExpression> right : categories) {
+					final ParseRuleResult<LogicalExpression> result = application
+							.apply(left, right, span);
+					if (result != null) {
+						created.add(result.getResultCategory());
+					}
+					for (final IBinaryParseRule<LogicalExpression> coordination : rule) {
+						final ParseRuleResult<LogicalExpression> coordinated = coordination
+								.apply(left, right, span);
+						if (coordinated != null) {
+							created.add(coordinated.getResultCategory());
+						}
+					}
+				}
+			}
+			categories.addAll(created);
+		}
+
+		for (final IBinaryParseRule<LogicalExpression> coordination : rule) {
+			int numResults = 0;
+			for (final Category<LogicalExpression> left : categories) {
+				for (final Category<LogicalExpression> right : categories) {
+					final ParseRuleResult<LogicalExpression> result = coordination
+							.apply(left, right, span);
+					if (result != null) {
+						++numResults;
+						Assert.assertTrue(
+								left + " " + right,
+								coordination.applySyntax(left.getSyntax(),
+										right.getSyntax(), span).contains(
+										result.getResultCategory()
+												.getSyntax()));
+					}
+				}
+			}
+			Assert.assertTrue(coordination.toString(), numResults > 0);
+		}
+	}
+
+}
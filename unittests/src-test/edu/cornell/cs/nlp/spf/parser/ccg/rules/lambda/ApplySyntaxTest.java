@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.rules.lambda;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.ccg.categories.Category;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.IBinaryParseRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.IUnaryParseRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.ParseRuleResult;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.SentenceSpan;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.lambda.typeraising.ForwardTypeRaisedComposition;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.lambda.typeshifting.AdjectiveTypeShifting;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.lambda.typeshifting.AdverbialTypeShifting;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.lambda.typeshifting.PrepositionTypeShifting;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.lambda.typeshifting.SententialAdverbialTypeShifting;
+
+/**
+ * Syntax-only application must over-approximate the full rules: the syntax of
+ * every result of a rule is returned by its syntax-only application.
+ */
+public class ApplySyntaxTest {
+
+	private static final String[]					CATEGORIES	= {
+			"N : (lambda $0:e (state:<s,t> $0))", "NP : texas:s",
+			"S : (next_to:<lo,<lo,t>> utah:s texas:s)",
+			"S : (lambda $0:e (next_to:<lo,<lo,t>> $0 texas:s))",
+			"S/NP : (lambda $0:e (next_to:<lo,<lo,t>> texas:s $0))",
+			"S\\NP : (lambda $0:e (next_to:<lo,<lo,t>> $0 texas:s))",
+			"S\\NP/NP : (lambda $0:e (lambda $1:e (next_to:<lo,<lo,t>> $1 $0)))",
+			"ADJ : (lambda $0:e (state:<s,t> $0))",
+			"AP : (lambda $0:e (next_to:<lo,<lo,t>> $0 utah:s))",
+			"PP : (lambda $0:e (next_to:<lo,<lo,t>> $0 texas:s))" };
+
+	private final List<Category<LogicalExpression>>	categories;
+
+	public ApplySyntaxTest() {
+		TestServices.init();
+		this.categories = new ArrayList<Category<LogicalExpression>>();
+		for (final String string : CATEGORIES) {
+			categories.add(TestServices.getCategoryServices().read(string));
+		}
+	}
+
+	@Test
+	public void test1() {
+		assertOverApproximates(new ThatlessRelative(
+				TestServices.getCategoryServices()));
+	}
+
+	@Test
+	public void test2() {
+		assertOverApproximates(new PluralExistentialTypeShifting(
+				TestServices.getCategoryServices()));
+	}
+
+	@Test
+	public void test3() {
+		assertOverApproximates(new ForwardTopicalizedApplication(
+				TestServices.getCategoryServices()));
+	}
+
+	@Test
+	public void test4() {
+		assertOverApproximates(new ForwardTypeRaisedComposition(
+				TestServices.getCategoryServices()));
+	}
+
+	@Test
+	public void test5() {
+		assertOverApproximates(new SententialAdverbialTypeShifting(
+				TestServices.getCategoryServices()));
+		assertOverApproximates(new AdjectiveTypeShifting(
+				TestServices.getCategoryServices()));
+		assertOverApproximates(new AdverbialTypeShifting(
+				TestServices.getCategoryServices()));
+		assertOverApproximates(new PrepositionTypeShifting(
+				TestServices.getCategoryServices()));
+	}
+
+	private void assertOverApproximates(IBinaryParseRule<LogicalExpression> rule) {
+		final SentenceSpan span = new SentenceSpan(0, 1, 2);
+		int numResults = 0;
+		for (final Category<LogicalExpression> left : categories) {
+			for (final Category<LogicalExpression> right : categories) {
+				final ParseRuleResult<LogicalExpression> result = rule.apply(
+						left, right, span);
+				if (result != null) {
+					++numResults;
+					Assert.assertTrue(
+							left + " " + right,
+							rule.applySyntax(left.getSyntax(),
+									right.getSyntax(), span).contains(
+									result.getResultCategory().getSyntax()));
+				}
+			}
+		}
+		Assert.assertTrue(rule.toString(), numResults > 0);
+	}
+
+	private void assertOverApproximates(IUnaryParseRule<LogicalExpression> rule) {
+		final SentenceSpan span = new SentenceSpan(0, 0, 1);
+		int numResults = 0;
+		for (final Category<LogicalExpression> category : categories) {
+			final ParseRuleResult<LogicalExpression> result = rule.apply(
+					category, span);
+			if (result != null) {
+				++numResults;
+				Assert.assertTrue(
+						category.toString(),
+						rule.applySyntax(category.getSyntax(), span).contains(
+								result.getResultCategory().getSyntax()));
+			}
+		}
+		Assert.assertTrue(rule.toString(), numResults > 0);
+	}
+
+}
@@ -16,11 +16,14 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.rules.primitivebinary.composition;
 
+import java.util.Collections;
+
 import org.junit.Assert;
 import org.junit.Test;
 
 import edu.cornell.cs.nlp.spf.TestServices;
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
 import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.ParseRuleResult;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.SentenceSpan;
@@ -42,8 +45,14 @@ public class ForwardCompositionTest {
 				.read("N[pl]\\(N[x]/N[x]) : (lambda $0:<<e,t>,<e,t>> (lambda $1:e (and:<t*,t> (person:<e,t> $1) (c_ARGX-of:<e,<e,t>> $1 (a:<id,<<e,t>,e>> na:id (lambda $2:e ($0 (lambda $3:e (expert-41:<e,t> $3)) $2)))))))");
 		final ForwardComposition<LogicalExpression> rule = new ForwardComposition<LogicalExpression>(
 				TestServices.getCategoryServices(), 1, true);
+		Assert.assertTrue(rule.isValidArgument(primary.getSyntax(),
+				secondary.getSyntax()));
 		final ParseRuleResult<LogicalExpression> result = rule.apply(primary,
 				secondary, new SentenceSpan(0, 1, 2));
+		Assert.assertEquals(
+				Collections.singleton(result.getResultCategory().getSyntax()),
+				rule.applySyntax(primary.getSyntax(), secondary.getSyntax(),
+						new SentenceSpan(0, 1, 2)));
 		Assert.assertEquals(
 				">xcomp1->NP\\(N[x]/N[x]) : (lambda $0:<<e,t>,<e,t>> (lambda $1:e (and:<t*,t> (person:<e,t> $1) (c_ARGX-of:<e,<e,t>> $1 (a:<id,<<e,t>,e>> na:id (lambda $2:e ($0 (lambda $3:e (expert-41:<e,t> $3)) $2)))) (c_ARGX:<e,<e,t>> $1 (a:<id,<<e,t>,e>> na:id (lambda $4:e (and:<t*,t> (oppose-01:<e,t> $4) (c_ARGX:<e,<e,t>> $4 (a:<id,<<e,t>,e>> na:id (lambda $5:e (terrorism:<e,t> $5)))))))))))",
 				result.toString());
@@ -59,10 +68,35 @@ public class ForwardCompositionTest {
 				.read("N[x]/N[x] : (lambda $0:<e,t> (lambda $1:e (and:<t*,t> ($0 $1) (c_ARGX-of:<e,<e,t>> $1 (a:<id,<<e,t>,e>> na:id (lambda $2:e (and:<t*,t> (manufacture-01:<e,t> $2) (c_ARGX:<e,<e,t>> $2 (a:<id,<<e,t>,e>> na:id (lambda $3:e (and:<t*,t> (c_REL:<e,<e,t>> $3 (a:<id,<<e,t>,e>> na:id (lambda $4:e (and:<t*,t> (name:<e,t> $4) (c_op:<e,<e,t>> $4 KTX:e))))) (railway-line:<e,t> $3))))) (c_ARGX-of:<e,<e,t>> $2 (a:<id,<<e,t>,e>> na:id (lambda $5:e (and:<t*,t> (c_ARGX:<e,<e,t>> $5 (a:<id,<<e,t>,e>> na:id (lambda $6:e (and:<t*,t> (c_REL:<e,<e,t>> $6 (a:<id,<<e,t>,e>> na:id (lambda $7:e (and:<t*,t> (c_op:<e,<e,t>> $7 South++Korea:e) (name:<e,t> $7))))) (country:<e,t> $6))))) (cause-01:<e,t> $5))))))))))))");
 		final ForwardComposition<LogicalExpression> rule = new ForwardComposition<LogicalExpression>(
 				TestServices.getCategoryServices(), 1, false);
+		Assert.assertTrue(rule.isValidArgument(primary.getSyntax(),
+				secondary.getSyntax()));
 		final ParseRuleResult<LogicalExpression> result = rule.apply(primary,
 				secondary, new SentenceSpan(0, 1, 2));
+		Assert.assertEquals(
+				Collections.singleton(result.getResultCategory().getSyntax()),
+				rule.applySyntax(primary.getSyntax(), secondary.getSyntax(),
+						new SentenceSpan(0, 1, 2)));
 		Assert.assertEquals(
 				">comp1->N[x]/N[x] : (lambda $0:<e,t> (lambda $1:e (and:<t*,t> ($0 $1) (c_ARGX-of:<e,<e,t>> $1 (a:<id,<<e,t>,e>> na:id (lambda $2:e (and:<t*,t> (manufacture-01:<e,t> $2) (c_ARGX:<e,<e,t>> $2 (a:<id,<<e,t>,e>> na:id (lambda $3:e (and:<t*,t> (c_REL:<e,<e,t>> $3 (a:<id,<<e,t>,e>> na:id (lambda $4:e (and:<t*,t> (name:<e,t> $4) (c_op:<e,<e,t>> $4 KTX:e))))) (railway-line:<e,t> $3))))) (c_ARGX-of:<e,<e,t>> $2 (a:<id,<<e,t>,e>> na:id (lambda $5:e (and:<t*,t> (c_ARGX:<e,<e,t>> $5 (a:<id,<<e,t>,e>> na:id (lambda $6:e (and:<t*,t> (c_REL:<e,<e,t>> $6 (a:<id,<<e,t>,e>> na:id (lambda $7:e (and:<t*,t> (c_op:<e,<e,t>> $7 South++Korea:e) (name:<e,t> $7))))) (country:<e,t> $6))))) (cause-01:<e,t> $5))))))))) (c_ARGX-of:<e,<e,t>> $1 (a:<id,<<e,t>,e>> na:id (lambda $8:e (and:<t*,t> (use-01:<e,t> $8) (c_ARGX:<e,<e,t>> $8 (a:<id,<<e,t>,e>> na:id (lambda $9:e (technology:<e,t> $9)))))))))))",
 				result.toString());
 	}
+
+	@Test
+	public void testIsValidArgument() {
+		final ForwardComposition<LogicalExpression> rule = new ForwardComposition<LogicalExpression>(
+				TestServices.getCategoryServices(), 1, false);
+		final ForwardComposition<LogicalExpression> crossRule = new ForwardComposition<LogicalExpression>(
+				TestServices.getCategoryServices(), 1, true);
+		final Syntax forward = Syntax.read("N/N");
+		final Syntax backward = Syntax.read("N\\N");
+		Assert.assertTrue(rule.isValidArgument(forward, forward));
+		Assert.assertFalse(rule.isValidArgument(forward, backward));
+		Assert.assertFalse(rule.isValidArgument(backward, forward));
+		Assert.assertFalse(rule.isValidArgument(forward, Syntax.N));
+		Assert.assertFalse(rule.isValidArgument(Syntax.read("S/NP"), forward));
+		Assert.assertTrue(crossRule.isValidArgument(forward, backward));
+		Assert.assertFalse(crossRule.isValidArgument(forward, forward));
+		Assert.assertTrue(rule.applySyntax(forward, backward,
+				new SentenceSpan(0, 1, 2)).isEmpty());
+	}
 }
@@ -16,6 +16,8 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.rules.skolem;
 
+import java.util.Collections;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -56,6 +58,8 @@ public class SkolemIDRuleTest {
 				.read("NP : (io:<id,<id,<<e,t>,e>>> !1 na:id (lambda $0:e (apple:<e,t> $0)))");
 		Assert.assertEquals(expected, rule.apply(category, null)
 				.getResultCategory());
+		Assert.assertEquals(Collections.singleton(expected.getSyntax()),
+				rule.applySyntax(category.getSyntax(), null));
 	}
 
 	@Test
@@ -394,7 +394,9 @@ public class ParseUtil extends DistributedExperiment {
 				reportBadParse(sloppyParserOutput.getAllDerivations());
 			}
 
+			sloppyParserOutput.release();
 		}
+		parserOutput.release();
 	}
 
 	private void reportBadParse(